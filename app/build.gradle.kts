@@ -25,10 +25,35 @@ android {
         // RAWG Games API 
         buildConfigField("String", "RAWG_API_KEY", "\"d81d4e0fba794cbe8de9d4dcefd14c5b\"")
         buildConfigField("String", "RAWG_BASE_URL", "\"https://api.rawg.io/api/\"")
+        
+        // Лимиты частоты запросов к API: запросов в минуту и допустимый всплеск
+        buildConfigField("int", "TMDB_REQUESTS_PER_MINUTE", "1200")
+        buildConfigField("int", "TMDB_REQUEST_BURST", "20")
+        buildConfigField("int", "GOOGLE_BOOKS_REQUESTS_PER_MINUTE", "60")
+        buildConfigField("int", "GOOGLE_BOOKS_REQUEST_BURST", "5")
+        buildConfigField("int", "RAWG_REQUESTS_PER_MINUTE", "120")
+        buildConfigField("int", "RAWG_REQUEST_BURST", "10")
+        
+        // Экспорт схем Room по версиям: по ним проверяются миграции
+        javaCompileOptions {
+            annotationProcessorOptions {
+                arguments += mapOf("room.schemaLocation" to "$projectDir/schemas")
+            }
+        }
+    }
+    
+    sourceSets {
+        // Схемы доступны MigrationTestHelper как assets
+        getByName("androidTest").assets.srcDir("$projectDir/schemas")
     }
 
     buildTypes {
+        debug {
+            // Тела ответов не логируются: BODY буферизует и преобразует в строку каждый ответ
+            buildConfigField("String", "HTTP_LOG_LEVEL", "\"BASIC\"")
+        }
         release {
+            buildConfigField("String", "HTTP_LOG_LEVEL", "\"NONE\"")
             isMinifyEnabled = false
             proguardFiles(
                 getDefaultProguardFile("proguard-android-optimize.txt"),
@@ -47,6 +72,14 @@ android {
         viewBinding = true
         buildConfig = true
     }
+    testOptions {
+        // android.util.Log в локальных тестах возвращает значения по умолчанию
+        unitTests.isReturnDefaultValues = true
+        // Замеры скорости в локальных тестах пропускаются, запуск: ./gradlew test -Pbenchmarks=true
+        unitTests.all {
+            it.systemProperty("recmaster.benchmarks", (project.findProperty("benchmarks") ?: "false").toString())
+        }
+    }
 }
 
 dependencies {
@@ -88,6 +121,10 @@ dependencies {
     
     // Тесты
     testImplementation(libs.junit)
+    testImplementation(libs.okhttp.mockwebserver)
+    // LiveData в локальных тестах
+    testImplementation(libs.arch.core.testing)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
+    androidTestImplementation("androidx.room:room-testing:2.6.1")
 }
\ No newline at end of file
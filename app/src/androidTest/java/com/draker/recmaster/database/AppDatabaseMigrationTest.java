@@ -0,0 +1,273 @@
+package com.draker.recmaster.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+import androidx.room.Room;
+import androidx.room.migration.Migration;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.draker.recmaster.database.entity.MovieEntity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Проверка миграций на заполненной базе: база версии 3 с каталогом, историей просмотров
+ * и прогрессом достижений обновляется до текущей версии, схема сверяется с экспортированной,
+ * данные пользователя и кэш должны сохраниться. Промежуточные версии проверяются по данным:
+ * их схемы не экспортировались, экспортирована только текущая (ее создает сборка)
+ */
+@RunWith(AndroidJUnit4.class)
+public class AppDatabaseMigrationTest {
+
+    private static final String TEST_DB = "migration-test";
+    private static final int CURRENT_VERSION = 7;
+
+    /**
+     * Схема версии 3 в том виде, в каком ее создавал Room (экспорт схем тогда был выключен)
+     */
+    private static final String[] VERSION_3_SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS `movies` (`id` INTEGER NOT NULL, `title` TEXT, `overview` TEXT, "
+                    + "`posterPath` TEXT, `backdropPath` TEXT, `voteAverage` REAL NOT NULL, `voteCount` INTEGER NOT NULL, "
+                    + "`releaseDate` TEXT, `genreIds` TEXT, `popularity` REAL NOT NULL, `adult` INTEGER NOT NULL, "
+                    + "`watched` INTEGER NOT NULL, `watchedDate` INTEGER, `userRating` INTEGER NOT NULL, "
+                    + "`userNotes` TEXT, PRIMARY KEY(`id`))",
+            "CREATE TABLE IF NOT EXISTS `users` (`username` TEXT NOT NULL, `email` TEXT, `password` TEXT, "
+                    + "`level` INTEGER NOT NULL, `experience` INTEGER NOT NULL, `preferredGenres` TEXT, "
+                    + "`avatarUri` TEXT, PRIMARY KEY(`username`))",
+            "CREATE TABLE IF NOT EXISTS `watch_history` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`username` TEXT, `movieId` INTEGER NOT NULL, `watchedDate` INTEGER, `userRating` INTEGER NOT NULL, "
+                    + "`userNotes` TEXT, `experienceGained` INTEGER NOT NULL, "
+                    + "FOREIGN KEY(`username`) REFERENCES `users`(`username`) ON UPDATE NO ACTION ON DELETE CASCADE , "
+                    + "FOREIGN KEY(`movieId`) REFERENCES `movies`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )",
+            "CREATE INDEX IF NOT EXISTS `index_watch_history_username` ON `watch_history` (`username`)",
+            "CREATE INDEX IF NOT EXISTS `index_watch_history_movieId` ON `watch_history` (`movieId`)",
+            "CREATE TABLE IF NOT EXISTS `achievements` (`id` TEXT NOT NULL, `title` TEXT, `description` TEXT, "
+                    + "`iconResourceName` TEXT, `pointsReward` INTEGER NOT NULL, `achievementType` TEXT, "
+                    + "`threshold` INTEGER NOT NULL, PRIMARY KEY(`id`))",
+            "CREATE UNIQUE INDEX IF NOT EXISTS `index_achievements_id` ON `achievements` (`id`)",
+            "CREATE TABLE IF NOT EXISTS `user_achievements` (`username` TEXT NOT NULL, `achievementId` TEXT NOT NULL, "
+                    + "`currentProgress` INTEGER NOT NULL, `unlocked` INTEGER NOT NULL, `unlockedDate` INTEGER, "
+                    + "`notified` INTEGER NOT NULL, PRIMARY KEY(`username`, `achievementId`), "
+                    + "FOREIGN KEY(`username`) REFERENCES `users`(`username`) ON UPDATE NO ACTION ON DELETE CASCADE , "
+                    + "FOREIGN KEY(`achievementId`) REFERENCES `achievements`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )",
+            "CREATE INDEX IF NOT EXISTS `index_user_achievements_username` ON `user_achievements` (`username`)",
+            "CREATE INDEX IF NOT EXISTS `index_user_achievements_achievementId` ON `user_achievements` (`achievementId`)",
+            "CREATE TABLE IF NOT EXISTS `tv_shows` (`id` INTEGER NOT NULL, `name` TEXT, `overview` TEXT, "
+                    + "`posterPath` TEXT, `backdropPath` TEXT, `voteAverage` REAL NOT NULL, `voteCount` INTEGER NOT NULL, "
+                    + "`firstAirDate` TEXT, `genreIds` TEXT, `popularity` REAL NOT NULL, `numberOfSeasons` INTEGER NOT NULL, "
+                    + "`numberOfEpisodes` INTEGER NOT NULL, `status` TEXT, `savedTimestamp` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`id`))",
+            "CREATE TABLE IF NOT EXISTS `books` (`id` TEXT NOT NULL, `title` TEXT, `authors` TEXT, `publisher` TEXT, "
+                    + "`publishedDate` TEXT, `description` TEXT, `pageCount` INTEGER NOT NULL, `categories` TEXT, "
+                    + "`averageRating` REAL NOT NULL, `ratingsCount` INTEGER NOT NULL, `language` TEXT, "
+                    + "`previewLink` TEXT, `infoLink` TEXT, `canonicalVolumeLink` TEXT, `imageLinksJson` TEXT, "
+                    + "`savedTimestamp` INTEGER NOT NULL, PRIMARY KEY(`id`))",
+            "CREATE TABLE IF NOT EXISTS `games` (`id` INTEGER NOT NULL, `name` TEXT, `slug` TEXT, `released` TEXT, "
+                    + "`backgroundImage` TEXT, `rating` REAL NOT NULL, `genresJson` TEXT, `platformsJson` TEXT, "
+                    + "`developersJson` TEXT, `publishersJson` TEXT, `description` TEXT, `metacritic` INTEGER NOT NULL, "
+                    + "`playtime` INTEGER NOT NULL, `storesJson` TEXT, `website` TEXT, `savedTimestamp` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`id`))"
+    };
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), AppDatabase.class);
+
+    private Context context;
+    private final List<SupportSQLiteOpenHelper> openHelpers = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        for (SupportSQLiteOpenHelper openHelper : openHelpers) {
+            openHelper.close();
+        }
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void migrateFromVersion3KeepsUserDataAndCache() throws IOException {
+        createVersion3Database();
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(
+                TEST_DB, CURRENT_VERSION, true, AppDatabase.ALL_MIGRATIONS);
+
+        // Кэш каталога и пользовательские поля фильмов
+        assertEquals(2, queryLong(db, "SELECT COUNT(*) FROM movies"));
+        assertEquals(1, queryLong(db, "SELECT COUNT(*) FROM movies WHERE id = 1 AND watched = 1 AND userRating = 5 AND runtime = 0 AND contentHash = 0"));
+        assertEquals(1, queryLong(db, "SELECT COUNT(*) FROM tv_shows"));
+        assertEquals(1, queryLong(db, "SELECT COUNT(*) FROM books"));
+        assertEquals(1, queryLong(db, "SELECT COUNT(*) FROM games"));
+
+        // История и достижения
+        assertEquals(1, queryLong(db, "SELECT COUNT(*) FROM watch_history WHERE username = 'alice' AND movieId = 1"));
+        assertEquals(1, queryLong(db, "SELECT COUNT(*) FROM user_achievements WHERE unlocked = 1 AND currentProgress = 1"));
+        assertEquals(150, queryLong(db, "SELECT experience FROM users WHERE username = 'alice'"));
+
+        // 4 -> 5: связи с жанрами восстановлены из JSON
+        assertEquals(4, queryLong(db, "SELECT COUNT(*) FROM movie_genres"));
+        assertEquals(2, queryLong(db, "SELECT COUNT(*) FROM movie_genres WHERE genreId = 28"));
+        assertEquals(1, queryLong(db, "SELECT COUNT(*) FROM tv_genres WHERE tvShowId = 10 AND genreId = 18"));
+
+        // 5 -> 6: полнотекстовые индексы заполнены
+        assertEquals(1, queryLong(db, "SELECT rowid FROM movies_fts WHERE movies_fts MATCH 'войн*'"));
+        assertEquals(10, queryLong(db, "SELECT rowid FROM tv_shows_fts WHERE tv_shows_fts MATCH 'тяжк*'"));
+        assertEquals(100, queryLong(db, "SELECT rowid FROM games_fts WHERE games_fts MATCH 'ведьм*'"));
+        assertEquals(1, queryLong(db, "SELECT COUNT(*) FROM books_fts WHERE books_fts MATCH 'authors:толст*'"));
+    }
+
+    @Test
+    public void migrateTo4AddsRuntime() {
+        createVersion3Database();
+
+        SupportSQLiteDatabase db = migrateTo(4);
+
+        assertEquals(2, queryLong(db, "SELECT COUNT(*) FROM movies WHERE runtime = 0"));
+        assertEquals(5, queryLong(db, "SELECT userRating FROM movies WHERE id = 1"));
+    }
+
+    @Test
+    public void migrateTo5BackfillsGenreLinks() {
+        createVersion3Database();
+
+        SupportSQLiteDatabase db = migrateTo(5);
+
+        assertEquals(2, queryLong(db, "SELECT COUNT(*) FROM movie_genres WHERE movieId = 1"));
+        assertEquals(2, queryLong(db, "SELECT COUNT(*) FROM movie_genres WHERE movieId = 2"));
+        assertEquals(1, queryLong(db, "SELECT COUNT(*) FROM tv_genres WHERE tvShowId = 10"));
+    }
+
+    @Test
+    public void migrateTo6BuildsFullTextIndexes() {
+        createVersion3Database();
+
+        SupportSQLiteDatabase db = migrateTo(6);
+
+        // Индекс заполнен из существующих строк
+        assertEquals(1, queryLong(db, "SELECT rowid FROM movies_fts WHERE movies_fts MATCH 'галакт*'"));
+        assertEquals(1, queryLong(db, "SELECT COUNT(*) FROM books_fts WHERE books_fts MATCH 'authors:толст*'"));
+
+        // Триггеры поддерживают индекс при изменении таблицы
+        db.execSQL("UPDATE movies SET title = 'Бегущий по лезвию' WHERE id = 2");
+        assertEquals(2, queryLong(db, "SELECT rowid FROM movies_fts WHERE movies_fts MATCH 'бегущ*'"));
+        assertEquals(0, queryLong(db, "SELECT COUNT(*) FROM movies_fts WHERE movies_fts MATCH 'матриц*'"));
+    }
+
+    @Test
+    public void migratedDatabaseOpensWithRoom() {
+        createVersion3Database();
+
+        // Room сверяет схему с сущностями при открытии и бросает исключение при расхождении
+        AppDatabase database = Room.databaseBuilder(context, AppDatabase.class, TEST_DB)
+                .addMigrations(AppDatabase.ALL_MIGRATIONS)
+                .allowMainThreadQueries()
+                .build();
+        try {
+            List<MovieEntity> action = database.movieDao().getMoviesByAnyGenreSync(Arrays.asList(28), 10);
+            assertEquals(2, action.size());
+            // Сортировка по популярности
+            assertEquals(2, action.get(0).getId());
+
+            MovieEntity watched = database.movieDao().getMovieByIdSync(1);
+            assertTrue(watched.isWatched());
+            assertEquals(5, watched.getUserRating());
+            assertEquals(Arrays.asList(12, 28), watched.getGenreIds());
+        } finally {
+            database.close();
+        }
+    }
+
+    private void createVersion3Database() {
+        File file = context.getDatabasePath(TEST_DB);
+        file.getParentFile().mkdirs();
+        try (SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(file, null)) {
+            for (String sql : VERSION_3_SCHEMA) {
+                db.execSQL(sql);
+            }
+
+            db.execSQL("INSERT INTO users (username, email, level, experience) VALUES ('alice', 'alice@example.com', 2, 150)");
+            db.execSQL("INSERT INTO movies (id, title, overview, voteAverage, voteCount, genreIds, popularity, adult, "
+                    + "watched, watchedDate, userRating) "
+                    + "VALUES (1, 'Звёздные войны', 'Давным-давно в далекой галактике', 8.2, 20000, '[12,28]', 50.5, 0, "
+                    + "1, 1700000000000, 5)");
+            db.execSQL("INSERT INTO movies (id, title, overview, voteAverage, voteCount, genreIds, popularity, adult, "
+                    + "watched, userRating) "
+                    + "VALUES (2, 'Матрица', 'Добро пожаловать в реальный мир', 8.7, 25000, '[28,878]', 80.1, 0, 0, 0)");
+            db.execSQL("INSERT INTO watch_history (username, movieId, watchedDate, userRating, experienceGained) "
+                    + "VALUES ('alice', 1, 1700000000000, 5, 50)");
+            db.execSQL("INSERT INTO achievements (id, title, pointsReward, achievementType, threshold) "
+                    + "VALUES ('first_movie', 'Первый шаг', 50, 'WATCH_COUNT', 1)");
+            db.execSQL("INSERT INTO user_achievements (username, achievementId, currentProgress, unlocked, unlockedDate, notified) "
+                    + "VALUES ('alice', 'first_movie', 1, 1, 1700000000000, 1)");
+            db.execSQL("INSERT INTO tv_shows (id, name, overview, voteAverage, voteCount, genreIds, popularity, "
+                    + "numberOfSeasons, numberOfEpisodes, savedTimestamp) "
+                    + "VALUES (10, 'Во все тяжкие', 'Учитель химии', 9.5, 12000, '[18]', 120.0, 5, 62, 1700000000000)");
+            db.execSQL("INSERT INTO books (id, title, authors, description, pageCount, averageRating, ratingsCount, savedTimestamp) "
+                    + "VALUES ('b1', 'Война и мир', '[\"Лев Толстой\"]', 'Роман-эпопея', 1225, 4.5, 900, 1700000000000)");
+            db.execSQL("INSERT INTO games (id, name, rating, description, metacritic, playtime, savedTimestamp) "
+                    + "VALUES (100, 'Ведьмак 3', 4.7, 'Дикая охота', 92, 50, 1700000000000)");
+
+            db.setVersion(3);
+        }
+    }
+
+    /**
+     * Открывает тестовую базу и применяет миграции до указанной версии без сверки схемы
+     */
+    private SupportSQLiteDatabase migrateTo(int version) {
+        SupportSQLiteOpenHelper openHelper = new FrameworkSQLiteOpenHelperFactory().create(
+                SupportSQLiteOpenHelper.Configuration.builder(context)
+                        .name(TEST_DB)
+                        .callback(new SupportSQLiteOpenHelper.Callback(version) {
+                            @Override
+                            public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                                throw new AssertionError("Test database must already exist");
+                            }
+
+                            @Override
+                            public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+                                for (Migration migration : AppDatabase.ALL_MIGRATIONS) {
+                                    if (migration.startVersion >= oldVersion && migration.endVersion <= newVersion) {
+                                        migration.migrate(db);
+                                    }
+                                }
+                            }
+                        })
+                        .build());
+        openHelpers.add(openHelper);
+        return openHelper.getWritableDatabase();
+    }
+
+    private static long queryLong(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            assertTrue("No rows: " + sql, cursor.moveToFirst());
+            return cursor.getLong(0);
+        }
+    }
+}
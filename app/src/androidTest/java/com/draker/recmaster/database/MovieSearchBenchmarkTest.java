@@ -0,0 +1,171 @@
+package com.draker.recmaster.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.draker.recmaster.database.entity.MovieEntity;
+import com.draker.recmaster.database.repository.FtsQuery;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Сравнение полнотекстового поиска по movies_fts с прежним поиском через LIKE
+ * на каталоге из {@link #MOVIE_COUNT} фильмов. Время печатается в logcat (тег MovieSearchBenchmark).
+ * Словарь синтетический, частоты слов неравномерные, как в реальных названиях и описаниях
+ */
+@RunWith(AndroidJUnit4.class)
+public class MovieSearchBenchmarkTest {
+
+    private static final String TAG = "MovieSearchBenchmark";
+
+    private static final int MOVIE_COUNT = 10_000;
+    private static final int VOCABULARY_SIZE = 3000;
+    private static final int QUERY_COUNT = 50;
+    private static final int ROUNDS = 3;
+    private static final int LIMIT = FtsQuery.SEARCH_LIMIT;
+
+    // Прежний запрос MovieDao.searchMovies (только название, без сортировки и ограничения)
+    private static final String LIKE_TITLE_SQL =
+            "SELECT * FROM movies WHERE title LIKE '%' || ? || '%'";
+    // LIKE с тем же охватом и порядком, что и полнотекстовый поиск
+    private static final String LIKE_RANKED_SQL =
+            "SELECT * FROM movies WHERE title LIKE '%' || ? || '%' OR overview LIKE '%' || ? || '%' "
+                    + "ORDER BY title LIKE '%' || ? || '%' DESC, popularity DESC LIMIT " + LIMIT;
+    // Запрос MovieDao.searchMovies
+    private static final String FTS_SQL =
+            "SELECT movies.* FROM movies JOIN movies_fts ON movies.id = movies_fts.rowid "
+                    + "WHERE movies_fts MATCH ? "
+                    + "ORDER BY movies.id IN (SELECT rowid FROM movies_fts WHERE movies_fts MATCH ?) DESC, "
+                    + "movies.popularity DESC LIMIT " + LIMIT;
+
+    private AppDatabase database;
+    private SupportSQLiteDatabase db;
+    private final Random random = new Random(42);
+    private final List<String> vocabulary = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        db = database.getOpenHelper().getWritableDatabase();
+
+        String[] syllables = {"ка", "ро", "ми", "ст", "ва", "ле", "но", "ти", "ар", "за", "по", "де", "су", "ин", "ол",
+                "ре", "ну", "ма", "ве", "ли"};
+        while (vocabulary.size() < VOCABULARY_SIZE) {
+            StringBuilder word = new StringBuilder();
+            for (int i = 2 + random.nextInt(3); i > 0; i--) {
+                word.append(syllables[random.nextInt(syllables.length)]);
+            }
+            if (!vocabulary.contains(word.toString())) {
+                vocabulary.add(word.toString());
+            }
+        }
+
+        List<MovieEntity> movies = new ArrayList<>(MOVIE_COUNT);
+        for (int id = 1; id <= MOVIE_COUNT; id++) {
+            MovieEntity movie = new MovieEntity();
+            movie.setId(id);
+            movie.setTitle(words(2 + random.nextInt(3)));
+            movie.setOverview(words(20 + random.nextInt(20)));
+            movie.setPopularity(random.nextFloat() * 1000);
+            movies.add(movie);
+        }
+        database.movieDao().insertNew(movies);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void ftsSearchIsFasterThanLike() {
+        List<String> queries = new ArrayList<>(QUERY_COUNT);
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            String word = randomWord();
+            queries.add(word.substring(0, Math.min(word.length(), 5)));
+        }
+
+        double likeTitleMs = Double.MAX_VALUE;
+        double likeRankedMs = Double.MAX_VALUE;
+        double ftsMs = Double.MAX_VALUE;
+        int ftsRows = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (String query : queries) {
+                count(LIKE_TITLE_SQL, query);
+            }
+            likeTitleMs = Math.min(likeTitleMs, averageMs(start, queries.size()));
+
+            start = System.nanoTime();
+            for (String query : queries) {
+                count(LIKE_RANKED_SQL, query, query, query);
+            }
+            likeRankedMs = Math.min(likeRankedMs, averageMs(start, queries.size()));
+
+            start = System.nanoTime();
+            ftsRows = 0;
+            for (String query : queries) {
+                ftsRows += count(FTS_SQL, FtsQuery.prefix(query), FtsQuery.prefix(query, "title"));
+            }
+            ftsMs = Math.min(ftsMs, averageMs(start, queries.size()));
+        }
+
+        Log.i(TAG, String.format(Locale.ROOT,
+                "%d movies, %d queries: LIKE title %.2f ms, LIKE title+overview %.2f ms, FTS4 %.2f ms",
+                MOVIE_COUNT, queries.size(), likeTitleMs, likeRankedMs, ftsMs));
+
+        // Запросы взяты из словаря, поэтому поиск должен что-то находить
+        assertTrue(ftsRows > 0);
+        assertTrue("FTS4 " + ftsMs + " ms vs LIKE " + likeRankedMs + " ms", ftsMs < likeRankedMs);
+    }
+
+    private int count(String sql, Object... args) {
+        try (Cursor cursor = db.query(sql, args)) {
+            int rows = 0;
+            while (cursor.moveToNext()) {
+                rows++;
+            }
+            return rows;
+        }
+    }
+
+    private static double averageMs(long startNanos, int queries) {
+        return (System.nanoTime() - startNanos) / 1_000_000.0 / queries;
+    }
+
+    private String words(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(randomWord());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Частые слова встречаются много чаще редких
+     */
+    private String randomWord() {
+        double r = random.nextDouble();
+        return vocabulary.get((int) (r * r * vocabulary.size()));
+    }
+}
@@ -0,0 +1,118 @@
+package com.draker.recmaster.database.repository;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.draker.recmaster.database.AppDatabase;
+import com.draker.recmaster.database.dao.MovieDao;
+import com.draker.recmaster.database.entity.MovieEntity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Сохранение списков TMDB: новые фильмы вставляются, неизмененные не перезаписываются,
+ * у измененных обновляется каталог без потери отметок пользователя и продолжительности
+ */
+@RunWith(AndroidJUnit4.class)
+public class MovieUpsertTest {
+
+    private AppDatabase database;
+    private MovieDao movieDao;
+    private LocalMovieRepository repository;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        movieDao = database.movieDao();
+        repository = new LocalMovieRepository(database);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void unchangedMoviesAreNotWritten() {
+        assertEquals(2, upsert(movie(1, "Начало", 28), movie(2, "Интерстеллар", 878)));
+        assertEquals(0, upsert(movie(1, "Начало", 28), movie(2, "Интерстеллар", 878)));
+
+        MovieEntity stored = movieDao.getMovieByIdSync(1);
+        assertEquals(LocalMovieRepository.catalogHash(movie(1, "Начало", 28)), stored.getContentHash());
+    }
+
+    @Test
+    public void changedMovieKeepsUserState() {
+        upsert(movie(1, "Начало", 28));
+        movieDao.updateWatchedStatus(1, true, 1_700_000_000_000L, 5, "Пересмотреть");
+
+        assertEquals(1, upsert(movie(1, "Начало (2010)", 28)));
+
+        MovieEntity stored = movieDao.getMovieByIdSync(1);
+        assertEquals("Начало (2010)", stored.getTitle());
+        assertTrue(stored.isWatched());
+        assertEquals(5, stored.getUserRating());
+        assertEquals("Пересмотреть", stored.getUserNotes());
+    }
+
+    @Test
+    public void listWithoutRuntimeKeepsLoadedRuntime() {
+        upsert(movie(1, "Начало", 28));
+        movieDao.updateRuntime(1, 148);
+
+        // В списках TMDB продолжительности нет: фильм не считается измененным
+        assertEquals(0, upsert(movie(1, "Начало", 28)));
+        assertEquals(148, movieDao.getMovieByIdSync(1).getRuntime());
+
+        MovieEntity withRuntime = movie(1, "Начало", 28);
+        withRuntime.setRuntime(150);
+        assertEquals(1, upsert(withRuntime));
+        assertEquals(150, movieDao.getMovieByIdSync(1).getRuntime());
+    }
+
+    @Test
+    public void changedGenresReplaceGenreLinks() {
+        upsert(movie(1, "Начало", 28, 878));
+        assertEquals(Arrays.asList(28, 878), sorted(database.movieGenreDao().getGenreIds(1)));
+
+        assertEquals(1, upsert(movie(1, "Начало", 53)));
+        assertEquals(Arrays.asList(53), sorted(database.movieGenreDao().getGenreIds(1)));
+    }
+
+    private int upsert(MovieEntity... movies) {
+        return database.runInTransaction(() -> repository.upsertMovies(Arrays.asList(movies)));
+    }
+
+    private static List<Integer> sorted(List<Integer> values) {
+        List<Integer> copy = new ArrayList<>(values);
+        copy.sort(null);
+        return copy;
+    }
+
+    private static MovieEntity movie(int id, String title, Integer... genreIds) {
+        MovieEntity movie = new MovieEntity();
+        movie.setId(id);
+        movie.setTitle(title);
+        movie.setOverview("Описание " + id);
+        movie.setVoteAverage(8f);
+        movie.setVoteCount(1000);
+        movie.setReleaseDate("2010-07-15");
+        movie.setGenreIds(new ArrayList<>(Arrays.asList(genreIds)));
+        movie.setPopularity(50f);
+        return movie;
+    }
+}
@@ -5,7 +5,9 @@ import android.util.Log;
 
 import androidx.fragment.app.FragmentManager;
 
+import com.draker.recmaster.api.ApiClient;
 import com.draker.recmaster.database.AppDatabase;
+import com.draker.recmaster.model.MoodModel;
 
 /**
  * Кастомный класс Application для инициализации компонентов приложения
@@ -21,6 +23,12 @@ public class RecMasterApplication extends Application {
         // Инициализируем базу данных при запуске приложения
         AppDatabase.getInstance(this);
         
+        // Дисковый кэш HTTP-ответов должен быть настроен до первого запроса
+        ApiClient.init(this);
+        
+        // Загружаем модель настроений до создания экранов рекомендаций
+        MoodModel.load(this);
+        
         // Настраиваем FragmentManager для отображения ошибок
         FragmentManager.enableDebugLogging(true);
         
@@ -0,0 +1,155 @@
+package com.draker.recmaster.adapter;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.request.RequestOptions;
+import com.draker.recmaster.R;
+import com.draker.recmaster.model.Book;
+import com.draker.recmaster.model.Game;
+import com.draker.recmaster.model.Movie;
+import com.draker.recmaster.model.RecommendationItem;
+import com.draker.recmaster.model.TvShow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Адаптер общей выдачи рекомендаций: фильмы, сериалы, книги и игры в одном списке
+ */
+public class RecommendationItemAdapter extends RecyclerView.Adapter<RecommendationItemAdapter.ItemViewHolder> {
+
+    private List<RecommendationItem> items = new ArrayList<>();
+    private final Context context;
+    private final OnItemClickListener listener;
+
+    public interface OnItemClickListener {
+        void onItemClick(RecommendationItem item);
+    }
+
+    public RecommendationItemAdapter(Context context, OnItemClickListener listener) {
+        this.context = context;
+        this.listener = listener;
+    }
+
+    @NonNull
+    @Override
+    public ItemViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_content_card, parent, false);
+        return new ItemViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ItemViewHolder holder, int position) {
+        holder.bind(items.get(position));
+    }
+
+    @Override
+    public int getItemCount() {
+        return items != null ? items.size() : 0;
+    }
+
+    public void setItems(List<RecommendationItem> items) {
+        this.items = items != null ? items : new ArrayList<>();
+        notifyDataSetChanged();
+    }
+
+    class ItemViewHolder extends RecyclerView.ViewHolder {
+        private final ImageView imageContent;
+        private final TextView textTitle;
+        private final TextView textCategory;
+        private final TextView textDescription;
+        private final View chipGroupTags;
+
+        ItemViewHolder(@NonNull View itemView) {
+            super(itemView);
+            imageContent = itemView.findViewById(R.id.image_content);
+            textTitle = itemView.findViewById(R.id.text_content_title);
+            textCategory = itemView.findViewById(R.id.text_content_category);
+            textDescription = itemView.findViewById(R.id.text_content_description);
+            chipGroupTags = itemView.findViewById(R.id.chip_group_tags);
+        }
+
+        void bind(RecommendationItem item) {
+            String title;
+            String description;
+            String imageUrl;
+            int categoryResId;
+            int placeholderResId;
+
+            switch (item.getType()) {
+                case MOVIE: {
+                    Movie movie = item.getMovie();
+                    title = movie.getTitle();
+                    description = movie.getOverview();
+                    imageUrl = movie.getPosterUrl();
+                    categoryResId = R.string.content_type_movie;
+                    placeholderResId = R.drawable.ic_movie_placeholder;
+                    break;
+                }
+                case TV_SHOW: {
+                    TvShow tvShow = item.getTvShow();
+                    title = tvShow.getName();
+                    description = tvShow.getOverview();
+                    imageUrl = tvShow.getPosterUrl();
+                    categoryResId = R.string.content_type_tv_show;
+                    placeholderResId = R.drawable.placeholder_poster;
+                    break;
+                }
+                case BOOK: {
+                    Book book = item.getBook();
+                    title = book.getTitle();
+                    description = book.getDescription();
+                    imageUrl = book.getCoverUrl();
+                    categoryResId = R.string.content_type_book;
+                    placeholderResId = R.drawable.placeholder_book;
+                    break;
+                }
+                default: {
+                    Game game = item.getGame();
+                    title = game.getName();
+                    description = game.getDescription();
+                    imageUrl = game.getBackgroundImage();
+                    categoryResId = R.string.content_type_game;
+                    placeholderResId = R.drawable.placeholder_game;
+                    break;
+                }
+            }
+
+            textTitle.setText(title);
+            textCategory.setText(categoryResId);
+            textDescription.setText(description);
+            textDescription.setVisibility(description != null && !description.isEmpty() ? View.VISIBLE : View.GONE);
+            // Теги в общей выдаче не показываются
+            chipGroupTags.setVisibility(View.GONE);
+
+            if (imageUrl != null && !imageUrl.isEmpty()) {
+                RequestOptions requestOptions = new RequestOptions()
+                        .placeholder(placeholderResId)
+                        .error(placeholderResId)
+                        .diskCacheStrategy(DiskCacheStrategy.ALL);
+                Glide.with(context)
+                        .load(imageUrl)
+                        .apply(requestOptions)
+                        .into(imageContent);
+            } else {
+                imageContent.setImageResource(placeholderResId);
+            }
+
+            itemView.setOnClickListener(v -> {
+                if (listener != null) {
+                    listener.onItemClick(item);
+                }
+            });
+        }
+    }
+}
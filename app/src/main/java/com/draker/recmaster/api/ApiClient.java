@@ -1,15 +1,23 @@
 package com.draker.recmaster.api;
 
+import android.content.Context;
 import android.util.Log;
 
 import com.draker.recmaster.BuildConfig;
+import com.draker.recmaster.api.json.ApiJson;
+import com.google.gson.Gson;
 
-import java.io.IOException;
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
+import okhttp3.Protocol;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
@@ -21,6 +29,23 @@ public class ApiClient {
 
     private static final String TAG = "ApiClient";
     
+    // Параметры общего HTTP-клиента
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_REQUESTS = 32;
+    private static final int MAX_REQUESTS_PER_HOST = 6;
+    private static final long CONNECT_TIMEOUT_SECONDS = 10;
+    private static final long READ_TIMEOUT_SECONDS = 20;
+    private static final long CACHE_SIZE_BYTES = 20L * 1024 * 1024;
+    
+    private static Context appContext = null;
+    
+    // Общий клиент: один пул соединений и один диспетчер на все API
+    private static OkHttpClient httpClient = null;
+    private static Gson gson = null;
+    // Повторы и выключатели по хостам, общие для всех API
+    private static final ResilienceInterceptor resilienceInterceptor = new ResilienceInterceptor();
+    
     // TMDB API
     private static final String TMDB_BASE_URL = BuildConfig.TMDB_BASE_URL;
     private static final String TMDB_ACCESS_TOKEN = BuildConfig.TMDB_ACCESS_TOKEN;
@@ -39,49 +64,142 @@ public class ApiClient {
     private static Retrofit rawgRetrofit = null;
     private static RawgGamesApi rawgGamesApi = null;
 
+    /**
+     * Инициализация с контекстом приложения: включает дисковый кэш HTTP-ответов
+     * и проверку сети. Вызывается до первого обращения к API
+     */
+    public static synchronized void init(Context context) {
+        appContext = context.getApplicationContext();
+        configureRateLimits();
+    }
+
+    /**
+     * Лимиты частоты запросов по хостам API из BuildConfig
+     */
+    private static void configureRateLimits() {
+        RequestScheduler scheduler = RequestScheduler.getInstance();
+        scheduler.setLimit(HttpUrl.get(TMDB_BASE_URL).host(),
+                BuildConfig.TMDB_REQUESTS_PER_MINUTE, BuildConfig.TMDB_REQUEST_BURST);
+        scheduler.setLimit(HttpUrl.get(GOOGLE_BOOKS_BASE_URL).host(),
+                BuildConfig.GOOGLE_BOOKS_REQUESTS_PER_MINUTE, BuildConfig.GOOGLE_BOOKS_REQUEST_BURST);
+        scheduler.setLimit(HttpUrl.get(RAWG_BASE_URL).host(),
+                BuildConfig.RAWG_REQUESTS_PER_MINUTE, BuildConfig.RAWG_REQUEST_BURST);
+    }
+
+    /**
+     * Получение общего HTTP-клиента. Клиенты отдельных API создаются из него через
+     * newBuilder() и разделяют пул соединений, диспетчер и его потоки
+     */
+    public static synchronized OkHttpClient getHttpClient() {
+        if (httpClient == null) {
+            // Ограничение на хост не дает медленному API занять все потоки диспетчера
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(MAX_REQUESTS);
+            dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+            
+            OkHttpClient.Builder builder = new OkHttpClient.Builder();
+            if (appContext != null) {
+                builder.cache(new Cache(new File(appContext.getCacheDir(), "http_cache"), CACHE_SIZE_BYTES));
+            }
+            
+            // Метрики первыми: учитываются и ответы из кэша
+            builder.addInterceptor(new MetricsInterceptor(NetworkMetrics.getInstance()));
+            
+            // Уровень логирования задается типом сборки; в релизе перехватчик не ставится
+            HttpLoggingInterceptor.Level logLevel = httpLogLevel();
+            if (logLevel != HttpLoggingInterceptor.Level.NONE) {
+                HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor(message -> 
+                    Log.d(TAG, message)
+                );
+                loggingInterceptor.setLevel(logLevel);
+                loggingInterceptor.redactHeader("Authorization");
+                builder.addInterceptor(loggingInterceptor);
+            }
+            
+            httpClient = builder
+                    .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                    .dispatcher(dispatcher)
+                    // HTTP/2 согласуется через ALPN там, где сервер его поддерживает
+                    .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                    .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .addNetworkInterceptor(new CacheTtlInterceptor())
+                    .build();
+            
+            // Проверка кэша перед очередью квоты: без перехватчиков, чтобы не попасть в метрики,
+            // и со своим диспетчером, чтобы не ждать за сетевыми запросами хоста
+            OkHttpClient.Builder probeBuilder = httpClient.newBuilder().dispatcher(new Dispatcher());
+            probeBuilder.interceptors().clear();
+            probeBuilder.networkInterceptors().clear();
+            SingleFlight.getInstance().setCacheProbeClient(probeBuilder.build());
+            
+            Log.d(TAG, "Shared HTTP client initialized, cache: " + (appContext != null) + ", log level: " + logLevel);
+        }
+        return httpClient;
+    }
+
+    /**
+     * Уровень логирования HTTP из BuildConfig.HTTP_LOG_LEVEL (NONE, BASIC, HEADERS, BODY)
+     */
+    private static HttpLoggingInterceptor.Level httpLogLevel() {
+        try {
+            return HttpLoggingInterceptor.Level.valueOf(BuildConfig.HTTP_LOG_LEVEL);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Unknown HTTP_LOG_LEVEL: " + BuildConfig.HTTP_LOG_LEVEL);
+            return HttpLoggingInterceptor.Level.NONE;
+        }
+    }
+
+    /**
+     * Получение Gson с потоковыми адаптерами моделей ответов
+     */
+    public static synchronized Gson getGson() {
+        if (gson == null) {
+            gson = ApiJson.createGson();
+        }
+        return gson;
+    }
+
+    /**
+     * Создает клиент отдельного API на основе общего: добавляет перехватчики API,
+     * повторы с выключателем по хосту и чтение из кэша с фоновым обновлением устаревших ответов
+     */
+    private static OkHttpClient createApiHttpClient(Interceptor... apiInterceptors) {
+        OkHttpClient.Builder builder = getHttpClient().newBuilder();
+        for (Interceptor interceptor : apiInterceptors) {
+            builder.addInterceptor(interceptor);
+        }
+        
+        builder.addInterceptor(resilienceInterceptor);
+        
+        StaleWhileRevalidateInterceptor cacheInterceptor = new StaleWhileRevalidateInterceptor(appContext);
+        OkHttpClient client = builder.addInterceptor(cacheInterceptor).build();
+        cacheInterceptor.setClient(client);
+        return client;
+    }
+
     /**
      * Получение экземпляра Retrofit для TMDB API
      */
     public static Retrofit getTmdbClient() {
         if (tmdbRetrofit == null) {
-            // Настраиваем логирование для отладки
-            HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor(message -> 
-                Log.d(TAG, message)
-            );
-            loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-    // Создаем перехватчик для добавления заголовка авторизации
-    Interceptor authInterceptor = new Interceptor() {
-        @Override
-        public Response intercept(Chain chain) throws IOException {
-            Request originalRequest = chain.request();
-            
-            // Проверка токена
+            // Токен проверяется один раз при создании клиента, а не на каждом запросе
             if (TMDB_ACCESS_TOKEN == null || TMDB_ACCESS_TOKEN.isEmpty()) {
                 Log.e(TAG, "TMDB_ACCESS_TOKEN is null or empty! Check your BuildConfig");
-            } else {
-                Log.d(TAG, "Using TMDB_ACCESS_TOKEN: " + (TMDB_ACCESS_TOKEN.length() > 4 ? 
-                        TMDB_ACCESS_TOKEN.substring(0, 4) + "..." : TMDB_ACCESS_TOKEN));
             }
             
-            // Добавляем Bearer токен в заголовок
-            Request newRequest = originalRequest.newBuilder()
+            // Перехватчик для добавления заголовка авторизации
+            Interceptor authInterceptor = chain -> chain.proceed(chain.request().newBuilder()
                     .header("Authorization", "Bearer " + TMDB_ACCESS_TOKEN)
                     .header("accept", "application/json")
-                    .build();
-            
-            return chain.proceed(newRequest);
-        }
-    };
+                    .build());
 
-            OkHttpClient.Builder httpClient = new OkHttpClient.Builder();
-            httpClient.addInterceptor(loggingInterceptor);
-            httpClient.addInterceptor(authInterceptor);
+            OkHttpClient tmdbHttpClient = createApiHttpClient(authInterceptor);
 
             tmdbRetrofit = new Retrofit.Builder()
                     .baseUrl(TMDB_BASE_URL)
-                    .addConverterFactory(GsonConverterFactory.create())
-                    .client(httpClient.build())
+                    .addConverterFactory(GsonConverterFactory.create(getGson()))
+                    .client(tmdbHttpClient)
                     .build();
             
             Log.d(TAG, "TMDB Retrofit client initialized with base URL: " + TMDB_BASE_URL);
@@ -116,19 +234,10 @@ public class ApiClient {
      */
     public static Retrofit getGoogleBooksClient() {
         if (googleBooksRetrofit == null) {
-            // Настраиваем логирование для отладки
-            HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor(message -> 
-                Log.d(TAG, message)
-            );
-            loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-            OkHttpClient.Builder httpClient = new OkHttpClient.Builder();
-            httpClient.addInterceptor(loggingInterceptor);
-
             googleBooksRetrofit = new Retrofit.Builder()
                     .baseUrl(GOOGLE_BOOKS_BASE_URL)
-                    .addConverterFactory(GsonConverterFactory.create())
-                    .client(httpClient.build())
+                    .addConverterFactory(GsonConverterFactory.create(getGson()))
+                    .client(createApiHttpClient())
                     .build();
             
             Log.d(TAG, "Google Books Retrofit client initialized with base URL: " + GOOGLE_BOOKS_BASE_URL);
@@ -152,19 +261,10 @@ public class ApiClient {
      */
     public static Retrofit getRawgGamesClient() {
         if (rawgRetrofit == null) {
-            // Настраиваем логирование для отладки
-            HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor(message -> 
-                Log.d(TAG, message)
-            );
-            loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-            OkHttpClient.Builder httpClient = new OkHttpClient.Builder();
-            httpClient.addInterceptor(loggingInterceptor);
-
             rawgRetrofit = new Retrofit.Builder()
                     .baseUrl(RAWG_BASE_URL)
-                    .addConverterFactory(GsonConverterFactory.create())
-                    .client(httpClient.build())
+                    .addConverterFactory(GsonConverterFactory.create(getGson()))
+                    .client(createApiHttpClient())
                     .build();
             
             Log.d(TAG, "RAWG Games Retrofit client initialized with base URL: " + RAWG_BASE_URL);
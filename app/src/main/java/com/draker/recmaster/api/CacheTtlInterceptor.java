@@ -0,0 +1,67 @@
+package com.draker.recmaster.api;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Сетевой перехватчик, задающий время жизни ответов в дисковом кэше по типу запроса.
+ * Заголовки кэширования серверов заменяются: справочники (жанры) живут днями,
+ * подборки (популярное, новинки) - минутами
+ */
+public class CacheTtlInterceptor implements Interceptor {
+
+    private static final long GENRES_TTL = TimeUnit.DAYS.toSeconds(7);
+    private static final long DETAILS_TTL = TimeUnit.DAYS.toSeconds(1);
+    private static final long TOP_RATED_TTL = TimeUnit.HOURS.toSeconds(1);
+    private static final long CATALOG_TTL = TimeUnit.MINUTES.toSeconds(30);
+    private static final long POPULAR_TTL = TimeUnit.MINUTES.toSeconds(10);
+    private static final long SEARCH_TTL = TimeUnit.MINUTES.toSeconds(5);
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Response response = chain.proceed(chain.request());
+        if (!"GET".equals(chain.request().method()) || !response.isSuccessful()) {
+            return response;
+        }
+
+        return response.newBuilder()
+                .removeHeader("Pragma")
+                .removeHeader("Expires")
+                .header("Cache-Control", "public, max-age=" + ttlSeconds(chain.request().url()))
+                .build();
+    }
+
+    /**
+     * Время жизни ответа в секундах для запроса
+     */
+    static long ttlSeconds(HttpUrl url) {
+        String path = url.encodedPath();
+        List<String> segments = url.pathSegments();
+        String last = segments.isEmpty() ? "" : segments.get(segments.size() - 1);
+
+        if (path.contains("/genre/")) {
+            return GENRES_TTL;
+        }
+        if (path.contains("/search/")) {
+            return SEARCH_TTL;
+        }
+        if (last.equals("top_rated")) {
+            return TOP_RATED_TTL;
+        }
+        if (last.equals("popular") || last.equals("now_playing") || last.equals("upcoming")
+                || last.equals("on_the_air") || last.equals("airing_today")) {
+            return POPULAR_TTL;
+        }
+        if (last.equals("volumes") || last.equals("games")) {
+            // Списки книг и игр (поиск и подборки по параметрам)
+            return CATALOG_TTL;
+        }
+        // Карточки: movie/{id}, tv/{id}, volumes/{id}, games/{id}
+        return DETAILS_TTL;
+    }
+}
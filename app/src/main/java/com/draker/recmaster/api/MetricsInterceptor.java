@@ -0,0 +1,130 @@
+package com.draker.recmaster.api;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Перехватчик, записывающий метрики запросов в {@link NetworkMetrics}.
+ * Устанавливается первым в общий клиент, поэтому видит и ответы из кэша.
+ * Тело ответа не буферизуется: принятые байты считаются по мере чтения
+ * и учитываются, когда тело дочитано или закрыто
+ */
+public class MetricsInterceptor implements Interceptor {
+
+    private final NetworkMetrics metrics;
+
+    public MetricsInterceptor(NetworkMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String endpoint = NetworkMetrics.endpointOf(request.method(), request.url());
+        long bytesOut = request.body() != null ? request.body().contentLength() : 0;
+        long start = System.nanoTime();
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            metrics.recordResponse(endpoint, elapsedMs(start), NetworkMetrics.CODE_IO_ERROR, null, bytesOut);
+            throw e;
+        }
+
+        metrics.recordResponse(endpoint, elapsedMs(start), response.code(), cacheStatusOf(response), bytesOut);
+
+        ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        return response.newBuilder()
+                .body(new CountingResponseBody(body, metrics, endpoint))
+                .build();
+    }
+
+    static NetworkMetrics.CacheStatus cacheStatusOf(Response response) {
+        if (response.networkResponse() == null) {
+            return response.cacheResponse() != null ? NetworkMetrics.CacheStatus.HIT : null;
+        }
+        return response.cacheResponse() != null
+                ? NetworkMetrics.CacheStatus.CONDITIONAL_HIT
+                : NetworkMetrics.CacheStatus.MISS;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private static final class CountingResponseBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        CountingResponseBody(ResponseBody delegate, NetworkMetrics metrics, String endpoint) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new CountingSource(delegate.source(), metrics, endpoint));
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+
+    private static final class CountingSource extends ForwardingSource {
+        private final NetworkMetrics metrics;
+        private final String endpoint;
+        private long bytesRead;
+        private boolean reported;
+
+        CountingSource(Source delegate, NetworkMetrics metrics, String endpoint) {
+            super(delegate);
+            this.metrics = metrics;
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            long read = super.read(sink, byteCount);
+            if (read == -1) {
+                report();
+            } else {
+                bytesRead += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            report();
+            super.close();
+        }
+
+        private void report() {
+            if (!reported) {
+                reported = true;
+                metrics.recordBytesIn(endpoint, bytesRead);
+            }
+        }
+    }
+}
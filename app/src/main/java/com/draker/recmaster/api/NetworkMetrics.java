@@ -0,0 +1,294 @@
+package com.draker.recmaster.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Реестр сетевых метрик в памяти процесса.
+ * По каждой конечной точке (хост + путь с обобщенными ID) считаются запросы,
+ * гистограмма задержек, принятые и отправленные байты, попадания в кэш и коды ошибок.
+ * Запись не блокирует потоки: все счетчики атомарные.
+ * Читается экраном отладки и тестами через {@link #snapshot()}
+ */
+public final class NetworkMetrics {
+
+    /**
+     * Верхние границы корзин гистограммы задержек в мс; последняя корзина - все, что больше
+     */
+    public static final long[] LATENCY_BUCKETS_MS = {25, 50, 100, 250, 500, 1000, 2500, 5000};
+
+    /**
+     * Код, под которым учитываются запросы, завершившиеся исключением (нет ответа)
+     */
+    public static final int CODE_IO_ERROR = -1;
+
+    /**
+     * Источник ответа
+     */
+    public enum CacheStatus {
+        // Ответ из кэша без обращения к сети
+        HIT,
+        // Кэшированный ответ подтвержден сервером (304)
+        CONDITIONAL_HIT,
+        // Ответ получен из сети
+        MISS
+    }
+
+    private static final NetworkMetrics INSTANCE = new NetworkMetrics();
+
+    private final Map<String, Counters> endpoints = new ConcurrentHashMap<>();
+
+    private NetworkMetrics() {
+    }
+
+    public static NetworkMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Ключ конечной точки: числовые сегменты пути (кроме первого - версии API, как /3/)
+     * заменяются на {id}, чтобы карточки разных фильмов попадали в одну запись
+     */
+    public static String endpointOf(String method, HttpUrl url) {
+        StringBuilder key = new StringBuilder(method).append(' ').append(url.host());
+        boolean first = true;
+        for (String segment : url.pathSegments()) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            key.append('/').append(!first && isNumeric(segment) ? "{id}" : segment);
+            first = false;
+        }
+        return key.toString();
+    }
+
+    /**
+     * Учитывает завершенный запрос
+     * @param code HTTP-код ответа или {@link #CODE_IO_ERROR}
+     * @param cacheStatus источник ответа или null при ошибке
+     */
+    public void recordResponse(String endpoint, long latencyMs, int code, CacheStatus cacheStatus, long bytesOut) {
+        Counters counters = countersOf(endpoint);
+        counters.requests.incrementAndGet();
+        counters.latencyHistogram.incrementAndGet(bucketOf(latencyMs));
+        counters.latencyTotalMs.addAndGet(latencyMs);
+        if (bytesOut > 0) {
+            counters.bytesOut.addAndGet(bytesOut);
+        }
+        if (cacheStatus != null) {
+            counters.cacheStatuses.incrementAndGet(cacheStatus.ordinal());
+        }
+        if (code == CODE_IO_ERROR || code >= 400) {
+            counters.errorCodes.computeIfAbsent(code, c -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    /**
+     * Учитывает прочитанные байты тела ответа
+     */
+    public void recordBytesIn(String endpoint, long bytes) {
+        if (bytes > 0) {
+            countersOf(endpoint).bytesIn.addAndGet(bytes);
+        }
+    }
+
+    /**
+     * Возвращает копию метрик по всем конечным точкам, упорядоченную по ключу
+     */
+    public List<EndpointStats> snapshot() {
+        List<EndpointStats> result = new ArrayList<>(endpoints.size());
+        for (Map.Entry<String, Counters> entry : new TreeMap<>(endpoints).entrySet()) {
+            result.add(new EndpointStats(entry.getKey(), entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает метрики одной конечной точки или null, если запросов не было
+     */
+    public EndpointStats get(String endpoint) {
+        Counters counters = endpoints.get(endpoint);
+        return counters != null ? new EndpointStats(endpoint, counters) : null;
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    /**
+     * Текстовый отчет для экрана отладки
+     */
+    public String format() {
+        List<EndpointStats> stats = snapshot();
+        if (stats.isEmpty()) {
+            return "Нет запросов";
+        }
+
+        StringBuilder report = new StringBuilder();
+        for (EndpointStats endpoint : stats) {
+            report.append(endpoint.getEndpoint()).append('\n')
+                    .append(String.format(Locale.ROOT,
+                            "  n=%d avg=%dms p50<=%dms p95<=%dms in=%dB out=%dB%n",
+                            endpoint.getRequestCount(), endpoint.getAverageLatencyMs(),
+                            endpoint.getLatencyPercentileMs(0.5), endpoint.getLatencyPercentileMs(0.95),
+                            endpoint.getBytesIn(), endpoint.getBytesOut()))
+                    .append(String.format(Locale.ROOT, "  cache hit=%d 304=%d miss=%d",
+                            endpoint.getCacheHits(), endpoint.getConditionalHits(), endpoint.getCacheMisses()));
+            if (!endpoint.getErrorCodes().isEmpty()) {
+                report.append(" errors=").append(endpoint.getErrorCodes());
+            }
+            report.append('\n');
+        }
+        return report.toString();
+    }
+
+    private Counters countersOf(String endpoint) {
+        Counters counters = endpoints.get(endpoint);
+        if (counters == null) {
+            counters = endpoints.computeIfAbsent(endpoint, e -> new Counters());
+        }
+        return counters;
+    }
+
+    private static int bucketOf(long latencyMs) {
+        for (int i = 0; i < LATENCY_BUCKETS_MS.length; i++) {
+            if (latencyMs <= LATENCY_BUCKETS_MS[i]) {
+                return i;
+            }
+        }
+        return LATENCY_BUCKETS_MS.length;
+    }
+
+    private static boolean isNumeric(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Counters {
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong latencyTotalMs = new AtomicLong();
+        final AtomicLongArray latencyHistogram = new AtomicLongArray(LATENCY_BUCKETS_MS.length + 1);
+        final AtomicLong bytesIn = new AtomicLong();
+        final AtomicLong bytesOut = new AtomicLong();
+        final AtomicLongArray cacheStatuses = new AtomicLongArray(CacheStatus.values().length);
+        final Map<Integer, AtomicLong> errorCodes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Неизменяемый снимок метрик конечной точки
+     */
+    public static final class EndpointStats {
+        private final String endpoint;
+        private final long requestCount;
+        private final long latencyTotalMs;
+        private final long[] latencyHistogram;
+        private final long bytesIn;
+        private final long bytesOut;
+        private final long[] cacheStatuses;
+        private final Map<Integer, Long> errorCodes;
+
+        EndpointStats(String endpoint, Counters counters) {
+            this.endpoint = endpoint;
+            this.requestCount = counters.requests.get();
+            this.latencyTotalMs = counters.latencyTotalMs.get();
+            this.latencyHistogram = new long[counters.latencyHistogram.length()];
+            for (int i = 0; i < latencyHistogram.length; i++) {
+                latencyHistogram[i] = counters.latencyHistogram.get(i);
+            }
+            this.bytesIn = counters.bytesIn.get();
+            this.bytesOut = counters.bytesOut.get();
+            this.cacheStatuses = new long[counters.cacheStatuses.length()];
+            for (int i = 0; i < cacheStatuses.length; i++) {
+                cacheStatuses[i] = counters.cacheStatuses.get(i);
+            }
+            Map<Integer, Long> codes = new TreeMap<>();
+            for (Map.Entry<Integer, AtomicLong> entry : counters.errorCodes.entrySet()) {
+                codes.put(entry.getKey(), entry.getValue().get());
+            }
+            this.errorCodes = Collections.unmodifiableMap(codes);
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public long getRequestCount() {
+            return requestCount;
+        }
+
+        public long getAverageLatencyMs() {
+            return requestCount > 0 ? latencyTotalMs / requestCount : 0;
+        }
+
+        /**
+         * Количество запросов по корзинам {@link #LATENCY_BUCKETS_MS}
+         */
+        public long[] getLatencyHistogram() {
+            return latencyHistogram.clone();
+        }
+
+        /**
+         * Оценка перцентиля сверху: граница корзины, в которую он попадает.
+         * Для последней корзины возвращается Long.MAX_VALUE
+         */
+        public long getLatencyPercentileMs(double percentile) {
+            long total = 0;
+            for (long count : latencyHistogram) {
+                total += count;
+            }
+            if (total == 0) {
+                return 0;
+            }
+
+            long rank = (long) Math.ceil(percentile * total);
+            long seen = 0;
+            for (int i = 0; i < latencyHistogram.length; i++) {
+                seen += latencyHistogram[i];
+                if (seen >= rank) {
+                    return i < LATENCY_BUCKETS_MS.length ? LATENCY_BUCKETS_MS[i] : Long.MAX_VALUE;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        public long getBytesIn() {
+            return bytesIn;
+        }
+
+        public long getBytesOut() {
+            return bytesOut;
+        }
+
+        public long getCacheHits() {
+            return cacheStatuses[CacheStatus.HIT.ordinal()];
+        }
+
+        public long getConditionalHits() {
+            return cacheStatuses[CacheStatus.CONDITIONAL_HIT.ordinal()];
+        }
+
+        public long getCacheMisses() {
+            return cacheStatuses[CacheStatus.MISS.ordinal()];
+        }
+
+        /**
+         * Код ошибки (HTTP 4xx/5xx или {@link #CODE_IO_ERROR}) -> количество
+         */
+        public Map<Integer, Long> getErrorCodes() {
+            return errorCodes;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.draker.recmaster.api;
+
+/**
+ * Приоритет запроса к API в планировщике {@link RequestScheduler}.
+ * Приоритет задается для кода, ставящего запросы в очередь в текущем потоке:
+ * <pre>RequestPriority.runWith(RequestPriority.PREFETCH, () -> repository.getPopularGames(...));</pre>
+ * Вне такого блока запросы считаются интерактивными
+ */
+public enum RequestPriority {
+    // Данные для видимого экрана
+    INTERACTIVE,
+    // Упреждающая загрузка следующих страниц
+    PREFETCH,
+    // Фоновая синхронизация и обновление кэша
+    BACKGROUND;
+
+    private static final ThreadLocal<RequestPriority> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Приоритет запросов, создаваемых в текущем потоке
+     */
+    public static RequestPriority current() {
+        RequestPriority priority = CURRENT.get();
+        return priority != null ? priority : INTERACTIVE;
+    }
+
+    /**
+     * Выполняет действие с заданным приоритетом запросов
+     */
+    public static void runWith(RequestPriority priority, Runnable action) {
+        RequestPriority previous = CURRENT.get();
+        CURRENT.set(priority);
+        try {
+            action.run();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * true, если приоритет выше указанного
+     */
+    public boolean isHigherThan(RequestPriority other) {
+        return ordinal() < other.ordinal();
+    }
+}
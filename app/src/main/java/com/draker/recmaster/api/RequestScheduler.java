@@ -0,0 +1,244 @@
+package com.draker.recmaster.api;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Планировщик запросов с ограничением частоты по хостам (token bucket).
+ * Для хоста задается число запросов в минуту и допустимый всплеск. Запрос отправляется
+ * сразу, если есть свободный токен и нет очереди; иначе ждет в очереди хоста, упорядоченной
+ * по приоритету ({@link RequestPriority}) и времени постановки. Поэтому упреждающая загрузка
+ * не задерживает запросы видимого экрана и не превышает квоту API.
+ * Токен берется до передачи вызова диспетчеру OkHttp ({@link SingleFlight}), только если ответа
+ * нет в кэше; повторы {@link ResilienceInterceptor} берут по своему токену.
+ * Хосты без заданного лимита не ограничиваются
+ */
+public final class RequestScheduler {
+
+    private static final String TAG = "RequestScheduler";
+
+    private static final RequestScheduler INSTANCE = new RequestScheduler();
+
+    private final Map<String, HostQueue> hosts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, TAG);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Запрос в очереди; приоритет можно повысить, пока запрос не отправлен
+     */
+    public final class Ticket implements Comparable<Ticket> {
+        private final HostQueue hostQueue;
+        private final Runnable dispatch;
+        private final long sequence;
+        private RequestPriority priority;
+
+        private Ticket(HostQueue hostQueue, RequestPriority priority, Runnable dispatch, long sequence) {
+            this.hostQueue = hostQueue;
+            this.priority = priority;
+            this.dispatch = dispatch;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Повышает приоритет ожидающего запроса (например, когда его результат
+         * понадобился видимому экрану). Понижение и отправленные запросы не меняются
+         */
+        public void raisePriority(RequestPriority newPriority) {
+            if (hostQueue == null) {
+                return;
+            }
+            synchronized (hostQueue) {
+                if (newPriority.isHigherThan(priority) && hostQueue.queue.remove(this)) {
+                    priority = newPriority;
+                    hostQueue.queue.add(this);
+                }
+            }
+        }
+
+        /**
+         * Убирает запрос из очереди, если он еще не отправлен
+         */
+        void cancel() {
+            if (hostQueue == null) {
+                return;
+            }
+            synchronized (hostQueue) {
+                hostQueue.queue.remove(this);
+            }
+        }
+
+        @Override
+        public int compareTo(Ticket other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private RequestScheduler() {
+    }
+
+    public static RequestScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Задает лимит для хоста
+     * @param requestsPerMinute средняя частота запросов
+     * @param burst сколько запросов можно отправить подряд без ожидания
+     */
+    public void setLimit(String host, int requestsPerMinute, int burst) {
+        if (requestsPerMinute <= 0) {
+            hosts.remove(host);
+            return;
+        }
+        hosts.put(host, new HostQueue(host, requestsPerMinute / 60.0, Math.max(1, burst)));
+        Log.d(TAG, "Limit for " + host + ": " + requestsPerMinute + "/min, burst " + burst);
+    }
+
+    /**
+     * true, если для хоста задан лимит
+     */
+    public boolean isLimited(String host) {
+        return hosts.containsKey(host);
+    }
+
+    /**
+     * Ставит запрос в очередь хоста
+     * @param dispatch отправка запроса (например, call.enqueue(...)); не должна блокировать поток
+     */
+    public Ticket schedule(String host, RequestPriority priority, Runnable dispatch) {
+        HostQueue hostQueue = hosts.get(host);
+        if (hostQueue == null) {
+            dispatch.run();
+            return new Ticket(null, priority, dispatch, 0);
+        }
+
+        Ticket ticket;
+        synchronized (hostQueue) {
+            ticket = new Ticket(hostQueue, priority, dispatch, hostQueue.nextSequence++);
+            if (!hostQueue.queue.isEmpty() || !hostQueue.tryAcquire()) {
+                hostQueue.queue.add(ticket);
+                hostQueue.scheduleDrain();
+                return ticket;
+            }
+        }
+        dispatch.run();
+        return ticket;
+    }
+
+    /**
+     * Ждет в текущем потоке токен хоста в общей очереди с приоритетом.
+     * Только для потоков, которые и так ждут (повтор после паузы): обычные запросы
+     * ставятся в очередь через {@link #schedule}
+     * @param onQueued получает билет, если свободного токена нет и запрос встал в очередь;
+     *                 через билет можно повысить приоритет ожидания
+     */
+    public void acquire(String host, RequestPriority priority, Consumer<Ticket> onQueued)
+            throws InterruptedException {
+        CountDownLatch granted = new CountDownLatch(1);
+        Ticket ticket = schedule(host, priority, granted::countDown);
+        if (granted.getCount() == 0) {
+            return;
+        }
+        onQueued.accept(ticket);
+        try {
+            granted.await();
+        } catch (InterruptedException e) {
+            ticket.cancel();
+            throw e;
+        }
+    }
+
+    /**
+     * Число запросов, ожидающих токен у хоста
+     */
+    public int queuedCount(String host) {
+        HostQueue hostQueue = hosts.get(host);
+        if (hostQueue == null) {
+            return 0;
+        }
+        synchronized (hostQueue) {
+            return hostQueue.queue.size();
+        }
+    }
+
+    private final class HostQueue {
+        private final String host;
+        private final double tokensPerMs;
+        private final int capacity;
+        private final PriorityQueue<Ticket> queue = new PriorityQueue<>();
+        private double tokens;
+        private long refilledAtMs;
+        private long nextSequence;
+        private boolean drainScheduled;
+
+        HostQueue(String host, double tokensPerSecond, int capacity) {
+            this.host = host;
+            this.tokensPerMs = tokensPerSecond / 1000.0;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.refilledAtMs = System.currentTimeMillis();
+        }
+
+        // Методы ниже вызываются под блокировкой HostQueue
+
+        boolean tryAcquire() {
+            refill();
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+
+        void scheduleDrain() {
+            if (drainScheduled) {
+                return;
+            }
+            drainScheduled = true;
+            refill();
+            long delayMs = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerMs);
+            timer.schedule(this::drain, delayMs, TimeUnit.MILLISECONDS);
+        }
+
+        private void refill() {
+            long now = System.currentTimeMillis();
+            tokens = Math.min(capacity, tokens + (now - refilledAtMs) * tokensPerMs);
+            refilledAtMs = now;
+        }
+
+        private void drain() {
+            List<Runnable> ready = new ArrayList<>();
+            synchronized (this) {
+                drainScheduled = false;
+                while (!queue.isEmpty() && tryAcquire()) {
+                    ready.add(queue.poll().dispatch);
+                }
+                if (!queue.isEmpty()) {
+                    scheduleDrain();
+                    Log.d(TAG, queue.size() + " requests to " + host + " waiting for quota");
+                }
+            }
+            for (Runnable dispatch : ready) {
+                try {
+                    dispatch.run();
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Error dispatching request to " + host, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.draker.recmaster.api;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Перехватчик устойчивости к сбоям API.
+ * GET-запросы при сетевой ошибке и кодах 408, 429, 5xx повторяются с экспоненциальной
+ * задержкой со случайным разбросом; заголовок Retry-After имеет приоритет над расчетной задержкой.
+ * Каждый повтор после задержки ждет токен квоты хоста ({@link RequestScheduler}).
+ * Для каждого хоста ведется автоматический выключатель: после серии неудач запросы
+ * к хосту не отправляются, а отдаются из кэша (если там есть ответ) до истечения паузы,
+ * после чего пропускается один пробный запрос. Ответ 429 закрывает хост до срока Retry-After
+ */
+public class ResilienceInterceptor implements Interceptor {
+
+    private static final String TAG = "ResilienceInterceptor";
+
+    private static final int MAX_RETRIES = 2;
+    private static final long BASE_DELAY_MS = 500;
+    private static final long MAX_DELAY_MS = 8_000;
+    // Более долгий Retry-After не ждем в потоке запроса: хост закрывается до этого срока
+    private static final long MAX_RETRY_AFTER_WAIT_MS = 10_000;
+
+    private static final int FAILURE_THRESHOLD = 5;
+    private static final long OPEN_BASE_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final long OPEN_MAX_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        // Запросы только из кэша (в т.ч. ответ при открытом выключателе) не ограничиваем
+        if (request.cacheControl().onlyIfCached()) {
+            return chain.proceed(request);
+        }
+
+        String host = request.url().host();
+        CircuitBreaker breaker = breakers.computeIfAbsent(host, h -> new CircuitBreaker());
+        int admission = breaker.admit();
+        if (admission == CircuitBreaker.DENIED) {
+            return serveFromCache(chain, request, host);
+        }
+        try {
+            return proceedWithRetries(chain, request, breaker);
+        } finally {
+            if (admission == CircuitBreaker.TRIAL) {
+                // Пробный запрос завершен без явного исхода (429, прерывание) - следующий снова пробный
+                breaker.endTrial();
+            }
+        }
+    }
+
+    private Response proceedWithRetries(Chain chain, Request request, CircuitBreaker breaker) throws IOException {
+        String host = request.url().host();
+        boolean idempotent = "GET".equals(request.method()) || "HEAD".equals(request.method());
+        int attempt = 0;
+        while (true) {
+            if (attempt > 0) {
+                Log.d(TAG, "Retrying " + request.url() + ", attempt " + attempt);
+                // Выключатель мог сработать на предыдущих попытках
+                if (breaker.isOpen()) {
+                    return serveFromCache(chain, request, host);
+                }
+                awaitQuota(request, host);
+            }
+
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                breaker.onFailure();
+                if (!canRetry(chain, idempotent, attempt)) {
+                    throw e;
+                }
+                sleep(backoffMs(attempt), e);
+                attempt++;
+                continue;
+            }
+
+            int code = response.code();
+            if (!isRetryable(code)) {
+                if (code < 500) {
+                    breaker.onSuccess();
+                } else {
+                    breaker.onFailure();
+                }
+                return response;
+            }
+
+            long retryAfterMs = retryAfterMs(response);
+            boolean retry = canRetry(chain, idempotent, attempt) && retryAfterMs <= MAX_RETRY_AFTER_WAIT_MS;
+            if (code == 429) {
+                // Превышен лимит запросов: если не ждем сами, закрываем хост до срока
+                if (!retry) {
+                    breaker.blockFor(retryAfterMs >= 0 ? retryAfterMs : OPEN_BASE_MS);
+                }
+            } else {
+                breaker.onFailure();
+            }
+            if (!retry) {
+                return response;
+            }
+
+            response.close();
+            sleep(retryAfterMs >= 0 ? retryAfterMs : backoffMs(attempt), null);
+            attempt++;
+        }
+    }
+
+    /**
+     * Состояние выключателя хоста (для отладки и тестов)
+     */
+    public String getState(String host) {
+        CircuitBreaker breaker = breakers.get(host);
+        return breaker != null ? breaker.describe() : "CLOSED";
+    }
+
+    private Response serveFromCache(Chain chain, Request request, String host) throws IOException {
+        if ("GET".equals(request.method())) {
+            Response cached = chain.proceed(request.newBuilder().cacheControl(CacheControl.FORCE_CACHE).build());
+            if (cached.isSuccessful()) {
+                Log.d(TAG, "Circuit open for " + host + ", served from cache: " + request.url());
+                return cached;
+            }
+            cached.close();
+        }
+        throw new IOException("Сервис временно недоступен: " + host);
+    }
+
+    /**
+     * Ждет токен квоты для повтора. Приоритет - из тега запроса, иначе приоритет вызова
+     * в {@link SingleFlight}, который повышается, если к вызову присоединяется более срочный
+     */
+    private static void awaitQuota(Request request, String host) throws IOException {
+        RequestPriority taggedPriority = request.tag(RequestPriority.class);
+        try {
+            if (taggedPriority != null) {
+                RequestScheduler.getInstance().acquire(host, taggedPriority, ticket -> { });
+            } else {
+                SingleFlight singleFlight = SingleFlight.getInstance();
+                RequestScheduler.getInstance().acquire(host, singleFlight.priorityOf(request),
+                        ticket -> singleFlight.attachTicket(request, ticket));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for quota: " + host);
+        }
+    }
+
+    private static boolean canRetry(Chain chain, boolean idempotent, int attempt) {
+        return idempotent && attempt < MAX_RETRIES && !chain.call().isCanceled();
+    }
+
+    private static boolean isRetryable(int code) {
+        return code == 408 || code == 429 || code == 500 || code == 502 || code == 503 || code == 504;
+    }
+
+    /**
+     * Экспоненциальная задержка с полным случайным разбросом
+     */
+    private static long backoffMs(int attempt) {
+        long ceiling = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << attempt);
+        return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+
+    /**
+     * Задержка из заголовка Retry-After (секунды или HTTP-дата)
+     * @return миллисекунды или -1, если заголовка нет или он не разобран
+     */
+    static long retryAfterMs(Response response) {
+        String value = response.header("Retry-After");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            Date date = response.headers().getDate("Retry-After");
+            return date != null ? Math.max(0, date.getTime() - System.currentTimeMillis()) : -1;
+        }
+    }
+
+    private static void sleep(long delayMs, IOException cause) throws IOException {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            IOException interrupted = new InterruptedIOException("Retry interrupted");
+            if (cause != null) {
+                interrupted.addSuppressed(cause);
+            }
+            throw interrupted;
+        }
+    }
+
+    /**
+     * Автоматический выключатель: CLOSED - запросы идут, OPEN - запросы не отправляются
+     * до истечения паузы, HALF_OPEN - пропущен один пробный запрос
+     */
+    static final class CircuitBreaker {
+        private int consecutiveFailures;
+        private long openUntilMs;
+        private long openDurationMs = OPEN_BASE_MS;
+        private boolean trialInFlight;
+
+        static final int DENIED = 0;
+        static final int ALLOWED = 1;
+        static final int TRIAL = 2;
+
+        /**
+         * Решает, можно ли отправить запрос
+         * @return DENIED, ALLOWED или TRIAL (пробный запрос после паузы)
+         */
+        synchronized int admit() {
+            if (System.currentTimeMillis() < openUntilMs) {
+                return DENIED;
+            }
+            if (consecutiveFailures >= FAILURE_THRESHOLD) {
+                // Пауза истекла: пропускаем один пробный запрос
+                if (trialInFlight) {
+                    return DENIED;
+                }
+                trialInFlight = true;
+                return TRIAL;
+            }
+            return ALLOWED;
+        }
+
+        synchronized boolean isOpen() {
+            return System.currentTimeMillis() < openUntilMs;
+        }
+
+        synchronized void endTrial() {
+            trialInFlight = false;
+        }
+
+        synchronized void onSuccess() {
+            consecutiveFailures = 0;
+            openDurationMs = OPEN_BASE_MS;
+            trialInFlight = false;
+        }
+
+        synchronized void onFailure() {
+            consecutiveFailures++;
+            if (trialInFlight) {
+                // Пробный запрос не прошел: пауза удваивается
+                trialInFlight = false;
+                openDurationMs = Math.min(OPEN_MAX_MS, openDurationMs * 2);
+                openUntilMs = System.currentTimeMillis() + openDurationMs;
+                Log.w(TAG, "Circuit re-opened for " + openDurationMs + " ms");
+            } else if (consecutiveFailures == FAILURE_THRESHOLD) {
+                openUntilMs = System.currentTimeMillis() + openDurationMs;
+                Log.w(TAG, "Circuit opened for " + openDurationMs + " ms");
+            }
+        }
+
+        synchronized void blockFor(long delayMs) {
+            openUntilMs = Math.max(openUntilMs, System.currentTimeMillis() + delayMs);
+        }
+
+        synchronized String describe() {
+            long now = System.currentTimeMillis();
+            if (now < openUntilMs) {
+                return "OPEN";
+            }
+            return consecutiveFailures >= FAILURE_THRESHOLD ? "HALF_OPEN" : "CLOSED";
+        }
+    }
+}
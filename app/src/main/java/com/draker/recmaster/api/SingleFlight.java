@@ -0,0 +1,268 @@
+package com.draker.recmaster.api;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ByteString;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Объединение одинаковых одновременных запросов (single-flight).
+ * Запросы с одинаковыми методом и URL (конечная точка и параметры), пока первый из них
+ * не завершен, не отправляются: их обработчики получают результат первого вызова.
+ * Все ожидающие обслуживает один обработчик вызова. Тело ошибки считывается один раз,
+ * каждый обработчик читает общие байты своим потоком.
+ * Квота хоста ({@link RequestScheduler}) берется до передачи вызова диспетчеру OkHttp, с приоритетом
+ * {@link RequestPriority#current()}: потоки диспетчера не простаивают в ожидании квоты, и срочный
+ * запрос обгоняет упреждающие. Сначала проверяется дисковый кэш: ответ из кэша квоту не тратит.
+ * Если к ожидающему квоты вызову присоединяется более срочный, приоритет вызова повышается
+ */
+public final class SingleFlight {
+
+    private static final String TAG = "SingleFlight";
+
+    private static final SingleFlight INSTANCE = new SingleFlight();
+
+    // Ключ запроса -> выполняемый вызов и обработчики, ожидающие его результат
+    private final Map<String, Flight<?>> inFlight = new HashMap<>();
+
+    /**
+     * Выполняемый вызов. Он же единственный обработчик вызова, раздающий результат ожидающим
+     */
+    private final class Flight<T> implements Callback<T> {
+        final String key;
+        final List<Callback<T>> waiters = new ArrayList<>();
+        RequestPriority priority;
+        RequestScheduler.Ticket ticket;
+
+        Flight(String key, RequestPriority priority) {
+            this.key = key;
+            this.priority = priority;
+        }
+
+        @Override
+        public void onResponse(Call<T> call, Response<T> response) {
+            complete(this);
+            if (response.isSuccessful() || waiters.size() == 1) {
+                for (Callback<T> waiter : waiters) {
+                    waiter.onResponse(call, response);
+                }
+                return;
+            }
+
+            // Тело ошибки читается только один раз: байты общие, у каждого обработчика свой поток чтения
+            ByteString errorBytes = ByteString.EMPTY;
+            MediaType contentType = null;
+            try (ResponseBody errorBody = response.errorBody()) {
+                if (errorBody != null) {
+                    contentType = errorBody.contentType();
+                    errorBytes = errorBody.source().readByteString();
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Error reading error body", e);
+            }
+            for (Callback<T> waiter : waiters) {
+                waiter.onResponse(call, Response.error(new SharedBody(contentType, errorBytes), response.raw()));
+            }
+        }
+
+        @Override
+        public void onFailure(Call<T> call, Throwable t) {
+            complete(this);
+            for (Callback<T> waiter : waiters) {
+                waiter.onFailure(call, t);
+            }
+        }
+    }
+
+    /**
+     * Тело ответа поверх общих байтов; буфер для чтения создается, только если тело читают
+     */
+    private static final class SharedBody extends ResponseBody {
+        private final MediaType contentType;
+        private final ByteString bytes;
+        private BufferedSource source;
+
+        SharedBody(MediaType contentType, ByteString bytes) {
+            this.contentType = contentType;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return contentType;
+        }
+
+        @Override
+        public long contentLength() {
+            return bytes.size();
+        }
+
+        @Override
+        public BufferedSource source() {
+            if (source == null) {
+                source = new Buffer().write(bytes);
+            }
+            return source;
+        }
+    }
+
+    // Клиент для проверки кэша перед постановкой в очередь квоты
+    private volatile OkHttpClient cacheProbeClient;
+
+    private SingleFlight() {
+    }
+
+    public static SingleFlight getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Выполняет вызов или присоединяет обработчик к уже идущему одинаковому вызову.
+     * В последнем случае переданный вызов не выполняется
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void enqueue(Call<T> call, Callback<T> callback) {
+        String key = keyOf(call.request());
+        RequestPriority priority = RequestPriority.current();
+        Flight<T> flight;
+        synchronized (inFlight) {
+            // Под одним ключом ждут только вызовы одного метода API, поэтому тип ответа совпадает
+            flight = (Flight<T>) inFlight.get(key);
+            if (flight != null) {
+                flight.waiters.add(callback);
+                Log.d(TAG, "Joined in-flight request: " + key);
+                if (priority.isHigherThan(flight.priority)) {
+                    flight.priority = priority;
+                    if (flight.ticket != null) {
+                        flight.ticket.raisePriority(priority);
+                    }
+                }
+                return;
+            }
+            flight = new Flight<>(key, priority);
+            flight.waiters.add(callback);
+            inFlight.put(key, flight);
+        }
+
+        dispatch(call, flight);
+    }
+
+    /**
+     * Клиент с тем же дисковым кэшем, что и у API, но без перехватчиков: им проверяется,
+     * будет ли запрос обслужен из кэша. Без него каждый запрос к хосту с лимитом ждет квоту
+     */
+    public void setCacheProbeClient(OkHttpClient client) {
+        this.cacheProbeClient = client;
+    }
+
+    /**
+     * Отправляет вызов: сразу, если ответ есть в кэше, иначе через очередь квоты хоста
+     */
+    private <T> void dispatch(Call<T> call, Flight<T> flight) {
+        Request request = call.request();
+        String host = request.url().host();
+        OkHttpClient probeClient = cacheProbeClient;
+        if (probeClient == null || !"GET".equals(request.method())
+                || !RequestScheduler.getInstance().isLimited(host)) {
+            schedule(call, flight, host);
+            return;
+        }
+
+        // Тот же срок устаревания, что у StaleWhileRevalidateInterceptor: такой ответ уйдет из кэша
+        Request probe = request.newBuilder()
+                .cacheControl(StaleWhileRevalidateInterceptor.CACHED_WITHIN_STALE_WINDOW)
+                .build();
+        probeClient.newCall(probe).enqueue(new okhttp3.Callback() {
+            @Override
+            public void onResponse(okhttp3.Call probeCall, okhttp3.Response response) {
+                boolean cached = response.isSuccessful();
+                response.close();
+                if (cached) {
+                    call.enqueue(flight);
+                } else {
+                    schedule(call, flight, host);
+                }
+            }
+
+            @Override
+            public void onFailure(okhttp3.Call probeCall, IOException e) {
+                schedule(call, flight, host);
+            }
+        });
+    }
+
+    private <T> void schedule(Call<T> call, Flight<T> flight, String host) {
+        RequestPriority priority;
+        synchronized (inFlight) {
+            priority = flight.priority;
+        }
+        RequestScheduler.Ticket ticket = RequestScheduler.getInstance()
+                .schedule(host, priority, () -> call.enqueue(flight));
+        // Приоритет мог быть повышен, пока вызов вставал в очередь
+        synchronized (inFlight) {
+            flight.ticket = ticket;
+            ticket.raisePriority(flight.priority);
+        }
+    }
+
+    /**
+     * Приоритет выполняемого вызова для запроса (для повторов, ждущих квоту);
+     * для запросов не через single-flight - интерактивный
+     */
+    RequestPriority priorityOf(Request request) {
+        synchronized (inFlight) {
+            Flight<?> flight = inFlight.get(keyOf(request));
+            return flight != null ? flight.priority : RequestPriority.INTERACTIVE;
+        }
+    }
+
+    /**
+     * Запоминает билет повтора, ожидающего квоту, чтобы присоединившиеся вызовы могли
+     * повысить его приоритет. Приоритет, повышенный до постановки в очередь, применяется сразу
+     */
+    void attachTicket(Request request, RequestScheduler.Ticket ticket) {
+        synchronized (inFlight) {
+            Flight<?> flight = inFlight.get(keyOf(request));
+            if (flight != null) {
+                flight.ticket = ticket;
+                ticket.raisePriority(flight.priority);
+            }
+        }
+    }
+
+    /**
+     * Количество выполняемых сейчас уникальных запросов
+     */
+    public int inFlightCount() {
+        synchronized (inFlight) {
+            return inFlight.size();
+        }
+    }
+
+    /**
+     * Снимает вызов с учета; после этого список ожидающих больше не меняется
+     */
+    private void complete(Flight<?> flight) {
+        synchronized (inFlight) {
+            inFlight.remove(flight.key);
+        }
+    }
+
+    private static String keyOf(Request request) {
+        return request.method() + " " + request.url();
+    }
+}
@@ -0,0 +1,131 @@
+package com.draker.recmaster.api;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.draker.recmaster.util.NetworkUtil;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Okio;
+
+/**
+ * Перехватчик чтения из дискового кэша по схеме stale-while-revalidate.
+ * Свежий ответ из кэша возвращается без сети. Устаревший (не старше {@link #MAX_STALE_DAYS})
+ * возвращается сразу, а в фоне выполняется повторный запрос, обновляющий кэш.
+ * Без сети возвращается любой сохраненный ответ. Фоновые запросы идут с приоритетом
+ * {@link RequestPriority#BACKGROUND}
+ */
+public class StaleWhileRevalidateInterceptor implements Interceptor {
+
+    private static final String TAG = "SwrInterceptor";
+
+    private static final int MAX_STALE_DAYS = 7;
+
+    static final CacheControl CACHED_WITHIN_STALE_WINDOW = new CacheControl.Builder()
+            .onlyIfCached()
+            .maxStale(MAX_STALE_DAYS, TimeUnit.DAYS)
+            .build();
+
+    private final Context context;
+    // URL, для которых уже идет фоновое обновление
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+    private volatile OkHttpClient client;
+
+    public StaleWhileRevalidateInterceptor(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Клиент для фоновых запросов. Должен содержать этот же перехватчик и кэш,
+     * чтобы обновление прошло через ту же авторизацию и попало в кэш
+     */
+    public void setClient(OkHttpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        // Запросы с явной политикой кэширования (включая фоновое обновление) не меняем
+        if (!"GET".equals(request.method()) || request.header("Cache-Control") != null) {
+            return chain.proceed(request);
+        }
+
+        if (context != null && !NetworkUtil.isNetworkAvailable(context)) {
+            Log.d(TAG, "Offline, serving from cache: " + request.url());
+            return chain.proceed(request.newBuilder().cacheControl(CacheControl.FORCE_CACHE).build());
+        }
+
+        Response cached = chain.proceed(request.newBuilder().cacheControl(CACHED_WITHIN_STALE_WINDOW).build());
+        if (cached.isSuccessful()) {
+            if (isStale(cached)) {
+                revalidate(request);
+            }
+            return cached;
+        }
+        cached.close();
+
+        return chain.proceed(request);
+    }
+
+    /**
+     * OkHttp помечает устаревшие ответы из кэша предупреждением 110
+     */
+    private static boolean isStale(Response response) {
+        for (String warning : response.headers("Warning")) {
+            if (warning.startsWith("110")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void revalidate(Request request) {
+        OkHttpClient revalidationClient = client;
+        String url = request.url().toString();
+        if (revalidationClient == null || !revalidating.add(url)) {
+            return;
+        }
+
+        // Фоновое обновление не должно занимать квоту раньше запросов экрана;
+        // тег задает приоритет его повторов
+        Request networkRequest = request.newBuilder()
+                .cacheControl(CacheControl.FORCE_NETWORK)
+                .tag(RequestPriority.class, RequestPriority.BACKGROUND)
+                .build();
+        Callback callback = new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                // Тело нужно дочитать, чтобы ответ записался в кэш
+                try {
+                    response.body().source().readAll(Okio.blackhole());
+                    Log.d(TAG, "Revalidated: " + url + ", code: " + response.code());
+                } catch (IOException e) {
+                    Log.w(TAG, "Error reading revalidated response: " + url, e);
+                } finally {
+                    response.close();
+                    revalidating.remove(url);
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                revalidating.remove(url);
+                Log.w(TAG, "Revalidation failed: " + url, e);
+            }
+        };
+        RequestScheduler.getInstance().schedule(request.url().host(), RequestPriority.BACKGROUND,
+                () -> revalidationClient.newCall(networkRequest).enqueue(callback));
+    }
+}
@@ -0,0 +1,40 @@
+package com.draker.recmaster.api.json;
+
+import com.draker.recmaster.model.Book;
+import com.draker.recmaster.model.BookResponse;
+import com.draker.recmaster.model.Game;
+import com.draker.recmaster.model.GameResponse;
+import com.draker.recmaster.model.Movie;
+import com.draker.recmaster.model.MovieResponse;
+import com.draker.recmaster.model.TvShow;
+import com.draker.recmaster.model.TvShowResponse;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Настройка Gson для ответов API: модели контента читаются потоковыми адаптерами
+ * вместо рефлексии. Остальные типы (например, списки жанров) разбираются как раньше
+ */
+public final class ApiJson {
+
+    private ApiJson() {
+    }
+
+    public static Gson createGson() {
+        MovieTypeAdapter movieAdapter = new MovieTypeAdapter();
+        TvShowTypeAdapter tvShowAdapter = new TvShowTypeAdapter();
+        BookTypeAdapter bookAdapter = new BookTypeAdapter();
+
+        return new GsonBuilder()
+                .registerTypeAdapter(Movie.class, movieAdapter)
+                .registerTypeAdapter(MovieResponse.class, new MovieResponseTypeAdapter(movieAdapter))
+                .registerTypeAdapter(TvShow.class, tvShowAdapter)
+                .registerTypeAdapter(TvShowResponse.class, new TvShowResponseTypeAdapter(tvShowAdapter))
+                .registerTypeAdapter(Book.class, bookAdapter)
+                .registerTypeAdapter(BookResponse.class, new BookResponseTypeAdapter(bookAdapter))
+                // Карточка игры читается полностью, списки - облегченной проекцией
+                .registerTypeAdapter(Game.class, new GameTypeAdapter(false))
+                .registerTypeAdapter(GameResponse.class, new GameResponseTypeAdapter(new GameTypeAdapter(true)))
+                .create();
+    }
+}
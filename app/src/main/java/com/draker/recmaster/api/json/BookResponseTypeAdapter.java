@@ -0,0 +1,126 @@
+package com.draker.recmaster.api.json;
+
+import com.draker.recmaster.model.Book;
+import com.draker.recmaster.model.BookResponse;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковый адаптер ответа Google Books со списком книг.
+ * Из элементов читаются только id и volumeInfo, saleInfo и accessInfo пропускаются
+ */
+public class BookResponseTypeAdapter extends TypeAdapter<BookResponse> {
+
+    private final TypeAdapter<Book> bookAdapter;
+
+    public BookResponseTypeAdapter(TypeAdapter<Book> bookAdapter) {
+        this.bookAdapter = bookAdapter;
+    }
+
+    @Override
+    public BookResponse read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        BookResponse response = new BookResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "kind":
+                    response.setKind(JsonReaders.nextString(in));
+                    break;
+                case "totalItems":
+                    response.setTotalItems(JsonReaders.nextInt(in));
+                    break;
+                case "items":
+                    response.setItems(readItems(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return response;
+    }
+
+    private List<BookResponse.BookItem> readItems(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+
+        List<BookResponse.BookItem> items = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                in.skipValue();
+                continue;
+            }
+
+            BookResponse.BookItem item = new BookResponse.BookItem();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "kind":
+                        item.setKind(JsonReaders.nextString(in));
+                        break;
+                    case "id":
+                        item.setId(JsonReaders.nextString(in));
+                        break;
+                    case "etag":
+                        item.setEtag(JsonReaders.nextString(in));
+                        break;
+                    case "selfLink":
+                        item.setSelfLink(JsonReaders.nextString(in));
+                        break;
+                    case "volumeInfo":
+                        item.setVolumeInfo(bookAdapter.read(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            items.add(item);
+        }
+        in.endArray();
+        return items;
+    }
+
+    @Override
+    public void write(JsonWriter out, BookResponse response) throws IOException {
+        if (response == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("kind").value(response.getKind());
+        out.name("totalItems").value(response.getTotalItems());
+        if (response.getItems() != null) {
+            out.name("items").beginArray();
+            for (BookResponse.BookItem item : response.getItems()) {
+                out.beginObject();
+                out.name("kind").value(item.getKind());
+                out.name("id").value(item.getId());
+                out.name("etag").value(item.getEtag());
+                out.name("selfLink").value(item.getSelfLink());
+                out.name("volumeInfo");
+                bookAdapter.write(out, item.getVolumeInfo());
+                out.endObject();
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+}
@@ -0,0 +1,154 @@
+package com.draker.recmaster.api.json;
+
+import com.draker.recmaster.model.Book;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Потоковый адаптер описания книги Google Books (volumeInfo).
+ * Читает только поля модели, остальные (industryIdentifiers, readingModes и т.д.) пропускает
+ */
+public class BookTypeAdapter extends TypeAdapter<Book> {
+
+    @Override
+    public Book read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        Book book = new Book();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    book.setId(JsonReaders.nextString(in));
+                    break;
+                case "title":
+                    book.setTitle(JsonReaders.nextString(in));
+                    break;
+                case "authors":
+                    book.setAuthors(JsonReaders.nextStringList(in));
+                    break;
+                case "publisher":
+                    book.setPublisher(JsonReaders.nextString(in));
+                    break;
+                case "publishedDate":
+                    book.setPublishedDate(JsonReaders.nextString(in));
+                    break;
+                case "description":
+                    book.setDescription(JsonReaders.nextString(in));
+                    break;
+                case "pageCount":
+                    book.setPageCount(JsonReaders.nextInt(in));
+                    break;
+                case "categories":
+                    book.setCategories(JsonReaders.nextStringList(in));
+                    break;
+                case "averageRating":
+                    book.setAverageRating(JsonReaders.nextDouble(in));
+                    break;
+                case "ratingsCount":
+                    book.setRatingsCount(JsonReaders.nextInt(in));
+                    break;
+                case "language":
+                    book.setLanguage(JsonReaders.nextString(in));
+                    break;
+                case "previewLink":
+                    book.setPreviewLink(JsonReaders.nextString(in));
+                    break;
+                case "infoLink":
+                    book.setInfoLink(JsonReaders.nextString(in));
+                    break;
+                case "canonicalVolumeLink":
+                    book.setCanonicalVolumeLink(JsonReaders.nextString(in));
+                    break;
+                case "imageLinks":
+                    book.setImageLinks(readImageLinks(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return book;
+    }
+
+    private static Book.VolumeImageLinks readImageLinks(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_OBJECT) {
+            in.skipValue();
+            return null;
+        }
+
+        Book.VolumeImageLinks imageLinks = new Book.VolumeImageLinks();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "smallThumbnail":
+                    imageLinks.setSmallThumbnail(JsonReaders.nextString(in));
+                    break;
+                case "thumbnail":
+                    imageLinks.setThumbnail(JsonReaders.nextString(in));
+                    break;
+                case "small":
+                    imageLinks.setSmall(JsonReaders.nextString(in));
+                    break;
+                case "medium":
+                    imageLinks.setMedium(JsonReaders.nextString(in));
+                    break;
+                case "large":
+                    imageLinks.setLarge(JsonReaders.nextString(in));
+                    break;
+                case "extraLarge":
+                    imageLinks.setExtraLarge(JsonReaders.nextString(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return imageLinks;
+    }
+
+    @Override
+    public void write(JsonWriter out, Book book) throws IOException {
+        if (book == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("id").value(book.getId());
+        out.name("title").value(book.getTitle());
+        JsonReaders.writeStringList(out, "authors", book.getAuthors());
+        out.name("publisher").value(book.getPublisher());
+        out.name("publishedDate").value(book.getPublishedDate());
+        out.name("description").value(book.getDescription());
+        out.name("pageCount").value(book.getPageCount());
+        JsonReaders.writeStringList(out, "categories", book.getCategories());
+        out.name("averageRating").value(book.getAverageRating());
+        out.name("ratingsCount").value(book.getRatingsCount());
+        out.name("language").value(book.getLanguage());
+        out.name("previewLink").value(book.getPreviewLink());
+        out.name("infoLink").value(book.getInfoLink());
+        out.name("canonicalVolumeLink").value(book.getCanonicalVolumeLink());
+        Book.VolumeImageLinks imageLinks = book.getImageLinks();
+        if (imageLinks != null) {
+            out.name("imageLinks").beginObject();
+            out.name("smallThumbnail").value(imageLinks.getSmallThumbnail());
+            out.name("thumbnail").value(imageLinks.getThumbnail());
+            out.name("small").value(imageLinks.getSmall());
+            out.name("medium").value(imageLinks.getMedium());
+            out.name("large").value(imageLinks.getLarge());
+            out.name("extraLarge").value(imageLinks.getExtraLarge());
+            out.endObject();
+        }
+        out.endObject();
+    }
+}
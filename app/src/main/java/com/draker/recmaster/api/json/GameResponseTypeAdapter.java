@@ -0,0 +1,96 @@
+package com.draker.recmaster.api.json;
+
+import com.draker.recmaster.model.Game;
+import com.draker.recmaster.model.GameResponse;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковый адаптер страницы списка игр RAWG.
+ * Игры списка читаются облегченной проекцией {@link GameTypeAdapter}
+ */
+public class GameResponseTypeAdapter extends TypeAdapter<GameResponse> {
+
+    private final TypeAdapter<Game> itemAdapter;
+
+    public GameResponseTypeAdapter(TypeAdapter<Game> itemAdapter) {
+        this.itemAdapter = itemAdapter;
+    }
+
+    @Override
+    public GameResponse read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        GameResponse response = new GameResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "count":
+                    response.setCount(JsonReaders.nextInt(in));
+                    break;
+                case "next":
+                    response.setNext(JsonReaders.nextString(in));
+                    break;
+                case "previous":
+                    response.setPrevious(JsonReaders.nextString(in));
+                    break;
+                case "results":
+                    response.setResults(readResults(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return response;
+    }
+
+    private List<Game> readResults(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+
+        List<Game> results = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            Game item = itemAdapter.read(in);
+            if (item != null) {
+                results.add(item);
+            }
+        }
+        in.endArray();
+        return results;
+    }
+
+    @Override
+    public void write(JsonWriter out, GameResponse response) throws IOException {
+        if (response == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("count").value(response.getCount());
+        out.name("next").value(response.getNext());
+        out.name("previous").value(response.getPrevious());
+        if (response.getResults() != null) {
+            out.name("results").beginArray();
+            for (Game item : response.getResults()) {
+                itemAdapter.write(out, item);
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+}
@@ -0,0 +1,328 @@
+package com.draker.recmaster.api.json;
+
+import com.draker.recmaster.model.Game;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковый адаптер игры RAWG.
+ * В режиме списка читается облегченная проекция для экранов-списков: разработчики,
+ * издатели, магазины, описание и сайт пропускаются без разбора. Карточка игры
+ * читается полностью
+ */
+public class GameTypeAdapter extends TypeAdapter<Game> {
+
+    private final boolean listProjection;
+
+    /**
+     * @param listProjection true - читать только поля, нужные спискам
+     */
+    public GameTypeAdapter(boolean listProjection) {
+        this.listProjection = listProjection;
+    }
+
+    @Override
+    public Game read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        Game game = new Game();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            switch (name) {
+                case "id":
+                    game.setId(JsonReaders.nextInt(in));
+                    break;
+                case "name":
+                    game.setName(JsonReaders.nextString(in));
+                    break;
+                case "slug":
+                    game.setSlug(JsonReaders.nextString(in));
+                    break;
+                case "released":
+                    game.setReleased(JsonReaders.nextString(in));
+                    break;
+                case "background_image":
+                    game.setBackgroundImage(JsonReaders.nextString(in));
+                    break;
+                case "rating":
+                    game.setRating(JsonReaders.nextDouble(in));
+                    break;
+                case "metacritic":
+                    game.setMetacritic(JsonReaders.nextInt(in));
+                    break;
+                case "playtime":
+                    game.setPlaytime(JsonReaders.nextInt(in));
+                    break;
+                case "genres":
+                    game.setGenres(readGenres(in));
+                    break;
+                case "platforms":
+                    game.setPlatforms(readPlatforms(in));
+                    break;
+                default:
+                    if (listProjection) {
+                        in.skipValue();
+                    } else {
+                        readDetail(in, name, game);
+                    }
+                    break;
+            }
+        }
+        in.endObject();
+        return game;
+    }
+
+    /**
+     * Поля, которые есть только в карточке игры
+     */
+    private static void readDetail(JsonReader in, String name, Game game) throws IOException {
+        switch (name) {
+            case "description":
+                game.setDescription(JsonReaders.nextString(in));
+                break;
+            case "website":
+                game.setWebsite(JsonReaders.nextString(in));
+                break;
+            case "developers":
+                List<Game.Developer> developers = new ArrayList<>();
+                for (Entity entity : readEntities(in)) {
+                    Game.Developer developer = new Game.Developer();
+                    developer.setId(entity.id);
+                    developer.setName(entity.name);
+                    developer.setSlug(entity.slug);
+                    developers.add(developer);
+                }
+                game.setDevelopers(developers);
+                break;
+            case "publishers":
+                List<Game.Publisher> publishers = new ArrayList<>();
+                for (Entity entity : readEntities(in)) {
+                    Game.Publisher publisher = new Game.Publisher();
+                    publisher.setId(entity.id);
+                    publisher.setName(entity.name);
+                    publisher.setSlug(entity.slug);
+                    publishers.add(publisher);
+                }
+                game.setPublishers(publishers);
+                break;
+            case "stores":
+                game.setStores(readStores(in));
+                break;
+            default:
+                in.skipValue();
+                break;
+        }
+    }
+
+    private static List<Game.Genre> readGenres(JsonReader in) throws IOException {
+        List<Game.Genre> genres = new ArrayList<>();
+        for (Entity entity : readEntities(in)) {
+            Game.Genre genre = new Game.Genre();
+            genre.setId(entity.id);
+            genre.setName(entity.name);
+            genre.setSlug(entity.slug);
+            genres.add(genre);
+        }
+        return genres;
+    }
+
+    /**
+     * Читает массив вида [{"platform": {"id", "name", "slug"}, ...}]
+     */
+    private static List<Game.Platform> readPlatforms(JsonReader in) throws IOException {
+        List<Game.Platform> platforms = new ArrayList<>();
+        for (Entity entity : readWrappedEntities(in, "platform")) {
+            Game.Platform.PlatformDetails details = new Game.Platform.PlatformDetails();
+            details.setId(entity.id);
+            details.setName(entity.name);
+            details.setSlug(entity.slug);
+            Game.Platform platform = new Game.Platform();
+            platform.setPlatform(details);
+            platforms.add(platform);
+        }
+        return platforms;
+    }
+
+    /**
+     * Читает массив вида [{"store": {"id", "name", "slug"}, ...}]
+     */
+    private static List<Game.Store> readStores(JsonReader in) throws IOException {
+        List<Game.Store> stores = new ArrayList<>();
+        for (Entity entity : readWrappedEntities(in, "store")) {
+            Game.Store.StoreDetails details = new Game.Store.StoreDetails();
+            details.setId(entity.id);
+            details.setName(entity.name);
+            details.setSlug(entity.slug);
+            Game.Store store = new Game.Store();
+            store.setStore(details);
+            stores.add(store);
+        }
+        return stores;
+    }
+
+    private static List<Entity> readWrappedEntities(JsonReader in, String wrapperName) throws IOException {
+        List<Entity> entities = new ArrayList<>();
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return entities;
+        }
+
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                in.skipValue();
+                continue;
+            }
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals(wrapperName) && in.peek() == JsonToken.BEGIN_OBJECT) {
+                    entities.add(readEntity(in));
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+        in.endArray();
+        return entities;
+    }
+
+    private static List<Entity> readEntities(JsonReader in) throws IOException {
+        List<Entity> entities = new ArrayList<>();
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return entities;
+        }
+
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.BEGIN_OBJECT) {
+                entities.add(readEntity(in));
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endArray();
+        return entities;
+    }
+
+    private static Entity readEntity(JsonReader in) throws IOException {
+        Entity entity = new Entity();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    entity.id = JsonReaders.nextInt(in);
+                    break;
+                case "name":
+                    entity.name = JsonReaders.nextString(in);
+                    break;
+                case "slug":
+                    entity.slug = JsonReaders.nextString(in);
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return entity;
+    }
+
+    @Override
+    public void write(JsonWriter out, Game game) throws IOException {
+        if (game == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("id").value(game.getId());
+        out.name("name").value(game.getName());
+        out.name("slug").value(game.getSlug());
+        out.name("released").value(game.getReleased());
+        out.name("background_image").value(game.getBackgroundImage());
+        out.name("rating").value(game.getRating());
+        out.name("metacritic").value(game.getMetacritic());
+        out.name("playtime").value(game.getPlaytime());
+
+        if (game.getGenres() != null) {
+            out.name("genres").beginArray();
+            for (Game.Genre genre : game.getGenres()) {
+                writeEntity(out, genre.getId(), genre.getName(), genre.getSlug());
+            }
+            out.endArray();
+        }
+        if (game.getPlatforms() != null) {
+            out.name("platforms").beginArray();
+            for (Game.Platform platform : game.getPlatforms()) {
+                Game.Platform.PlatformDetails details = platform.getPlatform();
+                if (details != null) {
+                    out.beginObject().name("platform");
+                    writeEntity(out, details.getId(), details.getName(), details.getSlug());
+                    out.endObject();
+                }
+            }
+            out.endArray();
+        }
+
+        if (!listProjection) {
+            out.name("description").value(game.getDescription());
+            out.name("website").value(game.getWebsite());
+            if (game.getDevelopers() != null) {
+                out.name("developers").beginArray();
+                for (Game.Developer developer : game.getDevelopers()) {
+                    writeEntity(out, developer.getId(), developer.getName(), developer.getSlug());
+                }
+                out.endArray();
+            }
+            if (game.getPublishers() != null) {
+                out.name("publishers").beginArray();
+                for (Game.Publisher publisher : game.getPublishers()) {
+                    writeEntity(out, publisher.getId(), publisher.getName(), publisher.getSlug());
+                }
+                out.endArray();
+            }
+            if (game.getStores() != null) {
+                out.name("stores").beginArray();
+                for (Game.Store store : game.getStores()) {
+                    Game.Store.StoreDetails details = store.getStore();
+                    if (details != null) {
+                        out.beginObject().name("store");
+                        writeEntity(out, details.getId(), details.getName(), details.getSlug());
+                        out.endObject();
+                    }
+                }
+                out.endArray();
+            }
+        }
+        out.endObject();
+    }
+
+    private static void writeEntity(JsonWriter out, int id, String name, String slug) throws IOException {
+        out.beginObject();
+        out.name("id").value(id);
+        out.name("name").value(name);
+        out.name("slug").value(slug);
+        out.endObject();
+    }
+
+    /**
+     * Общая форма вложенных объектов RAWG: жанр, платформа, разработчик, издатель, магазин
+     */
+    private static final class Entity {
+        int id;
+        String name;
+        String slug;
+    }
+}
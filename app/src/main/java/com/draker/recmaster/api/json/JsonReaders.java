@@ -0,0 +1,184 @@
+package com.draker.recmaster.api.json;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Вспомогательные методы потокового чтения и записи JSON для адаптеров ответов API.
+ * Значения null и значения неожиданного типа пропускаются и дают значение по умолчанию
+ */
+final class JsonReaders {
+
+    private JsonReaders() {
+    }
+
+    static String nextString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN) {
+            return token == JsonToken.BOOLEAN ? String.valueOf(in.nextBoolean()) : in.nextString();
+        }
+        in.skipValue();
+        return null;
+    }
+
+    static int nextInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NUMBER) {
+            return (int) in.nextDouble();
+        }
+        in.skipValue();
+        return 0;
+    }
+
+    static double nextDouble(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NUMBER) {
+            return in.nextDouble();
+        }
+        in.skipValue();
+        return 0;
+    }
+
+    static boolean nextBoolean(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.BOOLEAN) {
+            return in.nextBoolean();
+        }
+        in.skipValue();
+        return false;
+    }
+
+    /**
+     * Читает массив чисел
+     */
+    static List<Integer> nextIntList(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+
+        List<Integer> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NUMBER) {
+                values.add(in.nextInt());
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endArray();
+        return values;
+    }
+
+    /**
+     * Читает массив строк
+     */
+    static List<String> nextStringList(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            String value = nextString(in);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        in.endArray();
+        return values;
+    }
+
+    /**
+     * Читает поле "id" каждого объекта массива вида [{"id": 1, "name": "..."}]
+     */
+    static List<Integer> nextObjectIds(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                in.skipValue();
+                continue;
+            }
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("id") && in.peek() == JsonToken.NUMBER) {
+                    ids.add(in.nextInt());
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+        in.endArray();
+        return ids;
+    }
+
+    /**
+     * Читает поле "name" каждого объекта массива вида [{"id": 1, "name": "..."}]
+     */
+    static List<String> nextObjectNames(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+
+        List<String> names = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                // Массив может содержать строки вместо объектов
+                String value = nextString(in);
+                if (value != null) {
+                    names.add(value);
+                }
+                continue;
+            }
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("name")) {
+                    String name = nextString(in);
+                    if (name != null) {
+                        names.add(name);
+                    }
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+        in.endArray();
+        return names;
+    }
+
+    static void writeIntList(JsonWriter out, String name, List<Integer> values) throws IOException {
+        if (values == null) {
+            return;
+        }
+        out.name(name).beginArray();
+        for (Integer value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    static void writeStringList(JsonWriter out, String name, List<String> values) throws IOException {
+        if (values == null) {
+            return;
+        }
+        out.name(name).beginArray();
+        for (String value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+}
@@ -0,0 +1,95 @@
+package com.draker.recmaster.api.json;
+
+import com.draker.recmaster.model.Movie;
+import com.draker.recmaster.model.MovieResponse;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковый адаптер страницы списка фильмов TMDB
+ */
+public class MovieResponseTypeAdapter extends TypeAdapter<MovieResponse> {
+
+    private final TypeAdapter<Movie> itemAdapter;
+
+    public MovieResponseTypeAdapter(TypeAdapter<Movie> itemAdapter) {
+        this.itemAdapter = itemAdapter;
+    }
+
+    @Override
+    public MovieResponse read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        MovieResponse response = new MovieResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "page":
+                    response.setPage(JsonReaders.nextInt(in));
+                    break;
+                case "total_pages":
+                    response.setTotalPages(JsonReaders.nextInt(in));
+                    break;
+                case "total_results":
+                    response.setTotalResults(JsonReaders.nextInt(in));
+                    break;
+                case "results":
+                    response.setResults(readResults(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return response;
+    }
+
+    private List<Movie> readResults(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+
+        List<Movie> results = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            Movie item = itemAdapter.read(in);
+            if (item != null) {
+                results.add(item);
+            }
+        }
+        in.endArray();
+        return results;
+    }
+
+    @Override
+    public void write(JsonWriter out, MovieResponse response) throws IOException {
+        if (response == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("page").value(response.getPage());
+        out.name("total_pages").value(response.getTotalPages());
+        out.name("total_results").value(response.getTotalResults());
+        if (response.getResults() != null) {
+            out.name("results").beginArray();
+            for (Movie item : response.getResults()) {
+                itemAdapter.write(out, item);
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+}
@@ -0,0 +1,98 @@
+package com.draker.recmaster.api.json;
+
+import com.draker.recmaster.model.Movie;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Потоковый адаптер фильма TMDB. Читает только поля модели, остальные пропускает.
+ * Жанры принимаются и как "genre_ids" (списки), и как "genres" (карточка фильма)
+ */
+public class MovieTypeAdapter extends TypeAdapter<Movie> {
+
+    @Override
+    public Movie read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        Movie movie = new Movie();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    movie.setId(JsonReaders.nextInt(in));
+                    break;
+                case "title":
+                    movie.setTitle(JsonReaders.nextString(in));
+                    break;
+                case "overview":
+                    movie.setOverview(JsonReaders.nextString(in));
+                    break;
+                case "poster_path":
+                    movie.setPosterPath(JsonReaders.nextString(in));
+                    break;
+                case "backdrop_path":
+                    movie.setBackdropPath(JsonReaders.nextString(in));
+                    break;
+                case "vote_average":
+                    movie.setVoteAverage((float) JsonReaders.nextDouble(in));
+                    break;
+                case "vote_count":
+                    movie.setVoteCount(JsonReaders.nextInt(in));
+                    break;
+                case "release_date":
+                    movie.setReleaseDate(JsonReaders.nextString(in));
+                    break;
+                case "genre_ids":
+                    movie.setGenreIds(JsonReaders.nextIntList(in));
+                    break;
+                case "genres":
+                    movie.setGenreIds(JsonReaders.nextObjectIds(in));
+                    break;
+                case "popularity":
+                    movie.setPopularity((float) JsonReaders.nextDouble(in));
+                    break;
+                case "adult":
+                    movie.setAdult(JsonReaders.nextBoolean(in));
+                    break;
+                case "runtime":
+                    movie.setRuntime(JsonReaders.nextInt(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return movie;
+    }
+
+    @Override
+    public void write(JsonWriter out, Movie movie) throws IOException {
+        if (movie == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("id").value(movie.getId());
+        out.name("title").value(movie.getTitle());
+        out.name("overview").value(movie.getOverview());
+        out.name("poster_path").value(movie.getPosterPath());
+        out.name("backdrop_path").value(movie.getBackdropPath());
+        out.name("vote_average").value(movie.getVoteAverage());
+        out.name("vote_count").value(movie.getVoteCount());
+        out.name("release_date").value(movie.getReleaseDate());
+        JsonReaders.writeIntList(out, "genre_ids", movie.getGenreIds());
+        out.name("popularity").value(movie.getPopularity());
+        out.name("adult").value(movie.isAdult());
+        out.name("runtime").value(movie.getRuntime());
+        out.endObject();
+    }
+}
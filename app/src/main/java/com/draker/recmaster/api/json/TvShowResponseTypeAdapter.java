@@ -0,0 +1,95 @@
+package com.draker.recmaster.api.json;
+
+import com.draker.recmaster.model.TvShow;
+import com.draker.recmaster.model.TvShowResponse;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковый адаптер страницы списка сериалов TMDB
+ */
+public class TvShowResponseTypeAdapter extends TypeAdapter<TvShowResponse> {
+
+    private final TypeAdapter<TvShow> itemAdapter;
+
+    public TvShowResponseTypeAdapter(TypeAdapter<TvShow> itemAdapter) {
+        this.itemAdapter = itemAdapter;
+    }
+
+    @Override
+    public TvShowResponse read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        TvShowResponse response = new TvShowResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "page":
+                    response.setPage(JsonReaders.nextInt(in));
+                    break;
+                case "total_pages":
+                    response.setTotal_pages(JsonReaders.nextInt(in));
+                    break;
+                case "total_results":
+                    response.setTotal_results(JsonReaders.nextInt(in));
+                    break;
+                case "results":
+                    response.setResults(readResults(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return response;
+    }
+
+    private List<TvShow> readResults(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+
+        List<TvShow> results = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            TvShow item = itemAdapter.read(in);
+            if (item != null) {
+                results.add(item);
+            }
+        }
+        in.endArray();
+        return results;
+    }
+
+    @Override
+    public void write(JsonWriter out, TvShowResponse response) throws IOException {
+        if (response == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("page").value(response.getPage());
+        out.name("total_pages").value(response.getTotal_pages());
+        out.name("total_results").value(response.getTotal_results());
+        if (response.getResults() != null) {
+            out.name("results").beginArray();
+            for (TvShow item : response.getResults()) {
+                itemAdapter.write(out, item);
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+}
@@ -0,0 +1,106 @@
+package com.draker.recmaster.api.json;
+
+import com.draker.recmaster.model.TvShow;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Потоковый адаптер сериала TMDB. Читает только поля модели, остальные пропускает.
+ * Жанры принимаются как "genre_ids" или "genres", сети - как строки или объекты с "name"
+ */
+public class TvShowTypeAdapter extends TypeAdapter<TvShow> {
+
+    @Override
+    public TvShow read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        TvShow tvShow = new TvShow();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    tvShow.setId(JsonReaders.nextInt(in));
+                    break;
+                case "name":
+                    tvShow.setName(JsonReaders.nextString(in));
+                    break;
+                case "overview":
+                    tvShow.setOverview(JsonReaders.nextString(in));
+                    break;
+                case "poster_path":
+                    tvShow.setPosterPath(JsonReaders.nextString(in));
+                    break;
+                case "backdrop_path":
+                    tvShow.setBackdropPath(JsonReaders.nextString(in));
+                    break;
+                case "vote_average":
+                    tvShow.setVoteAverage((float) JsonReaders.nextDouble(in));
+                    break;
+                case "vote_count":
+                    tvShow.setVoteCount(JsonReaders.nextInt(in));
+                    break;
+                case "first_air_date":
+                    tvShow.setFirstAirDate(JsonReaders.nextString(in));
+                    break;
+                case "genre_ids":
+                    tvShow.setGenreIds(JsonReaders.nextIntList(in));
+                    break;
+                case "genres":
+                    tvShow.setGenreIds(JsonReaders.nextObjectIds(in));
+                    break;
+                case "popularity":
+                    tvShow.setPopularity((float) JsonReaders.nextDouble(in));
+                    break;
+                case "number_of_seasons":
+                    tvShow.setNumberOfSeasons(JsonReaders.nextInt(in));
+                    break;
+                case "number_of_episodes":
+                    tvShow.setNumberOfEpisodes(JsonReaders.nextInt(in));
+                    break;
+                case "status":
+                    tvShow.setStatus(JsonReaders.nextString(in));
+                    break;
+                case "networks":
+                    tvShow.setNetworks(JsonReaders.nextObjectNames(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return tvShow;
+    }
+
+    @Override
+    public void write(JsonWriter out, TvShow tvShow) throws IOException {
+        if (tvShow == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("id").value(tvShow.getId());
+        out.name("name").value(tvShow.getName());
+        out.name("overview").value(tvShow.getOverview());
+        out.name("poster_path").value(tvShow.getPosterPath());
+        out.name("backdrop_path").value(tvShow.getBackdropPath());
+        out.name("vote_average").value(tvShow.getVoteAverage());
+        out.name("vote_count").value(tvShow.getVoteCount());
+        out.name("first_air_date").value(tvShow.getFirstAirDate());
+        JsonReaders.writeIntList(out, "genre_ids", tvShow.getGenreIds());
+        out.name("popularity").value(tvShow.getPopularity());
+        out.name("number_of_seasons").value(tvShow.getNumberOfSeasons());
+        out.name("number_of_episodes").value(tvShow.getNumberOfEpisodes());
+        out.name("status").value(tvShow.getStatus());
+        JsonReaders.writeStringList(out, "networks", tvShow.getNetworks());
+        out.endObject();
+    }
+}
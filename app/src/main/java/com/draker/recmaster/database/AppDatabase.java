@@ -1,27 +1,39 @@
 package com.draker.recmaster.database;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
 
+import com.draker.recmaster.database.converter.GenreIdsConverter;
 import com.draker.recmaster.database.dao.AchievementDao;
 import com.draker.recmaster.database.dao.BookDao;
 import com.draker.recmaster.database.dao.GameDao;
 import com.draker.recmaster.database.dao.MovieDao;
+import com.draker.recmaster.database.dao.MovieGenreDao;
+import com.draker.recmaster.database.dao.TvGenreDao;
 import com.draker.recmaster.database.dao.TvShowDao;
 import com.draker.recmaster.database.dao.UserAchievementDao;
 import com.draker.recmaster.database.dao.UserDao;
 import com.draker.recmaster.database.dao.WatchHistoryDao;
 import com.draker.recmaster.database.entity.AchievementEntity;
 import com.draker.recmaster.database.entity.BookEntity;
+import com.draker.recmaster.database.entity.BookFtsEntity;
 import com.draker.recmaster.database.entity.GameEntity;
+import com.draker.recmaster.database.entity.GameFtsEntity;
 import com.draker.recmaster.database.entity.MovieEntity;
+import com.draker.recmaster.database.entity.MovieFtsEntity;
+import com.draker.recmaster.database.entity.MovieGenreEntity;
+import com.draker.recmaster.database.entity.TvGenreEntity;
 import com.draker.recmaster.database.entity.TvShowEntity;
+import com.draker.recmaster.database.entity.TvShowFtsEntity;
 import com.draker.recmaster.database.entity.UserAchievementEntity;
 import com.draker.recmaster.database.entity.UserEntity;
 import com.draker.recmaster.database.entity.WatchHistoryEntity;
@@ -33,7 +45,9 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
- * Основной класс базы данных Room для приложения RecMaster
+ * Основной класс базы данных Room для приложения RecMaster.
+ * Схема каждой версии экспортируется в app/schemas; при изменении сущностей версия повышается
+ * и в {@link #ALL_MIGRATIONS} добавляется миграция, иначе кэш и история пользователя будут потеряны
  */
 @Database(entities = {
         MovieEntity.class,
@@ -43,17 +57,33 @@ import java.util.concurrent.Executors;
         UserAchievementEntity.class,
         TvShowEntity.class,
         BookEntity.class,
-        GameEntity.class
-}, version = 3, exportSchema = false)
+        GameEntity.class,
+        MovieGenreEntity.class,
+        TvGenreEntity.class,
+        MovieFtsEntity.class,
+        TvShowFtsEntity.class,
+        GameFtsEntity.class,
+        BookFtsEntity.class
+}, version = 7, exportSchema = true)
 public abstract class AppDatabase extends RoomDatabase {
     
     private static final String TAG = "AppDatabase";
     private static final String DATABASE_NAME = "recmaster_db";
     
-    // Создаем пул потоков для выполнения операций с базой данных в фоне
-    private static final int NUMBER_OF_THREADS = 4;
+    // Запись в один поток: SQLite допускает одного писателя, и транзакции из нескольких
+    // потоков только ждали бы друг друга на блокировке базы
     public static final ExecutorService databaseWriteExecutor =
-            Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+            Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "db-write"));
+    
+    // Чтение в отдельном пуле: в режиме WAL читатели не ждут запись, поэтому запросы UI
+    // не встают в очередь за пакетными вставками из репозиториев. Пул используется и Room для LiveData
+    private static final int NUMBER_OF_READ_THREADS = 4;
+    public static final ExecutorService databaseReadExecutor =
+            Executors.newFixedThreadPool(NUMBER_OF_READ_THREADS, runnable -> new Thread(runnable, "db-read"));
+    
+    // Кэш страниц соединения в КиБ (отрицательное значение в PRAGMA cache_size) и объем отображения в память
+    private static final int CACHE_SIZE_KIB = 8 * 1024;
+    private static final long MMAP_SIZE_BYTES = 32L * 1024 * 1024;
     
     // Синглтон для доступа к базе данных
     private static volatile AppDatabase INSTANCE;
@@ -67,6 +97,146 @@ public abstract class AppDatabase extends RoomDatabase {
     public abstract TvShowDao tvShowDao();
     public abstract BookDao bookDao();
     public abstract GameDao gameDao();
+    public abstract MovieGenreDao movieGenreDao();
+    public abstract TvGenreDao tvGenreDao();
+    
+    /**
+     * 3 -> 4: продолжительность фильма (заполняется из деталей TMDB)
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE movies ADD COLUMN runtime INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+    
+    /**
+     * 4 -> 5: таблицы связей с жанрами (заполняются из JSON-колонки genreIds)
+     * и индексы по популярности
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `movie_genres` (`movieId` INTEGER NOT NULL, `genreId` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`movieId`, `genreId`), FOREIGN KEY(`movieId`) REFERENCES `movies`(`id`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_movie_genres_genreId_movieId` ON `movie_genres` (`genreId`, `movieId`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `tv_genres` (`tvShowId` INTEGER NOT NULL, `genreId` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`tvShowId`, `genreId`), FOREIGN KEY(`tvShowId`) REFERENCES `tv_shows`(`id`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_tv_genres_genreId_tvShowId` ON `tv_genres` (`genreId`, `tvShowId`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_movies_popularity` ON `movies` (`popularity`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_tv_shows_popularity` ON `tv_shows` (`popularity`)");
+
+            int movieLinks = backfillGenres(db, "movies", "movie_genres", "movieId");
+            int tvLinks = backfillGenres(db, "tv_shows", "tv_genres", "tvShowId");
+            Log.d(TAG, "Backfilled " + movieLinks + " movie and " + tvLinks + " tv show genre links");
+        }
+    };
+    
+    /**
+     * 5 -> 6: полнотекстовые индексы для поиска (вместо LIKE '%...%')
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            createFtsIndex(db, "movies", "movies_fts", "title", "overview");
+            createFtsIndex(db, "tv_shows", "tv_shows_fts", "name", "overview");
+            createFtsIndex(db, "games", "games_fts", "name", "description");
+            createFtsIndex(db, "books", "books_fts", "title", "description", "authors");
+        }
+    };
+    
+    /**
+     * 6 -> 7: хеш содержимого фильма для пропуска неизмененных строк при обновлении каталога
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE movies ADD COLUMN contentHash INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+    
+    /**
+     * Все миграции по порядку, начиная с версии 3 (схемы версий 1 и 2 не сохранились)
+     */
+    static final Migration[] ALL_MIGRATIONS = {
+            MIGRATION_3_4,
+            MIGRATION_4_5,
+            MIGRATION_5_6,
+            MIGRATION_6_7
+    };
+    
+    /**
+     * Создает FTS4-таблицу с внешним содержимым и триггеры синхронизации в том виде,
+     * в каком их создает Room для @Fts4(contentEntity), и заполняет индекс из таблицы
+     */
+    private static void createFtsIndex(SupportSQLiteDatabase db, String table, String ftsTable, String... columns) {
+        StringBuilder definitions = new StringBuilder();
+        StringBuilder names = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        for (String column : columns) {
+            definitions.append('`').append(column).append("` TEXT, ");
+            names.append(", `").append(column).append('`');
+            values.append(", NEW.`").append(column).append('`');
+        }
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `" + ftsTable + "` USING FTS4("
+                + definitions + "tokenize=unicode61, content=`" + table + "`)");
+
+        String triggerPrefix = "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_" + ftsTable + "_";
+        String deleteOld = " ON `" + table + "` BEGIN DELETE FROM `" + ftsTable + "` WHERE `docid`=OLD.`rowid`; END";
+        String insertNew = " ON `" + table + "` BEGIN INSERT INTO `" + ftsTable + "`(`docid`" + names
+                + ") VALUES (NEW.`rowid`" + values + "); END";
+        db.execSQL(triggerPrefix + "BEFORE_UPDATE BEFORE UPDATE" + deleteOld);
+        db.execSQL(triggerPrefix + "BEFORE_DELETE BEFORE DELETE" + deleteOld);
+        db.execSQL(triggerPrefix + "AFTER_UPDATE AFTER UPDATE" + insertNew);
+        db.execSQL(triggerPrefix + "AFTER_INSERT AFTER INSERT" + insertNew);
+
+        db.execSQL("INSERT INTO `" + ftsTable + "`(`" + ftsTable + "`) VALUES('rebuild')");
+        Log.d(TAG, "Built full-text index " + ftsTable);
+    }
+    
+    /**
+     * Заполняет таблицу связей из JSON-колонки genreIds. Разбор в Java: расширение json1
+     * есть не во всех сборках SQLite на устройствах
+     * @return количество созданных связей
+     */
+    private static int backfillGenres(SupportSQLiteDatabase db, String table, String linkTable, String idColumn) {
+        int links = 0;
+        SupportSQLiteStatement insert = db.compileStatement(
+                "INSERT OR IGNORE INTO `" + linkTable + "` (`" + idColumn + "`, `genreId`) VALUES (?, ?)");
+        try (Cursor cursor = db.query("SELECT id, genreIds FROM `" + table + "` WHERE genreIds IS NOT NULL")) {
+            while (cursor.moveToNext()) {
+                int id = cursor.getInt(0);
+                List<Integer> genreIds = GenreIdsConverter.fromString(cursor.getString(1));
+                if (genreIds == null) {
+                    continue;
+                }
+                for (Integer genreId : genreIds) {
+                    if (genreId == null) {
+                        continue;
+                    }
+                    insert.bindLong(1, id);
+                    insert.bindLong(2, genreId);
+                    if (insert.executeInsert() != -1) {
+                        links++;
+                    }
+                }
+            }
+        }
+        return links;
+    }
+    
+    /**
+     * Настройки PRAGMA действуют на соединение, которое открывает Room; через него идут
+     * все записи и транзакции. Соединения для чтения в WAL используют настройки платформы
+     */
+    private static void setPragma(SupportSQLiteDatabase db, String pragma) {
+        // Часть PRAGMA возвращает строку с новым значением, а execSQL не выполняет запросы с результатом
+        try (Cursor cursor = db.query("PRAGMA " + pragma)) {
+            cursor.moveToFirst();
+        }
+    }
     
     /**
      * Получение экземпляра базы данных
@@ -81,7 +251,12 @@ public abstract class AppDatabase extends RoomDatabase {
                             AppDatabase.class,
                             DATABASE_NAME)
                             .addCallback(sRoomDatabaseCallback)
-                            .fallbackToDestructiveMigration() // При обновлении схемы пересоздаем БД
+                            .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                            .setQueryExecutor(databaseReadExecutor)
+                            .addMigrations(ALL_MIGRATIONS)
+                            // Пересоздаем БД только для версий без миграций и при откате приложения
+                            .fallbackToDestructiveMigrationFrom(1, 2)
+                            .fallbackToDestructiveMigrationOnDowngrade()
                             .build();
                 }
             }
@@ -191,6 +366,14 @@ public abstract class AppDatabase extends RoomDatabase {
         @Override
         public void onOpen(@NonNull SupportSQLiteDatabase db) {
             super.onOpen(db);
+            // Вставки с REPLACE удаляют старую строку без триггеров DELETE, если рекурсивные
+            // триггеры выключены, и в FTS-индексе оставались бы устаревшие записи
+            setPragma(db, "recursive_triggers = ON");
+            // В WAL режим NORMAL не портит базу при сбое, теряется лишь последняя транзакция;
+            // fsync выполняется при контрольной точке, а не при каждой фиксации
+            setPragma(db, "synchronous = NORMAL");
+            setPragma(db, "cache_size = -" + CACHE_SIZE_KIB);
+            setPragma(db, "mmap_size = " + MMAP_SIZE_BYTES);
             Log.d(TAG, "Database opened");
         }
     };
@@ -41,16 +41,30 @@ public interface BookDao {
     LiveData<BookEntity> getBookById(String bookId);
 
     /**
-     * Поиск книг по названию
+     * Полнотекстовый поиск по названию, описанию и авторам: сначала совпадения в названии,
+     * затем по числу оценок. Ключ книги строковый, поэтому соединение идет по rowid
+     * @param match выражение MATCH по всем колонкам (см. FtsQuery)
+     * @param titleMatch то же выражение только по названию
      */
-    @Query("SELECT * FROM books WHERE title LIKE '%' || :query || '%'")
-    LiveData<List<BookEntity>> searchBooks(String query);
+    @Query("SELECT books.* FROM books JOIN books_fts ON books.rowid = books_fts.rowid " +
+            "WHERE books_fts MATCH :match " +
+            "ORDER BY books.rowid IN (SELECT rowid FROM books_fts WHERE books_fts MATCH :titleMatch) DESC, " +
+            "books.ratingsCount DESC LIMIT :limit")
+    LiveData<List<BookEntity>> searchBooks(String match, String titleMatch, int limit);
 
     /**
      * Поиск книг по автору
+     * @param authorsMatch выражение MATCH по колонке authors (см. FtsQuery)
      */
-    @Query("SELECT * FROM books WHERE id IN (SELECT id FROM books WHERE authors LIKE '%' || :author || '%')")
-    LiveData<List<BookEntity>> getBooksByAuthor(String author);
+    @Query("SELECT books.* FROM books JOIN books_fts ON books.rowid = books_fts.rowid " +
+            "WHERE books_fts MATCH :authorsMatch ORDER BY books.ratingsCount DESC LIMIT :limit")
+    LiveData<List<BookEntity>> getBooksByAuthor(String authorsMatch, int limit);
+
+    /**
+     * Книги с наибольшим числом оценок (синхронно, для фонового отбора рекомендаций)
+     */
+    @Query("SELECT * FROM books ORDER BY ratingsCount DESC LIMIT :limit")
+    List<BookEntity> getMostRatedBooksSync(int limit);
 
     /**
      * Удаление книги из базы данных
@@ -41,10 +41,21 @@ public interface GameDao {
     LiveData<GameEntity> getGameById(int gameId);
 
     /**
-     * Поиск игр по названию
+     * Полнотекстовый поиск: сначала совпадения в названии, затем по рейтингу
+     * @param match выражение MATCH по названию и описанию (см. FtsQuery)
+     * @param nameMatch то же выражение только по названию
      */
-    @Query("SELECT * FROM games WHERE name LIKE '%' || :query || '%' ORDER BY rating DESC")
-    LiveData<List<GameEntity>> searchGames(String query);
+    @Query("SELECT games.* FROM games JOIN games_fts ON games.id = games_fts.rowid " +
+            "WHERE games_fts MATCH :match " +
+            "ORDER BY games.id IN (SELECT rowid FROM games_fts WHERE games_fts MATCH :nameMatch) DESC, " +
+            "games.rating DESC LIMIT :limit")
+    LiveData<List<GameEntity>> searchGames(String match, String nameMatch, int limit);
+
+    /**
+     * Игры с наибольшим рейтингом (синхронно, для фонового отбора рекомендаций)
+     */
+    @Query("SELECT * FROM games ORDER BY rating DESC LIMIT :limit")
+    List<GameEntity> getTopRatedGamesSync(int limit);
 
     /**
      * Удаление игры из базы данных
@@ -6,8 +6,10 @@ import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.TypeConverters;
 import androidx.room.Update;
 
+import com.draker.recmaster.database.converter.GenreIdsConverter;
 import com.draker.recmaster.database.entity.MovieEntity;
 
 import java.util.List;
@@ -18,11 +20,25 @@ import java.util.List;
 @Dao
 public interface MovieDao {
     
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    long insert(MovieEntity movie);
+    /**
+     * Вставка только новых фильмов. REPLACE не используется: он удаляет строку, а вместе с ней
+     * отметки пользователя и (каскадом) историю просмотров. Существующие фильмы обновляются
+     * через {@link #updateCatalog}
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertNew(List<MovieEntity> movies);
     
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertAll(List<MovieEntity> movies);
+    /**
+     * Обновление колонок каталога; watched, watchedDate, userRating и userNotes не затрагиваются
+     */
+    @Update(entity = MovieEntity.class)
+    void updateCatalog(List<CatalogFields> movies);
+    
+    /**
+     * Сохраненные продолжительность и хеш содержимого для фильмов из списка
+     */
+    @Query("SELECT id, runtime, contentHash FROM movies WHERE id IN (:ids)")
+    List<CatalogState> getCatalogStates(List<Integer> ids);
     
     @Update
     void update(MovieEntity movie);
@@ -39,12 +55,77 @@ public interface MovieDao {
     @Query("SELECT * FROM movies WHERE watched = 1 ORDER BY watchedDate DESC")
     LiveData<List<MovieEntity>> getWatchedMovies();
     
-    @Query("SELECT * FROM movies WHERE title LIKE '%' || :query || '%'")
-    LiveData<List<MovieEntity>> searchMovies(String query);
+    /**
+     * Полнотекстовый поиск: сначала совпадения в названии, затем по популярности
+     * @param match выражение MATCH по названию и описанию (см. FtsQuery)
+     * @param titleMatch то же выражение только по названию
+     */
+    @Query("SELECT movies.* FROM movies JOIN movies_fts ON movies.id = movies_fts.rowid " +
+            "WHERE movies_fts MATCH :match " +
+            "ORDER BY movies.id IN (SELECT rowid FROM movies_fts WHERE movies_fts MATCH :titleMatch) DESC, " +
+            "movies.popularity DESC LIMIT :limit")
+    LiveData<List<MovieEntity>> searchMovies(String match, String titleMatch, int limit);
+    
+    /**
+     * Фильмы хотя бы одного из жанров, самые популярные первыми
+     */
+    @Query("SELECT * FROM movies WHERE id IN (SELECT movieId FROM movie_genres WHERE genreId IN (:genreIds)) " +
+            "ORDER BY popularity DESC LIMIT :limit")
+    LiveData<List<MovieEntity>> getMoviesByAnyGenre(List<Integer> genreIds, int limit);
+    
+    @Query("SELECT * FROM movies WHERE id IN (SELECT movieId FROM movie_genres WHERE genreId IN (:genreIds)) " +
+            "ORDER BY popularity DESC LIMIT :limit")
+    List<MovieEntity> getMoviesByAnyGenreSync(List<Integer> genreIds, int limit);
     
     @Query("UPDATE movies SET watched = :watched, watchedDate = :watchedDate, userRating = :userRating, userNotes = :userNotes WHERE id = :id")
     void updateWatchedStatus(int id, boolean watched, long watchedDate, int userRating, String userNotes);
     
+    /**
+     * Известная продолжительность фильмов из списка (строки с runtime = 0 не возвращаются)
+     */
+    @Query("SELECT id, runtime FROM movies WHERE id IN (:ids) AND runtime != 0")
+    List<RuntimeRow> getKnownRuntimes(List<Integer> ids);
+    
+    @Query("UPDATE movies SET runtime = :runtime WHERE id = :id")
+    void updateRuntime(int id, int runtime);
+    
     @Query("DELETE FROM movies")
     void deleteAll();
+    
+    /**
+     * Продолжительность фильма
+     */
+    class RuntimeRow {
+        public int id;
+        public int runtime;
+    }
+    
+    /**
+     * Состояние сохраненного фильма для сравнения с загруженным
+     */
+    class CatalogState {
+        public int id;
+        public int runtime;
+        public long contentHash;
+    }
+    
+    /**
+     * Колонки фильма, приходящие из TMDB
+     */
+    @TypeConverters(GenreIdsConverter.class)
+    class CatalogFields {
+        public int id;
+        public String title;
+        public String overview;
+        public String posterPath;
+        public String backdropPath;
+        public float voteAverage;
+        public int voteCount;
+        public String releaseDate;
+        public List<Integer> genreIds;
+        public float popularity;
+        public boolean adult;
+        public int runtime;
+        public long contentHash;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.draker.recmaster.database.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.draker.recmaster.database.entity.MovieGenreEntity;
+
+import java.util.List;
+
+/**
+ * Data Access Object для связей фильмов с жанрами
+ */
+@Dao
+public interface MovieGenreDao {
+    
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertAll(List<MovieGenreEntity> movieGenres);
+    
+    @Query("DELETE FROM movie_genres WHERE movieId IN (:movieIds)")
+    void deleteForMovies(List<Integer> movieIds);
+    
+    @Query("SELECT genreId FROM movie_genres WHERE movieId = :movieId")
+    List<Integer> getGenreIds(int movieId);
+    
+    @Query("SELECT COUNT(*) FROM movie_genres WHERE genreId = :genreId")
+    int countMovies(int genreId);
+}
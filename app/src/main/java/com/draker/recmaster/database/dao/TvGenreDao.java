@@ -0,0 +1,29 @@
+package com.draker.recmaster.database.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.draker.recmaster.database.entity.TvGenreEntity;
+
+import java.util.List;
+
+/**
+ * Data Access Object для связей сериалов с жанрами
+ */
+@Dao
+public interface TvGenreDao {
+    
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertAll(List<TvGenreEntity> tvGenres);
+    
+    @Query("DELETE FROM tv_genres WHERE tvShowId IN (:tvShowIds)")
+    void deleteForTvShows(List<Integer> tvShowIds);
+    
+    @Query("SELECT genreId FROM tv_genres WHERE tvShowId = :tvShowId")
+    List<Integer> getGenreIds(int tvShowId);
+    
+    @Query("SELECT COUNT(*) FROM tv_genres WHERE genreId = :genreId")
+    int countTvShows(int genreId);
+}
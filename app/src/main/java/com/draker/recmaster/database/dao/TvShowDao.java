@@ -41,10 +41,28 @@ public interface TvShowDao {
     LiveData<TvShowEntity> getTvShowById(int tvShowId);
 
     /**
-     * Поиск сериалов по названию
+     * Полнотекстовый поиск: сначала совпадения в названии, затем по популярности
+     * @param match выражение MATCH по названию и описанию (см. FtsQuery)
+     * @param nameMatch то же выражение только по названию
      */
-    @Query("SELECT * FROM tv_shows WHERE name LIKE '%' || :query || '%' ORDER BY popularity DESC")
-    LiveData<List<TvShowEntity>> searchTvShows(String query);
+    @Query("SELECT tv_shows.* FROM tv_shows JOIN tv_shows_fts ON tv_shows.id = tv_shows_fts.rowid " +
+            "WHERE tv_shows_fts MATCH :match " +
+            "ORDER BY tv_shows.id IN (SELECT rowid FROM tv_shows_fts WHERE tv_shows_fts MATCH :nameMatch) DESC, " +
+            "tv_shows.popularity DESC LIMIT :limit")
+    LiveData<List<TvShowEntity>> searchTvShows(String match, String nameMatch, int limit);
+
+    /**
+     * Сериалы хотя бы одного из жанров, самые популярные первыми
+     */
+    @Query("SELECT * FROM tv_shows WHERE id IN (SELECT tvShowId FROM tv_genres WHERE genreId IN (:genreIds)) " +
+            "ORDER BY popularity DESC LIMIT :limit")
+    LiveData<List<TvShowEntity>> getTvShowsByAnyGenre(List<Integer> genreIds, int limit);
+
+    /**
+     * Самые популярные сериалы (синхронно, для фонового отбора рекомендаций)
+     */
+    @Query("SELECT * FROM tv_shows ORDER BY popularity DESC LIMIT :limit")
+    List<TvShowEntity> getPopularTvShowsSync(int limit);
 
     /**
      * Удаление сериала из базы данных
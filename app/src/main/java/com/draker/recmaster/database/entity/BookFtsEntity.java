@@ -0,0 +1,37 @@
+package com.draker.recmaster.database.entity;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * Полнотекстовый индекс книг по названию, описанию и авторам. Текст хранится только в books,
+ * индекс обновляется триггерами Room. Ключ книги строковый, поэтому связь идет по rowid таблицы books.
+ * Авторы индексируются в виде JSON-строки из StringListConverter: токенизатор отбрасывает кавычки и скобки
+ */
+@Entity(tableName = "books_fts")
+@Fts4(contentEntity = BookEntity.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+public class BookFtsEntity {
+
+    private final String title;
+    private final String description;
+    private final String authors;
+
+    public BookFtsEntity(String title, String description, String authors) {
+        this.title = title;
+        this.description = description;
+        this.authors = authors;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getAuthors() {
+        return authors;
+    }
+}
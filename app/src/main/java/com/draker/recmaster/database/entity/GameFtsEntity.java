@@ -0,0 +1,30 @@
+package com.draker.recmaster.database.entity;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * Полнотекстовый индекс игр по названию и описанию. Текст хранится только в games,
+ * индекс обновляется триггерами Room; rowid совпадает с GameEntity.id
+ */
+@Entity(tableName = "games_fts")
+@Fts4(contentEntity = GameEntity.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+public class GameFtsEntity {
+
+    private final String name;
+    private final String description;
+
+    public GameFtsEntity(String name, String description) {
+        this.name = name;
+        this.description = description;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -1,7 +1,9 @@
 package com.draker.recmaster.database.entity;
 
 import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.TypeConverters;
 
@@ -14,7 +16,7 @@ import java.util.List;
 /**
  * Entity класс, представляющий фильм в базе данных Room
  */
-@Entity(tableName = "movies")
+@Entity(tableName = "movies", indices = {@Index("popularity")})
 @TypeConverters({GenreIdsConverter.class, DateConverter.class})
 public class MovieEntity {
     
@@ -31,6 +33,14 @@ public class MovieEntity {
     private List<Integer> genreIds;
     private float popularity;
     private boolean adult;
+    // Продолжительность в минутах: есть только в деталях фильма, заполняется MovieRuntimeHydrator.
+    // 0 - еще не загружена, Movie.RUNTIME_UNKNOWN - в TMDB не указана
+    @ColumnInfo(defaultValue = "0")
+    private int runtime;
+    // Хеш колонок каталога из списков TMDB: неизмененные фильмы при обновлении не перезаписываются.
+    // 0 - не вычислен (строки до миграции 6 -> 7)
+    @ColumnInfo(defaultValue = "0")
+    private long contentHash;
     
     // Дополнительные поля для отслеживания в приложении
     private boolean watched; // Просмотрен ли фильм
@@ -131,6 +141,22 @@ public class MovieEntity {
         this.adult = adult;
     }
 
+    public int getRuntime() {
+        return runtime;
+    }
+
+    public void setRuntime(int runtime) {
+        this.runtime = runtime;
+    }
+
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(long contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public boolean isWatched() {
         return watched;
     }
@@ -0,0 +1,30 @@
+package com.draker.recmaster.database.entity;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * Полнотекстовый индекс фильмов по названию и описанию. Текст хранится только в movies,
+ * индекс обновляется триггерами Room; rowid совпадает с MovieEntity.id
+ */
+@Entity(tableName = "movies_fts")
+@Fts4(contentEntity = MovieEntity.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+public class MovieFtsEntity {
+
+    private final String title;
+    private final String overview;
+
+    public MovieFtsEntity(String title, String overview) {
+        this.title = title;
+        this.overview = overview;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getOverview() {
+        return overview;
+    }
+}
@@ -0,0 +1,43 @@
+package com.draker.recmaster.database.entity;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+/**
+ * Связь фильма с жанром. Дублирует MovieEntity.genreIds в виде таблицы,
+ * чтобы отбор по жанрам выполнялся в SQLite по индексу, а не разбором JSON
+ */
+@Entity(
+    tableName = "movie_genres",
+    primaryKeys = {"movieId", "genreId"},
+    foreignKeys = {
+        @ForeignKey(
+            entity = MovieEntity.class,
+            parentColumns = "id",
+            childColumns = "movieId",
+            onDelete = ForeignKey.CASCADE
+        )
+    },
+    indices = {
+        @Index({"genreId", "movieId"})
+    }
+)
+public class MovieGenreEntity {
+
+    private final int movieId;
+    private final int genreId;
+
+    public MovieGenreEntity(int movieId, int genreId) {
+        this.movieId = movieId;
+        this.genreId = genreId;
+    }
+
+    public int getMovieId() {
+        return movieId;
+    }
+
+    public int getGenreId() {
+        return genreId;
+    }
+}
@@ -0,0 +1,43 @@
+package com.draker.recmaster.database.entity;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+/**
+ * Связь сериала с жанром. Дублирует TvShowEntity.genreIds в виде таблицы,
+ * чтобы отбор по жанрам выполнялся в SQLite по индексу, а не разбором JSON
+ */
+@Entity(
+    tableName = "tv_genres",
+    primaryKeys = {"tvShowId", "genreId"},
+    foreignKeys = {
+        @ForeignKey(
+            entity = TvShowEntity.class,
+            parentColumns = "id",
+            childColumns = "tvShowId",
+            onDelete = ForeignKey.CASCADE
+        )
+    },
+    indices = {
+        @Index({"genreId", "tvShowId"})
+    }
+)
+public class TvGenreEntity {
+
+    private final int tvShowId;
+    private final int genreId;
+
+    public TvGenreEntity(int tvShowId, int genreId) {
+        this.tvShowId = tvShowId;
+        this.genreId = genreId;
+    }
+
+    public int getTvShowId() {
+        return tvShowId;
+    }
+
+    public int getGenreId() {
+        return genreId;
+    }
+}
@@ -1,6 +1,7 @@
 package com.draker.recmaster.database.entity;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.TypeConverters;
 
@@ -12,7 +13,7 @@ import java.util.List;
 /**
  * Сущность для хранения данных о сериалах в базе данных Room
  */
-@Entity(tableName = "tv_shows")
+@Entity(tableName = "tv_shows", indices = {@Index("popularity")})
 @TypeConverters(GenreIdsConverter.class)
 public class TvShowEntity {
 
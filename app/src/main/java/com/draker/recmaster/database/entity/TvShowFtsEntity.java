@@ -0,0 +1,30 @@
+package com.draker.recmaster.database.entity;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * Полнотекстовый индекс сериалов по названию и описанию. Текст хранится только в tv_shows,
+ * индекс обновляется триггерами Room; rowid совпадает с TvShowEntity.id
+ */
+@Entity(tableName = "tv_shows_fts")
+@Fts4(contentEntity = TvShowEntity.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+public class TvShowFtsEntity {
+
+    private final String name;
+    private final String overview;
+
+    public TvShowFtsEntity(String name, String overview) {
+        this.name = name;
+        this.overview = overview;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getOverview() {
+        return overview;
+    }
+}
@@ -0,0 +1,57 @@
+package com.draker.recmaster.database.repository;
+
+import java.util.Locale;
+
+/**
+ * Построение выражений MATCH для полнотекстового поиска (таблицы *_fts).
+ * Ввод пользователя разбивается на слова из букв и цифр, каждое слово ищется по префиксу,
+ * все слова должны совпасть. Кавычки, звездочки, двоеточия и прочий синтаксис FTS
+ * из ввода отбрасываются, поэтому любой ввод дает корректное выражение
+ */
+public final class FtsQuery {
+
+    /**
+     * Максимум результатов поиска
+     */
+    public static final int SEARCH_LIMIT = 100;
+
+    private FtsQuery() {
+    }
+
+    /**
+     * Поиск по всем колонкам индекса, например "звездн* войн*"
+     * @return выражение MATCH или null, если во вводе нет ни одного слова
+     */
+    public static String prefix(String input) {
+        return build(input, null);
+    }
+
+    /**
+     * Поиск только в одной колонке индекса, например "title:звездн* title:войн*"
+     * @return выражение MATCH или null, если во вводе нет ни одного слова
+     */
+    public static String prefix(String input, String column) {
+        return build(input, column);
+    }
+
+    private static String build(String input, String column) {
+        if (input == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        for (String token : input.split("[^\\p{L}\\p{N}]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            if (column != null) {
+                match.append(column).append(':');
+            }
+            // Нижний регистр: слова OR/AND/NOT/NEAR не должны стать операторами
+            match.append(token.toLowerCase(Locale.ROOT)).append('*');
+        }
+        return match.length() > 0 ? match.toString() : null;
+    }
+}
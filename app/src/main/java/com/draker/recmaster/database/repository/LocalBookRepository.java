@@ -4,14 +4,18 @@ import android.app.Application;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
 
 import com.draker.recmaster.database.AppDatabase;
 import com.draker.recmaster.database.dao.BookDao;
 import com.draker.recmaster.database.entity.BookEntity;
 import com.draker.recmaster.model.Book;
+import com.draker.recmaster.service.BookCategoryIndex;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Репозиторий для работы с локальной базой данных книг
@@ -21,6 +25,13 @@ public class LocalBookRepository {
     private static final String TAG = "LocalBookRepo";
     private static LocalBookRepository instance;
     private final BookDao bookDao;
+    
+    // Номер состояния каталога: увеличивается после каждой записи
+    private final AtomicInteger catalogVersion = new AtomicInteger();
+    // Индекс кандидатов строится один раз на состояние каталога
+    private BookCategoryIndex candidateIndex;
+    private int candidateIndexVersion;
+    private int candidateIndexLimit;
 
     private LocalBookRepository(Application application) {
         AppDatabase db = AppDatabase.getInstance(application);
@@ -41,6 +52,7 @@ public class LocalBookRepository {
     public void insertBook(BookEntity bookEntity) {
         AppDatabase.databaseWriteExecutor.execute(() -> {
             bookDao.insert(bookEntity);
+            catalogVersion.incrementAndGet();
             Log.d(TAG, "Book inserted: " + bookEntity.getTitle());
         });
     }
@@ -51,6 +63,7 @@ public class LocalBookRepository {
     public void insertBooks(List<BookEntity> bookEntities) {
         AppDatabase.databaseWriteExecutor.execute(() -> {
             bookDao.insertAll(bookEntities);
+            catalogVersion.incrementAndGet();
             Log.d(TAG, "Inserted " + bookEntities.size() + " books");
         });
     }
@@ -70,17 +83,49 @@ public class LocalBookRepository {
     }
 
     /**
-     * Поиск книг по названию
+     * Полнотекстовый поиск книг по названию, описанию и авторам, слова ищутся по префиксу
      */
     public LiveData<List<BookEntity>> searchBooks(String query) {
-        return bookDao.searchBooks(query);
+        String match = FtsQuery.prefix(query);
+        if (match == null) {
+            return new MutableLiveData<>(Collections.emptyList());
+        }
+        return bookDao.searchBooks(match, FtsQuery.prefix(query, "title"), FtsQuery.SEARCH_LIMIT);
     }
 
     /**
      * Поиск книг по автору
      */
     public LiveData<List<BookEntity>> getBooksByAuthor(String author) {
-        return bookDao.getBooksByAuthor(author);
+        String match = FtsQuery.prefix(author, "authors");
+        if (match == null) {
+            return new MutableLiveData<>(Collections.emptyList());
+        }
+        return bookDao.getBooksByAuthor(match, FtsQuery.SEARCH_LIMIT);
+    }
+
+    /**
+     * Кандидаты для рекомендаций: книги каталога с наибольшим числом оценок.
+     * Вызывать только в фоновом потоке
+     */
+    public List<Book> getCandidates(int limit) {
+        return entitiesToBooks(bookDao.getMostRatedBooksSync(limit));
+    }
+
+    /**
+     * Индекс категорий по кандидатам для рекомендаций. Пока каталог не менялся,
+     * возвращается ранее построенный индекс. Вызывать только в фоновом потоке
+     */
+    public synchronized BookCategoryIndex getCandidateIndex(int limit) {
+        // Номер читается до запроса: запись во время построения вызовет перестроение в следующий раз
+        int version = catalogVersion.get();
+        if (candidateIndex == null || candidateIndexVersion != version || candidateIndexLimit != limit) {
+            candidateIndex = new BookCategoryIndex(getCandidates(limit));
+            candidateIndexVersion = version;
+            candidateIndexLimit = limit;
+            Log.d(TAG, "Book category index rebuilt: " + candidateIndex.size() + " books");
+        }
+        return candidateIndex;
     }
 
     /**
@@ -89,6 +134,7 @@ public class LocalBookRepository {
     public void deleteBook(String bookId) {
         AppDatabase.databaseWriteExecutor.execute(() -> {
             bookDao.deleteBook(bookId);
+            catalogVersion.incrementAndGet();
             Log.d(TAG, "Book deleted: " + bookId);
         });
     }
@@ -99,6 +145,7 @@ public class LocalBookRepository {
     public void deleteAllBooks() {
         AppDatabase.databaseWriteExecutor.execute(() -> {
             bookDao.deleteAllBooks();
+            catalogVersion.incrementAndGet();
             Log.d(TAG, "All books deleted");
         });
     }
@@ -4,14 +4,18 @@ import android.app.Application;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
 
 import com.draker.recmaster.database.AppDatabase;
 import com.draker.recmaster.database.dao.GameDao;
 import com.draker.recmaster.database.entity.GameEntity;
 import com.draker.recmaster.model.Game;
+import com.draker.recmaster.service.GameIndex;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Репозиторий для работы с локальной базой данных игр
@@ -21,6 +25,13 @@ public class LocalGameRepository {
     private static final String TAG = "LocalGameRepo";
     private static LocalGameRepository instance;
     private final GameDao gameDao;
+    
+    // Номер состояния каталога: увеличивается после каждой записи
+    private final AtomicInteger catalogVersion = new AtomicInteger();
+    // Индекс кандидатов строится один раз на состояние каталога
+    private GameIndex candidateIndex;
+    private int candidateIndexVersion;
+    private int candidateIndexLimit;
 
     private LocalGameRepository(Application application) {
         AppDatabase db = AppDatabase.getInstance(application);
@@ -41,6 +52,7 @@ public class LocalGameRepository {
     public void insertGame(GameEntity gameEntity) {
         AppDatabase.databaseWriteExecutor.execute(() -> {
             gameDao.insert(gameEntity);
+            catalogVersion.incrementAndGet();
             Log.d(TAG, "Game inserted: " + gameEntity.getName());
         });
     }
@@ -51,6 +63,7 @@ public class LocalGameRepository {
     public void insertGames(List<GameEntity> gameEntities) {
         AppDatabase.databaseWriteExecutor.execute(() -> {
             gameDao.insertAll(gameEntities);
+            catalogVersion.incrementAndGet();
             Log.d(TAG, "Inserted " + gameEntities.size() + " games");
         });
     }
@@ -70,10 +83,38 @@ public class LocalGameRepository {
     }
 
     /**
-     * Поиск игр по названию
+     * Полнотекстовый поиск игр по названию и описанию, слова ищутся по префиксу
      */
     public LiveData<List<GameEntity>> searchGames(String query) {
-        return gameDao.searchGames(query);
+        String match = FtsQuery.prefix(query);
+        if (match == null) {
+            return new MutableLiveData<>(Collections.emptyList());
+        }
+        return gameDao.searchGames(match, FtsQuery.prefix(query, "name"), FtsQuery.SEARCH_LIMIT);
+    }
+
+    /**
+     * Кандидаты для рекомендаций: игры каталога с наибольшим рейтингом.
+     * Вызывать только в фоновом потоке
+     */
+    public List<Game> getCandidates(int limit) {
+        return entitiesToGames(gameDao.getTopRatedGamesSync(limit));
+    }
+
+    /**
+     * Индекс жанров и платформ по кандидатам для рекомендаций. Пока каталог не менялся,
+     * возвращается ранее построенный индекс. Вызывать только в фоновом потоке
+     */
+    public synchronized GameIndex getCandidateIndex(int limit) {
+        // Номер читается до запроса: запись во время построения вызовет перестроение в следующий раз
+        int version = catalogVersion.get();
+        if (candidateIndex == null || candidateIndexVersion != version || candidateIndexLimit != limit) {
+            candidateIndex = new GameIndex(getCandidates(limit));
+            candidateIndexVersion = version;
+            candidateIndexLimit = limit;
+            Log.d(TAG, "Game index rebuilt: " + candidateIndex.size() + " games");
+        }
+        return candidateIndex;
     }
 
     /**
@@ -82,6 +123,7 @@ public class LocalGameRepository {
     public void deleteGame(int gameId) {
         AppDatabase.databaseWriteExecutor.execute(() -> {
             gameDao.deleteGame(gameId);
+            catalogVersion.incrementAndGet();
             Log.d(TAG, "Game deleted: " + gameId);
         });
     }
@@ -92,6 +134,7 @@ public class LocalGameRepository {
     public void deleteAllGames() {
         AppDatabase.databaseWriteExecutor.execute(() -> {
             gameDao.deleteAllGames();
+            catalogVersion.incrementAndGet();
             Log.d(TAG, "All games deleted");
         });
     }
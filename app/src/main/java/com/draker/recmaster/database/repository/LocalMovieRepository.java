@@ -1,22 +1,31 @@
 package com.draker.recmaster.database.repository;
 
 import android.app.Application;
+import android.database.Cursor;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
 
 import com.draker.recmaster.database.AppDatabase;
+import com.draker.recmaster.database.converter.GenreIdsConverter;
 import com.draker.recmaster.database.dao.MovieDao;
+import com.draker.recmaster.database.dao.MovieGenreDao;
 import com.draker.recmaster.database.dao.WatchHistoryDao;
 import com.draker.recmaster.database.entity.MovieEntity;
+import com.draker.recmaster.database.entity.MovieGenreEntity;
 import com.draker.recmaster.database.entity.WatchHistoryEntity;
 import com.draker.recmaster.model.Movie;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * Репозиторий для локальной работы с фильмами в базе данных
@@ -24,8 +33,13 @@ import java.util.concurrent.Executors;
 public class LocalMovieRepository {
     
     private static final String TAG = "LocalMovieRepository";
+    private static final int MAX_QUERY_IDS = 500;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
     
+    private final AppDatabase database;
     private final MovieDao movieDao;
+    private final MovieGenreDao movieGenreDao;
     private final WatchHistoryDao watchHistoryDao;
     private final LiveData<List<MovieEntity>> watchedMovies;
     
@@ -36,16 +50,21 @@ public class LocalMovieRepository {
             synchronized (LocalMovieRepository.class) {
                 if (INSTANCE == null) {
                     AppDatabase db = AppDatabase.getInstance(application);
-                    INSTANCE = new LocalMovieRepository(db.movieDao(), db.watchHistoryDao());
+                    INSTANCE = new LocalMovieRepository(db);
                 }
             }
         }
         return INSTANCE;
     }
     
-    private LocalMovieRepository(MovieDao movieDao, WatchHistoryDao watchHistoryDao) {
-        this.movieDao = movieDao;
-        this.watchHistoryDao = watchHistoryDao;
+    /**
+     * Репозиторий поверх заданной базы (в приложении - через {@link #getInstance}, в тестах - база в памяти)
+     */
+    LocalMovieRepository(AppDatabase database) {
+        this.database = database;
+        this.movieDao = database.movieDao();
+        this.movieGenreDao = database.movieGenreDao();
+        this.watchHistoryDao = database.watchHistoryDao();
         this.watchedMovies = movieDao.getWatchedMovies();
         Log.d(TAG, "LocalMovieRepository initialized");
     }
@@ -65,25 +84,133 @@ public class LocalMovieRepository {
     }
     
     /**
-     * Сохранение фильма в базу данных
+     * Сохранение фильма в базу данных (см. {@link #insertMovies})
      */
     public void insertMovie(MovieEntity movie) {
         AppDatabase.databaseWriteExecutor.execute(() -> {
-            long result = movieDao.insert(movie);
-            Log.d(TAG, "Inserted movie: " + movie.getTitle() + " with ID: " + result);
+            int written = database.runInTransaction(() -> upsertMovies(Collections.singletonList(movie)));
+            Log.d(TAG, "Saved movie: " + movie.getTitle() + (written == 0 ? " (unchanged)" : ""));
         });
     }
     
     /**
-     * Сохранение списка фильмов в базу данных
+     * Сохранение списка фильмов в базу данных одной транзакцией. Новые фильмы вставляются,
+     * у сохраненных обновляются только колонки каталога: отметки просмотра, оценка и заметки
+     * пользователя сохраняются. Фильмы без изменений не перезаписываются
      */
     public void insertMovies(List<MovieEntity> movies) {
         AppDatabase.databaseWriteExecutor.execute(() -> {
-            movieDao.insertAll(movies);
-            Log.d(TAG, "Inserted " + movies.size() + " movies into database");
+            int written = database.runInTransaction(() -> upsertMovies(movies));
+            Log.d(TAG, "Saved " + movies.size() + " movies, written: " + written);
+        });
+    }
+    
+    /**
+     * Фильмы хотя бы одного из жанров, самые популярные первыми (отбор по индексу movie_genres)
+     */
+    public LiveData<List<MovieEntity>> getMoviesByAnyGenre(List<Integer> genreIds, int limit) {
+        return movieDao.getMoviesByAnyGenre(genreIds, limit);
+    }
+    
+    /**
+     * Известная продолжительность фильмов (id -> минуты или Movie.RUNTIME_UNKNOWN).
+     * Фильмы без загруженной продолжительности в результат не попадают. Вызывать только в фоновом потоке
+     */
+    public Map<Integer, Integer> getKnownRuntimes(List<Integer> movieIds) {
+        Map<Integer, Integer> runtimes = new HashMap<>();
+        // Ограничение SQLite на число параметров запроса
+        for (int from = 0; from < movieIds.size(); from += MAX_QUERY_IDS) {
+            List<Integer> chunk = movieIds.subList(from, Math.min(movieIds.size(), from + MAX_QUERY_IDS));
+            for (MovieDao.RuntimeRow row : movieDao.getKnownRuntimes(chunk)) {
+                runtimes.put(row.id, row.runtime);
+            }
+        }
+        return runtimes;
+    }
+    
+    /**
+     * Сохраняет продолжительность фильмов одной транзакцией
+     * @param runtimes id фильма -> продолжительность в минутах
+     */
+    public void updateRuntimes(Map<Integer, Integer> runtimes) {
+        AppDatabase.databaseWriteExecutor.execute(() -> {
+            database.runInTransaction(() -> {
+                for (Map.Entry<Integer, Integer> entry : runtimes.entrySet()) {
+                    movieDao.updateRuntime(entry.getKey(), entry.getValue());
+                }
+            });
+            Log.d(TAG, "Updated runtime for " + runtimes.size() + " movies");
         });
     }
     
+    /**
+     * Кандидаты для рекомендаций одним списком. Вызывать только в фоновом потоке
+     */
+    public List<Movie> getCandidates(MovieCandidateQuery query) {
+        List<Movie> candidates = new ArrayList<>(query.getLimit());
+        streamCandidates(query, query.getLimit(), candidates::addAll);
+        return candidates;
+    }
+    
+    /**
+     * Потоковое чтение кандидатов для рекомендаций из локального каталога.
+     * Строки читаются курсором и передаются порциями, поэтому в памяти
+     * одновременно находится не больше одной порции. Вызывать только в фоновом потоке
+     *
+     * @param query параметры предварительного отбора на стороне SQLite
+     * @param chunkSize размер порции
+     * @param sink получатель порций
+     * @return общее количество прочитанных фильмов
+     */
+    public int streamCandidates(MovieCandidateQuery query, int chunkSize, Consumer<List<Movie>> sink) {
+        int total = 0;
+        try (Cursor cursor = database.query(query.toSqlQuery())) {
+            int idIndex = cursor.getColumnIndexOrThrow("id");
+            int titleIndex = cursor.getColumnIndexOrThrow("title");
+            int overviewIndex = cursor.getColumnIndexOrThrow("overview");
+            int posterPathIndex = cursor.getColumnIndexOrThrow("posterPath");
+            int backdropPathIndex = cursor.getColumnIndexOrThrow("backdropPath");
+            int voteAverageIndex = cursor.getColumnIndexOrThrow("voteAverage");
+            int voteCountIndex = cursor.getColumnIndexOrThrow("voteCount");
+            int releaseDateIndex = cursor.getColumnIndexOrThrow("releaseDate");
+            int genreIdsIndex = cursor.getColumnIndexOrThrow("genreIds");
+            int popularityIndex = cursor.getColumnIndexOrThrow("popularity");
+            int adultIndex = cursor.getColumnIndexOrThrow("adult");
+            int runtimeIndex = cursor.getColumnIndexOrThrow("runtime");
+            
+            List<Movie> chunk = new ArrayList<>(chunkSize);
+            while (cursor.moveToNext()) {
+                Movie movie = new Movie();
+                movie.setId(cursor.getInt(idIndex));
+                movie.setTitle(cursor.getString(titleIndex));
+                movie.setOverview(cursor.getString(overviewIndex));
+                movie.setPosterPath(cursor.getString(posterPathIndex));
+                movie.setBackdropPath(cursor.getString(backdropPathIndex));
+                movie.setVoteAverage(cursor.getFloat(voteAverageIndex));
+                movie.setVoteCount(cursor.getInt(voteCountIndex));
+                movie.setReleaseDate(cursor.getString(releaseDateIndex));
+                movie.setGenreIds(GenreIdsConverter.fromString(cursor.getString(genreIdsIndex)));
+                movie.setPopularity(cursor.getFloat(popularityIndex));
+                movie.setAdult(cursor.getInt(adultIndex) != 0);
+                movie.setRuntime(cursor.getInt(runtimeIndex));
+                chunk.add(movie);
+                
+                if (chunk.size() >= chunkSize) {
+                    sink.accept(chunk);
+                    total += chunk.size();
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            
+            if (!chunk.isEmpty()) {
+                sink.accept(chunk);
+                total += chunk.size();
+            }
+        }
+        Log.d(TAG, "Streamed " + total + " candidates for " + query);
+        return total;
+    }
+    
     /**
      * Преобразование Movie из API в MovieEntity для базы данных
      */
@@ -100,8 +227,9 @@ public class LocalMovieRepository {
         entity.setGenreIds(movie.getGenreIds());
         entity.setPopularity(movie.getPopularity());
         entity.setAdult(movie.isAdult());
+        entity.setRuntime(movie.getRuntime());
         
-        // По умолчанию не просмотрен
+        // Новый фильм не просмотрен; у сохраненного отметки пользователя не перезаписываются
         entity.setWatched(false);
         entity.setUserRating(0);
         
@@ -135,10 +263,145 @@ public class LocalMovieRepository {
         movie.setGenreIds(entity.getGenreIds());
         movie.setPopularity(entity.getPopularity());
         movie.setAdult(entity.isAdult());
+        movie.setRuntime(entity.getRuntime());
         
         return movie;
     }
     
+    /**
+     * Вставка новых и обновление измененных фильмов; вызывается внутри транзакции.
+     * Изменение определяется по хешу колонок каталога и по продолжительности
+     * @return количество вставленных и обновленных фильмов
+     */
+    int upsertMovies(List<MovieEntity> movies) {
+        Map<Integer, MovieDao.CatalogState> stored = new HashMap<>();
+        List<Integer> ids = idsOf(movies);
+        for (int from = 0; from < ids.size(); from += MAX_QUERY_IDS) {
+            for (MovieDao.CatalogState state : movieDao.getCatalogStates(
+                    ids.subList(from, Math.min(ids.size(), from + MAX_QUERY_IDS)))) {
+                stored.put(state.id, state);
+            }
+        }
+        
+        List<MovieEntity> inserted = new ArrayList<>();
+        List<MovieDao.CatalogFields> updated = new ArrayList<>();
+        List<MovieEntity> written = new ArrayList<>();
+        for (MovieEntity movie : movies) {
+            movie.setContentHash(catalogHash(movie));
+            MovieDao.CatalogState state = stored.get(movie.getId());
+            if (state == null) {
+                inserted.add(movie);
+            } else {
+                // Списки TMDB не содержат продолжительность: сохраняем уже загруженную
+                if (movie.getRuntime() == 0) {
+                    movie.setRuntime(state.runtime);
+                }
+                if (state.contentHash == movie.getContentHash() && state.runtime == movie.getRuntime()) {
+                    continue;
+                }
+                updated.add(toCatalogFields(movie));
+            }
+            written.add(movie);
+        }
+        
+        movieDao.insertNew(inserted);
+        movieDao.updateCatalog(updated);
+        replaceGenres(written);
+        return written.size();
+    }
+    
+    private static MovieDao.CatalogFields toCatalogFields(MovieEntity movie) {
+        MovieDao.CatalogFields fields = new MovieDao.CatalogFields();
+        fields.id = movie.getId();
+        fields.title = movie.getTitle();
+        fields.overview = movie.getOverview();
+        fields.posterPath = movie.getPosterPath();
+        fields.backdropPath = movie.getBackdropPath();
+        fields.voteAverage = movie.getVoteAverage();
+        fields.voteCount = movie.getVoteCount();
+        fields.releaseDate = movie.getReleaseDate();
+        fields.genreIds = movie.getGenreIds();
+        fields.popularity = movie.getPopularity();
+        fields.adult = movie.isAdult();
+        fields.runtime = movie.getRuntime();
+        fields.contentHash = movie.getContentHash();
+        return fields;
+    }
+    
+    /**
+     * 64-битный хеш FNV-1a колонок каталога (без продолжительности, она сравнивается отдельно).
+     * Никогда не равен 0, который означает "не вычислен"
+     */
+    static long catalogHash(MovieEntity movie) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = mix(hash, movie.getTitle());
+        hash = mix(hash, movie.getOverview());
+        hash = mix(hash, movie.getPosterPath());
+        hash = mix(hash, movie.getBackdropPath());
+        hash = mix(hash, Float.floatToIntBits(movie.getVoteAverage()));
+        hash = mix(hash, movie.getVoteCount());
+        hash = mix(hash, movie.getReleaseDate());
+        List<Integer> genreIds = movie.getGenreIds();
+        hash = mix(hash, genreIds != null ? genreIds.size() : -1);
+        if (genreIds != null) {
+            for (Integer genreId : genreIds) {
+                hash = mix(hash, genreId != null ? genreId : -1);
+            }
+        }
+        hash = mix(hash, Float.floatToIntBits(movie.getPopularity()));
+        hash = mix(hash, movie.isAdult() ? 1 : 0);
+        return hash != 0 ? hash : 1;
+    }
+    
+    private static long mix(long hash, long value) {
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+    
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return mix(hash, -1L);
+        }
+        for (int i = 0, n = value.length(); i < n; i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // Длина разделяет соседние поля: ("ab", "c") и ("a", "bc") дают разный хеш
+        return mix(hash, value.length());
+    }
+    
+    /**
+     * Перезаписывает связи фильмов с жанрами; вызывается внутри транзакции записи фильмов
+     */
+    private void replaceGenres(List<MovieEntity> movies) {
+        List<Integer> ids = idsOf(movies);
+        for (int from = 0; from < ids.size(); from += MAX_QUERY_IDS) {
+            movieGenreDao.deleteForMovies(ids.subList(from, Math.min(ids.size(), from + MAX_QUERY_IDS)));
+        }
+        
+        List<MovieGenreEntity> links = new ArrayList<>();
+        for (MovieEntity movie : movies) {
+            if (movie.getGenreIds() == null) {
+                continue;
+            }
+            for (Integer genreId : movie.getGenreIds()) {
+                if (genreId != null) {
+                    links.add(new MovieGenreEntity(movie.getId(), genreId));
+                }
+            }
+        }
+        movieGenreDao.insertAll(links);
+    }
+    
+    private static List<Integer> idsOf(List<MovieEntity> movies) {
+        List<Integer> ids = new ArrayList<>(movies.size());
+        for (MovieEntity movie : movies) {
+            ids.add(movie.getId());
+        }
+        return ids;
+    }
+    
     /**
      * Отметить фильм как просмотренный
      */
@@ -167,10 +430,14 @@ public class LocalMovieRepository {
     }
     
     /**
-     * Поиск фильмов по запросу
+     * Полнотекстовый поиск фильмов по названию и описанию, слова ищутся по префиксу
      */
     public LiveData<List<MovieEntity>> searchMovies(String query) {
-        return movieDao.searchMovies(query);
+        String match = FtsQuery.prefix(query);
+        if (match == null) {
+            return new MutableLiveData<>(Collections.emptyList());
+        }
+        return movieDao.searchMovies(match, FtsQuery.prefix(query, "title"), FtsQuery.SEARCH_LIMIT);
     }
     
     /**
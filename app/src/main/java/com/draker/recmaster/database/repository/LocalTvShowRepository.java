@@ -4,13 +4,17 @@ import android.app.Application;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
 
 import com.draker.recmaster.database.AppDatabase;
+import com.draker.recmaster.database.dao.TvGenreDao;
 import com.draker.recmaster.database.dao.TvShowDao;
+import com.draker.recmaster.database.entity.TvGenreEntity;
 import com.draker.recmaster.database.entity.TvShowEntity;
 import com.draker.recmaster.model.TvShow;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -19,12 +23,16 @@ import java.util.List;
 public class LocalTvShowRepository {
 
     private static final String TAG = "LocalTvShowRepo";
+    private static final int MAX_QUERY_IDS = 500;
     private static LocalTvShowRepository instance;
+    private final AppDatabase database;
     private final TvShowDao tvShowDao;
+    private final TvGenreDao tvGenreDao;
 
     private LocalTvShowRepository(Application application) {
-        AppDatabase db = AppDatabase.getInstance(application);
-        tvShowDao = db.tvShowDao();
+        database = AppDatabase.getInstance(application);
+        tvShowDao = database.tvShowDao();
+        tvGenreDao = database.tvGenreDao();
         Log.d(TAG, "LocalTvShowRepository initialized");
     }
 
@@ -40,7 +48,10 @@ public class LocalTvShowRepository {
      */
     public void insertTvShow(TvShowEntity tvShowEntity) {
         AppDatabase.databaseWriteExecutor.execute(() -> {
-            tvShowDao.insert(tvShowEntity);
+            database.runInTransaction(() -> {
+                tvShowDao.insert(tvShowEntity);
+                replaceGenres(Collections.singletonList(tvShowEntity));
+            });
             Log.d(TAG, "TvShow inserted: " + tvShowEntity.getName());
         });
     }
@@ -50,7 +61,10 @@ public class LocalTvShowRepository {
      */
     public void insertTvShows(List<TvShowEntity> tvShowEntities) {
         AppDatabase.databaseWriteExecutor.execute(() -> {
-            tvShowDao.insertAll(tvShowEntities);
+            database.runInTransaction(() -> {
+                tvShowDao.insertAll(tvShowEntities);
+                replaceGenres(tvShowEntities);
+            });
             Log.d(TAG, "Inserted " + tvShowEntities.size() + " tv shows");
         });
     }
@@ -70,10 +84,29 @@ public class LocalTvShowRepository {
     }
 
     /**
-     * Поиск сериалов по названию
+     * Полнотекстовый поиск сериалов по названию и описанию, слова ищутся по префиксу
      */
     public LiveData<List<TvShowEntity>> searchTvShows(String query) {
-        return tvShowDao.searchTvShows(query);
+        String match = FtsQuery.prefix(query);
+        if (match == null) {
+            return new MutableLiveData<>(Collections.emptyList());
+        }
+        return tvShowDao.searchTvShows(match, FtsQuery.prefix(query, "name"), FtsQuery.SEARCH_LIMIT);
+    }
+
+    /**
+     * Сериалы хотя бы одного из жанров, самые популярные первыми (отбор по индексу tv_genres)
+     */
+    public LiveData<List<TvShowEntity>> getTvShowsByAnyGenre(List<Integer> genreIds, int limit) {
+        return tvShowDao.getTvShowsByAnyGenre(genreIds, limit);
+    }
+
+    /**
+     * Кандидаты для рекомендаций: самые популярные сериалы каталога.
+     * Вызывать только в фоновом потоке
+     */
+    public List<TvShow> getCandidates(int limit) {
+        return entitiesToTvShows(tvShowDao.getPopularTvShowsSync(limit));
     }
 
     /**
@@ -124,4 +157,28 @@ public class LocalTvShowRepository {
         }
         return tvShows;
     }
+
+    /**
+     * Перезаписывает связи сериалов с жанрами; вызывается внутри транзакции записи сериалов
+     */
+    private void replaceGenres(List<TvShowEntity> tvShows) {
+        List<Integer> ids = new ArrayList<>(tvShows.size());
+        List<TvGenreEntity> links = new ArrayList<>();
+        for (TvShowEntity tvShow : tvShows) {
+            ids.add(tvShow.getId());
+            if (tvShow.getGenreIds() == null) {
+                continue;
+            }
+            for (Integer genreId : tvShow.getGenreIds()) {
+                if (genreId != null) {
+                    links.add(new TvGenreEntity(tvShow.getId(), genreId));
+                }
+            }
+        }
+
+        for (int from = 0; from < ids.size(); from += MAX_QUERY_IDS) {
+            tvGenreDao.deleteForTvShows(ids.subList(from, Math.min(ids.size(), from + MAX_QUERY_IDS)));
+        }
+        tvGenreDao.insertAll(links);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package com.draker.recmaster.database.repository;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Параметры предварительного отбора кандидатов для рекомендаций на стороне SQLite.
+ * Отбор грубый (надмножество результата): точная проверка фильтра выполняется потом
+ */
+public class MovieCandidateQuery {
+
+    public static final int DEFAULT_LIMIT = 500;
+
+    private final List<Integer> genreIds;
+    private final int minYear;
+    private final int maxYear;
+    private final float minVoteAverage;
+    private final int minVoteCount;
+    private final int limit;
+
+    private MovieCandidateQuery(Builder builder) {
+        this.genreIds = new ArrayList<>(builder.genreIds);
+        this.minYear = builder.minYear;
+        this.maxYear = builder.maxYear;
+        this.minVoteAverage = builder.minVoteAverage;
+        this.minVoteCount = builder.minVoteCount;
+        this.limit = builder.limit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Строит SQL-запрос с параметрами. Жанры отбираются по индексу таблицы movie_genres
+     */
+    public SupportSQLiteQuery toSqlQuery() {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, title, overview, posterPath, backdropPath, voteAverage, voteCount, " +
+                "releaseDate, genreIds, popularity, adult, runtime FROM movies WHERE voteCount >= ? AND voteAverage >= ?");
+        List<Object> args = new ArrayList<>();
+        args.add(minVoteCount);
+        args.add(minVoteAverage);
+
+        if (minYear > 0) {
+            sql.append(" AND releaseDate >= ?");
+            args.add(minYear + "-01-01");
+        }
+        if (maxYear > 0) {
+            sql.append(" AND releaseDate < ?");
+            args.add((maxYear + 1) + "-01-01");
+        }
+
+        if (!genreIds.isEmpty()) {
+            sql.append(" AND id IN (SELECT movieId FROM movie_genres WHERE genreId IN (");
+            for (int i = 0; i < genreIds.size(); i++) {
+                sql.append(i > 0 ? ", ?" : "?");
+                args.add(genreIds.get(i));
+            }
+            sql.append("))");
+        }
+
+        sql.append(" ORDER BY popularity DESC LIMIT ?");
+        args.add(limit);
+
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    @Override
+    public String toString() {
+        return "MovieCandidateQuery{" +
+                "genreIds=" + genreIds +
+                ", minYear=" + minYear +
+                ", maxYear=" + maxYear +
+                ", minVoteAverage=" + minVoteAverage +
+                ", minVoteCount=" + minVoteCount +
+                ", limit=" + limit +
+                '}';
+    }
+
+    public static class Builder {
+        private final List<Integer> genreIds = new ArrayList<>();
+        private int minYear;
+        private int maxYear;
+        private float minVoteAverage;
+        private int minVoteCount;
+        private int limit = DEFAULT_LIMIT;
+
+        /**
+         * Фильм должен относиться хотя бы к одному из жанров
+         */
+        public Builder anyOfGenres(List<Integer> genreIds) {
+            if (genreIds != null) {
+                this.genreIds.addAll(genreIds);
+            }
+            return this;
+        }
+
+        public Builder releaseYears(int minYear, int maxYear) {
+            this.minYear = minYear;
+            this.maxYear = maxYear;
+            return this;
+        }
+
+        public Builder minVoteAverage(float minVoteAverage) {
+            this.minVoteAverage = minVoteAverage;
+            return this;
+        }
+
+        public Builder minVoteCount(int minVoteCount) {
+            this.minVoteCount = minVoteCount;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        public MovieCandidateQuery build() {
+            return new MovieCandidateQuery(this);
+        }
+    }
+}
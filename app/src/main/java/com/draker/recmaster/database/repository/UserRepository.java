@@ -109,7 +109,7 @@ public class UserRepository {
      * Проверка, существует ли пользователь с указанным именем
      */
     public void checkUserExists(String username, UserExistsCallback callback) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        AppDatabase.databaseReadExecutor.execute(() -> {
             UserEntity user = userDao.getUserByUsernameSync(username);
             boolean exists = user != null;
             callback.onResult(exists);
@@ -120,7 +120,7 @@ public class UserRepository {
      * Проверка, существует ли пользователь с указанным email
      */
     public void checkEmailExists(String email, UserExistsCallback callback) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        AppDatabase.databaseReadExecutor.execute(() -> {
             UserEntity user = userDao.getUserByEmailSync(email);
             boolean exists = user != null;
             callback.onResult(exists);
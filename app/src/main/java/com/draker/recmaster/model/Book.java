@@ -1,7 +1,9 @@
 package com.draker.recmaster.model;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Модель данных для представления книги из Google Books API
@@ -23,6 +25,9 @@ public class Book implements Serializable {
     private String canonicalVolumeLink;
     private VolumeImageLinks imageLinks;
 
+    // Категории в нижнем регистре, строятся один раз при первой проверке фильтра
+    private transient volatile List<String> normalizedCategories;
+
     // Вложенный класс для изображений
     public static class VolumeImageLinks implements Serializable {
         private String smallThumbnail;
@@ -144,6 +149,7 @@ public class Book implements Serializable {
 
     public void setCategories(List<String> categories) {
         this.categories = categories;
+        this.normalizedCategories = null;
     }
 
     public double getAverageRating() {
@@ -266,13 +272,23 @@ public class Book implements Serializable {
             return true;
         }
         
-        if (categories == null || categories.isEmpty()) {
-            return false;
+        return matchesAnyNormalizedCategory(normalizeCategories(selectedCategories));
+    }
+    
+    /**
+     * Проверяет, подходит ли книга под выбранные категории, уже приведенные
+     * через {@link #normalizeCategory(String)}. Строки при проверке не создаются
+     */
+    public boolean matchesAnyNormalizedCategory(List<String> normalizedSelected) {
+        if (normalizedSelected == null || normalizedSelected.isEmpty()) {
+            return true;
         }
         
-        for (String category : categories) {
-            for (String selectedCategory : selectedCategories) {
-                if (category.toLowerCase().contains(selectedCategory.toLowerCase())) {
+        List<String> normalized = getNormalizedCategories();
+        for (int i = 0, n = normalized.size(); i < n; i++) {
+            String category = normalized.get(i);
+            for (int j = 0, m = normalizedSelected.size(); j < m; j++) {
+                if (category.contains(normalizedSelected.get(j))) {
                     return true;
                 }
             }
@@ -280,6 +296,35 @@ public class Book implements Serializable {
         
         return false;
     }
+    
+    /**
+     * Возвращает категории книги в нижнем регистре
+     */
+    public List<String> getNormalizedCategories() {
+        List<String> normalized = normalizedCategories;
+        if (normalized == null) {
+            normalized = categories != null ? normalizeCategories(categories) : new ArrayList<>();
+            normalizedCategories = normalized;
+        }
+        return normalized;
+    }
+    
+    /**
+     * Приводит категорию к виду, в котором она сравнивается с фильтром
+     */
+    public static String normalizeCategory(String category) {
+        return category != null ? category.toLowerCase(Locale.ROOT) : "";
+    }
+    
+    public static List<String> normalizeCategories(List<String> categories) {
+        List<String> normalized = new ArrayList<>(categories.size());
+        for (String category : categories) {
+            if (category != null) {
+                normalized.add(normalizeCategory(category));
+            }
+        }
+        return normalized;
+    }
 
     @Override
     public String toString() {
@@ -3,6 +3,7 @@ package com.draker.recmaster.model;
 import java.io.Serializable;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.BitSet;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -10,7 +11,7 @@ import java.util.Locale;
 /**
  * Модель данных для представления игры из RAWG Video Games Database API
  */
-public class Game implements Serializable {
+public class Game implements Serializable, MoodAware {
     private int id;
     private String name;
     private String slug;
@@ -27,6 +28,15 @@ public class Game implements Serializable {
     private List<Store> stores;
     private String website;
 
+    // Наборы ID жанров и платформ из GameTagDictionary, строятся один раз при первом обращении
+    private transient BitSet genreIdSet;
+    private transient BitSet platformIdSet;
+    private transient volatile boolean tagSetsReady;
+
+    // Вектор близости к настроениям и версия модели, по которой он построен
+    private transient float[] moodVector;
+    private transient volatile int moodVectorVersion;
+
     // Вложенные классы
     public static class Genre implements Serializable {
         private int id;
@@ -279,6 +289,8 @@ public class Game implements Serializable {
 
     public void setGenres(List<Genre> genres) {
         this.genres = genres;
+        this.tagSetsReady = false;
+        this.moodVector = null;
     }
 
     public List<Platform> getPlatforms() {
@@ -287,6 +299,7 @@ public class Game implements Serializable {
 
     public void setPlatforms(List<Platform> platforms) {
         this.platforms = platforms;
+        this.tagSetsReady = false;
     }
 
     public List<Developer> getDevelopers() {
@@ -402,38 +415,104 @@ public class Game implements Serializable {
         return developersStr.toString();
     }
 
+    /**
+     * Возвращает набор ID жанров игры (только для чтения)
+     */
+    public BitSet getGenreIdSet() {
+        ensureTagSets();
+        return genreIdSet;
+    }
+
+    /**
+     * Возвращает набор ID платформ игры (только для чтения)
+     */
+    public BitSet getPlatformIdSet() {
+        ensureTagSets();
+        return platformIdSet;
+    }
+
     /**
      * Проверяет, содержит ли игра указанный жанр
      */
     public boolean hasGenre(String genreName) {
-        if (genres == null || genres.isEmpty() || genreName == null || genreName.isEmpty()) {
-            return false;
-        }
-        
-        for (Genre genre : genres) {
-            if (genre.getName().equalsIgnoreCase(genreName)) {
-                return true;
-            }
-        }
-        
-        return false;
+        int genreId = GameTagDictionary.GENRES.idOf(genreName);
+        return genreId >= 0 && getGenreIdSet().get(genreId);
     }
 
     /**
      * Проверяет, доступна ли игра на указанной платформе
      */
     public boolean isOnPlatform(String platformName) {
-        if (platforms == null || platforms.isEmpty() || platformName == null || platformName.isEmpty()) {
-            return false;
+        int platformId = GameTagDictionary.PLATFORMS.idOf(platformName);
+        return platformId >= 0 && getPlatformIdSet().get(platformId);
+    }
+
+    /**
+     * Проверяет, содержит ли игра хотя бы один жанр из набора
+     */
+    public boolean hasAnyGenre(BitSet genreIds) {
+        return getGenreIdSet().intersects(genreIds);
+    }
+
+    /**
+     * Проверяет, доступна ли игра хотя бы на одной платформе из набора
+     */
+    public boolean isOnAnyPlatform(BitSet platformIds) {
+        return getPlatformIdSet().intersects(platformIds);
+    }
+
+    /**
+     * Возвращает вектор близости к настроениям (см. {@link MoodModel})
+     */
+    @Override
+    public float[] getMoodVector() {
+        MoodModel model = MoodModel.get();
+        float[] vector = moodVector;
+        if (vector == null || moodVectorVersion != model.getVersion()) {
+            vector = model.gameVector(genres);
+            moodVector = vector;
+            moodVectorVersion = model.getVersion();
         }
-        
-        for (Platform platform : platforms) {
-            if (platform.getPlatform().getName().equalsIgnoreCase(platformName)) {
-                return true;
+        return vector;
+    }
+
+    /**
+     * Проверяет соответствие настроению по заранее построенному вектору запроса
+     * @param moodQuery вектор из {@link MoodModel#queryVector(String)} или null
+     */
+    public boolean matchesMoodQuery(float[] moodQuery) {
+        return MoodModel.matches(getMoodVector(), moodQuery);
+    }
+
+    private void ensureTagSets() {
+        if (tagSetsReady) {
+            return;
+        }
+
+        BitSet genreSet = new BitSet();
+        if (genres != null) {
+            for (Genre genre : genres) {
+                int genreId = genre != null ? GameTagDictionary.GENRES.idOf(genre.getName()) : -1;
+                if (genreId >= 0) {
+                    genreSet.set(genreId);
+                }
             }
         }
-        
-        return false;
+
+        BitSet platformSet = new BitSet();
+        if (platforms != null) {
+            for (Platform platform : platforms) {
+                int platformId = platform != null && platform.getPlatform() != null
+                        ? GameTagDictionary.PLATFORMS.idOf(platform.getPlatform().getName()) : -1;
+                if (platformId >= 0) {
+                    platformSet.set(platformId);
+                }
+            }
+        }
+
+        genreIdSet = genreSet;
+        platformIdSet = platformSet;
+        tagSetsReady = true;
     }
 
     @Override
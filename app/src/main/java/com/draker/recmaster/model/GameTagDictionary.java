@@ -0,0 +1,66 @@
+package com.draker.recmaster.model;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Словарь названий жанров и платформ RAWG: сопоставляет нормализованное название
+ * (без регистра и пробелов по краям) с плотным числовым ID, чтобы наборы жанров
+ * и платформ игры можно было хранить в {@link BitSet}
+ */
+public final class GameTagDictionary {
+
+    public static final GameTagDictionary GENRES = new GameTagDictionary();
+    public static final GameTagDictionary PLATFORMS = new GameTagDictionary();
+
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    private GameTagDictionary() {
+    }
+
+    /**
+     * Приводит название к виду, в котором оно хранится в словаре
+     */
+    public static String normalize(String name) {
+        return name != null ? name.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * Возвращает ID названия, регистрируя новое название при необходимости
+     * @return ID или -1 для пустого названия
+     */
+    public synchronized int idOf(String name) {
+        String key = normalize(name);
+        if (key.isEmpty()) {
+            return -1;
+        }
+
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = ids.size();
+            ids.put(key, id);
+        }
+        return id;
+    }
+
+    /**
+     * Строит набор ID для списка названий
+     */
+    public BitSet setOf(List<String> names) {
+        BitSet set = new BitSet();
+        if (names == null) {
+            return set;
+        }
+
+        for (int i = 0, n = names.size(); i < n; i++) {
+            int id = idOf(names.get(i));
+            if (id >= 0) {
+                set.set(id);
+            }
+        }
+        return set;
+    }
+}
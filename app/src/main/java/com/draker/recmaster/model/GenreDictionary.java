@@ -0,0 +1,117 @@
+package com.draker.recmaster.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Словарь жанров TMDB: сопоставляет ID жанра с плотной позицией бита,
+ * чтобы жанры фильма или сериала можно было хранить в одном long
+ */
+public final class GenreDictionary {
+
+    // Бит-признак жанров, не поместившихся в словарь (для них нужна проверка по списку)
+    public static final long OVERFLOW_BIT = 1L << 63;
+
+    private static final int CAPACITY = 63;
+
+    // Известные жанры фильмов и сериалов TMDB, регистрируются заранее
+    private static final int[] KNOWN_GENRE_IDS = {
+            28, 12, 16, 35, 80, 99, 18, 10751, 14, 36, 27, 10402, 9648, 10749, 878, 10770, 53, 10752, 37,
+            10759, 10762, 10763, 10764, 10765, 10766, 10767, 10768
+    };
+
+    // Читается без блокировки: маски строятся при каждой фильтрации из нескольких потоков
+    private static final Map<Integer, Integer> positions = new ConcurrentHashMap<>();
+    // Число занятых позиций; меняется только под блокировкой класса
+    private static volatile int size;
+
+    static {
+        for (int genreId : KNOWN_GENRE_IDS) {
+            positionOf(genreId);
+        }
+    }
+
+    private GenreDictionary() {
+    }
+
+    /**
+     * Возвращает позицию бита для жанра, регистрируя новый жанр при необходимости
+     * @return позиция бита или -1, если словарь заполнен
+     */
+    public static int positionOf(int genreId) {
+        Integer position = positions.get(genreId);
+        if (position != null) {
+            return position;
+        }
+        if (size >= CAPACITY) {
+            return -1;
+        }
+        return register(genreId);
+    }
+
+    /**
+     * Регистрирует новый жанр; позиции выдаются подряд, поэтому под общей блокировкой
+     */
+    private static synchronized int register(int genreId) {
+        Integer position = positions.get(genreId);
+        if (position != null) {
+            return position;
+        }
+        if (size >= CAPACITY) {
+            return -1;
+        }
+
+        int newPosition = size;
+        positions.put(genreId, newPosition);
+        size = newPosition + 1;
+        return newPosition;
+    }
+
+    /**
+     * Строит битовую маску для списка ID жанров
+     */
+    public static long maskOf(List<Integer> genreIds) {
+        if (genreIds == null || genreIds.isEmpty()) {
+            return 0L;
+        }
+
+        long mask = 0L;
+        for (int i = 0, n = genreIds.size(); i < n; i++) {
+            Integer genreId = genreIds.get(i);
+            if (genreId != null) {
+                mask |= bitOf(genreId);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Строит битовую маску для перечисленных ID жанров
+     */
+    public static long maskOf(int... genreIds) {
+        long mask = 0L;
+        for (int genreId : genreIds) {
+            mask |= bitOf(genreId);
+        }
+        return mask;
+    }
+
+    /**
+     * Проверяет пересечение масок.
+     * Если пересекаются только биты переполнения, ответ требует проверки по спискам
+     * @return 1 - пересекаются, 0 - не пересекаются, -1 - нужна проверка по спискам
+     */
+    public static int intersects(long itemMask, long queryMask) {
+        long common = itemMask & queryMask;
+        if ((common & ~OVERFLOW_BIT) != 0) {
+            return 1;
+        }
+        return common == 0 ? 0 : -1;
+    }
+
+    private static long bitOf(int genreId) {
+        int position = positionOf(genreId);
+        return position >= 0 ? 1L << position : OVERFLOW_BIT;
+    }
+}
@@ -0,0 +1,12 @@
+package com.draker.recmaster.model;
+
+/**
+ * Элемент, для которого построен вектор близости к настроениям {@link MoodModel}
+ */
+public interface MoodAware {
+
+    /**
+     * Возвращает вектор близости к настроениям текущей модели (только для чтения)
+     */
+    float[] getMoodVector();
+}
@@ -0,0 +1,264 @@
+package com.draker.recmaster.model;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.draker.recmaster.R;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Модель настроений, загружаемая из ресурса res/raw/mood_model.json.
+ * Каждое настроение задается весами жанров фильмов, сериалов и игр. Для элемента
+ * один раз строится вектор близости к настроениям (по одному значению на настроение),
+ * после чего проверка и учет настроения в оценке - скалярное произведение с вектором запроса.
+ * Новое настроение добавляется правкой ресурса без изменения кода
+ */
+public final class MoodModel {
+
+    private static final String TAG = "MoodModel";
+
+    private static final AtomicInteger versions = new AtomicInteger();
+
+    // Пустая модель действует до загрузки ресурса: настроения не фильтруют выдачу
+    private static volatile MoodModel instance = new MoodModel(Collections.emptyList());
+
+    /**
+     * Описание настроения для отображения в интерфейсе
+     */
+    public static final class Definition {
+        private final String id;
+        private final String name;
+        private final String icon;
+
+        Definition(String id, String name, String icon) {
+            this.id = id;
+            this.name = name;
+            this.icon = icon;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Имя drawable-ресурса иконки
+         */
+        public String getIcon() {
+            return icon;
+        }
+    }
+
+    private final int version;
+    private final List<Definition> moods = new ArrayList<>();
+    private final Map<String, Integer> indexes = new HashMap<>();
+    // Жанр -> веса по всем настроениям
+    private final Map<Integer, float[]> movieWeights = new HashMap<>();
+    private final Map<Integer, float[]> tvShowWeights = new HashMap<>();
+    private final Map<String, float[]> gameWeights = new HashMap<>();
+
+    private MoodModel(List<MoodJson> source) {
+        this.version = versions.getAndIncrement();
+
+        int size = source.size();
+        for (int i = 0; i < size; i++) {
+            MoodJson mood = source.get(i);
+            moods.add(new Definition(mood.id, mood.name, mood.icon));
+            indexes.put(normalizeId(mood.id), i);
+
+            if (mood.movieGenres != null) {
+                for (Map.Entry<String, Float> entry : mood.movieGenres.entrySet()) {
+                    weightsOf(movieWeights, Integer.valueOf(entry.getKey().trim()), size)[i] = entry.getValue();
+                }
+            }
+            if (mood.tvGenres != null) {
+                for (Map.Entry<String, Float> entry : mood.tvGenres.entrySet()) {
+                    weightsOf(tvShowWeights, Integer.valueOf(entry.getKey().trim()), size)[i] = entry.getValue();
+                }
+            }
+            if (mood.gameGenres != null) {
+                for (Map.Entry<String, Float> entry : mood.gameGenres.entrySet()) {
+                    weightsOf(gameWeights, GameTagDictionary.normalize(entry.getKey()), size)[i] = entry.getValue();
+                }
+            }
+        }
+    }
+
+    /**
+     * Возвращает текущую модель
+     */
+    public static MoodModel get() {
+        return instance;
+    }
+
+    /**
+     * Загружает модель из ресурса. При ошибке остается прежняя модель
+     */
+    public static void load(Context context) {
+        try (Reader reader = new InputStreamReader(
+                context.getResources().openRawResource(R.raw.mood_model), StandardCharsets.UTF_8)) {
+            instance = fromJson(reader);
+            Log.d(TAG, "Mood model loaded: " + instance.size() + " moods");
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Error loading mood model", e);
+        }
+    }
+
+    /**
+     * Разбирает модель из JSON вида {"moods": [{"id", "name", "icon",
+     * "movieGenres": {"35": 1.0}, "tvGenres": {...}, "gameGenres": {"casual": 1.0}}]}
+     */
+    public static MoodModel fromJson(Reader reader) {
+        ModelJson json = new Gson().fromJson(reader, ModelJson.class);
+        List<MoodJson> moods = new ArrayList<>();
+        if (json != null && json.moods != null) {
+            for (MoodJson mood : json.moods) {
+                if (mood == null || mood.id == null || mood.id.trim().isEmpty()) {
+                    throw new JsonParseException("Mood without id");
+                }
+                moods.add(mood);
+            }
+        }
+        return new MoodModel(moods);
+    }
+
+    /**
+     * Версия модели: векторы элементов, построенные по другой версии, перестраиваются
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return moods.size();
+    }
+
+    public List<Definition> getMoods() {
+        return Collections.unmodifiableList(moods);
+    }
+
+    /**
+     * Строит вектор запроса для настроения
+     * @return null, если настроение не задано или неизвестно модели
+     */
+    public float[] queryVector(String moodId) {
+        if (moodId == null || moodId.isEmpty()) {
+            return null;
+        }
+
+        Integer index = indexes.get(normalizeId(moodId));
+        if (index == null) {
+            return null;
+        }
+
+        float[] query = new float[moods.size()];
+        query[index] = 1f;
+        return query;
+    }
+
+    public float[] movieVector(List<Integer> genreIds) {
+        float[] vector = new float[moods.size()];
+        if (genreIds != null) {
+            for (int i = 0, n = genreIds.size(); i < n; i++) {
+                add(vector, movieWeights.get(genreIds.get(i)));
+            }
+        }
+        return vector;
+    }
+
+    public float[] tvShowVector(List<Integer> genreIds) {
+        float[] vector = new float[moods.size()];
+        if (genreIds != null) {
+            for (int i = 0, n = genreIds.size(); i < n; i++) {
+                add(vector, tvShowWeights.get(genreIds.get(i)));
+            }
+        }
+        return vector;
+    }
+
+    public float[] gameVector(List<Game.Genre> genres) {
+        float[] vector = new float[moods.size()];
+        if (genres != null) {
+            for (Game.Genre genre : genres) {
+                if (genre != null) {
+                    add(vector, gameWeights.get(GameTagDictionary.normalize(genre.getName())));
+                }
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * Скалярное произведение векторов; векторы разной длины (разных версий модели) не совпадают
+     */
+    public static float dot(float[] vector, float[] query) {
+        if (vector == null || query == null || vector.length != query.length) {
+            return 0f;
+        }
+
+        float sum = 0f;
+        for (int i = 0; i < vector.length; i++) {
+            sum += vector[i] * query[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Проверяет соответствие вектора элемента запросу
+     * @param query вектор запроса или null (настроение не задано)
+     */
+    public static boolean matches(float[] vector, float[] query) {
+        return query == null || dot(vector, query) > 0f;
+    }
+
+    private static void add(float[] vector, float[] weights) {
+        if (weights == null) {
+            return;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] += weights[i];
+        }
+    }
+
+    private static <K> float[] weightsOf(Map<K, float[]> weights, K key, int size) {
+        float[] values = weights.get(key);
+        if (values == null) {
+            values = new float[size];
+            weights.put(key, values);
+        }
+        return values;
+    }
+
+    private static String normalizeId(String moodId) {
+        return moodId.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class ModelJson {
+        List<MoodJson> moods;
+    }
+
+    private static final class MoodJson {
+        String id;
+        String name;
+        String icon;
+        Map<String, Float> movieGenres;
+        Map<String, Float> tvGenres;
+        Map<String, Float> gameGenres;
+    }
+}
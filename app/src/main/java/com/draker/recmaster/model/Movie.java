@@ -15,9 +15,14 @@ import java.util.Map;
 /**
  * Модель данных для представления фильма из TMDB API
  */
-public class Movie implements Serializable {
+public class Movie implements Serializable, MoodAware {
     private static final String TAG = "Movie";
 
+    /**
+     * Продолжительность запрошена, но в TMDB не указана (0 - еще не запрашивалась)
+     */
+    public static final int RUNTIME_UNKNOWN = -1;
+
     @SerializedName("id")
     private int id;
     
@@ -58,6 +63,14 @@ public class Movie implements Serializable {
     private static final String POSTER_BASE_URL = "https://image.tmdb.org/t/p/w342";
     private static final String BACKDROP_BASE_URL = "https://image.tmdb.org/t/p/w780";
 
+    // Битовая маска жанров, вычисляется один раз после загрузки
+    private transient long genreMask;
+    private transient volatile boolean genreMaskReady;
+
+    // Вектор близости к настроениям и версия модели, по которой он построен
+    private transient float[] moodVector;
+    private transient volatile int moodVectorVersion;
+
     // Геттеры и сеттеры
     public int getId() {
         return id;
@@ -173,6 +186,19 @@ public class Movie implements Serializable {
 
     public void setGenreIds(List<Integer> genreIds) {
         this.genreIds = genreIds;
+        this.genreMaskReady = false;
+        this.moodVector = null;
+    }
+
+    /**
+     * Возвращает битовую маску жанров (см. {@link GenreDictionary})
+     */
+    public long getGenreMask() {
+        if (!genreMaskReady) {
+            genreMask = GenreDictionary.maskOf(genreIds);
+            genreMaskReady = true;
+        }
+        return genreMask;
     }
 
     public float getPopularity() {
@@ -239,34 +265,34 @@ public class Movie implements Serializable {
         return genres.toString();
     }
     
+    /**
+     * Возвращает вектор близости к настроениям (см. {@link MoodModel})
+     */
+    @Override
+    public float[] getMoodVector() {
+        MoodModel model = MoodModel.get();
+        float[] vector = moodVector;
+        if (vector == null || moodVectorVersion != model.getVersion()) {
+            vector = model.movieVector(genreIds);
+            moodVector = vector;
+            moodVectorVersion = model.getVersion();
+        }
+        return vector;
+    }
+
     /**
      * Определяет, соответствует ли фильм определенному настроению
      */
     public boolean matchesMood(String mood) {
-        // Это очень упрощенная реализация - в реальном приложении
-        // могла бы быть более сложная логика определения настроения
-        // на основе жанров, описания и т.д.
-        
-        if (mood == null || mood.isEmpty()) {
-            return true;
-        }
-        
-        if (genreIds == null || genreIds.isEmpty()) {
-            return false;
-        }
-        
-        // Примерное соответствие жанров настроениям
-        if (mood.equalsIgnoreCase("happy")) {
-            return genreIds.contains(35) || genreIds.contains(10751); // Comedy, Family
-        } else if (mood.equalsIgnoreCase("sad")) {
-            return genreIds.contains(18); // Drama 
-        } else if (mood.equalsIgnoreCase("excited")) {
-            return genreIds.contains(28) || genreIds.contains(12) || genreIds.contains(878); // Action, Adventure, Science Fiction
-        } else if (mood.equalsIgnoreCase("relaxed")) {
-            return genreIds.contains(99) || genreIds.contains(36); // Documentary, History
-        } else {
-            return true;
-        }
+        return matchesMoodQuery(MoodModel.get().queryVector(mood));
+    }
+
+    /**
+     * Проверяет соответствие настроению по заранее построенному вектору запроса
+     * @param moodQuery вектор из {@link MoodModel#queryVector(String)} или null
+     */
+    public boolean matchesMoodQuery(float[] moodQuery) {
+        return MoodModel.matches(getMoodVector(), moodQuery);
     }
     
     /**
@@ -275,6 +301,15 @@ public class Movie implements Serializable {
      * @return true, если фильм укладывается в указанное время
      */
     public boolean matchesDuration(int maxMinutes) {
+        return fitsDuration(runtime, maxMinutes);
+    }
+
+    /**
+     * Проверка продолжительности, известной отдельно от объекта фильма
+     * @param runtime продолжительность в минутах
+     * @param maxMinutes максимальная длительность в минутах
+     */
+    public static boolean fitsDuration(int runtime, int maxMinutes) {
         // Если продолжительность не указана или задана нулевая,
         // то считаем фильм подходящим по любому временному критерию
         if (runtime <= 0 || maxMinutes <= 0) {
@@ -320,10 +355,22 @@ public class Movie implements Serializable {
             return true;
         }
         
-        if (genreIds == null || genreIds.isEmpty()) {
-            return false;
+        return matchesAnyGenre(GenreDictionary.maskOf(selectedGenreIds), selectedGenreIds);
+    }
+    
+    /**
+     * Проверяет совпадение жанров по заранее вычисленной маске выбранных жанров
+     * @param selectedGenreMask маска выбранных жанров
+     * @param selectedGenreIds список выбранных жанров, нужен только для жанров вне словаря
+     * @return true, если фильм содержит хотя бы один из указанных жанров
+     */
+    public boolean matchesAnyGenre(long selectedGenreMask, List<Integer> selectedGenreIds) {
+        int result = GenreDictionary.intersects(getGenreMask(), selectedGenreMask);
+        if (result >= 0) {
+            return result == 1;
         }
         
+        // Оба набора содержат жанры вне словаря - проверяем по спискам
         for (Integer genreId : selectedGenreIds) {
             if (genreIds.contains(genreId)) {
                 return true;
@@ -25,17 +25,19 @@ public class RecommendationFilter {
     private int maxDuration = DURATION_ANY;
     private List<Integer> selectedGenreIds = new ArrayList<>();
     
+    // Заранее вычисленные маска жанров и вектор настроения для быстрой проверки кандидатов
+    private long selectedGenreMask;
+    private float[] moodQuery;
+    
     // Создание пустого фильтра без ограничений
     public RecommendationFilter() {
     }
     
     // Создание фильтра с указанными параметрами
     public RecommendationFilter(String mood, int maxDuration, List<Integer> selectedGenreIds) {
-        this.mood = mood;
+        setMood(mood);
         this.maxDuration = maxDuration;
-        if (selectedGenreIds != null) {
-            this.selectedGenreIds = new ArrayList<>(selectedGenreIds);
-        }
+        setSelectedGenreIds(selectedGenreIds);
     }
     
     // Getters и Setters
@@ -45,6 +47,7 @@ public class RecommendationFilter {
     
     public void setMood(String mood) {
         this.mood = mood;
+        this.moodQuery = MoodModel.get().queryVector(mood);
     }
     
     public int getMaxDuration() {
@@ -62,20 +65,39 @@ public class RecommendationFilter {
     public void setSelectedGenreIds(List<Integer> selectedGenreIds) {
         this.selectedGenreIds = selectedGenreIds != null ? 
                 new ArrayList<>(selectedGenreIds) : new ArrayList<>();
+        this.selectedGenreMask = GenreDictionary.maskOf(this.selectedGenreIds);
+    }
+    
+    /**
+     * Возвращает битовую маску выбранных жанров (см. {@link GenreDictionary})
+     */
+    public long getSelectedGenreMask() {
+        return selectedGenreMask;
+    }
+    
+    /**
+     * Возвращает вектор запроса настроения (см. {@link MoodModel}) или null, если настроение не задано
+     */
+    public float[] getMoodQuery() {
+        return moodQuery;
     }
     
     public void addGenreId(int genreId) {
         if (!selectedGenreIds.contains(genreId)) {
             selectedGenreIds.add(genreId);
+            selectedGenreMask |= GenreDictionary.maskOf(genreId);
         }
     }
     
     public void removeGenreId(int genreId) {
-        selectedGenreIds.remove(Integer.valueOf(genreId));
+        if (selectedGenreIds.remove(Integer.valueOf(genreId))) {
+            selectedGenreMask = GenreDictionary.maskOf(selectedGenreIds);
+        }
     }
     
     public void clearGenres() {
         selectedGenreIds.clear();
+        selectedGenreMask = 0L;
     }
     
     /**
@@ -86,16 +108,32 @@ public class RecommendationFilter {
             return false;
         }
         
-        // Проверка по настроению
-        boolean moodMatches = mood == null || mood.isEmpty() || movie.matchesMood(mood);
+        // Проверка по жанрам - сравнение битовых масок
+        if (selectedGenreMask != 0 && !movie.matchesAnyGenre(selectedGenreMask, selectedGenreIds)) {
+            return false;
+        }
+        
+        if (!movie.matchesMoodQuery(moodQuery)) {
+            return false;
+        }
         
         // Проверка по длительности
-        boolean durationMatches = maxDuration <= 0 || movie.matchesDuration(maxDuration);
+        return maxDuration <= 0 || movie.matchesDuration(maxDuration);
+    }
+    
+    /**
+     * Проверяет, соответствует ли сериал критериям жанров и настроения
+     */
+    public boolean matches(TvShow tvShow) {
+        if (tvShow == null) {
+            return false;
+        }
         
-        // Проверка по жанрам
-        boolean genresMatch = selectedGenreIds.isEmpty() || movie.matchesAnyGenre(selectedGenreIds);
+        if (selectedGenreMask != 0 && !tvShow.matchesAnyGenre(selectedGenreMask, selectedGenreIds)) {
+            return false;
+        }
         
-        return moodMatches && durationMatches && genresMatch;
+        return tvShow.matchesMoodQuery(moodQuery);
     }
     
     /**
@@ -0,0 +1,52 @@
+package com.draker.recmaster.model;
+
+/**
+ * Элемент общей выдачи рекомендаций: фильм, сериал, книга или игра вместе с оценкой
+ */
+public class RecommendationItem {
+
+    public enum ContentType {
+        MOVIE,
+        TV_SHOW,
+        BOOK,
+        GAME
+    }
+
+    private final ContentType type;
+    private final Object content;
+    private final double score;
+
+    public RecommendationItem(ContentType type, Object content, double score) {
+        this.type = type;
+        this.content = content;
+        this.score = score;
+    }
+
+    public ContentType getType() {
+        return type;
+    }
+
+    public Object getContent() {
+        return content;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public Movie getMovie() {
+        return type == ContentType.MOVIE ? (Movie) content : null;
+    }
+
+    public TvShow getTvShow() {
+        return type == ContentType.TV_SHOW ? (TvShow) content : null;
+    }
+
+    public Book getBook() {
+        return type == ContentType.BOOK ? (Book) content : null;
+    }
+
+    public Game getGame() {
+        return type == ContentType.GAME ? (Game) content : null;
+    }
+}
@@ -13,7 +13,7 @@ import java.util.Map;
 /**
  * Модель данных для представления сериала из TMDB API
  */
-public class TvShow implements Serializable {
+public class TvShow implements Serializable, MoodAware {
     private static final String TAG = "TvShow";
 
     private int id;
@@ -35,6 +35,14 @@ public class TvShow implements Serializable {
     private static final String POSTER_BASE_URL = "https://image.tmdb.org/t/p/w342";
     private static final String BACKDROP_BASE_URL = "https://image.tmdb.org/t/p/w780";
 
+    // Битовая маска жанров, вычисляется один раз после загрузки
+    private transient long genreMask;
+    private transient volatile boolean genreMaskReady;
+
+    // Вектор близости к настроениям и версия модели, по которой он построен
+    private transient float[] moodVector;
+    private transient volatile int moodVectorVersion;
+
     // Геттеры и сеттеры
     public int getId() {
         return id;
@@ -144,6 +152,19 @@ public class TvShow implements Serializable {
 
     public void setGenreIds(List<Integer> genreIds) {
         this.genreIds = genreIds;
+        this.genreMaskReady = false;
+        this.moodVector = null;
+    }
+
+    /**
+     * Возвращает битовую маску жанров (см. {@link GenreDictionary})
+     */
+    public long getGenreMask() {
+        if (!genreMaskReady) {
+            genreMask = GenreDictionary.maskOf(genreIds);
+            genreMaskReady = true;
+        }
+        return genreMask;
     }
 
     public float getPopularity() {
@@ -229,30 +250,34 @@ public class TvShow implements Serializable {
         return seasonText;
     }
     
+    /**
+     * Возвращает вектор близости к настроениям (см. {@link MoodModel})
+     */
+    @Override
+    public float[] getMoodVector() {
+        MoodModel model = MoodModel.get();
+        float[] vector = moodVector;
+        if (vector == null || moodVectorVersion != model.getVersion()) {
+            vector = model.tvShowVector(genreIds);
+            moodVector = vector;
+            moodVectorVersion = model.getVersion();
+        }
+        return vector;
+    }
+
     /**
      * Определяет, соответствует ли сериал определенному настроению
      */
     public boolean matchesMood(String mood) {
-        if (mood == null || mood.isEmpty()) {
-            return true;
-        }
-        
-        if (genreIds == null || genreIds.isEmpty()) {
-            return false;
-        }
-        
-        // Примерное соответствие жанров настроениям
-        if (mood.equalsIgnoreCase("happy")) {
-            return genreIds.contains(35) || genreIds.contains(10751); // Comedy, Family
-        } else if (mood.equalsIgnoreCase("sad")) {
-            return genreIds.contains(18); // Drama 
-        } else if (mood.equalsIgnoreCase("excited")) {
-            return genreIds.contains(28) || genreIds.contains(12) || genreIds.contains(10759); // Action, Adventure, Action & Adventure
-        } else if (mood.equalsIgnoreCase("relaxed")) {
-            return genreIds.contains(99) || genreIds.contains(36); // Documentary, History
-        } else {
-            return true;
-        }
+        return matchesMoodQuery(MoodModel.get().queryVector(mood));
+    }
+
+    /**
+     * Проверяет соответствие настроению по заранее построенному вектору запроса
+     * @param moodQuery вектор из {@link MoodModel#queryVector(String)} или null
+     */
+    public boolean matchesMoodQuery(float[] moodQuery) {
+        return MoodModel.matches(getMoodVector(), moodQuery);
     }
     
     /**
@@ -291,10 +316,22 @@ public class TvShow implements Serializable {
             return true;
         }
         
-        if (genreIds == null || genreIds.isEmpty()) {
-            return false;
+        return matchesAnyGenre(GenreDictionary.maskOf(selectedGenreIds), selectedGenreIds);
+    }
+    
+    /**
+     * Проверяет совпадение жанров по заранее вычисленной маске выбранных жанров
+     * @param selectedGenreMask маска выбранных жанров
+     * @param selectedGenreIds список выбранных жанров, нужен только для жанров вне словаря
+     * @return true, если сериал содержит хотя бы один из указанных жанров
+     */
+    public boolean matchesAnyGenre(long selectedGenreMask, List<Integer> selectedGenreIds) {
+        int result = GenreDictionary.intersects(getGenreMask(), selectedGenreMask);
+        if (result >= 0) {
+            return result == 1;
         }
         
+        // Оба набора содержат жанры вне словаря - проверяем по спискам
         for (Integer genreId : selectedGenreIds) {
             if (genreIds.contains(genreId)) {
                 return true;
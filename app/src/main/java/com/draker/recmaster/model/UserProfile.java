@@ -0,0 +1,52 @@
+package com.draker.recmaster.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Предпочтения пользователя для общей выдачи рекомендаций.
+ * Жанры, настроение и продолжительность задаются {@link RecommendationFilter},
+ * здесь хранятся параметры, специфичные для книг и игр
+ */
+public class UserProfile {
+
+    private List<String> bookCategories = new ArrayList<>();
+    private List<String> gameGenres = new ArrayList<>();
+    private List<String> gamePlatforms = new ArrayList<>();
+
+    // Создание профиля без предпочтений
+    public UserProfile() {
+    }
+
+    // Создание профиля с указанными предпочтениями
+    public UserProfile(List<String> bookCategories, List<String> gameGenres, List<String> gamePlatforms) {
+        setBookCategories(bookCategories);
+        setGameGenres(gameGenres);
+        setGamePlatforms(gamePlatforms);
+    }
+
+    // Getters и Setters
+    public List<String> getBookCategories() {
+        return bookCategories;
+    }
+
+    public void setBookCategories(List<String> bookCategories) {
+        this.bookCategories = bookCategories != null ? new ArrayList<>(bookCategories) : new ArrayList<>();
+    }
+
+    public List<String> getGameGenres() {
+        return gameGenres;
+    }
+
+    public void setGameGenres(List<String> gameGenres) {
+        this.gameGenres = gameGenres != null ? new ArrayList<>(gameGenres) : new ArrayList<>();
+    }
+
+    public List<String> getGamePlatforms() {
+        return gamePlatforms;
+    }
+
+    public void setGamePlatforms(List<String> gamePlatforms) {
+        this.gamePlatforms = gamePlatforms != null ? new ArrayList<>(gamePlatforms) : new ArrayList<>();
+    }
+}
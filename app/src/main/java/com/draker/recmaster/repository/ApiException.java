@@ -0,0 +1,33 @@
+package com.draker.recmaster.repository;
+
+import java.io.IOException;
+
+/**
+ * Ошибка загрузки из API; сообщение готово для показа пользователю
+ */
+public class ApiException extends IOException {
+
+    /**
+     * Код для ошибок без HTTP-ответа (нет сети, тайм-аут)
+     */
+    public static final int NETWORK_ERROR = -1;
+
+    private final int code;
+
+    public ApiException(String message, int code) {
+        super(message);
+        this.code = code;
+    }
+
+    public ApiException(String message, int code, Throwable cause) {
+        super(message, cause);
+        this.code = code;
+    }
+
+    /**
+     * HTTP-код ответа или {@link #NETWORK_ERROR}
+     */
+    public int getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,222 @@
+package com.draker.recmaster.repository;
+
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.draker.recmaster.api.SingleFlight;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Единый конвейер загрузки из API: кэш в памяти -> вызов -> декодирование -> сохранение -> публикация.
+ * Вызов идет через {@link SingleFlight} (объединение одинаковых запросов, квоты хостов),
+ * HTTP-кэш и метрики работают на уровне OkHttp. Объект сам является обработчиком ответа,
+ * поэтому на запрос создается один объект вместо анонимного Callback.
+ * Результат доступен как {@link CompletableFuture}, {@code LiveData<Resource<T>>} или
+ * через пару LiveData данных и ошибки, как в методах репозиториев.
+ * Отмена future отвязывает получателя от результата; сам HTTP-вызов не отменяется,
+ * так как его ответ может ждать другой получатель
+ *
+ * @param <R> тип тела ответа API
+ * @param <T> тип данных для UI
+ */
+public final class ApiFetch<R, T> implements Callback<R> {
+
+    private static final String DEFAULT_ERROR = "Ошибка загрузки данных";
+    private static final String DEFAULT_NETWORK_ERROR = "Ошибка сети";
+
+    private final String tag;
+    private final String description;
+    private final Call<R> call;
+    private final Function<? super R, ? extends T> decoder;
+    private Supplier<? extends T> cache;
+    private Consumer<? super T> persister;
+    private String errorPrefix = DEFAULT_ERROR;
+    private String networkErrorPrefix = DEFAULT_NETWORK_ERROR;
+
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private ApiFetch(String tag, String description, Call<R> call, Function<? super R, ? extends T> decoder) {
+        this.tag = tag;
+        this.description = description;
+        this.call = call;
+        this.decoder = decoder;
+    }
+
+    /**
+     * @param tag тег логов репозитория
+     * @param description что загружается (для логов), например "popular movies"
+     * @param decoder извлекает данные из тела ответа
+     */
+    public static <R, T> ApiFetch<R, T> of(String tag, String description, Call<R> call,
+                                           Function<? super R, ? extends T> decoder) {
+        return new ApiFetch<>(tag, description, call, decoder);
+    }
+
+    /**
+     * Кэш в памяти: если возвращает не null, запрос не выполняется
+     */
+    public ApiFetch<R, T> cached(Supplier<? extends T> cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * Сохранение данных (например, в Room) перед публикацией; ошибки сохранения только логируются
+     */
+    public ApiFetch<R, T> persist(Consumer<? super T> persister) {
+        this.persister = persister;
+        return this;
+    }
+
+    /**
+     * Префиксы сообщений об ошибке: "префикс: код - тело ответа" и "префикс сети: причина"
+     */
+    public ApiFetch<R, T> errors(String errorPrefix, String networkErrorPrefix) {
+        this.errorPrefix = errorPrefix;
+        this.networkErrorPrefix = networkErrorPrefix;
+        return this;
+    }
+
+    /**
+     * Запускает загрузку (повторные вызовы возвращают тот же future).
+     * Ошибка завершает future исключением {@link ApiException}
+     */
+    public CompletableFuture<T> start() {
+        if (started.compareAndSet(false, true)) {
+            T cachedValue = cache != null ? cache.get() : null;
+            if (cachedValue != null) {
+                Log.d(tag, "Using cached " + description + sizeOf(cachedValue));
+                future.complete(cachedValue);
+            } else {
+                SingleFlight.getInstance().enqueue(call, this);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Запускает загрузку и возвращает ее состояние для UI
+     */
+    public LiveData<Resource<T>> asLiveData() {
+        MutableLiveData<Resource<T>> resourceLiveData = new MutableLiveData<>(Resource.loading(null));
+        start().whenComplete((value, error) -> {
+            if (error == null) {
+                publish(resourceLiveData, Resource.success(value));
+            } else if (!isCancellation(error)) {
+                publish(resourceLiveData, Resource.error(messageOf(error), null));
+            }
+        });
+        return resourceLiveData;
+    }
+
+    /**
+     * Запускает загрузку и записывает результат в LiveData данных или сообщение в LiveData ошибки
+     */
+    public void into(MutableLiveData<T> dataLiveData, MutableLiveData<String> errorLiveData) {
+        start().whenComplete((value, error) -> {
+            if (error == null) {
+                publish(dataLiveData, value);
+            } else if (!isCancellation(error)) {
+                publish(errorLiveData, messageOf(error));
+            }
+        });
+    }
+
+    @Override
+    public void onResponse(Call<R> call, Response<R> response) {
+        R body = response.body();
+        if (!response.isSuccessful() || body == null) {
+            String errorMsg = errorPrefix + ": " + response.code();
+            String errorBody = readErrorBody(response);
+            if (errorBody != null) {
+                Log.e(tag, "Error body: " + errorBody);
+                errorMsg += " - " + errorBody;
+            }
+            Log.e(tag, "Failed to get " + description + ": " + response.code());
+            future.completeExceptionally(new ApiException(errorMsg, response.code()));
+            return;
+        }
+
+        T value;
+        try {
+            value = decoder.apply(body);
+        } catch (RuntimeException e) {
+            Log.e(tag, "Failed to decode " + description, e);
+            future.completeExceptionally(new ApiException(errorPrefix + ": " + e.getMessage(), response.code(), e));
+            return;
+        }
+        Log.d(tag, "Got " + description + sizeOf(value));
+
+        if (persister != null && value != null) {
+            try {
+                persister.accept(value);
+            } catch (RuntimeException e) {
+                Log.e(tag, "Failed to save " + description, e);
+            }
+        }
+        future.complete(value);
+    }
+
+    @Override
+    public void onFailure(Call<R> call, Throwable t) {
+        Log.e(tag, "Failed to get " + description + ", URL: " + call.request().url(), t);
+        future.completeExceptionally(new ApiException(networkErrorPrefix + ": " + t.getMessage(), ApiException.NETWORK_ERROR, t));
+    }
+
+    private String messageOf(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof ApiException ? cause.getMessage() : errorPrefix + ": " + cause.getMessage();
+    }
+
+    private String readErrorBody(Response<R> response) {
+        try (ResponseBody errorBody = response.errorBody()) {
+            return errorBody != null ? errorBody.string() : null;
+        } catch (Exception e) {
+            Log.e(tag, "Error reading error body", e);
+            return null;
+        }
+    }
+
+    private static boolean isCancellation(Throwable error) {
+        return error instanceof CancellationException || error.getCause() instanceof CancellationException;
+    }
+
+    /**
+     * Ответы Retrofit приходят в главный поток; из других потоков значение отправляется через postValue
+     */
+    private static <V> void publish(MutableLiveData<V> liveData, V value) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            liveData.setValue(value);
+        } else {
+            liveData.postValue(value);
+        }
+    }
+
+    private static String sizeOf(Object value) {
+        if (value instanceof Collection) {
+            return ": " + ((Collection<?>) value).size() + " items";
+        }
+        if (value instanceof Map) {
+            return ": " + ((Map<?, ?>) value).size() + " items";
+        }
+        return "";
+    }
+}
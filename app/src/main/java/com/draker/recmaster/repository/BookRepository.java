@@ -13,8 +13,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
 
 /**
  * Репозиторий для работы с данными о книгах
@@ -23,7 +21,7 @@ public class BookRepository {
 
     private static final String TAG = "BookRepository";
     private static final String DEFAULT_LANGUAGE = "ru";
-    private static final int DEFAULT_MAX_RESULTS = 20;
+    public static final int DEFAULT_MAX_RESULTS = 20;
 
     private final GoogleBooksApi googleBooksApi;
     private static BookRepository instance;
@@ -45,40 +43,9 @@ public class BookRepository {
      */
     public void searchBooks(String query, MutableLiveData<List<Book>> booksLiveData, MutableLiveData<String> errorLiveData, int startIndex) {
         Log.d(TAG, "Searching books with query: " + query + ", startIndex: " + startIndex);
-        googleBooksApi.searchBooks(query, startIndex, DEFAULT_MAX_RESULTS, DEFAULT_LANGUAGE).enqueue(new Callback<BookResponse>() {
-            @Override
-            public void onResponse(Call<BookResponse> call, Response<BookResponse> response) {
-                Log.d(TAG, "Search books response received. Code: " + response.code());
-                
-                if (response.isSuccessful() && response.body() != null) {
-                    List<Book> books = extractBooksFromResponse(response.body());
-                    Log.d(TAG, "Found " + books.size() + " books for query: " + query);
-                    booksLiveData.setValue(books);
-                } else {
-                    String errorMsg = "Ошибка поиска книг: " + response.code();
-                    Log.e(TAG, errorMsg);
-                    
-                    try {
-                        if (response.errorBody() != null) {
-                            String errorBody = response.errorBody().string();
-                            Log.e(TAG, "Error body: " + errorBody);
-                            errorMsg += " - " + errorBody;
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error reading error body", e);
-                    }
-                    
-                    errorLiveData.setValue(errorMsg);
-                }
-            }
-
-            @Override
-            public void onFailure(Call<BookResponse> call, Throwable t) {
-                String errorMsg = "Ошибка сети при поиске книг: " + t.getMessage();
-                Log.e(TAG, "Failed to search books", t);
-                errorLiveData.setValue(errorMsg);
-            }
-        });
+        fetchBooks("books for query: " + query, googleBooksApi.searchBooks(query, startIndex, DEFAULT_MAX_RESULTS, DEFAULT_LANGUAGE))
+                .errors("Ошибка поиска книг", "Ошибка сети при поиске книг")
+                .into(booksLiveData, errorLiveData);
     }
 
     /**
@@ -87,40 +54,9 @@ public class BookRepository {
     public void getBooksByCategory(String category, MutableLiveData<List<Book>> booksLiveData, MutableLiveData<String> errorLiveData, int startIndex) {
         Log.d(TAG, "Fetching books by category: " + category + ", startIndex: " + startIndex);
         String query = "subject:" + category;
-        googleBooksApi.getBooksByCategory(query, startIndex, DEFAULT_MAX_RESULTS, DEFAULT_LANGUAGE).enqueue(new Callback<BookResponse>() {
-            @Override
-            public void onResponse(Call<BookResponse> call, Response<BookResponse> response) {
-                Log.d(TAG, "Books by category response received. Code: " + response.code());
-                
-                if (response.isSuccessful() && response.body() != null) {
-                    List<Book> books = extractBooksFromResponse(response.body());
-                    Log.d(TAG, "Found " + books.size() + " books for category: " + category);
-                    booksLiveData.setValue(books);
-                } else {
-                    String errorMsg = "Ошибка загрузки книг по категории: " + response.code();
-                    Log.e(TAG, errorMsg);
-                    
-                    try {
-                        if (response.errorBody() != null) {
-                            String errorBody = response.errorBody().string();
-                            Log.e(TAG, "Error body: " + errorBody);
-                            errorMsg += " - " + errorBody;
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error reading error body", e);
-                    }
-                    
-                    errorLiveData.setValue(errorMsg);
-                }
-            }
-
-            @Override
-            public void onFailure(Call<BookResponse> call, Throwable t) {
-                String errorMsg = "Ошибка сети при загрузке книг по категории: " + t.getMessage();
-                Log.e(TAG, "Failed to get books by category", t);
-                errorLiveData.setValue(errorMsg);
-            }
-        });
+        fetchBooks("books for category: " + category, googleBooksApi.getBooksByCategory(query, startIndex, DEFAULT_MAX_RESULTS, DEFAULT_LANGUAGE))
+                .errors("Ошибка загрузки книг по категории", "Ошибка сети при загрузке книг по категории")
+                .into(booksLiveData, errorLiveData);
     }
 
     /**
@@ -129,40 +65,9 @@ public class BookRepository {
     public void getBooksByAuthor(String author, MutableLiveData<List<Book>> booksLiveData, MutableLiveData<String> errorLiveData, int startIndex) {
         Log.d(TAG, "Fetching books by author: " + author + ", startIndex: " + startIndex);
         String query = "inauthor:" + author;
-        googleBooksApi.getBooksByAuthor(query, startIndex, DEFAULT_MAX_RESULTS, DEFAULT_LANGUAGE).enqueue(new Callback<BookResponse>() {
-            @Override
-            public void onResponse(Call<BookResponse> call, Response<BookResponse> response) {
-                Log.d(TAG, "Books by author response received. Code: " + response.code());
-                
-                if (response.isSuccessful() && response.body() != null) {
-                    List<Book> books = extractBooksFromResponse(response.body());
-                    Log.d(TAG, "Found " + books.size() + " books for author: " + author);
-                    booksLiveData.setValue(books);
-                } else {
-                    String errorMsg = "Ошибка загрузки книг по автору: " + response.code();
-                    Log.e(TAG, errorMsg);
-                    
-                    try {
-                        if (response.errorBody() != null) {
-                            String errorBody = response.errorBody().string();
-                            Log.e(TAG, "Error body: " + errorBody);
-                            errorMsg += " - " + errorBody;
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error reading error body", e);
-                    }
-                    
-                    errorLiveData.setValue(errorMsg);
-                }
-            }
-
-            @Override
-            public void onFailure(Call<BookResponse> call, Throwable t) {
-                String errorMsg = "Ошибка сети при загрузке книг по автору: " + t.getMessage();
-                Log.e(TAG, "Failed to get books by author", t);
-                errorLiveData.setValue(errorMsg);
-            }
-        });
+        fetchBooks("books for author: " + author, googleBooksApi.getBooksByAuthor(query, startIndex, DEFAULT_MAX_RESULTS, DEFAULT_LANGUAGE))
+                .errors("Ошибка загрузки книг по автору", "Ошибка сети при загрузке книг по автору")
+                .into(booksLiveData, errorLiveData);
     }
 
     /**
@@ -173,40 +78,13 @@ public class BookRepository {
         // Поиск по оригинальной дате публикации за последний год
         String query = "";
         String orderBy = "newest";
-        googleBooksApi.getNewReleases(query, orderBy, startIndex, DEFAULT_MAX_RESULTS, DEFAULT_LANGUAGE).enqueue(new Callback<BookResponse>() {
-            @Override
-            public void onResponse(Call<BookResponse> call, Response<BookResponse> response) {
-                Log.d(TAG, "New releases response received. Code: " + response.code());
-                
-                if (response.isSuccessful() && response.body() != null) {
-                    List<Book> books = extractBooksFromResponse(response.body());
-                    Log.d(TAG, "Found " + books.size() + " new release books");
-                    booksLiveData.setValue(books);
-                } else {
-                    String errorMsg = "Ошибка загрузки новинок книг: " + response.code();
-                    Log.e(TAG, errorMsg);
-                    
-                    try {
-                        if (response.errorBody() != null) {
-                            String errorBody = response.errorBody().string();
-                            Log.e(TAG, "Error body: " + errorBody);
-                            errorMsg += " - " + errorBody;
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error reading error body", e);
-                    }
-                    
-                    errorLiveData.setValue(errorMsg);
-                }
-            }
+        fetchBooks("new releases", googleBooksApi.getNewReleases(query, orderBy, startIndex, DEFAULT_MAX_RESULTS, DEFAULT_LANGUAGE))
+                .errors("Ошибка загрузки новинок книг", "Ошибка сети при загрузке новинок книг")
+                .into(booksLiveData, errorLiveData);
+    }
 
-            @Override
-            public void onFailure(Call<BookResponse> call, Throwable t) {
-                String errorMsg = "Ошибка сети при загрузке новинок книг: " + t.getMessage();
-                Log.e(TAG, "Failed to get new releases", t);
-                errorLiveData.setValue(errorMsg);
-            }
-        });
+    private ApiFetch<BookResponse, List<Book>> fetchBooks(String description, Call<BookResponse> call) {
+        return ApiFetch.of(TAG, description, call, this::extractBooksFromResponse);
     }
 
     /**
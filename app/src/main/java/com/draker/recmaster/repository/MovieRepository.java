@@ -14,13 +14,14 @@ import com.draker.recmaster.model.GenreResponse;
 import com.draker.recmaster.model.Movie;
 import com.draker.recmaster.model.MovieResponse;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
 
 /**
  * Репозиторий для работы с данными о фильмах
@@ -34,8 +35,9 @@ public class MovieRepository {
     private static MovieRepository instance;
     private LocalMovieRepository localMovieRepository;
     
-    // Кэш жанров для быстрого доступа
-    private final Map<Integer, String> genreMap = new HashMap<>();
+    // Кэш жанров для быстрого доступа. Неизменяемый снимок: он же уходит наблюдателям,
+    // а новая загрузка подменяет его целиком
+    private volatile Map<Integer, String> genreMap = Collections.emptyMap();
 
     private MovieRepository() {
         tmdbApi = ApiClient.getTmdbApi();
@@ -63,58 +65,8 @@ public class MovieRepository {
      */
     public void getPopularMovies(MutableLiveData<List<Movie>> moviesLiveData, MutableLiveData<String> errorLiveData, int page) {
         Log.d(TAG, "Fetching popular movies, page: " + page);
-        tmdbApi.getPopularMovies(LANGUAGE, page).enqueue(new Callback<MovieResponse>() {
-            @Override
-            public void onResponse(Call<MovieResponse> call, Response<MovieResponse> response) {
-                Log.d(TAG, "Popular movies response received. Code: " + response.code());
-                Log.d(TAG, "URL: " + call.request().url());
-                
-                if (response.isSuccessful() && response.body() != null) {
-                    List<Movie> movies = response.body().getResults();
-                    Log.d(TAG, "Got " + movies.size() + " popular movies");
-                    
-                    // Логируем информацию о первом фильме, если список не пустой
-                    if (!movies.isEmpty()) {
-                        Movie firstMovie = movies.get(0);
-                        Log.d(TAG, "First movie: " + firstMovie.getTitle() + 
-                              ", PosterPath: " + firstMovie.getPosterPath() +
-                              ", PosterUrl: " + firstMovie.getPosterUrl() +
-                              ", ReleaseDate: " + firstMovie.getReleaseDate() +
-                              ", VoteAverage: " + firstMovie.getVoteAverage());
-                    }
-                    
-                    moviesLiveData.setValue(movies);
-                    
-                    // Сохраняем полученные фильмы в локальную базу данных
-                    if (localMovieRepository != null) {
-                        localMovieRepository.insertMovies(localMovieRepository.moviesToEntities(movies));
-                    }
-                } else {
-                    String errorMsg = "Ошибка загрузки данных: " + response.code();
-                    Log.e(TAG, errorMsg);
-                    
-                    try {
-                        if (response.errorBody() != null) {
-                            String errorBody = response.errorBody().string();
-                            Log.e(TAG, "Error body: " + errorBody);
-                            errorMsg += " - " + errorBody;
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error reading error body", e);
-                    }
-                    
-                    errorLiveData.setValue(errorMsg);
-                }
-            }
-
-            @Override
-            public void onFailure(Call<MovieResponse> call, Throwable t) {
-                String errorMsg = "Ошибка сети: " + t.getMessage();
-                Log.e(TAG, "Failed to get popular movies", t);
-                Log.e(TAG, "URL: " + call.request().url());
-                errorLiveData.setValue(errorMsg);
-            }
-        });
+        fetchMovies("popular movies", tmdbApi.getPopularMovies(LANGUAGE, page))
+                .into(moviesLiveData, errorLiveData);
     }
 
     /**
@@ -122,45 +74,8 @@ public class MovieRepository {
      */
     public void getTopRatedMovies(MutableLiveData<List<Movie>> moviesLiveData, MutableLiveData<String> errorLiveData, int page) {
         Log.d(TAG, "Fetching top rated movies, page: " + page);
-        tmdbApi.getTopRatedMovies(LANGUAGE, page).enqueue(new Callback<MovieResponse>() {
-            @Override
-            public void onResponse(Call<MovieResponse> call, Response<MovieResponse> response) {
-                Log.d(TAG, "Top rated movies response received. Code: " + response.code());
-                
-                if (response.isSuccessful() && response.body() != null) {
-                    List<Movie> movies = response.body().getResults();
-                    Log.d(TAG, "Got " + movies.size() + " top rated movies");
-                    moviesLiveData.setValue(movies);
-                    
-                    // Сохраняем полученные фильмы в локальную базу данных
-                    if (localMovieRepository != null) {
-                        localMovieRepository.insertMovies(localMovieRepository.moviesToEntities(movies));
-                    }
-                } else {
-                    String errorMsg = "Ошибка загрузки данных: " + response.code();
-                    Log.e(TAG, errorMsg);
-                    
-                    try {
-                        if (response.errorBody() != null) {
-                            String errorBody = response.errorBody().string();
-                            Log.e(TAG, "Error body: " + errorBody);
-                            errorMsg += " - " + errorBody;
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error reading error body", e);
-                    }
-                    
-                    errorLiveData.setValue(errorMsg);
-                }
-            }
-
-            @Override
-            public void onFailure(Call<MovieResponse> call, Throwable t) {
-                String errorMsg = "Ошибка сети: " + t.getMessage();
-                Log.e(TAG, "Failed to get top rated movies", t);
-                errorLiveData.setValue(errorMsg);
-            }
-        });
+        fetchMovies("top rated movies", tmdbApi.getTopRatedMovies(LANGUAGE, page))
+                .into(moviesLiveData, errorLiveData);
     }
 
     /**
@@ -168,45 +83,8 @@ public class MovieRepository {
      */
     public void getNowPlayingMovies(MutableLiveData<List<Movie>> moviesLiveData, MutableLiveData<String> errorLiveData, int page) {
         Log.d(TAG, "Fetching now playing movies, page: " + page);
-        tmdbApi.getNowPlayingMovies(LANGUAGE, page).enqueue(new Callback<MovieResponse>() {
-            @Override
-            public void onResponse(Call<MovieResponse> call, Response<MovieResponse> response) {
-                Log.d(TAG, "Now playing movies response received. Code: " + response.code());
-                
-                if (response.isSuccessful() && response.body() != null) {
-                    List<Movie> movies = response.body().getResults();
-                    Log.d(TAG, "Got " + movies.size() + " now playing movies");
-                    moviesLiveData.setValue(movies);
-                    
-                    // Сохраняем полученные фильмы в локальную базу данных
-                    if (localMovieRepository != null) {
-                        localMovieRepository.insertMovies(localMovieRepository.moviesToEntities(movies));
-                    }
-                } else {
-                    String errorMsg = "Ошибка загрузки данных: " + response.code();
-                    Log.e(TAG, errorMsg);
-                    
-                    try {
-                        if (response.errorBody() != null) {
-                            String errorBody = response.errorBody().string();
-                            Log.e(TAG, "Error body: " + errorBody);
-                            errorMsg += " - " + errorBody;
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error reading error body", e);
-                    }
-                    
-                    errorLiveData.setValue(errorMsg);
-                }
-            }
-
-            @Override
-            public void onFailure(Call<MovieResponse> call, Throwable t) {
-                String errorMsg = "Ошибка сети: " + t.getMessage();
-                Log.e(TAG, "Failed to get now playing movies", t);
-                errorLiveData.setValue(errorMsg);
-            }
-        });
+        fetchMovies("now playing movies", tmdbApi.getNowPlayingMovies(LANGUAGE, page))
+                .into(moviesLiveData, errorLiveData);
     }
 
     /**
@@ -214,96 +92,20 @@ public class MovieRepository {
      */
     public void getUpcomingMovies(MutableLiveData<List<Movie>> moviesLiveData, MutableLiveData<String> errorLiveData, int page) {
         Log.d(TAG, "Fetching upcoming movies, page: " + page);
-        tmdbApi.getUpcomingMovies(LANGUAGE, page).enqueue(new Callback<MovieResponse>() {
-            @Override
-            public void onResponse(Call<MovieResponse> call, Response<MovieResponse> response) {
-                Log.d(TAG, "Upcoming movies response received. Code: " + response.code());
-                
-                if (response.isSuccessful() && response.body() != null) {
-                    List<Movie> movies = response.body().getResults();
-                    Log.d(TAG, "Got " + movies.size() + " upcoming movies");
-                    moviesLiveData.setValue(movies);
-                    
-                    // Сохраняем полученные фильмы в локальную базу данных
-                    if (localMovieRepository != null) {
-                        localMovieRepository.insertMovies(localMovieRepository.moviesToEntities(movies));
-                    }
-                } else {
-                    String errorMsg = "Ошибка загрузки данных: " + response.code();
-                    Log.e(TAG, errorMsg);
-                    
-                    try {
-                        if (response.errorBody() != null) {
-                            String errorBody = response.errorBody().string();
-                            Log.e(TAG, "Error body: " + errorBody);
-                            errorMsg += " - " + errorBody;
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error reading error body", e);
-                    }
-                    
-                    errorLiveData.setValue(errorMsg);
-                }
-            }
-
-            @Override
-            public void onFailure(Call<MovieResponse> call, Throwable t) {
-                String errorMsg = "Ошибка сети: " + t.getMessage();
-                Log.e(TAG, "Failed to get upcoming movies", t);
-                errorLiveData.setValue(errorMsg);
-            }
-        });
+        fetchMovies("upcoming movies", tmdbApi.getUpcomingMovies(LANGUAGE, page))
+                .into(moviesLiveData, errorLiveData);
     }
 
     /**
      * Получение списка жанров
      */
     public void getMovieGenres(MutableLiveData<Map<Integer, String>> genresLiveData, MutableLiveData<String> errorLiveData) {
-        if (!genreMap.isEmpty()) {
-            Log.d(TAG, "Using cached genres: " + genreMap.size() + " items");
-            genresLiveData.setValue(genreMap);
-            return;
-        }
-
         Log.d(TAG, "Fetching movie genres");
-        tmdbApi.getMovieGenres(LANGUAGE).enqueue(new Callback<GenreResponse>() {
-            @Override
-            public void onResponse(Call<GenreResponse> call, Response<GenreResponse> response) {
-                Log.d(TAG, "Genres response received. Code: " + response.code());
-                
-                if (response.isSuccessful() && response.body() != null) {
-                    List<Genre> genres = response.body().getGenres();
-                    Log.d(TAG, "Got " + genres.size() + " genres");
-                    
-                    for (Genre genre : genres) {
-                        genreMap.put(genre.getId(), genre.getName());
-                    }
-                    genresLiveData.setValue(genreMap);
-                } else {
-                    String errorMsg = "Ошибка загрузки жанров: " + response.code();
-                    Log.e(TAG, errorMsg);
-                    
-                    try {
-                        if (response.errorBody() != null) {
-                            String errorBody = response.errorBody().string();
-                            Log.e(TAG, "Error body: " + errorBody);
-                            errorMsg += " - " + errorBody;
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error reading error body", e);
-                    }
-                    
-                    errorLiveData.setValue(errorMsg);
-                }
-            }
-
-            @Override
-            public void onFailure(Call<GenreResponse> call, Throwable t) {
-                String errorMsg = "Ошибка сети при загрузке жанров: " + t.getMessage();
-                Log.e(TAG, "Failed to get genres", t);
-                errorLiveData.setValue(errorMsg);
-            }
-        });
+        ApiFetch.of(TAG, "movie genres", tmdbApi.getMovieGenres(LANGUAGE), MovieRepository::toGenreMap)
+                .cached(() -> genreMap.isEmpty() ? null : genreMap)
+                .persist(genres -> genreMap = Collections.unmodifiableMap(new HashMap<>(genres)))
+                .errors("Ошибка загрузки жанров", "Ошибка сети при загрузке жанров")
+                .into(genresLiveData, errorLiveData);
     }
 
     /**
@@ -311,44 +113,40 @@ public class MovieRepository {
      */
     public void searchMovies(String query, MutableLiveData<List<Movie>> moviesLiveData, MutableLiveData<String> errorLiveData, int page) {
         Log.d(TAG, "Searching movies with query: " + query + ", page: " + page);
-        tmdbApi.searchMovies(LANGUAGE, query, page, false).enqueue(new Callback<MovieResponse>() {
-            @Override
-            public void onResponse(Call<MovieResponse> call, Response<MovieResponse> response) {
-                Log.d(TAG, "Search movies response received. Code: " + response.code());
-                
-                if (response.isSuccessful() && response.body() != null) {
-                    List<Movie> movies = response.body().getResults();
-                    Log.d(TAG, "Found " + movies.size() + " movies for query: " + query);
-                    moviesLiveData.setValue(movies);
-                    
-                    // Сохраняем найденные фильмы в локальную базу данных
-                    if (localMovieRepository != null) {
-                        localMovieRepository.insertMovies(localMovieRepository.moviesToEntities(movies));
-                    }
-                } else {
-                    String errorMsg = "Ошибка поиска: " + response.code();
-                    Log.e(TAG, errorMsg);
-                    
-                    try {
-                        if (response.errorBody() != null) {
-                            String errorBody = response.errorBody().string();
-                            Log.e(TAG, "Error body: " + errorBody);
-                            errorMsg += " - " + errorBody;
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error reading error body", e);
-                    }
-                    
-                    errorLiveData.setValue(errorMsg);
-                }
-            }
+        fetchMovies("movies for query: " + query, tmdbApi.searchMovies(LANGUAGE, query, page, false))
+                .errors("Ошибка поиска", "Ошибка сети при поиске")
+                .into(moviesLiveData, errorLiveData);
+    }
+
+    /**
+     * Получение детальной информации о фильме (в том числе продолжительности)
+     */
+    public CompletableFuture<Movie> getMovieDetails(int movieId) {
+        Log.d(TAG, "Fetching movie details for ID: " + movieId);
+        return ApiFetch.of(TAG, "details for movie " + movieId, tmdbApi.getMovieDetails(movieId, LANGUAGE), Function.<Movie>identity())
+                .errors("Ошибка загрузки данных о фильме", "Ошибка сети при загрузке данных о фильме")
+                .start();
+    }
+
+    /**
+     * Загрузка списка фильмов с сохранением в локальную базу данных
+     */
+    private ApiFetch<MovieResponse, List<Movie>> fetchMovies(String description, Call<MovieResponse> call) {
+        return ApiFetch.of(TAG, description, call, MovieResponse::getResults)
+                .persist(this::saveMovies);
+    }
 
-            @Override
-            public void onFailure(Call<MovieResponse> call, Throwable t) {
-                String errorMsg = "Ошибка сети при поиске: " + t.getMessage();
-                Log.e(TAG, "Failed to search movies", t);
-                errorLiveData.setValue(errorMsg);
-            }
-        });
+    private void saveMovies(List<Movie> movies) {
+        if (localMovieRepository != null) {
+            localMovieRepository.insertMovies(localMovieRepository.moviesToEntities(movies));
+        }
+    }
+
+    private static Map<Integer, String> toGenreMap(GenreResponse response) {
+        Map<Integer, String> genres = new HashMap<>();
+        for (Genre genre : response.getGenres()) {
+            genres.put(genre.getId(), genre.getName());
+        }
+        return genres;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,293 @@
+package com.draker.recmaster.repository;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.draker.recmaster.api.RequestPriority;
+import com.draker.recmaster.database.AppDatabase;
+import com.draker.recmaster.database.repository.LocalMovieRepository;
+import com.draker.recmaster.model.Movie;
+import com.draker.recmaster.util.NetworkUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фоновая догрузка продолжительности фильмов.
+ * Списки TMDB не содержат runtime - он есть только в деталях фильма, поэтому без догрузки
+ * фильтр по продолжительности пропускает любой фильм. Детали запрашиваются с ограниченным
+ * числом одновременных запросов, в первую очередь для фильмов, которые скорее всего
+ * будут показаны. Результаты сохраняются в MovieEntity одной транзакцией на пачку
+ * и передаются подписчикам. Известные значения (в памяти или в базе) повторно не запрашиваются
+ */
+public class MovieRuntimeHydrator {
+
+    private static final String TAG = "MovieRuntimeHydrator";
+
+    private static final int MAX_CONCURRENT_REQUESTS = 4;
+    private static final int FLUSH_SIZE = 20;
+    // Сколько фильмов вне видимой части можно поставить в очередь за один вызов
+    private static final int MAX_BACKGROUND_PER_CALL = 100;
+    private static final long FAILURE_RETRY_MS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Получатель загруженной продолжительности; вызывается из фонового или главного потока
+     */
+    public interface Listener {
+        /**
+         * @param runtimes id фильма -> минуты или {@link Movie#RUNTIME_UNKNOWN}
+         */
+        void onRuntimesLoaded(Map<Integer, Integer> runtimes);
+    }
+
+    private static volatile MovieRuntimeHydrator INSTANCE;
+
+    private final Context context;
+    private final MovieRepository movieRepository;
+    private final LocalMovieRepository localMovieRepository;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Состояние ниже защищено блокировкой this
+    private final Map<Integer, Integer> knownRuntimes = new HashMap<>();
+    // Ожидают проверки базы или отправки запроса
+    private final Map<Integer, Pending> pending = new HashMap<>();
+    private final PriorityQueue<Pending> queue = new PriorityQueue<>();
+    private final Map<Integer, RequestPriority> inFlight = new HashMap<>();
+    private final Map<Integer, Long> failedAtMs = new HashMap<>();
+    // Загружены, но еще не сохранены и не переданы подписчикам
+    private final Map<Integer, Integer> unflushed = new HashMap<>();
+    private long nextSequence;
+
+    private static final class Pending implements Comparable<Pending> {
+        final int movieId;
+        final long sequence;
+        RequestPriority priority;
+        boolean checkingDatabase = true;
+
+        Pending(int movieId, RequestPriority priority, long sequence) {
+            this.movieId = movieId;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Pending other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    public static MovieRuntimeHydrator getInstance(Application application) {
+        if (INSTANCE == null) {
+            synchronized (MovieRuntimeHydrator.class) {
+                if (INSTANCE == null) {
+                    MovieRepository movieRepository = MovieRepository.getInstance();
+                    movieRepository.setLocalRepository(application);
+                    INSTANCE = new MovieRuntimeHydrator(application, movieRepository,
+                            LocalMovieRepository.getInstance(application));
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private MovieRuntimeHydrator(Context context, MovieRepository movieRepository,
+                                 LocalMovieRepository localMovieRepository) {
+        this.context = context.getApplicationContext();
+        this.movieRepository = movieRepository;
+        this.localMovieRepository = localMovieRepository;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Ставит в очередь фильмы без продолжительности. Повторный вызов для фильма из очереди
+     * только повышает его приоритет. В тарифицируемой сети загружается только видимая часть
+     *
+     * @param movies фильмы в порядке показа
+     * @param visibleCount сколько первых фильмов, вероятно, увидит пользователь: они загружаются раньше остальных
+     */
+    public void hydrate(List<Movie> movies, int visibleCount) {
+        if (movies == null || movies.isEmpty()) {
+            return;
+        }
+
+        boolean backgroundAllowed = !NetworkUtil.isNetworkMetered(context);
+        Map<Integer, Integer> alreadyKnown = new HashMap<>();
+        List<Integer> toCheck = new ArrayList<>();
+        synchronized (this) {
+            long now = SystemClock.elapsedRealtime();
+            int background = 0;
+            for (int i = 0, n = movies.size(); i < n; i++) {
+                Movie movie = movies.get(i);
+                if (movie == null || movie.getRuntime() != 0) {
+                    continue;
+                }
+
+                int movieId = movie.getId();
+                Integer runtime = knownRuntimes.get(movieId);
+                if (runtime != null) {
+                    // Новый объект фильма (например, со следующей страницы API) - значение уже есть
+                    alreadyKnown.put(movieId, runtime);
+                    continue;
+                }
+
+                RequestPriority priority = i < visibleCount ? RequestPriority.PREFETCH : RequestPriority.BACKGROUND;
+                Pending waiting = pending.get(movieId);
+                if (waiting != null) {
+                    raisePriority(waiting, priority);
+                    continue;
+                }
+                if (inFlight.containsKey(movieId)) {
+                    continue;
+                }
+                Long failedAt = failedAtMs.get(movieId);
+                if (failedAt != null && now - failedAt < FAILURE_RETRY_MS) {
+                    continue;
+                }
+                if (priority == RequestPriority.BACKGROUND
+                        && (!backgroundAllowed || background++ >= MAX_BACKGROUND_PER_CALL)) {
+                    continue;
+                }
+
+                pending.put(movieId, new Pending(movieId, priority, nextSequence++));
+                toCheck.add(movieId);
+            }
+        }
+
+        if (!alreadyKnown.isEmpty()) {
+            notifyListeners(alreadyKnown);
+        }
+        if (!toCheck.isEmpty()) {
+            AppDatabase.databaseReadExecutor.execute(() -> checkDatabase(toCheck));
+        }
+    }
+
+    /**
+     * Количество фильмов в очереди и в загрузке
+     */
+    public synchronized int pendingCount() {
+        return pending.size() + inFlight.size();
+    }
+
+    /**
+     * Берет из базы уже сохраненные значения; остальные фильмы ставит в очередь запросов
+     */
+    private void checkDatabase(List<Integer> movieIds) {
+        Map<Integer, Integer> stored = localMovieRepository.getKnownRuntimes(movieIds);
+        synchronized (this) {
+            for (Integer movieId : movieIds) {
+                Pending waiting = pending.get(movieId);
+                if (waiting == null) {
+                    continue;
+                }
+                Integer runtime = stored.get(movieId);
+                if (runtime != null) {
+                    pending.remove(movieId);
+                    knownRuntimes.put(movieId, runtime);
+                } else {
+                    waiting.checkingDatabase = false;
+                    queue.add(waiting);
+                }
+            }
+        }
+
+        if (!stored.isEmpty()) {
+            Log.d(TAG, "Found " + stored.size() + " runtimes in database");
+            notifyListeners(stored);
+        }
+        dispatch();
+    }
+
+    /**
+     * Отправляет запросы деталей, пока не занято {@link #MAX_CONCURRENT_REQUESTS} мест
+     */
+    private void dispatch() {
+        List<Pending> ready = new ArrayList<>();
+        synchronized (this) {
+            while (inFlight.size() < MAX_CONCURRENT_REQUESTS && !queue.isEmpty()) {
+                Pending next = queue.poll();
+                pending.remove(next.movieId);
+                inFlight.put(next.movieId, next.priority);
+                ready.add(next);
+            }
+        }
+
+        for (Pending next : ready) {
+            RequestPriority.runWith(next.priority, () -> movieRepository.getMovieDetails(next.movieId)
+                    .whenComplete((movie, error) -> onLoaded(next.movieId, movie, error)));
+        }
+    }
+
+    private void onLoaded(int movieId, Movie movie, Throwable error) {
+        Map<Integer, Integer> flush = null;
+        synchronized (this) {
+            inFlight.remove(movieId);
+            if (error != null || movie == null) {
+                failedAtMs.put(movieId, SystemClock.elapsedRealtime());
+                Log.w(TAG, "Failed to load runtime for movie " + movieId
+                        + (error != null ? ": " + error.getMessage() : ""));
+            } else {
+                int runtime = movie.getRuntime() > 0 ? movie.getRuntime() : Movie.RUNTIME_UNKNOWN;
+                knownRuntimes.put(movieId, runtime);
+                unflushed.put(movieId, runtime);
+            }
+
+            // Видимые фильмы публикуются, как только загружены все; фоновые - пачками
+            if (unflushed.size() >= FLUSH_SIZE || (!unflushed.isEmpty() && !hasVisibleWork())) {
+                flush = new HashMap<>(unflushed);
+                unflushed.clear();
+            }
+        }
+
+        if (flush != null) {
+            Log.d(TAG, "Loaded runtime for " + flush.size() + " movies, pending: " + pendingCount());
+            localMovieRepository.updateRuntimes(flush);
+            notifyListeners(flush);
+        }
+        dispatch();
+    }
+
+    private void raisePriority(Pending waiting, RequestPriority priority) {
+        if (!priority.isHigherThan(waiting.priority)) {
+            return;
+        }
+        if (waiting.checkingDatabase) {
+            waiting.priority = priority;
+        } else if (queue.remove(waiting)) {
+            waiting.priority = priority;
+            queue.add(waiting);
+        }
+    }
+
+    private boolean hasVisibleWork() {
+        for (RequestPriority priority : inFlight.values()) {
+            if (priority != RequestPriority.BACKGROUND) {
+                return true;
+            }
+        }
+        Pending next = queue.peek();
+        return next != null && next.priority != RequestPriority.BACKGROUND;
+    }
+
+    private void notifyListeners(Map<Integer, Integer> runtimes) {
+        Map<Integer, Integer> snapshot = Collections.unmodifiableMap(runtimes);
+        for (Listener listener : listeners) {
+            listener.onRuntimesLoaded(snapshot);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.draker.recmaster.repository;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import com.draker.recmaster.api.RequestPriority;
+import com.draker.recmaster.util.NetworkUtil;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Упреждающая загрузка страниц для бесконечной прокрутки.
+ * По позиции последнего видимого элемента и скорости прокрутки загружает страницы
+ * заранее, чтобы пользователь не доходил до конца списка раньше, чем придет ответ.
+ * Число страниц вперед подстраивается под наблюдаемую задержку ответа: чем быстрее
+ * прокрутка и медленнее сеть, тем дальше вперед. При ошибках загрузка откладывается
+ * с экспоненциальной задержкой, в тарифицируемой сети загружается одна страница вперед.
+ * Все методы вызываются из главного потока
+ *
+ * @param <T> тип элементов списка
+ */
+public class PagePrefetcher<T> {
+
+    private static final String TAG = "PagePrefetcher";
+
+    private static final int MIN_PAGES_AHEAD = 1;
+    private static final int MAX_PAGES_AHEAD = 4;
+    private static final int MAX_CONCURRENT_PAGES = 2;
+    private static final long INITIAL_LATENCY_MS = 500;
+    // Вес нового замера в скользящем среднем задержки и скорости
+    private static final double SMOOTHING = 0.3;
+    private static final long BACKOFF_BASE_MS = 1000;
+    private static final long BACKOFF_MAX_MS = 30_000;
+
+    /**
+     * Источник страниц: метод репозитория, записывающий страницу или ошибку в LiveData
+     */
+    public interface PageSource<T> {
+        void load(int page, MutableLiveData<List<T>> pageLiveData, MutableLiveData<String> errorLiveData);
+    }
+
+    private final Context context;
+    private final int firstPage;
+    private final PageSource<T> source;
+
+    private final MutableLiveData<List<T>> itemsLiveData = new MutableLiveData<>();
+    private final MutableLiveData<String> errorLiveData = new MutableLiveData<>();
+    private final MutableLiveData<Boolean> isLoadingLiveData = new MutableLiveData<>(false);
+
+    // Загруженные страницы; в список попадают только идущие подряд от первой
+    private final Map<Integer, List<T>> pages = new TreeMap<>();
+    private final Set<Integer> inFlight = new HashSet<>();
+    private final List<T> items = new ArrayList<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private int publishedPages;
+    private int nextPage;
+    private int pageSize;
+    private boolean endReached;
+    // Поколение: ответы, запрошенные до reset(), отбрасываются
+    private int generation;
+
+    private double latencyMs = INITIAL_LATENCY_MS;
+    private int consecutiveErrors;
+    private long retryAtMs;
+
+    private int lastVisiblePosition;
+    private long lastScrollAtMs;
+    // Скорость прокрутки в элементах в секунду
+    private double velocity;
+
+    /**
+     * @param firstPage номер первой страницы в API (1 для TMDB и RAWG, 0 для Google Books)
+     */
+    public PagePrefetcher(Context context, int firstPage, PageSource<T> source) {
+        this.context = context != null ? context.getApplicationContext() : null;
+        this.firstPage = firstPage;
+        this.source = source;
+        this.nextPage = firstPage;
+    }
+
+    /**
+     * Список всех загруженных элементов
+     */
+    public LiveData<List<T>> getItems() {
+        return itemsLiveData;
+    }
+
+    public LiveData<String> getError() {
+        return errorLiveData;
+    }
+
+    /**
+     * true, пока пользователь ждет следующую страницу в конце списка
+     */
+    public LiveData<Boolean> isLoading() {
+        return isLoadingLiveData;
+    }
+
+    /**
+     * Загружает первую страницу, если список еще пуст
+     */
+    public void start() {
+        if (items.isEmpty() && inFlight.isEmpty()) {
+            schedule();
+            updateLoading();
+        }
+    }
+
+    /**
+     * Сбрасывает загруженные страницы и начинает загрузку заново
+     */
+    public void reset() {
+        generation++;
+        handler.removeCallbacksAndMessages(null);
+        pages.clear();
+        inFlight.clear();
+        items.clear();
+        publishedPages = 0;
+        nextPage = firstPage;
+        endReached = false;
+        consecutiveErrors = 0;
+        retryAtMs = 0;
+        lastVisiblePosition = 0;
+        velocity = 0;
+        itemsLiveData.setValue(new ArrayList<>());
+        schedule();
+        updateLoading();
+    }
+
+    /**
+     * Сообщает о прокрутке списка
+     * @param lastVisiblePosition позиция последнего видимого элемента
+     */
+    public void onScrolled(int lastVisiblePosition) {
+        long now = SystemClock.elapsedRealtime();
+        if (lastScrollAtMs > 0 && now > lastScrollAtMs) {
+            double instant = Math.max(0, lastVisiblePosition - this.lastVisiblePosition) * 1000.0 / (now - lastScrollAtMs);
+            velocity += SMOOTHING * (instant - velocity);
+        }
+        this.lastVisiblePosition = lastVisiblePosition;
+        lastScrollAtMs = now;
+
+        schedule();
+        updateLoading();
+    }
+
+    /**
+     * Повторяет загрузку после ошибки без ожидания задержки
+     */
+    public void retry() {
+        handler.removeCallbacksAndMessages(null);
+        retryAtMs = 0;
+        schedule();
+        updateLoading();
+    }
+
+    /**
+     * Останавливает отложенные повторы; вызывается из onCleared() ViewModel
+     */
+    public void stop() {
+        generation++;
+        handler.removeCallbacksAndMessages(null);
+    }
+
+    /**
+     * Число страниц, загружаемых вперед от видимой
+     */
+    int pagesAhead() {
+        if (consecutiveErrors > 0 || (context != null && NetworkUtil.isNetworkMetered(context))) {
+            return MIN_PAGES_AHEAD;
+        }
+        if (pageSize == 0) {
+            return MIN_PAGES_AHEAD;
+        }
+
+        // Сколько элементов пользователь пролистает, пока идет один запрос
+        double itemsDuringRequest = velocity * latencyMs / 1000.0;
+        int pages = MIN_PAGES_AHEAD + (int) Math.ceil(itemsDuringRequest / pageSize);
+        return Math.min(MAX_PAGES_AHEAD, pages);
+    }
+
+    private void schedule() {
+        if (endReached || SystemClock.elapsedRealtime() < retryAtMs) {
+            return;
+        }
+
+        int targetPage = visiblePage() + pagesAhead();
+        while (nextPage <= targetPage && inFlight.size() < MAX_CONCURRENT_PAGES) {
+            int page = nextPage++;
+            // После ошибки nextPage откатывается назад: уже загруженные страницы пропускаем
+            if (!inFlight.contains(page) && !pages.containsKey(page) && page >= firstPage + publishedPages) {
+                request(page);
+            }
+        }
+    }
+
+    private int visiblePage() {
+        return firstPage + (pageSize > 0 ? lastVisiblePosition / pageSize : 0);
+    }
+
+    private void request(int page) {
+        int requestGeneration = generation;
+        long startedAtMs = SystemClock.elapsedRealtime();
+        inFlight.add(page);
+
+        MutableLiveData<List<T>> pageLiveData = new MutableLiveData<>();
+        MutableLiveData<String> pageErrorLiveData = new MutableLiveData<>();
+        Observer<List<T>> pageObserver = new Observer<List<T>>() {
+            @Override
+            public void onChanged(List<T> loaded) {
+                pageLiveData.removeObserver(this);
+                if (requestGeneration == generation) {
+                    onPageLoaded(page, loaded, SystemClock.elapsedRealtime() - startedAtMs);
+                }
+            }
+        };
+        Observer<String> errorObserver = new Observer<String>() {
+            @Override
+            public void onChanged(String error) {
+                pageErrorLiveData.removeObserver(this);
+                pageLiveData.removeObserver(pageObserver);
+                if (requestGeneration == generation) {
+                    onPageFailed(page, error);
+                }
+            }
+        };
+        pageLiveData.observeForever(pageObserver);
+        pageErrorLiveData.observeForever(errorObserver);
+
+        // Страница, которую пользователь уже видит или ждет, важнее упреждающих
+        RequestPriority priority = items.isEmpty() || page <= visiblePage()
+                ? RequestPriority.INTERACTIVE
+                : RequestPriority.PREFETCH;
+        Log.d(TAG, "Loading page " + page + " (" + priority + "), ahead: " + pagesAhead()
+                + ", latency: " + (long) latencyMs + " ms");
+        RequestPriority.runWith(priority, () -> source.load(page, pageLiveData, pageErrorLiveData));
+    }
+
+    private void onPageLoaded(int page, List<T> loaded, long elapsedMs) {
+        inFlight.remove(page);
+        latencyMs += SMOOTHING * (elapsedMs - latencyMs);
+        consecutiveErrors = 0;
+
+        if (loaded == null || loaded.isEmpty()) {
+            endReached = true;
+        } else {
+            pageSize = Math.max(pageSize, loaded.size());
+            pages.put(page, loaded);
+            publish();
+        }
+
+        updateLoading();
+        schedule();
+    }
+
+    private void onPageFailed(int page, String error) {
+        inFlight.remove(page);
+        consecutiveErrors++;
+        long backoff = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << Math.min(consecutiveErrors - 1, 16));
+        retryAtMs = SystemClock.elapsedRealtime() + backoff;
+        // Страница будет запрошена снова после задержки
+        nextPage = Math.min(nextPage, page);
+        Log.w(TAG, "Page " + page + " failed, retry in " + backoff + " ms: " + error);
+        handler.postDelayed(this::schedule, backoff);
+
+        // Ошибку упреждающей загрузки показываем, только если пользователю нечего смотреть
+        if (items.isEmpty() || isAtEnd()) {
+            errorLiveData.setValue(error);
+        }
+        updateLoading();
+    }
+
+    /**
+     * Добавляет в список страницы, идущие подряд после уже показанных
+     */
+    private void publish() {
+        int expected = firstPage + publishedPages;
+        boolean changed = false;
+        List<T> page;
+        while ((page = pages.remove(expected)) != null) {
+            items.addAll(page);
+            publishedPages++;
+            expected++;
+            changed = true;
+        }
+        if (changed) {
+            itemsLiveData.setValue(new ArrayList<>(items));
+        }
+    }
+
+    private boolean isAtEnd() {
+        return lastVisiblePosition >= items.size() - 1;
+    }
+
+    private void updateLoading() {
+        boolean waiting = !inFlight.isEmpty() && (items.isEmpty() || isAtEnd());
+        Boolean current = isLoadingLiveData.getValue();
+        if (current == null || current != waiting) {
+            isLoadingLiveData.setValue(waiting);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.draker.recmaster.repository;
+
+/**
+ * Результат загрузки данных для UI: состояние, данные и сообщение об ошибке
+ *
+ * @param <T> тип данных
+ */
+public final class Resource<T> {
+
+    public enum Status {
+        LOADING,
+        SUCCESS,
+        ERROR
+    }
+
+    private final Status status;
+    private final T data;
+    private final String message;
+
+    private Resource(Status status, T data, String message) {
+        this.status = status;
+        this.data = data;
+        this.message = message;
+    }
+
+    public static <T> Resource<T> loading(T data) {
+        return new Resource<>(Status.LOADING, data, null);
+    }
+
+    public static <T> Resource<T> success(T data) {
+        return new Resource<>(Status.SUCCESS, data, null);
+    }
+
+    public static <T> Resource<T> error(String message, T data) {
+        return new Resource<>(Status.ERROR, data, message);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public T getData() {
+        return data;
+    }
+
+    /**
+     * Сообщение об ошибке для пользователя (только для {@link Status#ERROR})
+     */
+    public String getMessage() {
+        return message;
+    }
+}
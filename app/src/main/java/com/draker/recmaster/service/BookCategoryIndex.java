@@ -0,0 +1,143 @@
+package com.draker.recmaster.service;
+
+import com.draker.recmaster.model.Book;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Инвертированный индекс книг по категориям с поиском по подстроке.
+ * Каждая различная категория (в нижнем регистре) получает список позиций книг,
+ * а триграммы категорий указывают, в каких категориях может встретиться подстрока.
+ * Запрос проверяет подстрокой только категории, содержащие все его триграммы,
+ * и объединяет их списки, не обходя книги. Индекс неизменяем
+ */
+public final class BookCategoryIndex {
+
+    private static final int GRAM = 3;
+
+    /**
+     * Индекс без книг
+     */
+    public static final BookCategoryIndex EMPTY = new BookCategoryIndex(null);
+
+    private final List<Book> books;
+    private final List<String> categories = new ArrayList<>();
+    private final List<BitSet> bookPostings = new ArrayList<>();
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    // Триграмма -> категории, в которых она встречается
+    private final Map<String, BitSet> gramPostings = new HashMap<>();
+
+    public BookCategoryIndex(List<Book> books) {
+        this.books = books != null ? new ArrayList<>(books) : new ArrayList<>();
+
+        for (int position = 0, n = this.books.size(); position < n; position++) {
+            Book book = this.books.get(position);
+            if (book == null) {
+                continue;
+            }
+
+            List<String> normalized = book.getNormalizedCategories();
+            for (int i = 0, m = normalized.size(); i < m; i++) {
+                bookPostings.get(categoryIdOf(normalized.get(i))).set(position);
+            }
+        }
+    }
+
+    public int size() {
+        return books.size();
+    }
+
+    /**
+     * Находит книги, хотя бы одна категория которых содержит одну из выбранных подстрок
+     * (без учета регистра). Пустой список выбранных категорий не ограничивает выборку
+     *
+     * @return книги в порядке исходного списка
+     */
+    public List<Book> find(List<String> selectedCategories) {
+        if (selectedCategories == null || selectedCategories.isEmpty()) {
+            List<Book> all = new ArrayList<>(books.size());
+            for (Book book : books) {
+                if (book != null) {
+                    all.add(book);
+                }
+            }
+            return all;
+        }
+
+        BitSet matchedCategories = new BitSet();
+        for (String selected : Book.normalizeCategories(selectedCategories)) {
+            matchedCategories.or(categoriesContaining(selected));
+        }
+
+        BitSet matchedBooks = new BitSet();
+        for (int id = matchedCategories.nextSetBit(0); id >= 0; id = matchedCategories.nextSetBit(id + 1)) {
+            matchedBooks.or(bookPostings.get(id));
+        }
+
+        List<Book> result = new ArrayList<>(matchedBooks.cardinality());
+        for (int i = matchedBooks.nextSetBit(0); i >= 0; i = matchedBooks.nextSetBit(i + 1)) {
+            result.add(books.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает ID категорий, содержащих подстроку
+     */
+    private BitSet categoriesContaining(String query) {
+        BitSet candidates;
+        if (query.length() < GRAM) {
+            // Короткую подстроку нельзя разбить на триграммы - проверяем все категории
+            candidates = new BitSet();
+            candidates.set(0, categories.size());
+        } else {
+            candidates = null;
+            for (int i = 0; i + GRAM <= query.length(); i++) {
+                BitSet posting = gramPostings.get(query.substring(i, i + GRAM));
+                if (posting == null) {
+                    return new BitSet();
+                }
+                if (candidates == null) {
+                    candidates = (BitSet) posting.clone();
+                } else {
+                    candidates.and(posting);
+                }
+            }
+        }
+
+        // Триграммы не учитывают порядок, поэтому кандидаты проверяются подстрокой
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            if (!categories.get(id).contains(query)) {
+                candidates.clear(id);
+            }
+        }
+        return candidates;
+    }
+
+    private int categoryIdOf(String category) {
+        Integer id = categoryIds.get(category);
+        if (id != null) {
+            return id;
+        }
+
+        id = categories.size();
+        categoryIds.put(category, id);
+        categories.add(category);
+        bookPostings.add(new BitSet());
+
+        for (int i = 0; i + GRAM <= category.length(); i++) {
+            String gram = category.substring(i, i + GRAM);
+            BitSet posting = gramPostings.get(gram);
+            if (posting == null) {
+                posting = new BitSet();
+                gramPostings.put(gram, posting);
+            }
+            posting.set(id);
+        }
+        return id;
+    }
+}
@@ -2,17 +2,33 @@ package com.draker.recmaster.service;
 
 import android.util.Log;
 
+import com.draker.recmaster.database.AppDatabase;
+import com.draker.recmaster.database.entity.MovieEntity;
 import com.draker.recmaster.model.Book;
 import com.draker.recmaster.model.Game;
 import com.draker.recmaster.model.Movie;
 import com.draker.recmaster.model.RecommendationFilter;
+import com.draker.recmaster.model.RecommendationItem;
+import com.draker.recmaster.model.RecommendationItem.ContentType;
 import com.draker.recmaster.model.TvShow;
+import com.draker.recmaster.model.UserProfile;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Сервис для генерации рекомендаций контента (фильмы, сериалы, книги, игры)
@@ -20,10 +36,50 @@ import java.util.stream.Collectors;
 public class ContentRecommendationService {
     
     private static final String TAG = "ContentRecommendationService";
+    // Размер общей выдачи по умолчанию (на каждый тип контента)
+    private static final int DEFAULT_LIMIT = 20;
     private static ContentRecommendationService instance;
     
+    // Время ожидания кандидатов каждого типа в общей выдаче
+    private static final long MOVIE_BUDGET_MS = 300;
+    private static final long TV_SHOW_BUDGET_MS = 300;
+    private static final long BOOK_BUDGET_MS = 800;
+    private static final long GAME_BUDGET_MS = 800;
+    // Сколько разных запросов общей выдачи помнить на случай, если источник не успел
+    private static final int MAX_CACHED_RESULTS = 16;
+    // Потоки ранжирования общей выдачи, отдельные от пула чтения базы
+    private static final int RANKING_THREADS = 2;
+    
+    // Зерно выбирается один раз за сессию, чтобы порядок выдачи не менялся при прокрутке
+    private final RecommendationRanker ranker = new RecommendationRanker(System.currentTimeMillis());
+    
+    // Источники читают локальную базу, поэтому чтение идет в пуле чтения базы.
+    // Ранжирование занимает только процессор и не должно держать потоки, которые
+    // Room использует для LiveData, поэтому у него свой ограниченный пул
+    private final Executor readExecutor = AppDatabase.databaseReadExecutor;
+    private final ExecutorService rankingExecutor =
+            Executors.newFixedThreadPool(RANKING_THREADS, runnable -> new Thread(runnable, "recommend-rank"));
+    private final Map<ContentType, Long> timeBudgets = new EnumMap<>(ContentType.class);
+    // Последняя полностью готовая выдача по каждому запросу (тип, параметры отбора, лимит)
+    private final Map<List<Object>, List<RecommendationItem>> lastResults = Collections.synchronizedMap(
+            new LinkedHashMap<List<Object>, List<RecommendationItem>>(MAX_CACHED_RESULTS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Object>, List<RecommendationItem>> eldest) {
+                    return size() > MAX_CACHED_RESULTS;
+                }
+            });
+    
+    private volatile Callable<List<Movie>> movieSource = Collections::emptyList;
+    private volatile Callable<List<TvShow>> tvShowSource = Collections::emptyList;
+    private volatile Callable<BookCategoryIndex> bookSource = () -> BookCategoryIndex.EMPTY;
+    private volatile Callable<GameIndex> gameSource = () -> GameIndex.EMPTY;
+    
     private ContentRecommendationService() {
-        Log.d(TAG, "ContentRecommendationService initialized");
+        timeBudgets.put(ContentType.MOVIE, MOVIE_BUDGET_MS);
+        timeBudgets.put(ContentType.TV_SHOW, TV_SHOW_BUDGET_MS);
+        timeBudgets.put(ContentType.BOOK, BOOK_BUDGET_MS);
+        timeBudgets.put(ContentType.GAME, GAME_BUDGET_MS);
+        Log.d(TAG, "ContentRecommendationService initialized, seed: " + ranker.getSeed());
     }
     
     public static synchronized ContentRecommendationService getInstance() {
@@ -33,48 +89,60 @@ public class ContentRecommendationService {
         return instance;
     }
     
+    /**
+     * Обновляет профиль жанровых предпочтений по истории просмотров
+     */
+    public void updateWatchHistory(List<MovieEntity> watchedMovies) {
+        ranker.setAffinity(GenreAffinity.fromWatchedMovies(watchedMovies));
+    }
+    
     /**
      * Создает рекомендации фильмов на основе фильтров
      * 
      * @param movies список всех доступных фильмов
      * @param filter фильтр для рекомендаций
-     * @return отфильтрованный список рекомендованных фильмов
+     * @return все подходящие фильмы, упорядоченные по оценке
      */
     public List<Movie> getMovieRecommendations(List<Movie> movies, RecommendationFilter filter) {
+        return getMovieRecommendations(movies, filter, 0, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Возвращает страницу рекомендованных фильмов, упорядоченных по оценке
+     * 
+     * @param offset сколько лучших рекомендаций пропустить
+     * @param limit размер страницы
+     */
+    public List<Movie> getMovieRecommendations(List<Movie> movies, RecommendationFilter filter, int offset, int limit) {
         if (movies == null || movies.isEmpty()) {
             return Collections.emptyList();
         }
         
-        List<Movie> filteredMovies = new ArrayList<>(movies);
-        
-        // Применяем фильтры
-        if (filter != null) {
-            // Фильтрация по жанрам
-            if (!filter.getSelectedGenreIds().isEmpty()) {
-                filteredMovies = filteredMovies.stream()
-                        .filter(movie -> movie.matchesAnyGenre(filter.getSelectedGenreIds()))
-                        .collect(Collectors.toList());
-            }
-            
-            // Фильтрация по настроению
-            if (filter.getMood() != null && !filter.getMood().isEmpty()) {
-                filteredMovies = filteredMovies.stream()
-                        .filter(movie -> movie.matchesMood(filter.getMood()))
-                        .collect(Collectors.toList());
-            }
-            
-            // Фильтрация по продолжительности
-            if (filter.getMaxDuration() > 0) {
-                filteredMovies = filteredMovies.stream()
-                        .filter(movie -> movie.matchesDuration(filter.getMaxDuration()))
-                        .collect(Collectors.toList());
-            }
+        // Фильтрация и отбор лучших выполняются за один проход по кандидатам
+        return ranker.rankMovies(movies, RecommendationPlan.forMovies(filter), offset, limit);
+    }
+    
+    /**
+     * Упорядочивает уже отфильтрованные фильмы по оценке и возвращает страницу
+     */
+    public List<Movie> rankMovies(List<Movie> movies, int offset, int limit) {
+        return rankMovies(movies, null, offset, limit);
+    }
+    
+    /**
+     * Упорядочивает уже отфильтрованные фильмы с учетом близости к настроению
+     * 
+     * @param moodQuery вектор из {@link RecommendationFilter#getMoodQuery()} или null
+     */
+    public List<Movie> rankMovies(List<Movie> movies, float[] moodQuery, int offset, int limit) {
+        if (movies == null || movies.isEmpty()) {
+            return Collections.emptyList();
         }
         
-        // Перемешиваем результаты для разнообразия
-        Collections.shuffle(filteredMovies, new Random(System.currentTimeMillis()));
-        
-        return filteredMovies;
+        RecommendationPlan<Movie> plan = moodQuery != null
+                ? new RecommendationPlan.Builder<Movie>().moodQuery(moodQuery).build()
+                : null;
+        return ranker.rankMovies(movies, plan, offset, limit);
     }
     
     /**
@@ -82,36 +150,25 @@ public class ContentRecommendationService {
      * 
      * @param tvShows список всех доступных сериалов
      * @param filter фильтр для рекомендаций
-     * @return отфильтрованный список рекомендованных сериалов
+     * @return все подходящие сериалы, упорядоченные по оценке
      */
     public List<TvShow> getTvShowRecommendations(List<TvShow> tvShows, RecommendationFilter filter) {
+        return getTvShowRecommendations(tvShows, filter, 0, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Возвращает страницу рекомендованных сериалов, упорядоченных по оценке
+     * 
+     * @param offset сколько лучших рекомендаций пропустить
+     * @param limit размер страницы
+     */
+    public List<TvShow> getTvShowRecommendations(List<TvShow> tvShows, RecommendationFilter filter, int offset, int limit) {
         if (tvShows == null || tvShows.isEmpty()) {
             return Collections.emptyList();
         }
         
-        List<TvShow> filteredTvShows = new ArrayList<>(tvShows);
-        
-        // Применяем фильтры
-        if (filter != null) {
-            // Фильтрация по жанрам
-            if (!filter.getSelectedGenreIds().isEmpty()) {
-                filteredTvShows = filteredTvShows.stream()
-                        .filter(tvShow -> tvShow.matchesAnyGenre(filter.getSelectedGenreIds()))
-                        .collect(Collectors.toList());
-            }
-            
-            // Фильтрация по настроению
-            if (filter.getMood() != null && !filter.getMood().isEmpty()) {
-                filteredTvShows = filteredTvShows.stream()
-                        .filter(tvShow -> tvShow.matchesMood(filter.getMood()))
-                        .collect(Collectors.toList());
-            }
-        }
-        
-        // Перемешиваем результаты для разнообразия
-        Collections.shuffle(filteredTvShows, new Random(System.currentTimeMillis()));
-        
-        return filteredTvShows;
+        // Фильтрация и отбор лучших выполняются за один проход по кандидатам
+        return ranker.rankTvShows(tvShows, RecommendationPlan.forTvShows(filter), offset, limit);
     }
     
     /**
@@ -119,27 +176,37 @@ public class ContentRecommendationService {
      * 
      * @param books список всех доступных книг
      * @param filter фильтр для рекомендаций
-     * @return отфильтрованный список рекомендованных книг
+     * @return все подходящие книги, упорядоченные по оценке
      */
     public List<Book> getBookRecommendations(List<Book> books, List<String> selectedCategories) {
+        return getBookRecommendations(books, selectedCategories, 0, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Возвращает страницу рекомендованных книг, упорядоченных по оценке
+     * 
+     * @param offset сколько лучших рекомендаций пропустить
+     * @param limit размер страницы
+     */
+    public List<Book> getBookRecommendations(List<Book> books, List<String> selectedCategories, int offset, int limit) {
         if (books == null || books.isEmpty()) {
             return Collections.emptyList();
         }
         
-        List<Book> filteredBooks = new ArrayList<>(books);
-        
-        // Применяем фильтры
-        if (selectedCategories != null && !selectedCategories.isEmpty()) {
-            // Фильтрация по категориям
-            filteredBooks = filteredBooks.stream()
-                    .filter(book -> book.matchesAnyCategory(selectedCategories))
-                    .collect(Collectors.toList());
+        // Фильтрация и отбор лучших выполняются за один проход по кандидатам
+        return ranker.rankBooks(books, RecommendationPlan.forBooks(selectedCategories), offset, limit);
+    }
+    
+    /**
+     * Возвращает страницу рекомендованных книг, отбирая кандидатов по индексу категорий
+     * вместо проверки каждой книги
+     */
+    public List<Book> getBookRecommendations(BookCategoryIndex index, List<String> selectedCategories, int offset, int limit) {
+        if (index == null || index.size() == 0) {
+            return Collections.emptyList();
         }
         
-        // Перемешиваем результаты для разнообразия
-        Collections.shuffle(filteredBooks, new Random(System.currentTimeMillis()));
-        
-        return filteredBooks;
+        return ranker.rankBooks(index.find(selectedCategories), null, offset, limit);
     }
     
     /**
@@ -148,46 +215,245 @@ public class ContentRecommendationService {
      * @param games список всех доступных игр
      * @param genreNames список выбранных жанров
      * @param platformNames список выбранных платформ
-     * @return отфильтрованный список рекомендованных игр
+     * @return все подходящие игры, упорядоченные по оценке
      */
     public List<Game> getGameRecommendations(List<Game> games, List<String> genreNames, List<String> platformNames) {
+        return getGameRecommendations(games, genreNames, platformNames, 0, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Возвращает страницу рекомендованных игр, упорядоченных по оценке
+     * 
+     * @param offset сколько лучших рекомендаций пропустить
+     * @param limit размер страницы
+     */
+    public List<Game> getGameRecommendations(List<Game> games, List<String> genreNames, List<String> platformNames, int offset, int limit) {
         if (games == null || games.isEmpty()) {
             return Collections.emptyList();
         }
         
-        List<Game> filteredGames = new ArrayList<>(games);
-        
-        // Применяем фильтр по жанрам
-        if (genreNames != null && !genreNames.isEmpty()) {
-            List<Game> gamesByGenre = new ArrayList<>();
-            for (Game game : filteredGames) {
-                for (String genreName : genreNames) {
-                    if (game.hasGenre(genreName)) {
-                        gamesByGenre.add(game);
-                        break;
-                    }
-                }
-            }
-            filteredGames = gamesByGenre;
+        // Фильтрация и отбор лучших выполняются за один проход по кандидатам
+        return ranker.rankGames(games, RecommendationPlan.forGames(genreNames, platformNames), offset, limit);
+    }
+    
+    /**
+     * Возвращает страницу рекомендованных игр, отбирая кандидатов по индексу
+     * жанров и платформ вместо проверки каждой игры
+     */
+    public List<Game> getGameRecommendations(GameIndex index, List<String> genreNames, List<String> platformNames, int offset, int limit) {
+        if (index == null || index.size() == 0) {
+            return Collections.emptyList();
         }
         
-        // Применяем фильтр по платформам
-        if (platformNames != null && !platformNames.isEmpty()) {
-            List<Game> gamesByPlatform = new ArrayList<>();
-            for (Game game : filteredGames) {
-                for (String platformName : platformNames) {
-                    if (game.isOnPlatform(platformName)) {
-                        gamesByPlatform.add(game);
-                        break;
-                    }
-                }
+        return ranker.rankGames(index.find(genreNames, platformNames), null, offset, limit);
+    }
+    
+    /**
+     * Источники кандидатов для общей выдачи. Вызываются в фоновом потоке
+     * и могут блокироваться (чтение из базы данных или сети)
+     */
+    public void setMovieSource(Callable<List<Movie>> source) {
+        movieSource = source != null ? source : Collections::emptyList;
+    }
+    
+    public void setTvShowSource(Callable<List<TvShow>> source) {
+        tvShowSource = source != null ? source : Collections::emptyList;
+    }
+    
+    /**
+     * Книги передаются индексом: отбор по категориям профиля идет по нему,
+     * поэтому индекс стоит строить один раз на состояние каталога
+     */
+    public void setBookSource(Callable<BookCategoryIndex> source) {
+        bookSource = source != null ? source : () -> BookCategoryIndex.EMPTY;
+    }
+    
+    /**
+     * Игры передаются индексом: отбор по жанрам и платформам профиля идет по нему,
+     * поэтому индекс стоит строить один раз на состояние каталога
+     */
+    public void setGameSource(Callable<GameIndex> source) {
+        gameSource = source != null ? source : () -> GameIndex.EMPTY;
+    }
+    
+    /**
+     * Задает время ожидания кандидатов указанного типа
+     */
+    public synchronized void setTimeBudget(ContentType type, long budgetMs) {
+        timeBudgets.put(type, budgetMs);
+    }
+    
+    /**
+     * Создает общую выдачу по всем типам контента
+     * 
+     * @param profile предпочтения пользователя для книг и игр
+     * @param filter фильтр для фильмов и сериалов
+     * @return рекомендации, упорядоченные по оценке с чередованием типов
+     */
+    public List<RecommendationItem> recommendAll(UserProfile profile, RecommendationFilter filter) {
+        return recommendAll(profile, filter, DEFAULT_LIMIT);
+    }
+    
+    /**
+     * Отбирает кандидатов всех типов параллельно и сливает их в одну выдачу.
+     * Если источник не уложился в свое время, используется его последняя готовая выдача
+     * для тех же параметров отбора. Чтение, которое еще ждет своей очереди, отменяется;
+     * уже начатое доводится до конца в фоне и обновляет запомненную выдачу.
+     * Блокирует вызывающий поток не дольше наибольшего из времен ожидания, поэтому
+     * вызывается не из главного потока и не из пула чтения базы
+     * 
+     * @param limitPerType сколько рекомендаций брать от каждого типа контента
+     */
+    public List<RecommendationItem> recommendAll(UserProfile profile, RecommendationFilter filter, int limitPerType) {
+        UserProfile userProfile = profile != null ? profile : new UserProfile();
+        RecommendationPlan<Movie> moviePlan = RecommendationPlan.forMovies(filter);
+        RecommendationPlan<TvShow> tvShowPlan = RecommendationPlan.forTvShows(filter);
+        // Категории книг отбирает индекс, поэтому план для них пустой
+        List<String> bookCategories = new ArrayList<>(userProfile.getBookCategories());
+        RecommendationPlan<Book> bookPlan = null;
+        Callable<List<Book>> bookCandidates = () -> bookSource.call().find(bookCategories);
+        // Жанры и платформы игр отбирает индекс, план проверяет только настроение
+        List<String> gameGenres = new ArrayList<>(userProfile.getGameGenres());
+        List<String> gamePlatforms = new ArrayList<>(userProfile.getGamePlatforms());
+        RecommendationPlan<Game> gamePlan = RecommendationPlan.forGames(
+                null, null, filter != null ? filter.getMoodQuery() : null);
+        Callable<List<Game>> gameCandidates = () -> gameSource.call().find(gameGenres, gamePlatforms);
+        
+        // Ключи запоминаемых выдач: все, от чего зависит план отбора каждого типа.
+        // Списки копируются, чтобы последующее изменение фильтра или профиля не меняло ключ
+        String mood = filter != null ? filter.getMood() : null;
+        List<Integer> genreIds = filter != null ? new ArrayList<>(filter.getSelectedGenreIds()) : null;
+        int maxDuration = filter != null ? filter.getMaxDuration() : RecommendationFilter.DURATION_ANY;
+        List<Object> movieKey = Arrays.asList(ContentType.MOVIE, limitPerType, genreIds, mood, maxDuration);
+        List<Object> tvShowKey = Arrays.asList(ContentType.TV_SHOW, limitPerType, genreIds, mood, maxDuration);
+        List<Object> bookKey = Arrays.asList(ContentType.BOOK, limitPerType, bookCategories);
+        List<Object> gameKey = Arrays.asList(ContentType.GAME, limitPerType, gameGenres, gamePlatforms, mood);
+        
+        Map<ContentType, Pending> pending = new EnumMap<>(ContentType.class);
+        pending.put(ContentType.MOVIE, submit(ContentType.MOVIE, movieKey, movieSource, moviePlan,
+                ranker.getMovieScorer(), limitPerType));
+        pending.put(ContentType.TV_SHOW, submit(ContentType.TV_SHOW, tvShowKey, tvShowSource, tvShowPlan,
+                ranker.getTvShowScorer(), limitPerType));
+        pending.put(ContentType.BOOK, submit(ContentType.BOOK, bookKey, bookCandidates, bookPlan,
+                ranker.getBookScorer(), limitPerType));
+        pending.put(ContentType.GAME, submit(ContentType.GAME, gameKey, gameCandidates, gamePlan,
+                ranker.getGameScorer(), limitPerType));
+        
+        // Бюджеты отсчитываются от общего старта, поэтому ожидания не складываются
+        long start = System.nanoTime();
+        List<List<RecommendationItem>> perType = new ArrayList<>(pending.size());
+        for (Map.Entry<ContentType, Pending> entry : pending.entrySet()) {
+            ContentType type = entry.getKey();
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            long remainingMs = Math.max(0, getTimeBudget(type) - elapsedMs);
+            perType.add(await(type, entry.getValue(), remainingMs));
+        }
+        
+        return interleave(perType);
+    }
+    
+    private synchronized long getTimeBudget(ContentType type) {
+        Long budget = timeBudgets.get(type);
+        return budget != null ? budget : 0;
+    }
+    
+    /**
+     * Выдача одного типа в работе
+     */
+    private static final class Pending {
+        final List<Object> key;
+        final CompletableFuture<List<RecommendationItem>> result;
+        // Выставляется либо чтением при старте, либо отменой по таймауту — кто первый
+        final AtomicBoolean claimed = new AtomicBoolean();
+        
+        Pending(List<Object> key, CompletableFuture<List<RecommendationItem>> result) {
+            this.key = key;
+            this.result = result;
+        }
+    }
+    
+    /**
+     * Ставит чтение кандидатов одного типа в пул чтения базы, а их ранжирование — в свой пул
+     */
+    private <T> Pending submit(ContentType type, List<Object> key,
+                               Callable<List<T>> source,
+                               RecommendationPlan<T> plan,
+                               RecommendationRanker.Scorer<? super T> scorer,
+                               int limit) {
+        CompletableFuture<List<T>> read = new CompletableFuture<>();
+        Pending pending = new Pending(key, read.thenApplyAsync(candidates -> {
+            List<RecommendationItem> items = new ArrayList<>();
+            for (RecommendationRanker.Scored<T> scored : ranker.rankScored(candidates, plan, scorer, 0, limit)) {
+                items.add(new RecommendationItem(type, scored.getItem(), scored.getScore()));
+            }
+            return items;
+        }, rankingExecutor));
+        
+        readExecutor.execute(() -> {
+            // Выдача уже отдана без этого типа, и поток нужнее очереди чтения базы
+            if (!pending.claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                read.complete(source.call());
+            } catch (Exception e) {
+                read.completeExceptionally(new IllegalStateException("Failed to load " + type + " candidates", e));
+            }
+        });
+        
+        // Запоздавший, но начатый расчет все равно сохраняется для следующих таких же запросов
+        pending.result.thenAccept(items -> lastResults.put(key, items));
+        return pending;
+    }
+    
+    /**
+     * Ждет выдачу одного типа не дольше заданного времени
+     */
+    private List<RecommendationItem> await(ContentType type, Pending pending, long timeoutMs) {
+        try {
+            return pending.result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (pending.claimed.compareAndSet(false, true)) {
+                pending.result.cancel(false);
+                Log.w(TAG, type + " candidates were still queued after " + getTimeBudget(type)
+                        + " ms, read dropped, using previous results");
+            } else {
+                Log.w(TAG, type + " candidates exceeded " + getTimeBudget(type) + " ms, using previous results");
             }
-            filteredGames = gamesByPlatform;
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Error generating " + type + " recommendations", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
         
-        // Перемешиваем результаты для разнообразия
-        Collections.shuffle(filteredGames, new Random(System.currentTimeMillis()));
+        List<RecommendationItem> previous = lastResults.get(pending.key);
+        return previous != null ? previous : Collections.emptyList();
+    }
+    
+    /**
+     * Сливает выдачи разных типов по кругам: в каждом круге берется следующий элемент
+     * каждого типа, внутри круга элементы упорядочены по оценке
+     */
+    private static List<RecommendationItem> interleave(List<List<RecommendationItem>> perType) {
+        int total = 0;
+        int rounds = 0;
+        for (List<RecommendationItem> items : perType) {
+            total += items.size();
+            rounds = Math.max(rounds, items.size());
+        }
         
-        return filteredGames;
+        List<RecommendationItem> feed = new ArrayList<>(total);
+        List<RecommendationItem> round = new ArrayList<>(perType.size());
+        for (int i = 0; i < rounds; i++) {
+            round.clear();
+            for (List<RecommendationItem> items : perType) {
+                if (i < items.size()) {
+                    round.add(items.get(i));
+                }
+            }
+            Collections.sort(round, (a, b) -> Double.compare(b.getScore(), a.getScore()));
+            feed.addAll(round);
+        }
+        return feed;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,104 @@
+package com.draker.recmaster.service;
+
+import com.draker.recmaster.model.Game;
+import com.draker.recmaster.model.GameTagDictionary;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Инвертированный индекс игр по жанрам и платформам.
+ * Для каждого ID жанра и платформы хранится множество позиций игр, поэтому запрос
+ * вида "Action на PC" сводится к пересечению двух битовых множеств без обхода всех игр.
+ * Индекс неизменяем: при изменении списка игр строится заново
+ */
+public final class GameIndex {
+
+    /**
+     * Индекс без игр
+     */
+    public static final GameIndex EMPTY = new GameIndex(null);
+
+    private final List<Game> games;
+    private final Map<Integer, BitSet> genrePostings = new HashMap<>();
+    private final Map<Integer, BitSet> platformPostings = new HashMap<>();
+
+    public GameIndex(List<Game> games) {
+        this.games = games != null ? new ArrayList<>(games) : new ArrayList<>();
+
+        for (int position = 0, n = this.games.size(); position < n; position++) {
+            Game game = this.games.get(position);
+            if (game == null) {
+                continue;
+            }
+            addPostings(genrePostings, game.getGenreIdSet(), position);
+            addPostings(platformPostings, game.getPlatformIdSet(), position);
+        }
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    /**
+     * Находит игры, у которых есть хотя бы один из жанров и хотя бы одна из платформ.
+     * Пустой список жанров или платформ не ограничивает выборку
+     *
+     * @return игры в порядке исходного списка
+     */
+    public List<Game> find(List<String> genreNames, List<String> platformNames) {
+        BitSet matched = null;
+        if (genreNames != null && !genreNames.isEmpty()) {
+            matched = union(genrePostings, GameTagDictionary.GENRES.setOf(genreNames));
+        }
+        if (platformNames != null && !platformNames.isEmpty()) {
+            BitSet platformMatches = union(platformPostings, GameTagDictionary.PLATFORMS.setOf(platformNames));
+            if (matched == null) {
+                matched = platformMatches;
+            } else {
+                matched.and(platformMatches);
+            }
+        }
+
+        if (matched == null) {
+            List<Game> all = new ArrayList<>(games.size());
+            for (Game game : games) {
+                if (game != null) {
+                    all.add(game);
+                }
+            }
+            return all;
+        }
+
+        List<Game> result = new ArrayList<>(matched.cardinality());
+        for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+            result.add(games.get(i));
+        }
+        return result;
+    }
+
+    private static void addPostings(Map<Integer, BitSet> postings, BitSet tagIds, int position) {
+        for (int id = tagIds.nextSetBit(0); id >= 0; id = tagIds.nextSetBit(id + 1)) {
+            BitSet posting = postings.get(id);
+            if (posting == null) {
+                posting = new BitSet();
+                postings.put(id, posting);
+            }
+            posting.set(position);
+        }
+    }
+
+    private static BitSet union(Map<Integer, BitSet> postings, BitSet tagIds) {
+        BitSet result = new BitSet();
+        for (int id = tagIds.nextSetBit(0); id >= 0; id = tagIds.nextSetBit(id + 1)) {
+            BitSet posting = postings.get(id);
+            if (posting != null) {
+                result.or(posting);
+            }
+        }
+        return result;
+    }
+}
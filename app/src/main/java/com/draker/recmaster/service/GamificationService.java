@@ -328,7 +328,7 @@ public class GamificationService {
     public LiveData<List<Achievement>> getUserAchievements(String username) {
         MutableLiveData<List<Achievement>> result = new MutableLiveData<>(new ArrayList<>());
         
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        AppDatabase.databaseReadExecutor.execute(() -> {
             List<Achievement> achievements = new ArrayList<>();
             
             // Получаем все достижения
@@ -0,0 +1,78 @@
+package com.draker.recmaster.service;
+
+import com.draker.recmaster.database.entity.MovieEntity;
+import com.draker.recmaster.model.GenreDictionary;
+
+import java.util.List;
+
+/**
+ * Профиль предпочтений пользователя по жанрам, построенный по истории просмотров.
+ * Веса хранятся по позициям битов {@link GenreDictionary}, поэтому оценка
+ * кандидата сводится к обходу установленных битов его маски жанров
+ */
+public final class GenreAffinity {
+
+    public static final GenreAffinity EMPTY = new GenreAffinity(new float[Long.SIZE], 0f);
+
+    // Вес просмотра без оценки пользователя (оценки ставятся от 1 до 5)
+    private static final float UNRATED_WEIGHT = 3f;
+
+    private final float[] weights;
+    private final float totalWeight;
+
+    private GenreAffinity(float[] weights, float totalWeight) {
+        this.weights = weights;
+        this.totalWeight = totalWeight;
+    }
+
+    /**
+     * Строит профиль по просмотренным фильмам с учетом пользовательских оценок
+     */
+    public static GenreAffinity fromWatchedMovies(List<MovieEntity> watchedMovies) {
+        if (watchedMovies == null || watchedMovies.isEmpty()) {
+            return EMPTY;
+        }
+
+        float[] weights = new float[Long.SIZE];
+        float totalWeight = 0f;
+        for (MovieEntity movie : watchedMovies) {
+            long mask = GenreDictionary.maskOf(movie.getGenreIds()) & ~GenreDictionary.OVERFLOW_BIT;
+            if (mask == 0) {
+                continue;
+            }
+
+            float weight = movie.getUserRating() > 0 ? movie.getUserRating() : UNRATED_WEIGHT;
+            while (mask != 0) {
+                int position = Long.numberOfTrailingZeros(mask);
+                weights[position] += weight;
+                mask &= mask - 1;
+            }
+            totalWeight += weight;
+        }
+
+        return totalWeight > 0 ? new GenreAffinity(weights, totalWeight) : EMPTY;
+    }
+
+    public boolean isEmpty() {
+        return totalWeight <= 0;
+    }
+
+    /**
+     * Оценивает близость набора жанров к предпочтениям пользователя
+     * @param genreMask маска жанров кандидата
+     * @return значение от 0 до 1
+     */
+    public float score(long genreMask) {
+        if (totalWeight <= 0) {
+            return 0f;
+        }
+
+        long mask = genreMask & ~GenreDictionary.OVERFLOW_BIT;
+        float sum = 0f;
+        while (mask != 0) {
+            sum += weights[Long.numberOfTrailingZeros(mask)];
+            mask &= mask - 1;
+        }
+        return Math.min(1f, sum / totalWeight);
+    }
+}
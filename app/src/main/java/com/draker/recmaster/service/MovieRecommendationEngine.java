@@ -0,0 +1,329 @@
+package com.draker.recmaster.service;
+
+import com.draker.recmaster.model.GenreDictionary;
+import com.draker.recmaster.model.Movie;
+import com.draker.recmaster.model.RecommendationFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Инкрементальный отбор фильмов для рекомендаций.
+ * Хранит пул кандидатов и результаты проверки фильтра в виде битовых множеств,
+ * поэтому изменение жанров или поступление новой страницы пересчитывает
+ * только затронутых кандидатов, а не весь пул.
+ * Размер пула ограничен, давние кандидаты вытесняются новыми.
+ * Объекты фильмов не изменяются: они общие с экранами и ответами API, поэтому
+ * догруженная продолжительность хранится в движке.
+ * Не потокобезопасен: вызывается из одного потока
+ */
+public class MovieRecommendationEngine {
+
+    /**
+     * Размер пула по умолчанию: локальный каталог плюс догруженные жанры и страницы из сети
+     */
+    public static final int DEFAULT_MAX_POOL_SIZE = 1000;
+
+    private final int maxPoolSize;
+
+    // Позиция -> фильм; освобожденные при вытеснении позиции равны null и переиспользуются
+    private final List<Movie> pool = new ArrayList<>();
+    private final BitSet freePositions = new BitSet();
+    // id фильма -> позиция в пуле, от давно добавленных (или обновленных) к недавним
+    private final Map<Integer, Integer> positions = new LinkedHashMap<>();
+    // id фильма -> продолжительность, загруженная после добавления фильма в пул
+    private final Map<Integer, Integer> knownRuntimes = new HashMap<>();
+
+    // Позиции кандидатов в пуле для каждого жанра
+    private final Map<Integer, BitSet> genrePostings = new HashMap<>();
+
+    // Кандидаты, прошедшие проверку настроения и продолжительности
+    private final BitSet passesOthers = new BitSet();
+    // Кандидаты, прошедшие проверку жанров
+    private final BitSet genreMatch = new BitSet();
+    // Буфер для пересечения множеств при сборке результата
+    private final BitSet matched = new BitSet();
+
+    private final List<Integer> selectedGenreIds = new ArrayList<>();
+    private long selectedGenreMask;
+    private float[] moodQuery;
+    private int maxDuration;
+
+    public MovieRecommendationEngine() {
+        this(DEFAULT_MAX_POOL_SIZE);
+    }
+
+    /**
+     * @param maxPoolSize сколько кандидатов хранить; лишние вытесняются при добавлении
+     */
+    public MovieRecommendationEngine(int maxPoolSize) {
+        if (maxPoolSize <= 0) {
+            throw new IllegalArgumentException("maxPoolSize must be positive: " + maxPoolSize);
+        }
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    /**
+     * Добавляет кандидатов. Фильм, уже находящийся в пуле, заменяется более свежей версией;
+     * проверяются только добавленные и замененные. Если пул превысил размер,
+     * вытесняются самые давние кандидаты, в первую очередь не проходящие текущий фильтр
+     * @return количество новых кандидатов
+     */
+    public int addCandidates(List<Movie> movies) {
+        if (movies == null || movies.isEmpty()) {
+            return 0;
+        }
+
+        int added = 0;
+        for (Movie movie : movies) {
+            if (movie == null) {
+                continue;
+            }
+
+            // Удаление и повторная вставка переносят фильм в конец порядка вытеснения
+            Integer position = positions.remove(movie.getId());
+            if (position != null) {
+                Movie previous = pool.get(position);
+                // Страницы из сети приходят без продолжительности - сохраняем уже известную
+                if (previous.getRuntime() != 0 && movie.getRuntime() == 0 && !knownRuntimes.containsKey(movie.getId())) {
+                    knownRuntimes.put(movie.getId(), previous.getRuntime());
+                } else if (movie.getRuntime() != 0) {
+                    knownRuntimes.remove(movie.getId());
+                }
+                unindex(position, previous);
+            } else {
+                position = allocate();
+                added++;
+            }
+            positions.put(movie.getId(), position);
+            pool.set(position, movie);
+            index(position, movie);
+        }
+
+        if (positions.size() > maxPoolSize) {
+            evict(positions.size() - maxPoolSize);
+        }
+        return added;
+    }
+
+    /**
+     * Обновляет продолжительность кандидатов; перепроверяются только они
+     * @param runtimes id фильма -> продолжительность в минутах
+     * @return количество обновленных кандидатов
+     */
+    public int updateRuntimes(Map<Integer, Integer> runtimes) {
+        int updated = 0;
+        for (Map.Entry<Integer, Integer> entry : runtimes.entrySet()) {
+            Integer position = positions.get(entry.getKey());
+            if (position == null) {
+                continue;
+            }
+            Movie movie = pool.get(position);
+            if (getRuntime(movie) != entry.getValue()) {
+                knownRuntimes.put(entry.getKey(), entry.getValue());
+                passesOthers.set(position, matchesOthers(movie));
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Применяет фильтр, пересчитывая только то, что изменилось с прошлого раза
+     */
+    public void setFilter(RecommendationFilter filter) {
+        List<Integer> newGenreIds = filter != null ? filter.getSelectedGenreIds() : new ArrayList<>();
+        float[] newMoodQuery = filter != null ? filter.getMoodQuery() : null;
+        int newMaxDuration = filter != null ? filter.getMaxDuration() : RecommendationFilter.DURATION_ANY;
+
+        // Сначала добавляем жанры, затем удаляем, чтобы не проходить через пустой набор
+        for (Integer genreId : newGenreIds) {
+            if (!selectedGenreIds.contains(genreId)) {
+                addGenre(genreId);
+            }
+        }
+
+        for (Integer genreId : new ArrayList<>(selectedGenreIds)) {
+            if (!newGenreIds.contains(genreId)) {
+                removeGenre(genreId);
+            }
+        }
+
+        if (!Arrays.equals(newMoodQuery, moodQuery) || newMaxDuration != maxDuration) {
+            moodQuery = newMoodQuery;
+            maxDuration = newMaxDuration;
+            for (int i = 0, n = pool.size(); i < n; i++) {
+                Movie movie = pool.get(i);
+                passesOthers.set(i, movie != null && matchesOthers(movie));
+            }
+        }
+    }
+
+    /**
+     * Возвращает кандидатов, соответствующих текущему фильтру, в порядке позиций в пуле
+     * (новый кандидат может занять позицию вытесненного)
+     */
+    public List<Movie> getMatches() {
+        matched.clear();
+        matched.or(passesOthers);
+        matched.and(genreMatch);
+
+        List<Movie> result = new ArrayList<>(matched.cardinality());
+        for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+            result.add(pool.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Продолжительность фильма с учетом загруженной в движок
+     * @return минуты, {@link Movie#RUNTIME_UNKNOWN} или 0, если еще не загружена
+     */
+    public int getRuntime(Movie movie) {
+        Integer runtime = knownRuntimes.get(movie.getId());
+        return runtime != null ? runtime : movie.getRuntime();
+    }
+
+    public int getPoolSize() {
+        return positions.size();
+    }
+
+    /**
+     * Вектор настроения текущего фильтра или null
+     */
+    public float[] getMoodQuery() {
+        return moodQuery;
+    }
+
+    /**
+     * Добавление жанра расширяет выборку: проверяются только фильмы этого жанра
+     */
+    private void addGenre(int genreId) {
+        boolean wasEmpty = selectedGenreIds.isEmpty();
+        selectedGenreIds.add(genreId);
+        selectedGenreMask = GenreDictionary.maskOf(selectedGenreIds);
+
+        BitSet posting = genrePostings.get(genreId);
+        if (wasEmpty) {
+            genreMatch.clear();
+        }
+        if (posting != null) {
+            genreMatch.or(posting);
+        }
+    }
+
+    /**
+     * Удаление жанра сужает выборку: перепроверяются только фильмы этого жанра
+     */
+    private void removeGenre(int genreId) {
+        selectedGenreIds.remove(Integer.valueOf(genreId));
+        selectedGenreMask = GenreDictionary.maskOf(selectedGenreIds);
+
+        if (selectedGenreIds.isEmpty()) {
+            genreMatch.set(0, pool.size());
+            return;
+        }
+
+        BitSet posting = genrePostings.get(genreId);
+        if (posting == null) {
+            return;
+        }
+
+        for (int i = posting.nextSetBit(0); i >= 0; i = posting.nextSetBit(i + 1)) {
+            if (genreMatch.get(i) && !pool.get(i).matchesAnyGenre(selectedGenreMask, selectedGenreIds)) {
+                genreMatch.clear(i);
+            }
+        }
+    }
+
+    /**
+     * Возвращает свободную позицию в пуле
+     */
+    private int allocate() {
+        int position = freePositions.nextSetBit(0);
+        if (position >= 0) {
+            freePositions.clear(position);
+            return position;
+        }
+        pool.add(null);
+        return pool.size() - 1;
+    }
+
+    /**
+     * Заносит фильм на позиции в индексы и проверяет его по текущему фильтру
+     */
+    private void index(int position, Movie movie) {
+        List<Integer> genreIds = movie.getGenreIds();
+        if (genreIds != null) {
+            for (Integer genreId : genreIds) {
+                BitSet posting = genrePostings.get(genreId);
+                if (posting == null) {
+                    posting = new BitSet();
+                    genrePostings.put(genreId, posting);
+                }
+                posting.set(position);
+            }
+        }
+
+        passesOthers.set(position, matchesOthers(movie));
+        genreMatch.set(position, matchesGenres(movie));
+    }
+
+    /**
+     * Убирает фильм на позиции из индексов
+     */
+    private void unindex(int position, Movie movie) {
+        List<Integer> genreIds = movie.getGenreIds();
+        if (genreIds != null) {
+            for (Integer genreId : genreIds) {
+                BitSet posting = genrePostings.get(genreId);
+                if (posting != null) {
+                    posting.clear(position);
+                }
+            }
+        }
+        passesOthers.clear(position);
+        genreMatch.clear(position);
+    }
+
+    /**
+     * Вытесняет самых давних кандидатов: сначала не проходящих текущий фильтр, затем остальных
+     */
+    private void evict(int count) {
+        matched.clear();
+        matched.or(passesOthers);
+        matched.and(genreMatch);
+
+        for (int pass = 0; pass < 2 && count > 0; pass++) {
+            Iterator<Map.Entry<Integer, Integer>> iterator = positions.entrySet().iterator();
+            while (count > 0 && iterator.hasNext()) {
+                Map.Entry<Integer, Integer> entry = iterator.next();
+                int position = entry.getValue();
+                if (pass == 0 && matched.get(position)) {
+                    continue;
+                }
+                iterator.remove();
+                knownRuntimes.remove(entry.getKey());
+                unindex(position, pool.get(position));
+                pool.set(position, null);
+                freePositions.set(position);
+                count--;
+            }
+        }
+    }
+
+    private boolean matchesGenres(Movie movie) {
+        return selectedGenreIds.isEmpty() || movie.matchesAnyGenre(selectedGenreMask, selectedGenreIds);
+    }
+
+    private boolean matchesOthers(Movie movie) {
+        return movie.matchesMoodQuery(moodQuery)
+                && (maxDuration <= 0 || Movie.fitsDuration(getRuntime(movie), maxDuration));
+    }
+}
@@ -0,0 +1,242 @@
+package com.draker.recmaster.service;
+
+import com.draker.recmaster.model.Book;
+import com.draker.recmaster.model.Game;
+import com.draker.recmaster.model.GameTagDictionary;
+import com.draker.recmaster.model.Movie;
+import com.draker.recmaster.model.RecommendationFilter;
+import com.draker.recmaster.model.TvShow;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Скомпилированный план фильтрации рекомендаций.
+ * Все условия фильтра объединяются в один проход по списку кандидатов,
+ * причем более избирательные условия проверяются первыми
+ */
+public final class RecommendationPlan<T> {
+
+    // Оценочная доля кандидатов, проходящих условие (меньше - проверяется раньше)
+    private static final float PASS_RATE_PER_GENRE = 0.15f;
+    private static final float PASS_RATE_MOOD = 0.3f;
+    private static final float PASS_RATE_DURATION = 0.9f;
+    private static final float PASS_RATE_PER_CATEGORY = 0.2f;
+    private static final float PASS_RATE_PER_GAME_GENRE = 0.25f;
+    private static final float PASS_RATE_PER_PLATFORM = 0.5f;
+
+    private final List<Predicate<? super T>> predicates;
+    private final float[] moodQuery;
+
+    private RecommendationPlan(List<Predicate<? super T>> predicates, float[] moodQuery) {
+        this.predicates = predicates;
+        this.moodQuery = moodQuery;
+    }
+
+    /**
+     * Вектор запроса настроения для учета в оценке или null, если настроение не задано
+     */
+    public float[] getMoodQuery() {
+        return moodQuery;
+    }
+
+    /**
+     * Проверяет, содержит ли план хотя бы одно условие
+     */
+    public boolean isEmpty() {
+        return predicates.isEmpty();
+    }
+
+    /**
+     * Проверяет элемент по всем условиям плана, останавливаясь на первом несовпадении
+     */
+    public boolean test(T item) {
+        for (int i = 0, n = predicates.size(); i < n; i++) {
+            if (!predicates.get(i).test(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Фильтрует кандидатов в новый список
+     */
+    public List<T> filter(List<? extends T> candidates) {
+        List<T> result = new ArrayList<>(candidates != null ? candidates.size() : 0);
+        filterInto(candidates, result);
+        return result;
+    }
+
+    /**
+     * Фильтрует кандидатов за один проход, записывая результат в переданный буфер.
+     * Буфер предварительно очищается, поэтому его можно переиспользовать между вызовами
+     */
+    public void filterInto(List<? extends T> candidates, List<T> out) {
+        out.clear();
+        if (candidates == null || candidates.isEmpty()) {
+            return;
+        }
+
+        for (int i = 0, n = candidates.size(); i < n; i++) {
+            T item = candidates.get(i);
+            if (item != null && test(item)) {
+                out.add(item);
+            }
+        }
+    }
+
+    /**
+     * Компилирует план для фильмов: жанры, настроение и продолжительность
+     */
+    public static RecommendationPlan<Movie> forMovies(RecommendationFilter filter) {
+        Builder<Movie> builder = new Builder<>();
+        if (filter != null) {
+            List<Integer> genreIds = new ArrayList<>(filter.getSelectedGenreIds());
+            long genreMask = filter.getSelectedGenreMask();
+            if (!genreIds.isEmpty()) {
+                builder.add(movie -> movie.matchesAnyGenre(genreMask, genreIds),
+                        anyOfPassRate(genreIds.size(), PASS_RATE_PER_GENRE));
+            }
+
+            float[] moodQuery = filter.getMoodQuery();
+            if (moodQuery != null) {
+                builder.add(movie -> movie.matchesMoodQuery(moodQuery), PASS_RATE_MOOD)
+                        .moodQuery(moodQuery);
+            }
+
+            int maxDuration = filter.getMaxDuration();
+            if (maxDuration > 0) {
+                builder.add(movie -> movie.matchesDuration(maxDuration), PASS_RATE_DURATION);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Компилирует план для сериалов: жанры и настроение
+     */
+    public static RecommendationPlan<TvShow> forTvShows(RecommendationFilter filter) {
+        Builder<TvShow> builder = new Builder<>();
+        if (filter != null) {
+            List<Integer> genreIds = new ArrayList<>(filter.getSelectedGenreIds());
+            long genreMask = filter.getSelectedGenreMask();
+            if (!genreIds.isEmpty()) {
+                builder.add(tvShow -> tvShow.matchesAnyGenre(genreMask, genreIds),
+                        anyOfPassRate(genreIds.size(), PASS_RATE_PER_GENRE));
+            }
+
+            float[] moodQuery = filter.getMoodQuery();
+            if (moodQuery != null) {
+                builder.add(tvShow -> tvShow.matchesMoodQuery(moodQuery), PASS_RATE_MOOD)
+                        .moodQuery(moodQuery);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Компилирует план для книг по выбранным категориям
+     */
+    public static RecommendationPlan<Book> forBooks(List<String> selectedCategories) {
+        Builder<Book> builder = new Builder<>();
+        if (selectedCategories != null && !selectedCategories.isEmpty()) {
+            List<String> categories = Book.normalizeCategories(selectedCategories);
+            builder.add(book -> book.matchesAnyNormalizedCategory(categories),
+                    anyOfPassRate(categories.size(), PASS_RATE_PER_CATEGORY));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Компилирует план для игр по выбранным жанрам и платформам
+     */
+    public static RecommendationPlan<Game> forGames(List<String> genreNames, List<String> platformNames) {
+        return forGames(genreNames, platformNames, null);
+    }
+
+    /**
+     * Компилирует план для игр по выбранным жанрам, платформам и настроению
+     * @param moodQuery вектор из {@link RecommendationFilter#getMoodQuery()} или null
+     */
+    public static RecommendationPlan<Game> forGames(List<String> genreNames, List<String> platformNames,
+                                                    float[] moodQuery) {
+        Builder<Game> builder = new Builder<>();
+        if (moodQuery != null) {
+            builder.add(game -> game.matchesMoodQuery(moodQuery), PASS_RATE_MOOD)
+                    .moodQuery(moodQuery);
+        }
+        if (genreNames != null && !genreNames.isEmpty()) {
+            BitSet genreIds = GameTagDictionary.GENRES.setOf(genreNames);
+            builder.add(game -> game.hasAnyGenre(genreIds),
+                    anyOfPassRate(genreNames.size(), PASS_RATE_PER_GAME_GENRE));
+        }
+
+        if (platformNames != null && !platformNames.isEmpty()) {
+            BitSet platformIds = GameTagDictionary.PLATFORMS.setOf(platformNames);
+            builder.add(game -> game.isOnAnyPlatform(platformIds),
+                    anyOfPassRate(platformNames.size(), PASS_RATE_PER_PLATFORM));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Оценка доли прохождения условия "хотя бы одно из N значений"
+     */
+    private static float anyOfPassRate(int valueCount, float passRatePerValue) {
+        return Math.min(1f, valueCount * passRatePerValue);
+    }
+
+    /**
+     * Построитель плана: собирает условия и упорядочивает их по избирательности
+     */
+    public static final class Builder<T> {
+
+        private final List<Stage<T>> stages = new ArrayList<>();
+        private float[] moodQuery;
+
+        /**
+         * Добавляет условие с оценочной долей проходящих его кандидатов (от 0 до 1)
+         */
+        public Builder<T> add(Predicate<? super T> predicate, float passRate) {
+            stages.add(new Stage<>(predicate, passRate));
+            return this;
+        }
+
+        /**
+         * Задает вектор настроения, который ранжирование учитывает в оценке
+         */
+        public Builder<T> moodQuery(float[] moodQuery) {
+            this.moodQuery = moodQuery;
+            return this;
+        }
+
+        public RecommendationPlan<T> build() {
+            if (stages.isEmpty()) {
+                return new RecommendationPlan<>(Collections.emptyList(), moodQuery);
+            }
+
+            // Сортировка стабильна, поэтому при равных оценках сохраняется порядок добавления
+            Collections.sort(stages, (a, b) -> Float.compare(a.passRate, b.passRate));
+
+            List<Predicate<? super T>> predicates = new ArrayList<>(stages.size());
+            for (Stage<T> stage : stages) {
+                predicates.add(stage.predicate);
+            }
+            return new RecommendationPlan<>(predicates, moodQuery);
+        }
+    }
+
+    private static final class Stage<T> {
+        final Predicate<? super T> predicate;
+        final float passRate;
+
+        Stage(Predicate<? super T> predicate, float passRate) {
+            this.predicate = predicate;
+            this.passRate = passRate;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.draker.recmaster.service;
+
+import com.draker.recmaster.model.Book;
+import com.draker.recmaster.model.Game;
+import com.draker.recmaster.model.MoodAware;
+import com.draker.recmaster.model.MoodModel;
+import com.draker.recmaster.model.Movie;
+import com.draker.recmaster.model.TvShow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Ранжирование рекомендаций по оценке вместо случайного перемешивания.
+ * Оценка учитывает рейтинг, число голосов, популярность, близость к жанрам
+ * из истории просмотров, к выбранному настроению и детерминированную добавку для разнообразия.
+ * Лучшие K элементов выбираются ограниченной кучей за O(n log K)
+ */
+public final class RecommendationRanker {
+
+    // Веса составляющих оценки
+    private static final double WEIGHT_RATING = 0.35;
+    private static final double WEIGHT_VOTES = 0.15;
+    private static final double WEIGHT_POPULARITY = 0.15;
+    private static final double WEIGHT_AFFINITY = 0.25;
+    private static final double WEIGHT_DIVERSITY = 0.10;
+    // Добавка за близость к выбранному настроению (только если оно задано)
+    private static final double WEIGHT_MOOD = 0.10;
+
+    // Значения, при которых нормированные составляющие достигают 1
+    private static final double LOG_VOTES_CAP = Math.log1p(10_000);
+    private static final double LOG_POPULARITY_CAP = Math.log1p(1_000);
+    private static final double LOG_RATINGS_COUNT_CAP = Math.log1p(1_000);
+
+    /**
+     * Оценка элемента и его устойчивый ключ (для разрешения равенства и разнообразия)
+     */
+    public interface Scorer<T> {
+        double score(T item);
+
+        long keyOf(T item);
+    }
+
+    private final long seed;
+    private volatile GenreAffinity affinity = GenreAffinity.EMPTY;
+
+    public RecommendationRanker(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setAffinity(GenreAffinity affinity) {
+        this.affinity = affinity != null ? affinity : GenreAffinity.EMPTY;
+    }
+
+    /**
+     * Отбирает подходящих под план кандидатов и возвращает страницу лучших по оценке.
+     * При неизменных кандидатах и зерне порядок стабилен, поэтому страницы не перемешиваются
+     *
+     * @param offset сколько лучших элементов пропустить
+     * @param limit размер страницы
+     */
+    public <T> List<T> rank(List<? extends T> candidates, RecommendationPlan<? super T> plan,
+                            Scorer<? super T> scorer, int offset, int limit) {
+        List<Scored<T>> scored = rankScored(candidates, plan, scorer, offset, limit);
+        List<T> ranked = new ArrayList<>(scored.size());
+        for (Scored<T> entry : scored) {
+            ranked.add(entry.item);
+        }
+        return ranked;
+    }
+
+    /**
+     * То же, что {@link #rank}, но вместе с оценками - для слияния выдачи разных типов контента
+     */
+    public <T> List<Scored<T>> rankScored(List<? extends T> candidates, RecommendationPlan<? super T> plan,
+                                          Scorer<? super T> scorer, int offset, int limit) {
+        if (candidates == null || candidates.isEmpty() || limit <= 0 || offset < 0) {
+            return new ArrayList<>();
+        }
+
+        int k = (int) Math.min((long) offset + limit, candidates.size());
+        PriorityQueue<Scored<T>> heap = new PriorityQueue<>(k + 1);
+        float[] moodQuery = plan != null ? plan.getMoodQuery() : null;
+
+        for (int i = 0, n = candidates.size(); i < n; i++) {
+            T item = candidates.get(i);
+            if (item == null || (plan != null && !plan.test(item))) {
+                continue;
+            }
+
+            double score = scorer.score(item);
+            if (moodQuery != null && item instanceof MoodAware) {
+                score += WEIGHT_MOOD * Math.min(1f, MoodModel.dot(((MoodAware) item).getMoodVector(), moodQuery));
+            }
+            long key = scorer.keyOf(item);
+            if (heap.size() < k) {
+                heap.add(new Scored<>(item, score, key));
+            } else if (Scored.compare(score, key, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(new Scored<>(item, score, key));
+            }
+        }
+
+        // Куча хранит худший элемент в вершине, поэтому извлекаем в обратном порядке
+        int size = heap.size();
+        if (size <= offset) {
+            return new ArrayList<>();
+        }
+        List<Scored<T>> ranked = new ArrayList<>(size);
+        while (!heap.isEmpty()) {
+            ranked.add(heap.poll());
+        }
+        Collections.reverse(ranked);
+        return new ArrayList<>(ranked.subList(offset, size));
+    }
+
+    public List<Movie> rankMovies(List<Movie> movies, RecommendationPlan<Movie> plan, int offset, int limit) {
+        return rank(movies, plan, movieScorer, offset, limit);
+    }
+
+    public List<TvShow> rankTvShows(List<TvShow> tvShows, RecommendationPlan<TvShow> plan, int offset, int limit) {
+        return rank(tvShows, plan, tvShowScorer, offset, limit);
+    }
+
+    public List<Book> rankBooks(List<Book> books, RecommendationPlan<Book> plan, int offset, int limit) {
+        return rank(books, plan, bookScorer, offset, limit);
+    }
+
+    public List<Game> rankGames(List<Game> games, RecommendationPlan<Game> plan, int offset, int limit) {
+        return rank(games, plan, gameScorer, offset, limit);
+    }
+
+    public Scorer<Movie> getMovieScorer() {
+        return movieScorer;
+    }
+
+    public Scorer<TvShow> getTvShowScorer() {
+        return tvShowScorer;
+    }
+
+    public Scorer<Book> getBookScorer() {
+        return bookScorer;
+    }
+
+    public Scorer<Game> getGameScorer() {
+        return gameScorer;
+    }
+
+    private final Scorer<Movie> movieScorer = new Scorer<Movie>() {
+        @Override
+        public double score(Movie movie) {
+            return WEIGHT_RATING * movie.getVoteAverage() / 10.0
+                    + WEIGHT_VOTES * normalizeLog(movie.getVoteCount(), LOG_VOTES_CAP)
+                    + WEIGHT_POPULARITY * normalizeLog(movie.getPopularity(), LOG_POPULARITY_CAP)
+                    + WEIGHT_AFFINITY * affinity.score(movie.getGenreMask())
+                    + WEIGHT_DIVERSITY * diversity(movie.getId());
+        }
+
+        @Override
+        public long keyOf(Movie movie) {
+            return movie.getId();
+        }
+    };
+
+    private final Scorer<TvShow> tvShowScorer = new Scorer<TvShow>() {
+        @Override
+        public double score(TvShow tvShow) {
+            return WEIGHT_RATING * tvShow.getVoteAverage() / 10.0
+                    + WEIGHT_VOTES * normalizeLog(tvShow.getVoteCount(), LOG_VOTES_CAP)
+                    + WEIGHT_POPULARITY * normalizeLog(tvShow.getPopularity(), LOG_POPULARITY_CAP)
+                    + WEIGHT_AFFINITY * affinity.score(tvShow.getGenreMask())
+                    + WEIGHT_DIVERSITY * diversity(tvShow.getId());
+        }
+
+        @Override
+        public long keyOf(TvShow tvShow) {
+            return tvShow.getId();
+        }
+    };
+
+    // У книг нет популярности и жанров TMDB - их вес переходит к рейтингу и числу оценок
+    private final Scorer<Book> bookScorer = new Scorer<Book>() {
+        @Override
+        public double score(Book book) {
+            return (WEIGHT_RATING + WEIGHT_AFFINITY) * book.getAverageRating() / 5.0
+                    + (WEIGHT_VOTES + WEIGHT_POPULARITY) * normalizeLog(book.getRatingsCount(), LOG_RATINGS_COUNT_CAP)
+                    + WEIGHT_DIVERSITY * diversity(keyOf(book));
+        }
+
+        @Override
+        public long keyOf(Book book) {
+            return book.getId() != null ? book.getId().hashCode() : 0;
+        }
+    };
+
+    // Для игр вместо числа голосов используется оценка Metacritic
+    private final Scorer<Game> gameScorer = new Scorer<Game>() {
+        @Override
+        public double score(Game game) {
+            return (WEIGHT_RATING + WEIGHT_AFFINITY) * game.getRating() / 5.0
+                    + (WEIGHT_VOTES + WEIGHT_POPULARITY) * game.getMetacritic() / 100.0
+                    + WEIGHT_DIVERSITY * diversity(game.getId());
+        }
+
+        @Override
+        public long keyOf(Game game) {
+            return game.getId();
+        }
+    };
+
+    private static double normalizeLog(double value, double logCap) {
+        if (value <= 0) {
+            return 0;
+        }
+        return Math.min(1.0, Math.log1p(value) / logCap);
+    }
+
+    /**
+     * Детерминированное псевдослучайное значение в [0, 1) для пары (зерно, ключ)
+     */
+    private double diversity(long key) {
+        long z = seed ^ (key * 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Элемент выдачи вместе с его оценкой
+     */
+    public static final class Scored<T> implements Comparable<Scored<T>> {
+        final T item;
+        final double score;
+        final long key;
+
+        Scored(T item, double score, long key) {
+            this.item = item;
+            this.score = score;
+            this.key = key;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * Сравнение по оценке, при равенстве меньший ключ считается лучше
+         */
+        static int compare(double score, long key, Scored<?> other) {
+            int result = Double.compare(score, other.score);
+            return result != 0 ? result : Long.compare(other.key, key);
+        }
+
+        @Override
+        public int compareTo(Scored<T> other) {
+            return compare(score, key, other);
+        }
+    }
+}
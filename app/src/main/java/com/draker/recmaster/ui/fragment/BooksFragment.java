@@ -52,25 +52,42 @@ public class BooksFragment extends Fragment implements BookAdapter.OnBookClickLi
         viewModel = new ViewModelProvider(this).get(BookViewModel.class);
         
         // Наблюдение за данными
-        viewModel.getBooksLiveData().observe(getViewLifecycleOwner(), books -> {
+        viewModel.getFictionBooksPager().getItems().observe(getViewLifecycleOwner(), books -> {
             adapter.setBooks(books);
             recyclerView.setVisibility(View.VISIBLE);
         });
 
+        viewModel.getFictionBooksPager().getError().observe(getViewLifecycleOwner(), errorMessage -> {
+            if (errorMessage != null && !errorMessage.isEmpty()) {
+                showError(errorMessage);
+            }
+        });
+
         viewModel.getErrorLiveData().observe(getViewLifecycleOwner(), errorMessage -> {
             if (errorMessage != null && !errorMessage.isEmpty()) {
                 showError(errorMessage);
             }
         });
 
-        viewModel.getIsLoadingLiveData().observe(getViewLifecycleOwner(), isLoading -> {
+        // Индикатор показывается, только если пользователь дошел до конца загруженного
+        viewModel.getFictionBooksPager().isLoading().observe(getViewLifecycleOwner(), isLoading -> {
             loadingView.setVisibility(isLoading ? View.VISIBLE : View.GONE);
             if (isLoading) {
-                recyclerView.setVisibility(View.GONE);
                 errorView.setVisibility(View.GONE);
             }
         });
 
+        // Следующие страницы загружаются заранее по мере прокрутки
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (layoutManager != null) {
+                    viewModel.getFictionBooksPager().onScrolled(layoutManager.findLastVisibleItemPosition());
+                }
+            }
+        });
+
         // Загрузка данных
         loadData();
     }
@@ -79,8 +96,7 @@ public class BooksFragment extends Fragment implements BookAdapter.OnBookClickLi
      * Загрузка данных о книгах
      */
     private void loadData() {
-        // Поиск по умолчанию - популярные книги
-        viewModel.searchBooks("subject:fiction", 0);
+        viewModel.getFictionBooksPager().start();
     }
 
     /**
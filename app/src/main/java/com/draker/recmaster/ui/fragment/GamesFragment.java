@@ -52,25 +52,42 @@ public class GamesFragment extends Fragment implements GameAdapter.OnGameClickLi
         viewModel = new ViewModelProvider(this).get(GameViewModel.class);
         
         // Наблюдение за данными
-        viewModel.getGamesLiveData().observe(getViewLifecycleOwner(), games -> {
+        viewModel.getPopularGamesPager().getItems().observe(getViewLifecycleOwner(), games -> {
             adapter.setGames(games);
             recyclerView.setVisibility(View.VISIBLE);
         });
 
+        viewModel.getPopularGamesPager().getError().observe(getViewLifecycleOwner(), errorMessage -> {
+            if (errorMessage != null && !errorMessage.isEmpty()) {
+                showError(errorMessage);
+            }
+        });
+
         viewModel.getErrorLiveData().observe(getViewLifecycleOwner(), errorMessage -> {
             if (errorMessage != null && !errorMessage.isEmpty()) {
                 showError(errorMessage);
             }
         });
 
-        viewModel.getIsLoadingLiveData().observe(getViewLifecycleOwner(), isLoading -> {
+        // Индикатор показывается, только если пользователь дошел до конца загруженного
+        viewModel.getPopularGamesPager().isLoading().observe(getViewLifecycleOwner(), isLoading -> {
             loadingView.setVisibility(isLoading ? View.VISIBLE : View.GONE);
             if (isLoading) {
-                recyclerView.setVisibility(View.GONE);
                 errorView.setVisibility(View.GONE);
             }
         });
 
+        // Следующие страницы загружаются заранее по мере прокрутки
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                GridLayoutManager layoutManager = (GridLayoutManager) recyclerView.getLayoutManager();
+                if (layoutManager != null) {
+                    viewModel.getPopularGamesPager().onScrolled(layoutManager.findLastVisibleItemPosition());
+                }
+            }
+        });
+
         // Загрузка данных
         loadData();
     }
@@ -79,7 +96,7 @@ public class GamesFragment extends Fragment implements GameAdapter.OnGameClickLi
      * Загрузка данных об играх
      */
     private void loadData() {
-        viewModel.getPopularGames(1);
+        viewModel.getPopularGamesPager().start();
     }
 
     /**
@@ -52,11 +52,17 @@ public class TvShowsFragment extends Fragment implements TvShowAdapter.OnTvShowC
         viewModel = new ViewModelProvider(this).get(TvShowViewModel.class);
         
         // Наблюдение за данными
-        viewModel.getTvShowsLiveData().observe(getViewLifecycleOwner(), tvShows -> {
+        viewModel.getPopularTvShowsPager().getItems().observe(getViewLifecycleOwner(), tvShows -> {
             adapter.setTvShows(tvShows);
             recyclerView.setVisibility(View.VISIBLE);
         });
 
+        viewModel.getPopularTvShowsPager().getError().observe(getViewLifecycleOwner(), errorMessage -> {
+            if (errorMessage != null && !errorMessage.isEmpty()) {
+                showError(errorMessage);
+            }
+        });
+
         viewModel.getGenresLiveData().observe(getViewLifecycleOwner(), genreMap -> {
             adapter.setGenreMap(genreMap);
         });
@@ -67,14 +73,25 @@ public class TvShowsFragment extends Fragment implements TvShowAdapter.OnTvShowC
             }
         });
 
-        viewModel.getIsLoadingLiveData().observe(getViewLifecycleOwner(), isLoading -> {
+        // Индикатор показывается, только если пользователь дошел до конца загруженного
+        viewModel.getPopularTvShowsPager().isLoading().observe(getViewLifecycleOwner(), isLoading -> {
             loadingView.setVisibility(isLoading ? View.VISIBLE : View.GONE);
             if (isLoading) {
-                recyclerView.setVisibility(View.GONE);
                 errorView.setVisibility(View.GONE);
             }
         });
 
+        // Следующие страницы загружаются заранее по мере прокрутки
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (layoutManager != null) {
+                    viewModel.getPopularTvShowsPager().onScrolled(layoutManager.findLastVisibleItemPosition());
+                }
+            }
+        });
+
         // Загрузка данных
         loadData();
     }
@@ -84,7 +101,7 @@ public class TvShowsFragment extends Fragment implements TvShowAdapter.OnTvShowC
      */
     private void loadData() {
         viewModel.getGenres();
-        viewModel.getPopularTvShows(1);
+        viewModel.getPopularTvShowsPager().start();
     }
 
     /**
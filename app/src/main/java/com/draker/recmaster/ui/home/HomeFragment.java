@@ -20,8 +20,11 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.draker.recmaster.R;
 import com.draker.recmaster.adapter.MovieAdapter;
+import com.draker.recmaster.adapter.RecommendationItemAdapter;
 import com.draker.recmaster.model.Movie;
+import com.draker.recmaster.model.RecommendationItem;
 import com.draker.recmaster.util.NetworkUtil;
+import com.draker.recmaster.viewmodel.HomeFeedViewModel;
 import com.draker.recmaster.viewmodel.MovieViewModel;
 import com.draker.recmaster.viewmodel.WatchHistoryViewModel;
 
@@ -30,9 +33,13 @@ public class HomeFragment extends Fragment implements MovieAdapter.OnMovieClickL
     private static final String TAG = "HomeFragment";
     private MovieViewModel movieViewModel;
     private WatchHistoryViewModel watchHistoryViewModel;
+    private HomeFeedViewModel homeFeedViewModel;
+    private RecommendationItemAdapter feedAdapter;
     private MovieAdapter popularAdapter;
     private MovieAdapter topRatedAdapter;
     private MovieAdapter upcomingAdapter;
+    private TextView textForYou;
+    private RecyclerView recyclerForYou;
     private RecyclerView recyclerPopularMovies;
     private RecyclerView recyclerTopRatedMovies;
     private RecyclerView recyclerUpcomingMovies;
@@ -66,6 +73,9 @@ public class HomeFragment extends Fragment implements MovieAdapter.OnMovieClickL
         // Инициализация WatchHistoryViewModel
         watchHistoryViewModel = new ViewModelProvider.AndroidViewModelFactory(requireActivity().getApplication())
                 .create(WatchHistoryViewModel.class);
+        
+        // Общая выдача "Для вас" по всем типам контента из локального каталога
+        homeFeedViewModel = new ViewModelProvider(this).get(HomeFeedViewModel.class);
 
         // Настройка observers
         observeViewModel();
@@ -75,6 +85,8 @@ public class HomeFragment extends Fragment implements MovieAdapter.OnMovieClickL
     }
 
     private void initViews(View view) {
+        textForYou = view.findViewById(R.id.text_for_you);
+        recyclerForYou = view.findViewById(R.id.recycler_for_you);
         recyclerPopularMovies = view.findViewById(R.id.recycler_popular_movies);
         recyclerTopRatedMovies = view.findViewById(R.id.recycler_top_rated_movies);
         recyclerUpcomingMovies = view.findViewById(R.id.recycler_upcoming_movies);
@@ -117,6 +129,7 @@ public class HomeFragment extends Fragment implements MovieAdapter.OnMovieClickL
 
     private void setupRecyclerViews() {
         // Настройка адаптеров
+        feedAdapter = new RecommendationItemAdapter(requireContext(), this::onFeedItemClick);
         popularAdapter = new MovieAdapter(requireContext(), this);
         topRatedAdapter = new MovieAdapter(requireContext(), this);
         upcomingAdapter = new MovieAdapter(requireContext(), this);
@@ -127,6 +140,9 @@ public class HomeFragment extends Fragment implements MovieAdapter.OnMovieClickL
         upcomingAdapter.setWatchHistoryViewModel(watchHistoryViewModel);
 
         // Настройка RecyclerViews
+        recyclerForYou.setLayoutManager(new LinearLayoutManager(requireContext(), LinearLayoutManager.VERTICAL, false));
+        recyclerForYou.setAdapter(feedAdapter);
+
         recyclerPopularMovies.setLayoutManager(new LinearLayoutManager(requireContext(), LinearLayoutManager.VERTICAL, false));
         recyclerPopularMovies.setAdapter(popularAdapter);
 
@@ -140,6 +156,15 @@ public class HomeFragment extends Fragment implements MovieAdapter.OnMovieClickL
     }
 
     private void observeViewModel() {
+        // Наблюдение за общей выдачей
+        homeFeedViewModel.getFeed().observe(getViewLifecycleOwner(), items -> {
+            Log.d(TAG, "Получено рекомендаций для вас: " + (items != null ? items.size() : 0));
+            boolean hasItems = items != null && !items.isEmpty();
+            feedAdapter.setItems(items);
+            textForYou.setVisibility(hasItems ? View.VISIBLE : View.GONE);
+            recyclerForYou.setVisibility(hasItems ? View.VISIBLE : View.GONE);
+        });
+
         // Наблюдение за данными о фильмах
         movieViewModel.getPopularMovies().observe(getViewLifecycleOwner(), movies -> {
             Log.d(TAG, "Получено популярных фильмов: " + (movies != null ? movies.size() : 0));
@@ -217,6 +242,9 @@ public class HomeFragment extends Fragment implements MovieAdapter.OnMovieClickL
         // Загрузка жанров
         movieViewModel.loadGenres();
 
+        // Пересчет общей выдачи: каталог мог пополниться с прошлого раза
+        homeFeedViewModel.loadFeed();
+
         // Загрузка списков фильмов
         movieViewModel.loadPopularMovies(1);
         movieViewModel.loadTopRatedMovies(1);
@@ -247,6 +275,12 @@ public class HomeFragment extends Fragment implements MovieAdapter.OnMovieClickL
         Log.d(TAG, "Showing error view");
     }
 
+    private void onFeedItemClick(RecommendationItem item) {
+        if (item.getType() == RecommendationItem.ContentType.MOVIE) {
+            onMovieClick(item.getMovie());
+        }
+    }
+
     @Override
     public void onMovieClick(Movie movie) {
         // Обработка нажатия на фильм
@@ -1,5 +1,6 @@
 package com.draker.recmaster.ui.profile;
 
+import android.app.AlertDialog;
 import android.content.Intent;
 import android.os.Bundle;
 import android.view.LayoutInflater;
@@ -15,7 +16,9 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.Observer;
 
+import com.draker.recmaster.BuildConfig;
 import com.draker.recmaster.R;
+import com.draker.recmaster.api.NetworkMetrics;
 import com.draker.recmaster.data.UserPreferences;
 import com.draker.recmaster.database.entity.UserEntity;
 import com.draker.recmaster.model.User;
@@ -63,6 +66,13 @@ public class ProfileFragment extends Fragment {
         buttonEditProfile.setOnClickListener(v -> openEditProfile());
         buttonLogout.setOnClickListener(v -> logout());
         buttonAchievements.setOnClickListener(v -> openAchievements());
+        if (BuildConfig.DEBUG) {
+            // Отладочный экран сетевых метрик по долгому нажатию на имя
+            textUsername.setOnLongClickListener(v -> {
+                showNetworkMetrics();
+                return true;
+            });
+        }
 
         // Обновляем UI с данными пользователя
         updateUI();
@@ -129,6 +139,15 @@ public class ProfileFragment extends Fragment {
         startActivityForResult(intent, REQUEST_EDIT_PROFILE);
     }
     
+    private void showNetworkMetrics() {
+        new AlertDialog.Builder(requireContext())
+                .setTitle(R.string.network_metrics)
+                .setMessage(NetworkMetrics.getInstance().format())
+                .setPositiveButton(android.R.string.ok, null)
+                .setNeutralButton(R.string.network_metrics_reset, (dialog, which) -> NetworkMetrics.getInstance().reset())
+                .show();
+    }
+    
     private void openAchievements() {
         // Используем навигацию для перехода на экран достижений
         requireActivity().findViewById(R.id.navigation_achievements).performClick();
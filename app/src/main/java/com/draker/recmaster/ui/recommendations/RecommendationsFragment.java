@@ -114,6 +114,17 @@ public class RecommendationsFragment extends Fragment {
         
         recyclerRecommendations.setLayoutManager(new GridLayoutManager(context, 2));
         recyclerRecommendations.setAdapter(movieAdapter);
+        
+        // Следующая страница рекомендаций готовится заранее по мере прокрутки
+        recyclerRecommendations.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                GridLayoutManager layoutManager = (GridLayoutManager) recyclerView.getLayoutManager();
+                if (layoutManager != null) {
+                    viewModel.onScrolled(layoutManager.findLastVisibleItemPosition());
+                }
+            }
+        });
     }
     
     private void setupFilterListeners() {
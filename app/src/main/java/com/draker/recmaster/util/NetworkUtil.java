@@ -50,4 +50,20 @@ public class NetworkUtil {
         Log.d(TAG, "Network not available");
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Проверяет, тарифицируется ли текущее подключение (мобильная сеть, точка доступа)
+     * @param context Контекст приложения
+     * @return true для тарифицируемой сети или если состояние сети неизвестно
+     */
+    public static boolean isNetworkMetered(Context context) {
+        if (context == null) {
+            return true;
+        }
+        
+        ConnectivityManager connectivityManager = (ConnectivityManager) 
+                context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        
+        return connectivityManager == null || connectivityManager.isActiveNetworkMetered();
+    }
+}
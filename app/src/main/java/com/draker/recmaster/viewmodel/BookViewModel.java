@@ -8,6 +8,7 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.draker.recmaster.model.Book;
 import com.draker.recmaster.repository.BookRepository;
+import com.draker.recmaster.repository.PagePrefetcher;
 
 import java.util.List;
 
@@ -17,15 +18,22 @@ import java.util.List;
 public class BookViewModel extends AndroidViewModel {
 
     private static final String TAG = "BookViewModel";
+    // Поиск по умолчанию - популярные книги
+    private static final String FICTION_QUERY = "subject:fiction";
 
     private final BookRepository bookRepository;
     private final MutableLiveData<List<Book>> booksLiveData = new MutableLiveData<>();
     private final MutableLiveData<String> errorLiveData = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isLoadingLiveData = new MutableLiveData<>(false);
+    private final PagePrefetcher<Book> fictionBooksPager;
 
     public BookViewModel(@NonNull Application application) {
         super(application);
         bookRepository = BookRepository.getInstance();
+        // Google Books считает смещение в книгах, а не в страницах
+        fictionBooksPager = new PagePrefetcher<>(application, 0, (page, pageLiveData, pageErrorLiveData) ->
+                bookRepository.searchBooks(FICTION_QUERY, pageLiveData, pageErrorLiveData,
+                        page * BookRepository.DEFAULT_MAX_RESULTS));
     }
 
     /**
@@ -84,4 +92,17 @@ public class BookViewModel extends AndroidViewModel {
     public MutableLiveData<Boolean> getIsLoadingLiveData() {
         return isLoadingLiveData;
     }
+
+    /**
+     * Постраничная загрузка художественной литературы с упреждением для бесконечной прокрутки
+     */
+    public PagePrefetcher<Book> getFictionBooksPager() {
+        return fictionBooksPager;
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        fictionBooksPager.stop();
+    }
 }
\ No newline at end of file
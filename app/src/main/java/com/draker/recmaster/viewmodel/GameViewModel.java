@@ -8,6 +8,7 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.draker.recmaster.model.Game;
 import com.draker.recmaster.repository.GameRepository;
+import com.draker.recmaster.repository.PagePrefetcher;
 
 import java.util.List;
 
@@ -23,10 +24,13 @@ public class GameViewModel extends AndroidViewModel {
     private final MutableLiveData<Game> gameDetailsLiveData = new MutableLiveData<>();
     private final MutableLiveData<String> errorLiveData = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isLoadingLiveData = new MutableLiveData<>(false);
+    private final PagePrefetcher<Game> popularGamesPager;
 
     public GameViewModel(@NonNull Application application) {
         super(application);
         gameRepository = GameRepository.getInstance();
+        popularGamesPager = new PagePrefetcher<>(application, 1, (page, pageLiveData, pageErrorLiveData) ->
+                gameRepository.getPopularGames(pageLiveData, pageErrorLiveData, page));
     }
 
     /**
@@ -110,4 +114,17 @@ public class GameViewModel extends AndroidViewModel {
     public MutableLiveData<Boolean> getIsLoadingLiveData() {
         return isLoadingLiveData;
     }
+
+    /**
+     * Постраничная загрузка популярных игр с упреждением для бесконечной прокрутки
+     */
+    public PagePrefetcher<Game> getPopularGamesPager() {
+        return popularGamesPager;
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        popularGamesPager.stop();
+    }
 }
\ No newline at end of file
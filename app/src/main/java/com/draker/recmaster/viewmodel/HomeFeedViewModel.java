@@ -0,0 +1,108 @@
+package com.draker.recmaster.viewmodel;
+
+import android.app.Application;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import com.draker.recmaster.database.entity.MovieEntity;
+import com.draker.recmaster.database.repository.LocalBookRepository;
+import com.draker.recmaster.database.repository.LocalGameRepository;
+import com.draker.recmaster.database.repository.LocalMovieRepository;
+import com.draker.recmaster.database.repository.LocalTvShowRepository;
+import com.draker.recmaster.database.repository.MovieCandidateQuery;
+import com.draker.recmaster.model.RecommendationItem;
+import com.draker.recmaster.model.UserProfile;
+import com.draker.recmaster.service.ContentRecommendationService;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * ViewModel общей выдачи "Для вас" на главном экране: фильмы, сериалы, книги и игры вперемешку
+ */
+public class HomeFeedViewModel extends AndroidViewModel {
+    private static final String TAG = "HomeFeedVM";
+
+    // Сколько рекомендаций каждого типа показывать в выдаче
+    private static final int FEED_LIMIT_PER_TYPE = 3;
+    // Сколько кандидатов каждого типа читать из локального каталога
+    private static final int CANDIDATE_LIMIT = 300;
+    private static final int MIN_CANDIDATE_VOTE_COUNT = 20;
+
+    private final ContentRecommendationService recommendationService = ContentRecommendationService.getInstance();
+    private final LiveData<List<MovieEntity>> watchedMovies;
+    // recommendAll блокирует поток до истечения времени ожидания источников
+    private final ExecutorService feedExecutor = Executors.newSingleThreadExecutor();
+    private final MutableLiveData<List<RecommendationItem>> feed = new MutableLiveData<>();
+    private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
+
+    // История просмотров влияет на ранжирование через жанровые предпочтения;
+    // первое значение приходит сразу после подписки и запускает первый расчет выдачи
+    private final Observer<List<MovieEntity>> watchedMoviesObserver = watched -> {
+        recommendationService.updateWatchHistory(watched);
+        loadFeed();
+    };
+
+    public HomeFeedViewModel(@NonNull Application application) {
+        super(application);
+        LocalMovieRepository localMovieRepository = LocalMovieRepository.getInstance(application);
+
+        // Источники общей выдачи - локальный каталог, который наполняют экраны разделов
+        LocalTvShowRepository localTvShowRepository = LocalTvShowRepository.getInstance(application);
+        LocalBookRepository localBookRepository = LocalBookRepository.getInstance(application);
+        LocalGameRepository localGameRepository = LocalGameRepository.getInstance(application);
+        MovieCandidateQuery movieQuery = new MovieCandidateQuery.Builder()
+                .minVoteCount(MIN_CANDIDATE_VOTE_COUNT)
+                .limit(CANDIDATE_LIMIT)
+                .build();
+        recommendationService.setMovieSource(() -> localMovieRepository.getCandidates(movieQuery));
+        recommendationService.setTvShowSource(() -> localTvShowRepository.getCandidates(CANDIDATE_LIMIT));
+        recommendationService.setBookSource(() -> localBookRepository.getCandidateIndex(CANDIDATE_LIMIT));
+        recommendationService.setGameSource(() -> localGameRepository.getCandidateIndex(CANDIDATE_LIMIT));
+
+        watchedMovies = localMovieRepository.getWatchedMovies();
+        watchedMovies.observeForever(watchedMoviesObserver);
+    }
+
+    /**
+     * Пересчитывает выдачу в фоне; результат появится в {@link #getFeed()}
+     */
+    public void loadFeed() {
+        isLoading.setValue(true);
+        try {
+            feedExecutor.execute(() -> {
+                List<RecommendationItem> items = recommendationService.recommendAll(
+                        new UserProfile(), null, FEED_LIMIT_PER_TYPE);
+                Log.d(TAG, "Feed ready: " + items.size() + " items");
+                feed.postValue(items);
+                isLoading.postValue(false);
+            });
+        } catch (RejectedExecutionException e) {
+            // ViewModel уже очищен
+            isLoading.setValue(false);
+        }
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        watchedMovies.removeObserver(watchedMoviesObserver);
+        feedExecutor.shutdownNow();
+    }
+
+    // Геттеры
+    public LiveData<List<RecommendationItem>> getFeed() {
+        return feed;
+    }
+
+    public LiveData<Boolean> isLoading() {
+        return isLoading;
+    }
+}
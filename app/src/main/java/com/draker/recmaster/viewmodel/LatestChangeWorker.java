@@ -0,0 +1,107 @@
+package com.draker.recmaster.viewmodel;
+
+import android.util.Log;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Фоновый пересчет по схеме "последнее изменение побеждает".
+ * Изменения состояния применяются в одном фоновом потоке. В очереди исполнителя не больше
+ * одной задачи: изменения, пришедшие во время расчета, применяются следующим запуском пачкой.
+ * Результат публикуется, только если за время расчета не поступило более новых изменений
+ *
+ * @param <S> состояние; читается и изменяется только в фоновом потоке
+ * @param <R> результат расчета
+ */
+final class LatestChangeWorker<S, R> {
+
+    private static final String TAG = "LatestChangeWorker";
+
+    private final S state;
+    private final Function<? super S, ? extends R> computation;
+    private final Consumer<? super R> publisher;
+
+    private final ExecutorService executor = new ThreadPoolExecutor(
+            1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+    private final Queue<Consumer<? super S>> pendingChanges = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    // Номер последнего изменения: результат публикуется, только если он не устарел
+    private final AtomicLong changeGeneration = new AtomicLong();
+    // После stop() изменения больше не принимаются (они могут приходить из других потоков)
+    private volatile boolean stopped;
+
+    /**
+     * @param computation расчет результата по состоянию
+     * @param publisher получатель актуального результата; вызывается в фоновом потоке
+     */
+    LatestChangeWorker(S state, Function<? super S, ? extends R> computation, Consumer<? super R> publisher) {
+        this.state = state;
+        this.computation = computation;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Ставит изменение в очередь. Каждое новое изменение делает устаревшими результаты всех предыдущих
+     */
+    void submit(Consumer<? super S> change) {
+        if (stopped) {
+            return;
+        }
+        pendingChanges.add(change);
+        changeGeneration.incrementAndGet();
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::recompute);
+            } catch (RejectedExecutionException e) {
+                // stop() успел остановить исполнитель между проверкой и постановкой задачи
+                Log.d(TAG, "Worker is stopped, dropping change");
+                pendingChanges.clear();
+            }
+        }
+    }
+
+    /**
+     * Останавливает пересчет; непримененные изменения отбрасываются
+     */
+    void stop() {
+        stopped = true;
+        executor.shutdownNow();
+        pendingChanges.clear();
+    }
+
+    /**
+     * Применяет накопленные изменения и публикует результат, если за время
+     * расчета не поступило более новых изменений (их опубликует следующий запуск)
+     */
+    private void recompute() {
+        drainScheduled.set(false);
+        long generation = changeGeneration.get();
+
+        Consumer<? super S> change;
+        while ((change = pendingChanges.poll()) != null) {
+            change.accept(state);
+        }
+
+        if (generation != changeGeneration.get()) {
+            return;
+        }
+
+        R result = computation.apply(state);
+
+        if (generation != changeGeneration.get()) {
+            Log.d(TAG, "Discarding stale result, generation: " + generation);
+            return;
+        }
+        publisher.accept(result);
+    }
+}
@@ -10,15 +10,21 @@ import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModelProvider;
 
-import com.draker.recmaster.R;
+import com.draker.recmaster.database.repository.LocalMovieRepository;
+import com.draker.recmaster.database.repository.MovieCandidateQuery;
 import com.draker.recmaster.model.Movie;
 import com.draker.recmaster.model.Mood;
+import com.draker.recmaster.model.MoodModel;
 import com.draker.recmaster.model.RecommendationFilter;
 import com.draker.recmaster.repository.MovieRepository;
+import com.draker.recmaster.repository.MovieRuntimeHydrator;
+import com.draker.recmaster.service.ContentRecommendationService;
+import com.draker.recmaster.service.MovieRecommendationEngine;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * ViewModel для экрана рекомендаций
@@ -26,18 +32,49 @@ import java.util.Map;
 public class RecommendationsViewModel extends AndroidViewModel {
     private static final String TAG = "RecommendationsVM";
     
+    // Параметры чтения кандидатов из локального каталога
+    private static final int CANDIDATE_CHUNK_SIZE = 100;
+    private static final int MIN_CANDIDATE_VOTE_COUNT = 20;
+    private static final int GENRE_CANDIDATE_LIMIT = 200;
+    // Сколько первых рекомендаций, вероятно, увидит пользователь: их продолжительность загружается в первую очередь
+    private static final int RUNTIME_VISIBLE_COUNT = 20;
+    // Размер страницы выдачи: следующая страница ранжируется, когда пользователь докрутит до конца
+    private static final int RECOMMENDATION_PAGE_SIZE = 40;
+    private static final int RECOMMENDATION_PREFETCH_DISTANCE = 10;
+    
     private final MovieViewModel movieViewModel;
     private final MovieRepository repository;
+    private final LocalMovieRepository localMovieRepository;
+    private final ContentRecommendationService recommendationService;
+    private final MovieRecommendationEngine recommendationEngine = new MovieRecommendationEngine();
+    private final MovieRuntimeHydrator runtimeHydrator;
+    // Загруженная продолжительность уточняет фильтр по времени
+    private final MovieRuntimeHydrator.Listener runtimeListener =
+            runtimes -> submitChange(engine -> engine.updateRuntimes(runtimes));
+    
+    // Расчет рекомендаций в одном фоновом потоке; результат устаревшего расчета не публикуется
+    private final LatestChangeWorker<MovieRecommendationEngine, List<Movie>> recommendationWorker =
+            new LatestChangeWorker<>(recommendationEngine, this::rankRecommendations, this::publishRecommendations);
+    // Сколько лучших рекомендаций отдавать на экран
+    private volatile int recommendationLimit = RECOMMENDATION_PAGE_SIZE;
     private final MediatorLiveData<List<Movie>> recommendedMovies = new MediatorLiveData<>();
     private final MutableLiveData<RecommendationFilter> currentFilter = new MutableLiveData<>(new RecommendationFilter());
     private final MutableLiveData<List<Mood>> availableMoods = new MutableLiveData<>();
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
     
+    // Жанры последнего примененного фильтра (только для главного потока)
+    private final List<Integer> lastGenreIds = new ArrayList<>();
+    
     public RecommendationsViewModel(@NonNull Application application) {
         super(application);
         repository = MovieRepository.getInstance();
         repository.setLocalRepository(application); // Устанавливаем локальный репозиторий
         
+        localMovieRepository = LocalMovieRepository.getInstance(application);
+        recommendationService = ContentRecommendationService.getInstance();
+        runtimeHydrator = MovieRuntimeHydrator.getInstance(application);
+        runtimeHydrator.addListener(runtimeListener);
+        
         // Создаем MovieViewModel напрямую, так как у нас есть Application
         movieViewModel = new MovieViewModel(application);
         
@@ -45,31 +82,41 @@ public class RecommendationsViewModel extends AndroidViewModel {
         initMoods();
         
         // Добавляем источники данных для рекомендаций
-        recommendedMovies.addSource(movieViewModel.getPopularMovies(), movies -> {
-            applyFilters();
-        });
+        recommendedMovies.addSource(movieViewModel.getPopularMovies(), this::addCandidates);
         
-        recommendedMovies.addSource(movieViewModel.getTopRatedMovies(), movies -> {
-            applyFilters();
-        });
+        recommendedMovies.addSource(movieViewModel.getTopRatedMovies(), this::addCandidates);
         
         recommendedMovies.addSource(currentFilter, filter -> {
-            applyFilters();
+            // Фильтр изменяется на главном потоке, поэтому в фон передаем его копию
+            RecommendationFilter snapshot = filter != null
+                    ? new RecommendationFilter(filter.getMood(), filter.getMaxDuration(), filter.getSelectedGenreIds())
+                    : new RecommendationFilter();
+            loadGenreCandidates(snapshot.getSelectedGenreIds());
+            // Новый фильтр - новая выдача, показываем ее с первой страницы
+            recommendationLimit = RECOMMENDATION_PAGE_SIZE;
+            submitChange(engine -> engine.setFilter(snapshot));
         });
         
+        // История просмотров влияет на ранжирование через жанровые предпочтения
+        recommendedMovies.addSource(localMovieRepository.getWatchedMovies(), watched ->
+                submitChange(engine -> recommendationService.updateWatchHistory(watched)));
+        
         // Загрузка данных при инициализации
         loadInitialData();
     }
     
     /**
-     * Инициализация списка настроений с иконками
+     * Инициализация списка настроений из модели настроений
      */
     private void initMoods() {
+        Application application = getApplication();
         List<Mood> moods = new ArrayList<>();
-        moods.add(new Mood(RecommendationFilter.MOOD_HAPPY, "Счастливое", R.drawable.ic_mood_happy));
-        moods.add(new Mood(RecommendationFilter.MOOD_SAD, "Грустное", R.drawable.ic_mood_sad));
-        moods.add(new Mood(RecommendationFilter.MOOD_EXCITED, "Восторженное", R.drawable.ic_mood_excited));
-        moods.add(new Mood(RecommendationFilter.MOOD_RELAXED, "Расслабленное", R.drawable.ic_mood_relaxed));
+        for (MoodModel.Definition definition : MoodModel.get().getMoods()) {
+            int iconResId = definition.getIcon() != null
+                    ? application.getResources().getIdentifier(definition.getIcon(), "drawable", application.getPackageName())
+                    : 0;
+            moods.add(new Mood(definition.getId(), definition.getName(), iconResId));
+        }
         
         availableMoods.setValue(moods);
     }
@@ -78,38 +125,117 @@ public class RecommendationsViewModel extends AndroidViewModel {
      * Загрузка начальных данных
      */
     private void loadInitialData() {
+        // Основной пул - весь локальный каталог, страницы из сети дополняют его
+        MovieCandidateQuery query = new MovieCandidateQuery.Builder()
+                .minVoteCount(MIN_CANDIDATE_VOTE_COUNT)
+                .build();
+        submitChange(engine -> localMovieRepository.streamCandidates(
+                query, CANDIDATE_CHUNK_SIZE, engine::addCandidates));
+        
         movieViewModel.loadGenres();
         movieViewModel.loadPopularMovies(1);
         movieViewModel.loadTopRatedMovies(1);
     }
     
     /**
-     * Применение фильтров к имеющимся фильмам
+     * Добавление новой страницы кандидатов: фильтр применяется только к новым фильмам
      */
-    private void applyFilters() {
-        List<Movie> allMovies = new ArrayList<>();
-        RecommendationFilter filter = currentFilter.getValue();
-        
-        // Получаем все фильмы из разных источников
-        List<Movie> popularMovies = movieViewModel.getPopularMovies().getValue();
-        if (popularMovies != null) {
-            allMovies.addAll(popularMovies);
+    private void addCandidates(List<Movie> movies) {
+        if (movies != null && !movies.isEmpty()) {
+            submitChange(engine -> engine.addCandidates(movies));
         }
+    }
+    
+    /**
+     * Догружает из локального каталога кандидатов для вновь выбранных жанров.
+     * При снятии жанра выборка только сужается, поэтому чтение не требуется
+     */
+    private void loadGenreCandidates(List<Integer> genreIds) {
+        List<Integer> addedGenreIds = new ArrayList<>();
+        for (Integer genreId : genreIds) {
+            if (!lastGenreIds.contains(genreId)) {
+                addedGenreIds.add(genreId);
+            }
+        }
+        lastGenreIds.clear();
+        lastGenreIds.addAll(genreIds);
         
-        List<Movie> topRatedMovies = movieViewModel.getTopRatedMovies().getValue();
-        if (topRatedMovies != null) {
-            allMovies.addAll(topRatedMovies);
+        if (addedGenreIds.isEmpty()) {
+            return;
         }
         
-        // Применяем фильтры
-        if (filter != null && !allMovies.isEmpty()) {
-            List<Movie> filtered = filter.filter(allMovies);
-            Log.d(TAG, "Filtered " + allMovies.size() + " movies to " + filtered.size() 
-                    + " with filter: " + filter);
-            recommendedMovies.setValue(filtered);
-        } else {
-            recommendedMovies.setValue(allMovies);
+        MovieCandidateQuery query = new MovieCandidateQuery.Builder()
+                .anyOfGenres(addedGenreIds)
+                .limit(GENRE_CANDIDATE_LIMIT)
+                .build();
+        submitChange(engine -> localMovieRepository.streamCandidates(
+                query, CANDIDATE_CHUNK_SIZE, engine::addCandidates));
+    }
+    
+    /**
+     * Ставит изменение в очередь фонового расчета
+     */
+    private void submitChange(Consumer<MovieRecommendationEngine> change) {
+        recommendationWorker.submit(change);
+    }
+    
+    /**
+     * Лучшие рекомендации в пределах показываемого количества; выполняется в фоновом потоке
+     */
+    private List<Movie> rankRecommendations(MovieRecommendationEngine engine) {
+        List<Movie> matches = engine.getMatches();
+        List<Movie> ranked = recommendationService.rankMovies(matches, engine.getMoodQuery(), 0, recommendationLimit);
+        Log.d(TAG, "Ranked " + ranked.size() + " of " + matches.size() + " matches in "
+                + engine.getPoolSize() + " movies");
+        return ranked;
+    }
+    
+    private void publishRecommendations(List<Movie> ranked) {
+        recommendedMovies.postValue(ranked);
+        hydrateRuntimes(ranked);
+    }
+    
+    /**
+     * Запрашивает продолжительность фильмов выдачи, которой еще нет в движке.
+     * Известные движку значения не передаются, иначе их повторная доставка запускала бы пересчет
+     */
+    private void hydrateRuntimes(List<Movie> ranked) {
+        List<Movie> missing = new ArrayList<>();
+        int visibleMissing = 0;
+        for (int i = 0, n = ranked.size(); i < n; i++) {
+            Movie movie = ranked.get(i);
+            if (recommendationEngine.getRuntime(movie) != 0) {
+                continue;
+            }
+            missing.add(movie);
+            if (i < RUNTIME_VISIBLE_COUNT) {
+                visibleMissing++;
+            }
         }
+        runtimeHydrator.hydrate(missing, visibleMissing);
+    }
+    
+    /**
+     * Вызывается при прокрутке списка: ближе к концу выдачи ранжируется следующая страница
+     * @param lastVisiblePosition позиция последнего видимого элемента
+     */
+    public void onScrolled(int lastVisiblePosition) {
+        List<Movie> shown = recommendedMovies.getValue();
+        int limit = recommendationLimit;
+        // Выдача короче лимита - подходящих фильмов больше нет
+        if (shown == null || shown.size() < limit
+                || lastVisiblePosition < limit - RECOMMENDATION_PREFETCH_DISTANCE) {
+            return;
+        }
+        recommendationLimit = limit + RECOMMENDATION_PAGE_SIZE;
+        submitChange(engine -> { });
+    }
+    
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        recommendationWorker.stop();
+        runtimeHydrator.removeListener(runtimeListener);
     }
     
     // Геттеры
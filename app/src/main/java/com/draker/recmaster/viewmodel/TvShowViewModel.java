@@ -7,6 +7,7 @@ import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.MutableLiveData;
 
 import com.draker.recmaster.model.TvShow;
+import com.draker.recmaster.repository.PagePrefetcher;
 import com.draker.recmaster.repository.TvShowRepository;
 
 import java.util.List;
@@ -24,10 +25,13 @@ public class TvShowViewModel extends AndroidViewModel {
     private final MutableLiveData<Map<Integer, String>> genresLiveData = new MutableLiveData<>();
     private final MutableLiveData<String> errorLiveData = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isLoadingLiveData = new MutableLiveData<>(false);
+    private final PagePrefetcher<TvShow> popularTvShowsPager;
 
     public TvShowViewModel(@NonNull Application application) {
         super(application);
         tvShowRepository = TvShowRepository.getInstance();
+        popularTvShowsPager = new PagePrefetcher<>(application, 1, (page, pageLiveData, pageErrorLiveData) ->
+                tvShowRepository.getPopularTvShows(pageLiveData, pageErrorLiveData, page));
     }
 
     /**
@@ -109,4 +113,17 @@ public class TvShowViewModel extends AndroidViewModel {
     public MutableLiveData<Boolean> getIsLoadingLiveData() {
         return isLoadingLiveData;
     }
+
+    /**
+     * Постраничная загрузка популярных сериалов с упреждением для бесконечной прокрутки
+     */
+    public PagePrefetcher<TvShow> getPopularTvShowsPager() {
+        return popularTvShowsPager;
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        popularTvShowsPager.stop();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,175 @@
+package com.draker.recmaster.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Квоты хостов берутся до передачи вызова диспетчеру: ответы из кэша бесплатны,
+ * срочные запросы обгоняют упреждающие, повторы {@link ResilienceInterceptor} ждут свой токен
+ */
+public class RequestQuotaTest {
+
+    // Один токен в секунду
+    private static final int REQUESTS_PER_MINUTE = 60;
+
+    interface PageApi {
+        @GET("movies")
+        Call<ResponseBody> page(@Query("page") int page);
+    }
+
+    @Rule
+    public TemporaryFolder cacheDir = new TemporaryFolder();
+
+    private MockWebServer server;
+    private String host;
+    private PageApi api;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        host = server.url("/").host();
+
+        OkHttpClient base = new OkHttpClient.Builder()
+                .cache(new Cache(cacheDir.newFolder(), 1024 * 1024))
+                .build();
+        SingleFlight.getInstance().setCacheProbeClient(base.newBuilder().dispatcher(new Dispatcher()).build());
+        api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(base.newBuilder().addInterceptor(new ResilienceInterceptor()).build())
+                .build()
+                .create(PageApi.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        RequestScheduler.getInstance().setLimit(host, 0, 0);
+        SingleFlight.getInstance().setCacheProbeClient(null);
+        server.shutdown();
+    }
+
+    @Test
+    public void cacheHitsDoNotSpendQuota() throws Exception {
+        RequestScheduler.getInstance().setLimit(host, REQUESTS_PER_MINUTE, 2);
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60").setBody("page"));
+        }
+
+        long start = System.nanoTime();
+        fetch(1);
+        fetch(1);
+        fetch(1);
+        fetch(2);
+        long burstMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Два запроса в сеть укладываются во всплеск, повторные чтения страницы - из кэша
+        assertEquals(2, server.getRequestCount());
+        assertTrue("cache hits waited for quota: " + burstMs + " ms", burstMs < 500);
+
+        // Третий запрос в сеть ждет новый токен
+        fetch(3);
+        long totalMs = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(3, server.getRequestCount());
+        assertTrue("network request did not wait for quota: " + totalMs + " ms", totalMs >= 800);
+    }
+
+    @Test
+    public void interactiveRequestOvertakesQueuedPrefetch() throws Exception {
+        RequestScheduler.getInstance().setLimit(host, REQUESTS_PER_MINUTE, 1);
+        for (int i = 0; i < 5; i++) {
+            server.enqueue(new MockResponse().setBody("page"));
+        }
+
+        // Первая страница забирает токен, остальные ждут квоту до передачи диспетчеру
+        RequestPriority.runWith(RequestPriority.PREFETCH, () -> {
+            for (int page = 1; page <= 4; page++) {
+                SingleFlight.getInstance().enqueue(api.page(page), new Waiter());
+            }
+        });
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (RequestScheduler.getInstance().queuedCount(host) < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(3, RequestScheduler.getInstance().queuedCount(host));
+
+        Waiter interactive = new Waiter();
+        SingleFlight.getInstance().enqueue(api.page(9), interactive);
+
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+        RecordedRequest next = server.takeRequest(5, TimeUnit.SECONDS);
+        assertNotNull(next);
+        assertEquals("/movies?page=9", next.getPath());
+        assertTrue(interactive.await());
+    }
+
+    @Test
+    public void retriesSpendQuota() throws Exception {
+        RequestScheduler.getInstance().setLimit(host, REQUESTS_PER_MINUTE, 1);
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("page"));
+
+        long start = System.nanoTime();
+        Waiter waiter = fetch(1);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Задержка повтора меньше секунды, поэтому повтор дождался токена
+        assertEquals(200, waiter.code);
+        assertEquals(2, server.getRequestCount());
+        assertTrue("retry did not wait for quota: " + elapsedMs + " ms", elapsedMs >= 800);
+    }
+
+    private Waiter fetch(int page) throws InterruptedException {
+        Waiter waiter = new Waiter();
+        SingleFlight.getInstance().enqueue(api.page(page), waiter);
+        assertTrue("request " + page + " did not complete", waiter.await());
+        return waiter;
+    }
+
+    private static final class Waiter implements Callback<ResponseBody> {
+        private final CountDownLatch done = new CountDownLatch(1);
+        volatile int code;
+
+        @Override
+        public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+            code = response.code();
+            if (response.body() != null) {
+                response.body().close();
+            }
+            done.countDown();
+        }
+
+        @Override
+        public void onFailure(Call<ResponseBody> call, Throwable t) {
+            done.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return done.await(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.draker.recmaster.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Date;
+
+import okhttp3.Cache;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Повторы с задержкой, Retry-After и автоматический выключатель хоста
+ */
+public class ResilienceInterceptorTest {
+
+    @Rule
+    public TemporaryFolder cacheDir = new TemporaryFolder();
+
+    private MockWebServer server;
+    private String host;
+    private ResilienceInterceptor interceptor;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        host = server.url("/").host();
+        interceptor = new ResilienceInterceptor();
+        client = new OkHttpClient.Builder()
+                .cache(new Cache(cacheDir.newFolder(), 1024 * 1024))
+                // Сетевые ошибки повторяет только перехватчик
+                .retryOnConnectionFailure(false)
+                .addInterceptor(interceptor)
+                .build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void getIsRetriedOnServerError() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(502));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        try (Response response = get("/movies")) {
+            assertEquals(200, response.code());
+            assertEquals("ok", response.body().string());
+        }
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void getIsRetriedOnNetworkError() throws IOException {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        try (Response response = get("/movies")) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void lastErrorIsReturnedAfterRetries() throws IOException {
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+        }
+
+        try (Response response = get("/movies")) {
+            assertEquals(500, response.code());
+        }
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void postAndClientErrorsAreNotRetried() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(404));
+
+        Request post = new Request.Builder()
+                .url(server.url("/lists"))
+                .post(RequestBody.create("{}", MediaType.get("application/json")))
+                .build();
+        try (Response response = client.newCall(post).execute()) {
+            assertEquals(503, response.code());
+        }
+        try (Response response = get("/movies")) {
+            assertEquals(404, response.code());
+        }
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void retryWaitsForRetryAfter() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        long start = System.nanoTime();
+        try (Response response = get("/movies")) {
+            assertEquals(200, response.code());
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue("Retry-After ignored: " + elapsedMs + " ms", elapsedMs >= 1000);
+        assertEquals("CLOSED", interceptor.getState(host));
+    }
+
+    @Test
+    public void longRetryAfterClosesHost() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "60"));
+
+        try (Response response = get("/movies")) {
+            assertEquals(429, response.code());
+        }
+        assertEquals("OPEN", interceptor.getState(host));
+
+        // До срока запросы к хосту не отправляются
+        assertUnavailable("/movies");
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void openCircuitServesFromCache() throws IOException {
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=0").setBody("cached"));
+        try (Response response = get("/movies")) {
+            assertEquals("cached", response.body().string());
+        }
+
+        // Пять ошибок подряд открывают выключатель
+        for (int i = 0; i < 5; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+        }
+        Request post = new Request.Builder()
+                .url(server.url("/lists"))
+                .post(RequestBody.create("{}", MediaType.get("application/json")))
+                .build();
+        for (int i = 0; i < 5; i++) {
+            client.newCall(post).execute().close();
+        }
+        assertEquals("OPEN", interceptor.getState(host));
+        int requests = server.getRequestCount();
+
+        try (Response response = get("/movies")) {
+            assertEquals(200, response.code());
+            assertEquals("cached", response.body().string());
+        }
+        assertUnavailable("/games");
+        assertEquals(requests, server.getRequestCount());
+    }
+
+    @Test
+    public void retryAfterParsesSecondsAndDates() {
+        assertEquals(-1, ResilienceInterceptor.retryAfterMs(response(new Headers.Builder().build())));
+        assertEquals(-1, ResilienceInterceptor.retryAfterMs(response(retryAfter("soon"))));
+        assertEquals(5000, ResilienceInterceptor.retryAfterMs(response(retryAfter(" 5 "))));
+        assertEquals(0, ResilienceInterceptor.retryAfterMs(response(retryAfter("-3"))));
+
+        Headers inOneMinute = new Headers.Builder()
+                .add("Retry-After", new Date(System.currentTimeMillis() + 60_000))
+                .build();
+        long fromDate = ResilienceInterceptor.retryAfterMs(response(inOneMinute));
+        assertTrue("from date: " + fromDate, fromDate > 55_000 && fromDate <= 60_000);
+    }
+
+    private Response get(String path) throws IOException {
+        return client.newCall(new Request.Builder().url(server.url(path)).build()).execute();
+    }
+
+    private void assertUnavailable(String path) {
+        try {
+            get(path).close();
+            fail("request to open circuit reached " + path);
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains(host));
+        }
+    }
+
+    private static Headers retryAfter(String value) {
+        return new Headers.Builder().add("Retry-After", value).build();
+    }
+
+    private static Response response(Headers headers) {
+        return new Response.Builder()
+                .request(new Request.Builder().url("https://api.example.com/").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(429)
+                .message("Too Many Requests")
+                .headers(headers)
+                .build();
+    }
+}
@@ -0,0 +1,148 @@
+package com.draker.recmaster.api;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import javax.net.ServerSocketFactory;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Сравнение общего HTTP-клиента из {@link ApiClient} с отдельными клиентами на каждый API.
+ * Последовательные запросы по очереди идут через три клиента к локальному MockWebServer.
+ *
+ * Сервер пишет заголовки и тело ответа отдельными сегментами. С алгоритмом Нейгла на сокете
+ * сервера второй сегмент ждет подтверждения первого, а клиент откладывает подтверждение
+ * (delayed ACK, около 40 мс в Linux). Общий клиент отправляет все запросы через одно
+ * соединение и попадает в эту задержку почти на каждом ответе, поэтому без TCP_NODELAY
+ * на сервере он выглядел втрое медленнее. Это свойство стенда, а не клиента:
+ * с TCP_NODELAY на сервере задержка пропадает у обоих вариантов.
+ * Замер долгий, поэтому выполняется только со свойством recmaster.benchmarks (-Pbenchmarks=true)
+ */
+public class SharedHttpClientBenchmarkTest {
+
+    private static final int CLIENTS = 3;
+    private static final int WARMUP_REQUESTS = 300;
+    private static final int MEASURED_REQUESTS = 1500;
+    private static final String BODY = "{\"page\":1,\"results\":[],\"total_pages\":1,\"total_results\":0}";
+
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeTrue(Boolean.getBoolean("recmaster.benchmarks"));
+        server = new MockWebServer();
+        server.setServerSocketFactory(new NoDelayServerSocketFactory());
+        for (int i = 0; i < 2 * (WARMUP_REQUESTS + MEASURED_REQUESTS); i++) {
+            server.enqueue(new MockResponse().setBody(BODY));
+        }
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void sharedClientIsAsFastAsSeparateClients() throws Exception {
+        OkHttpClient[] separate = new OkHttpClient[CLIENTS];
+        OkHttpClient[] shared = new OkHttpClient[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            separate[i] = new OkHttpClient.Builder().build();
+            shared[i] = ApiClient.getHttpClient().newBuilder().build();
+        }
+
+        run(separate, WARMUP_REQUESTS);
+        double separateMicros = run(separate, MEASURED_REQUESTS);
+        int separateSockets = countNewConnections(WARMUP_REQUESTS + MEASURED_REQUESTS);
+
+        run(shared, WARMUP_REQUESTS);
+        double sharedMicros = run(shared, MEASURED_REQUESTS);
+        int sharedSockets = countNewConnections(WARMUP_REQUESTS + MEASURED_REQUESTS);
+
+        // Общий пул соединений: одно соединение на хост вместо одного на клиента
+        assertEquals(CLIENTS, separateSockets);
+        assertEquals(1, sharedSockets);
+        // Грубая граница, чтобы не зависеть от шума: прежняя задержка давала трехкратную разницу
+        assertTrue("shared client is slower: " + sharedMicros + " vs " + separateMicros + " us",
+                sharedMicros < 2 * separateMicros + 500);
+    }
+
+    /**
+     * Выполняет запросы по очереди через клиенты
+     * @return среднее время запроса в микросекундах
+     */
+    private double run(OkHttpClient[] clients, int requests) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            Request request = new Request.Builder().url(server.url("/3/movie/popular?page=" + i)).build();
+            try (Response response = clients[i % clients.length].newCall(request).execute()) {
+                response.body().string();
+            }
+        }
+        return (System.nanoTime() - start) / 1000.0 / requests;
+    }
+
+    /**
+     * Считает, сколько из последних запросов пришли первыми в своем соединении
+     */
+    private int countNewConnections(int requests) throws InterruptedException {
+        int connections = 0;
+        for (int i = 0; i < requests; i++) {
+            if (server.takeRequest().getSequenceNumber() == 0) {
+                connections++;
+            }
+        }
+        return connections;
+    }
+
+    /**
+     * Включает TCP_NODELAY на принятых сервером сокетах
+     */
+    private static final class NoDelayServerSocketFactory extends ServerSocketFactory {
+
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new ServerSocket() {
+                @Override
+                public Socket accept() throws IOException {
+                    Socket socket = super.accept();
+                    socket.setTcpNoDelay(true);
+                    return socket;
+                }
+            };
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress address) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
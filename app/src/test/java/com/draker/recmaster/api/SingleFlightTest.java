@@ -0,0 +1,181 @@
+package com.draker.recmaster.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Одинаковые одновременные запросы выполняются одним вызовом, результат получают все ожидающие
+ */
+public class SingleFlightTest {
+
+    static final class Page {
+        int page;
+    }
+
+    interface PageApi {
+        @GET("movies")
+        Call<Page> page(@Query("page") int page);
+    }
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private MockWebServer server;
+    private PageApi api;
+    private MockResponse response = new MockResponse().setBody("{\"page\": 1}");
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        // Сервер отвечает только после release: вызовы успевают встать в ожидание
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                release.await(10, TimeUnit.SECONDS);
+                return response;
+            }
+        });
+        server.start();
+        api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(PageApi.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        release.countDown();
+        server.shutdown();
+    }
+
+    @Test
+    public void identicalRequestsShareOneCall() throws Exception {
+        List<Waiter> waiters = enqueue(1, 1, 1);
+        assertEquals(1, SingleFlight.getInstance().inFlightCount());
+        release.countDown();
+
+        for (Waiter waiter : waiters) {
+            assertTrue(waiter.await());
+            assertEquals(200, waiter.code);
+            assertEquals(1, waiter.page.page);
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void differentParametersAreNotShared() throws Exception {
+        List<Waiter> waiters = enqueue(1, 2);
+        assertEquals(2, SingleFlight.getInstance().inFlightCount());
+        release.countDown();
+
+        for (Waiter waiter : waiters) {
+            assertTrue(waiter.await());
+        }
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void errorBodyIsReadableByEveryWaiter() throws Exception {
+        response = new MockResponse().setResponseCode(500).setBody("boom");
+        List<Waiter> waiters = enqueue(1, 1, 1);
+        release.countDown();
+
+        for (Waiter waiter : waiters) {
+            assertTrue(waiter.await());
+            assertEquals(500, waiter.code);
+            assertNull(waiter.page);
+            assertEquals("boom", waiter.errorBody);
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void failureReachesEveryWaiter() throws Exception {
+        response = new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START);
+        List<Waiter> waiters = enqueue(1, 1);
+        release.countDown();
+
+        for (Waiter waiter : waiters) {
+            assertTrue(waiter.await());
+            assertNotNull(waiter.failure);
+        }
+        assertEquals(0, SingleFlight.getInstance().inFlightCount());
+    }
+
+    @Test
+    public void completedCallIsNotJoined() throws Exception {
+        release.countDown();
+        assertTrue(enqueue(1).get(0).await());
+        assertEquals(0, SingleFlight.getInstance().inFlightCount());
+
+        // Следующий такой же запрос идет в сеть, а не получает старый ответ
+        assertTrue(enqueue(1).get(0).await());
+        assertEquals(2, server.getRequestCount());
+        assertEquals(0, SingleFlight.getInstance().inFlightCount());
+    }
+
+    private List<Waiter> enqueue(int... pages) {
+        List<Waiter> waiters = new ArrayList<>();
+        for (int page : pages) {
+            Waiter waiter = new Waiter();
+            SingleFlight.getInstance().enqueue(api.page(page), waiter);
+            waiters.add(waiter);
+        }
+        return waiters;
+    }
+
+    private static final class Waiter implements Callback<Page> {
+        private final CountDownLatch done = new CountDownLatch(1);
+        volatile int code;
+        volatile Page page;
+        volatile String errorBody;
+        volatile Throwable failure;
+
+        @Override
+        public void onResponse(Call<Page> call, Response<Page> response) {
+            code = response.code();
+            page = response.body();
+            try (ResponseBody body = response.errorBody()) {
+                errorBody = body != null ? body.string() : null;
+            } catch (IOException e) {
+                failure = e;
+            }
+            done.countDown();
+        }
+
+        @Override
+        public void onFailure(Call<Page> call, Throwable t) {
+            failure = t;
+            done.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return done.await(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.draker.recmaster.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Cache;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Свежий ответ берется из кэша, устаревший отдается сразу и обновляется в фоне
+ */
+public class StaleWhileRevalidateInterceptorTest {
+
+    @Rule
+    public TemporaryFolder cacheDir = new TemporaryFolder();
+
+    private MockWebServer server;
+    private OkHttpClient client;
+    // Заголовки ответов сервера; тело - номер ответа
+    private volatile String cacheControl = "max-age=60";
+    private volatile Date date;
+    private final AtomicInteger responses = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                MockResponse response = new MockResponse()
+                        .setHeader("Cache-Control", cacheControl)
+                        .setBody("v" + responses.incrementAndGet());
+                if (date != null) {
+                    response.setHeaders(response.getHeaders().newBuilder().set("Date", date).build());
+                }
+                return response;
+            }
+        });
+        server.start();
+
+        // Без контекста проверка сети пропускается
+        StaleWhileRevalidateInterceptor interceptor = new StaleWhileRevalidateInterceptor(null);
+        client = new OkHttpClient.Builder()
+                .cache(new Cache(cacheDir.newFolder(), 1024 * 1024))
+                .addInterceptor(interceptor)
+                .build();
+        interceptor.setClient(client);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void freshResponseIsServedFromCache() throws IOException {
+        assertEquals("v1", get("/movies"));
+        assertEquals("v1", get("/movies"));
+        assertEquals(1, server.getRequestCount());
+
+        // Другой URL в кэше не найден
+        assertEquals("v2", get("/games"));
+    }
+
+    @Test
+    public void staleResponseIsServedAndRevalidated() throws Exception {
+        cacheControl = "max-age=0";
+        assertEquals("v1", get("/movies"));
+
+        // Устаревший ответ возвращается без ожидания сети и с предупреждением
+        try (Response response = call(new Request.Builder().url(server.url("/movies")).build())) {
+            assertEquals("v1", response.body().string());
+            assertTrue(response.header("Warning"), response.header("Warning").startsWith("110"));
+        }
+
+        // Фоновый запрос обновляет кэш
+        RecordedRequest revalidation = server.takeRequest(5, TimeUnit.SECONDS);
+        assertEquals("/movies", revalidation.getPath());
+        cacheControl = "max-age=60";
+        long deadline = System.currentTimeMillis() + 5_000;
+        String body = get("/movies");
+        while (body.equals("v1") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            body = get("/movies");
+        }
+        assertNotEquals("v1", body);
+    }
+
+    @Test
+    public void responseOlderThanStaleWindowGoesToNetwork() throws IOException {
+        cacheControl = "max-age=0";
+        date = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(8));
+        assertEquals("v1", get("/movies"));
+
+        date = null;
+        assertEquals("v2", get("/movies"));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void explicitCachePolicyAndPostAreNotChanged() throws IOException {
+        assertEquals("v1", get("/movies"));
+
+        Request noCache = new Request.Builder().url(server.url("/movies")).header("Cache-Control", "no-cache").build();
+        try (Response response = call(noCache)) {
+            assertEquals("v2", response.body().string());
+            assertNull(response.cacheResponse());
+        }
+
+        Request post = new Request.Builder()
+                .url(server.url("/movies"))
+                .post(RequestBody.create("{}", MediaType.get("application/json")))
+                .build();
+        try (Response response = call(post)) {
+            assertEquals("v3", response.body().string());
+        }
+    }
+
+    private String get(String path) throws IOException {
+        try (Response response = call(new Request.Builder().url(server.url(path)).build())) {
+            return response.body().string();
+        }
+    }
+
+    private Response call(Request request) throws IOException {
+        return client.newCall(request).execute();
+    }
+}
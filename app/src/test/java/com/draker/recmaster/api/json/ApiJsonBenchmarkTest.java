@@ -0,0 +1,156 @@
+package com.draker.recmaster.api.json;
+
+import com.draker.recmaster.model.Game;
+import com.draker.recmaster.model.GameResponse;
+import com.draker.recmaster.model.MovieResponse;
+import com.google.gson.Gson;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Сравнение потоковых адаптеров {@link ApiJson} с рефлексивным Gson на страницах,
+ * похожих по форме на ответы TMDB и RAWG. Разбор страниц проверяется всегда, а замеры
+ * выполняются только со свойством recmaster.benchmarks (-Pbenchmarks=true); проверка скорости
+ * грубая, чтобы тест не зависел от нагрузки машины
+ */
+public class ApiJsonBenchmarkTest {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP_ITERATIONS = 2000;
+    private static final int ROUNDS = 6;
+    private static final int ITERATIONS_PER_ROUND = 2000;
+
+    private final Gson reflective = new Gson();
+    private final Gson streaming = ApiJson.createGson();
+
+    @Test
+    public void moviePage() {
+        MovieResponse response = streaming.fromJson(moviePageJson(), MovieResponse.class);
+        assertEquals(PAGE_SIZE, response.getResults().size());
+        assertEquals(3, response.getResults().get(0).getGenreIds().size());
+    }
+
+    @Test
+    public void gamePage() {
+        GameResponse response = streaming.fromJson(gamePageJson(), GameResponse.class);
+        assertEquals(PAGE_SIZE, response.getResults().size());
+        Game first = response.getResults().get(0);
+        assertEquals("https://media.rawg.io/media/games/0.jpg", first.getBackgroundImage());
+        assertEquals(3, first.getPlatforms().size());
+    }
+
+    @Test
+    public void moviePageSpeed() {
+        Assume.assumeTrue(Boolean.getBoolean("recmaster.benchmarks"));
+        compare("movies", moviePageJson(), MovieResponse.class);
+    }
+
+    @Test
+    public void gamePageSpeed() {
+        Assume.assumeTrue(Boolean.getBoolean("recmaster.benchmarks"));
+        compare("games", gamePageJson(), GameResponse.class);
+    }
+
+    /**
+     * Замеряет оба варианта чередующимися раундами, чтобы порядок прогрева JIT
+     * не давал преимущества одному из них, и берет лучший раунд каждого
+     */
+    private void compare(String name, String json, Class<?> type) {
+        measure(reflective, json, type, WARMUP_ITERATIONS);
+        measure(streaming, json, type, WARMUP_ITERATIONS);
+
+        double reflectiveMicros = Double.MAX_VALUE;
+        double streamingMicros = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            if (round % 2 == 0) {
+                reflectiveMicros = Math.min(reflectiveMicros, measure(reflective, json, type, ITERATIONS_PER_ROUND));
+                streamingMicros = Math.min(streamingMicros, measure(streaming, json, type, ITERATIONS_PER_ROUND));
+            } else {
+                streamingMicros = Math.min(streamingMicros, measure(streaming, json, type, ITERATIONS_PER_ROUND));
+                reflectiveMicros = Math.min(reflectiveMicros, measure(reflective, json, type, ITERATIONS_PER_ROUND));
+            }
+        }
+
+        assertTrue(String.format(Locale.ROOT, "%s page (%d KB): streaming %.0f us is slower than reflective %.0f us",
+                name, json.length() / 1024, streamingMicros, reflectiveMicros),
+                streamingMicros < reflectiveMicros * 1.5);
+    }
+
+    /**
+     * @return среднее время разбора страницы в микросекундах
+     */
+    private static double measure(Gson gson, String json, Class<?> type, int iterations) {
+        int sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += gson.fromJson(json, type).hashCode() & 1;
+        }
+        long elapsed = System.nanoTime() - start;
+        // Не даем JIT выбросить разбор
+        assertTrue(sink >= 0);
+        return elapsed / 1000.0 / iterations;
+    }
+
+    private static String moviePageJson() {
+        StringBuilder sb = new StringBuilder("{\"page\":1,\"results\":[");
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"adult\":false,\"backdrop_path\":\"/backdrop").append(i).append(".jpg\",")
+                    .append("\"genre_ids\":[28,12,878],\"id\":").append(1000 + i).append(',')
+                    .append("\"original_language\":\"en\",\"original_title\":\"Movie ").append(i).append("\",")
+                    .append("\"overview\":\"A long enough overview of movie ").append(i)
+                    .append(" that describes the plot in a couple of sentences, as TMDB usually does.\",")
+                    .append("\"popularity\":").append(500.5 - i).append(',')
+                    .append("\"poster_path\":\"/poster").append(i).append(".jpg\",")
+                    .append("\"release_date\":\"2024-0").append(1 + i % 9).append("-15\",")
+                    .append("\"title\":\"Movie ").append(i).append("\",\"video\":false,")
+                    .append("\"vote_average\":7.").append(i % 10).append(",\"vote_count\":").append(1200 + i).append('}');
+        }
+        return sb.append("],\"total_pages\":500,\"total_results\":10000}").toString();
+    }
+
+    private static String gamePageJson() {
+        StringBuilder sb = new StringBuilder("{\"count\":800000,\"next\":\"https://api.rawg.io/api/games?page=2\",")
+                .append("\"previous\":null,\"results\":[");
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(3000 + i).append(",\"slug\":\"game-").append(i).append("\",")
+                    .append("\"name\":\"Game ").append(i).append("\",\"released\":\"2023-05-12\",\"tba\":false,")
+                    .append("\"background_image\":\"https://media.rawg.io/media/games/").append(i).append(".jpg\",")
+                    .append("\"rating\":4.").append(i % 10).append(",\"rating_top\":5,")
+                    .append("\"ratings\":[{\"id\":5,\"title\":\"exceptional\",\"count\":1200,\"percent\":58.1},")
+                    .append("{\"id\":4,\"title\":\"recommended\",\"count\":700,\"percent\":33.9}],")
+                    .append("\"metacritic\":8").append(i % 10).append(",\"playtime\":").append(10 + i).append(',')
+                    .append("\"platforms\":[");
+            for (int p = 0; p < 3; p++) {
+                if (p > 0) sb.append(',');
+                sb.append("{\"platform\":{\"id\":").append(p + 1).append(",\"name\":\"Platform ").append(p)
+                        .append("\",\"slug\":\"platform-").append(p).append("\"},")
+                        .append("\"released_at\":\"2023-05-12\",\"requirements_en\":null}");
+            }
+            sb.append("],\"stores\":[");
+            for (int s = 0; s < 3; s++) {
+                if (s > 0) sb.append(',');
+                sb.append("{\"id\":").append(s).append(",\"store\":{\"id\":").append(s + 1)
+                        .append(",\"name\":\"Store ").append(s).append("\",\"slug\":\"store-").append(s).append("\"}}");
+            }
+            sb.append("],\"genres\":[{\"id\":4,\"name\":\"Action\",\"slug\":\"action\"},")
+                    .append("{\"id\":3,\"name\":\"Adventure\",\"slug\":\"adventure\"}],")
+                    .append("\"tags\":[");
+            for (int t = 0; t < 10; t++) {
+                if (t > 0) sb.append(',');
+                sb.append("{\"id\":").append(t).append(",\"name\":\"Tag ").append(t)
+                        .append("\",\"slug\":\"tag-").append(t).append("\",\"language\":\"eng\",\"games_count\":")
+                        .append(10000 + t).append('}');
+            }
+            sb.append("]}");
+        }
+        return sb.append("]}").toString();
+    }
+}
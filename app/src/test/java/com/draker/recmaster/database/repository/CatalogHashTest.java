@@ -0,0 +1,97 @@
+package com.draker.recmaster.database.repository;
+
+import com.draker.recmaster.database.entity.MovieEntity;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Хеш колонок каталога меняется с любой из них и не зависит от отметок пользователя
+ */
+public class CatalogHashTest {
+
+    @Test
+    public void equalCatalogFieldsGiveEqualHash() {
+        MovieEntity stored = movie();
+        stored.setWatched(true);
+        stored.setWatchedDate(new Date());
+        stored.setUserRating(5);
+        stored.setUserNotes("Пересмотреть");
+        // Продолжительность сравнивается отдельно
+        stored.setRuntime(142);
+
+        assertEquals(LocalMovieRepository.catalogHash(movie()), LocalMovieRepository.catalogHash(stored));
+    }
+
+    @Test
+    public void everyCatalogFieldChangesHash() {
+        long base = LocalMovieRepository.catalogHash(movie());
+        assertChanges(base, movie -> movie.setTitle("Начало."));
+        assertChanges(base, movie -> movie.setOverview(null));
+        assertChanges(base, movie -> movie.setPosterPath("/other.jpg"));
+        assertChanges(base, movie -> movie.setBackdropPath(null));
+        assertChanges(base, movie -> movie.setVoteAverage(8.4f));
+        assertChanges(base, movie -> movie.setVoteCount(35001));
+        assertChanges(base, movie -> movie.setReleaseDate("2010-07-16"));
+        assertChanges(base, movie -> movie.setGenreIds(new ArrayList<>(Arrays.asList(878, 28))));
+        assertChanges(base, movie -> movie.setGenreIds(null));
+        assertChanges(base, movie -> movie.setPopularity(90.5f));
+        assertChanges(base, movie -> movie.setAdult(true));
+    }
+
+    @Test
+    public void adjacentFieldsAreSeparated() {
+        MovieEntity first = movie();
+        first.setTitle("ab");
+        first.setOverview("c");
+        MovieEntity second = movie();
+        second.setTitle("a");
+        second.setOverview("bc");
+        MovieEntity empty = movie();
+        empty.setTitle("");
+        MovieEntity missing = movie();
+        missing.setTitle(null);
+
+        assertNotEquals(LocalMovieRepository.catalogHash(first), LocalMovieRepository.catalogHash(second));
+        assertNotEquals(LocalMovieRepository.catalogHash(empty), LocalMovieRepository.catalogHash(missing));
+    }
+
+    @Test
+    public void hashIsNeverZero() {
+        // 0 означает "не вычислен" у строк до миграции
+        for (int id = 0; id < 10_000; id++) {
+            MovieEntity movie = movie();
+            movie.setVoteCount(id);
+            assertNotEquals(0, LocalMovieRepository.catalogHash(movie));
+        }
+    }
+
+    private static void assertChanges(long base, Consumer<MovieEntity> change) {
+        MovieEntity movie = movie();
+        change.accept(movie);
+        assertNotEquals(base, LocalMovieRepository.catalogHash(movie));
+    }
+
+    private static MovieEntity movie() {
+        MovieEntity movie = new MovieEntity();
+        movie.setId(27205);
+        movie.setTitle("Начало");
+        movie.setOverview("Кобб - вор, похищающий секреты из подсознания");
+        movie.setPosterPath("/poster.jpg");
+        movie.setBackdropPath("/backdrop.jpg");
+        movie.setVoteAverage(8.3f);
+        movie.setVoteCount(35000);
+        movie.setReleaseDate("2010-07-15");
+        movie.setGenreIds(new ArrayList<>(Arrays.asList(28, 878)));
+        movie.setPopularity(90.4f);
+        movie.setAdult(false);
+        return movie;
+    }
+}
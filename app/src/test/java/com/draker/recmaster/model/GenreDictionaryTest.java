@@ -0,0 +1,120 @@
+package com.draker.recmaster.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Битовые маски жанров: позиции, пересечение масок и жанры вне словаря
+ */
+public class GenreDictionaryTest {
+
+    // Жанры вне словаря TMDB; словарь общий для всех тестов, поэтому ID не пересекаются с другими
+    private static final int FIRST_UNKNOWN_GENRE = 900_000;
+    private static final int UNKNOWN_GENRES = 100;
+
+    @Test
+    public void knownGenresHaveDistinctBits() {
+        Set<Integer> positions = new HashSet<>();
+        for (int genreId : new int[]{28, 12, 16, 35, 18, 10751, 10759}) {
+            int position = GenreDictionary.positionOf(genreId);
+            assertTrue(position >= 0 && position < 63);
+            assertEquals(position, GenreDictionary.positionOf(genreId));
+            positions.add(position);
+        }
+        assertEquals(7, positions.size());
+    }
+
+    @Test
+    public void listAndVarargMasksAgree() {
+        assertEquals(GenreDictionary.maskOf(28, 35), GenreDictionary.maskOf(Arrays.asList(28, 35)));
+        assertEquals(GenreDictionary.maskOf(28, 35), GenreDictionary.maskOf(Arrays.asList(28, null, 35)));
+        assertEquals(0L, GenreDictionary.maskOf((List<Integer>) null));
+        assertEquals(0L, GenreDictionary.maskOf(Collections.<Integer>emptyList()));
+    }
+
+    @Test
+    public void intersectsReportsMatchMismatchAndOverflow() {
+        long action = GenreDictionary.maskOf(28);
+        long comedy = GenreDictionary.maskOf(35);
+        long overflow = GenreDictionary.OVERFLOW_BIT;
+
+        assertEquals(1, GenreDictionary.intersects(action | comedy, comedy));
+        assertEquals(0, GenreDictionary.intersects(action, comedy));
+        assertEquals(-1, GenreDictionary.intersects(action | overflow, comedy | overflow));
+        assertEquals(1, GenreDictionary.intersects(action | overflow, action | overflow));
+    }
+
+    @Test
+    public void concurrentRegistrationKeepsPositionsDenseUntilFull() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Integer>>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    List<Integer> positions = new ArrayList<>();
+                    // Все потоки регистрируют одни и те же жанры одновременно
+                    for (int i = 0; i < UNKNOWN_GENRES; i++) {
+                        positions.add(GenreDictionary.positionOf(FIRST_UNKNOWN_GENRE + i));
+                    }
+                    return positions;
+                }));
+            }
+            start.countDown();
+
+            List<Integer> expected = results.get(0).get();
+            for (Future<List<Integer>> result : results) {
+                assertEquals(expected, result.get());
+            }
+
+            Set<Integer> assigned = new HashSet<>();
+            for (int position : expected) {
+                if (position >= 0) {
+                    assertTrue(position < 63);
+                    assertTrue("position assigned twice: " + position, assigned.add(position));
+                }
+            }
+            // Жанров больше, чем осталось места: последние не помещаются
+            assertEquals(-1, (int) expected.get(UNKNOWN_GENRES - 1));
+            assertEquals(-1, GenreDictionary.positionOf(FIRST_UNKNOWN_GENRE + UNKNOWN_GENRES));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void genresOutsideDictionaryMatchByList() {
+        // Заполняет словарь, если другие тесты этого еще не сделали
+        for (int i = 0; i < UNKNOWN_GENRES; i++) {
+            GenreDictionary.positionOf(FIRST_UNKNOWN_GENRE + i);
+        }
+        int overflowA = FIRST_UNKNOWN_GENRE + UNKNOWN_GENRES + 1;
+        int overflowB = FIRST_UNKNOWN_GENRE + UNKNOWN_GENRES + 2;
+        assertEquals(GenreDictionary.OVERFLOW_BIT, GenreDictionary.maskOf(overflowA));
+
+        Movie movie = new Movie();
+        movie.setGenreIds(new ArrayList<>(Arrays.asList(28, overflowA)));
+
+        assertTrue(movie.matchesAnyGenre(Collections.singletonList(overflowA)));
+        assertFalse(movie.matchesAnyGenre(Collections.singletonList(overflowB)));
+        assertTrue(movie.matchesAnyGenre(Arrays.asList(overflowB, 28)));
+        assertNotEquals(0L, movie.getGenreMask() & GenreDictionary.OVERFLOW_BIT);
+    }
+}
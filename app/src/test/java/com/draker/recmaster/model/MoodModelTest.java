@@ -0,0 +1,112 @@
+package com.draker.recmaster.model;
+
+import com.google.gson.JsonParseException;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Модель настроений: разбор JSON, векторы элементов и запросов, проверка соответствия
+ */
+public class MoodModelTest {
+
+    private static final String JSON = "{\"moods\": ["
+            + "{\"id\": \"happy\", \"name\": \"Счастливое\", \"icon\": \"ic_mood_happy\","
+            + " \"movieGenres\": {\"35\": 1.0, \"10751\": 0.5}, \"tvGenres\": {\"35\": 1.0},"
+            + " \"gameGenres\": {\"Casual\": 1.0}},"
+            + "{\"id\": \"sad\", \"name\": \"Грустное\", \"icon\": \"ic_mood_sad\","
+            + " \"movieGenres\": {\" 18 \": 1.0}, \"gameGenres\": {\"rpg\": 0.5}}"
+            + "]}";
+
+    private final MoodModel model = MoodModel.fromJson(new StringReader(JSON));
+
+    @Test
+    public void parsesDefinitions() {
+        assertEquals(2, model.size());
+        assertEquals("happy", model.getMoods().get(0).getId());
+        assertEquals("Грустное", model.getMoods().get(1).getName());
+        assertEquals("ic_mood_sad", model.getMoods().get(1).getIcon());
+    }
+
+    @Test
+    public void queryVectorSelectsMoodIgnoringCase() {
+        assertArrayEquals(new float[]{0f, 1f}, model.queryVector(" SAD "), 0f);
+        assertNull(model.queryVector(""));
+        assertNull(model.queryVector(null));
+        assertNull(model.queryVector("angry"));
+    }
+
+    @Test
+    public void itemVectorsSumGenreWeights() {
+        assertArrayEquals(new float[]{1.5f, 1f}, model.movieVector(Arrays.asList(35, 10751, 18, 28)), 1e-6f);
+        assertArrayEquals(new float[]{1f, 0f}, model.tvShowVector(Collections.singletonList(35)), 0f);
+        assertArrayEquals(new float[]{0f, 0f}, model.tvShowVector(null), 0f);
+
+        Game.Genre casual = new Game.Genre();
+        casual.setName(" casual");
+        Game.Genre rpg = new Game.Genre();
+        rpg.setName("RPG");
+        assertArrayEquals(new float[]{1f, 0.5f}, model.gameVector(Arrays.asList(casual, rpg, null)), 0f);
+    }
+
+    @Test
+    public void matchesRequiresPositiveAffinity() {
+        float[] comedy = model.movieVector(Collections.singletonList(35));
+        float[] action = model.movieVector(Collections.singletonList(28));
+
+        assertTrue(MoodModel.matches(comedy, model.queryVector("happy")));
+        assertFalse(MoodModel.matches(comedy, model.queryVector("sad")));
+        assertFalse(MoodModel.matches(action, model.queryVector("happy")));
+        // Без настроения подходит все
+        assertTrue(MoodModel.matches(action, null));
+    }
+
+    @Test
+    public void vectorsOfDifferentModelsDoNotMatch() {
+        MoodModel single = MoodModel.fromJson(new StringReader(
+                "{\"moods\": [{\"id\": \"happy\", \"movieGenres\": {\"35\": 1.0}}]}"));
+        float[] oldVector = model.movieVector(Collections.singletonList(35));
+
+        assertNotEquals(model.getVersion(), single.getVersion());
+        assertEquals(0f, MoodModel.dot(oldVector, single.queryVector("happy")), 0f);
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void moodWithoutIdIsRejected() {
+        MoodModel.fromJson(new StringReader("{\"moods\": [{\"name\": \"Без id\"}]}"));
+    }
+
+    @Test
+    public void bundledModelDefinesFilterMoods() throws IOException {
+        // Локальные тесты запускаются из каталога модуля
+        MoodModel bundled;
+        try (Reader reader = new InputStreamReader(
+                Files.newInputStream(Paths.get("src/main/res/raw/mood_model.json")), StandardCharsets.UTF_8)) {
+            bundled = MoodModel.fromJson(reader);
+        }
+
+        for (String mood : new String[]{RecommendationFilter.MOOD_HAPPY, RecommendationFilter.MOOD_SAD,
+                RecommendationFilter.MOOD_EXCITED, RecommendationFilter.MOOD_RELAXED}) {
+            assertNotNull(mood, bundled.queryVector(mood));
+        }
+        assertTrue(MoodModel.matches(bundled.movieVector(Collections.singletonList(35)),
+                bundled.queryVector(RecommendationFilter.MOOD_HAPPY)));
+    }
+}
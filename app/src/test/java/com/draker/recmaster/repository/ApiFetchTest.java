@@ -0,0 +1,179 @@
+package com.draker.recmaster.repository;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Call;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.GET;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Конвейер загрузки: кэш в памяти, декодирование, сохранение и ошибки API и сети
+ */
+public class ApiFetchTest {
+
+    private static final String TAG = "ApiFetchTest";
+    private static final String ERROR = "Ошибка загрузки фильмов";
+    private static final String NETWORK_ERROR = "Ошибка сети при загрузке фильмов";
+
+    static final class Page {
+        List<Integer> results;
+    }
+
+    interface PageApi {
+        @GET("movies")
+        Call<Page> movies();
+    }
+
+    @Rule
+    public InstantTaskExecutorRule instantExecutor = new InstantTaskExecutorRule();
+
+    private MockWebServer server;
+    private PageApi api;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(PageApi.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void decodedValueIsPersistedAndReturned() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"results\": [3, 1, 2]}"));
+        List<List<Integer>> saved = new ArrayList<>();
+
+        ApiFetch<Page, List<Integer>> fetch = fetch().persist(saved::add);
+        CompletableFuture<List<Integer>> future = fetch.start();
+
+        assertEquals(Arrays.asList(3, 1, 2), get(future));
+        assertEquals(Arrays.asList(Arrays.asList(3, 1, 2)), saved);
+        // Повторный запуск возвращает тот же результат без запроса
+        assertSame(future, fetch.start());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void cachedValueSkipsRequest() throws Exception {
+        List<Integer> cached = Arrays.asList(7, 8);
+
+        assertSame(cached, get(fetch().cached(() -> cached).start()));
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void httpErrorCarriesCodeAndBody() {
+        server.enqueue(new MockResponse().setResponseCode(404).setBody("not found"));
+
+        ApiException error = failure(fetch().start());
+        assertEquals(404, error.getCode());
+        assertEquals(ERROR + ": 404 - not found", error.getMessage());
+    }
+
+    @Test
+    public void decodeErrorFailsButPersistErrorDoesNot() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"results\": [1]}"));
+        ApiFetch<Page, List<Integer>> broken = ApiFetch.<Page, List<Integer>>of(TAG, "movies", api.movies(), page -> {
+            throw new IllegalStateException("bad page");
+        }).errors(ERROR, NETWORK_ERROR);
+        ApiException error = failure(broken.start());
+        assertEquals(200, error.getCode());
+        assertEquals(ERROR + ": bad page", error.getMessage());
+
+        server.enqueue(new MockResponse().setBody("{\"results\": [1]}"));
+        ApiFetch<Page, List<Integer>> unsaved = fetch().persist(value -> {
+            throw new IllegalStateException("disk full");
+        });
+        assertEquals(Arrays.asList(1), get(unsaved.start()));
+    }
+
+    @Test
+    public void networkFailureHasNetworkCode() {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+
+        ApiException error = failure(fetch().start());
+        assertEquals(ApiException.NETWORK_ERROR, error.getCode());
+        assertTrue(error.getMessage(), error.getMessage().startsWith(NETWORK_ERROR + ": "));
+    }
+
+    @Test
+    public void intoPublishesDataOrError() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"results\": [5]}"));
+        MutableLiveData<List<Integer>> data = new MutableLiveData<>();
+        MutableLiveData<String> error = new MutableLiveData<>();
+        fetch().into(data, error);
+        assertEquals(Arrays.asList(5), await(data));
+        assertNull(error.getValue());
+
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("boom"));
+        MutableLiveData<List<Integer>> noData = new MutableLiveData<>();
+        fetch().into(noData, error);
+        assertEquals(ERROR + ": 500 - boom", await(error));
+        assertNull(noData.getValue());
+    }
+
+    private ApiFetch<Page, List<Integer>> fetch() {
+        return ApiFetch.<Page, List<Integer>>of(TAG, "movies", api.movies(), page -> page.results)
+                .errors(ERROR, NETWORK_ERROR);
+    }
+
+    private static <V> V get(CompletableFuture<V> future) throws Exception {
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+    private static ApiException failure(CompletableFuture<?> future) {
+        try {
+            get(future);
+        } catch (ExecutionException e) {
+            return (ApiException) e.getCause();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+        fail("fetch did not fail");
+        return null;
+    }
+
+    /**
+     * Результат публикуется из потока OkHttp после завершения future
+     */
+    private static <V> V await(LiveData<V> liveData) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (liveData.getValue() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return liveData.getValue();
+    }
+}
@@ -0,0 +1,204 @@
+package com.draker.recmaster.repository;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.MutableLiveData;
+
+import com.draker.recmaster.api.RequestPriority;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Упреждающая загрузка страниц: порядок, приоритеты, конец списка, ошибки и сброс
+ */
+public class PagePrefetcherTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Rule
+    public InstantTaskExecutorRule instantExecutor = new InstantTaskExecutorRule();
+
+    private final FakeSource source = new FakeSource();
+    private final PagePrefetcher<Integer> prefetcher = new PagePrefetcher<>(null, 1, source);
+
+    @Test
+    public void startLoadsFirstPageAndOneAhead() {
+        prefetcher.start();
+        prefetcher.start();
+
+        assertEquals(Arrays.asList(1, 2), source.pages());
+        assertEquals(RequestPriority.INTERACTIVE, source.requests.get(0).priority);
+        assertTrue(prefetcher.isLoading().getValue());
+    }
+
+    @Test
+    public void pagesArePublishedInOrder() {
+        prefetcher.start();
+        source.requests.get(1).succeed(page(2));
+        assertNull(prefetcher.getItems().getValue());
+
+        source.requests.get(0).succeed(page(1));
+        assertEquals(concat(page(1), page(2)), prefetcher.getItems().getValue());
+        assertFalse(prefetcher.isLoading().getValue());
+    }
+
+    @Test
+    public void scrollingPrefetchesNextPage() {
+        prefetcher.start();
+        source.requests.get(0).succeed(page(1));
+        assertFalse(prefetcher.isLoading().getValue());
+
+        // Пользователь дошел до конца списка раньше ответа
+        prefetcher.onScrolled(PAGE_SIZE - 1);
+        assertTrue(prefetcher.isLoading().getValue());
+        source.requests.get(1).succeed(page(2));
+        assertFalse(prefetcher.isLoading().getValue());
+        assertEquals(2, source.requests.size());
+
+        // Видна вторая страница: следующие загружаются заранее (при быстрой прокрутке - несколько), без повторов
+        prefetcher.onScrolled(PAGE_SIZE + 5);
+        prefetcher.onScrolled(PAGE_SIZE + 6);
+        List<Integer> pages = source.pages();
+        assertEquals(Arrays.asList(1, 2, 3), pages.subList(0, 3));
+        assertEquals(pages.size(), new HashSet<>(pages).size());
+        for (FakeSource.Request request : source.requests.subList(2, pages.size())) {
+            assertEquals(RequestPriority.PREFETCH, request.priority);
+        }
+    }
+
+    @Test
+    public void emptyPageEndsList() {
+        prefetcher.start();
+        source.requests.get(0).succeed(page(1));
+        source.requests.get(1).succeed(Collections.emptyList());
+
+        prefetcher.onScrolled(PAGE_SIZE - 1);
+        prefetcher.retry();
+        assertEquals(2, source.requests.size());
+        assertEquals(page(1), prefetcher.getItems().getValue());
+        assertFalse(prefetcher.isLoading().getValue());
+    }
+
+    @Test
+    public void failedFirstPageIsShownAndRetried() {
+        prefetcher.start();
+        source.requests.get(0).fail("Ошибка сети");
+        assertEquals("Ошибка сети", prefetcher.getError().getValue());
+        source.requests.get(1).succeed(page(2));
+
+        // До истечения задержки прокрутка не повторяет запрос, retry() - повторяет сразу;
+        // уже загруженная вторая страница не запрашивается
+        prefetcher.onScrolled(0);
+        assertEquals(2, source.requests.size());
+        prefetcher.retry();
+        assertEquals(Arrays.asList(1, 2, 1), source.pages());
+
+        source.last().succeed(page(1));
+        assertEquals(concat(page(1), page(2)), prefetcher.getItems().getValue());
+    }
+
+    @Test
+    public void prefetchErrorIsHiddenWhileItemsRemain() {
+        prefetcher.start();
+        source.requests.get(0).succeed(page(1));
+        source.requests.get(1).fail("Ошибка сети");
+
+        assertNull(prefetcher.getError().getValue());
+        assertEquals(page(1), prefetcher.getItems().getValue());
+    }
+
+    @Test
+    public void resetDropsResponsesOfPreviousGeneration() {
+        prefetcher.start();
+        FakeSource.Request stale = source.requests.get(0);
+
+        prefetcher.reset();
+        assertEquals(Arrays.asList(1, 2, 1, 2), source.pages());
+
+        stale.succeed(page(9));
+        assertTrue(prefetcher.getItems().getValue().isEmpty());
+        source.requests.get(2).succeed(page(1));
+        assertEquals(page(1), prefetcher.getItems().getValue());
+    }
+
+    @Test
+    public void pagesStartFromFirstPage() {
+        // Google Books считает страницы с нуля
+        PagePrefetcher<Integer> books = new PagePrefetcher<>(null, 0, source);
+        books.start();
+
+        assertEquals(Arrays.asList(0, 1), source.pages());
+    }
+
+    private static List<Integer> concat(List<Integer> first, List<Integer> second) {
+        List<Integer> items = new ArrayList<>(first);
+        items.addAll(second);
+        return items;
+    }
+
+    private static List<Integer> page(int number) {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            items.add(number * 100 + i);
+        }
+        return items;
+    }
+
+    /**
+     * Источник, запоминающий запросы; ответы задаются тестом
+     */
+    private static final class FakeSource implements PagePrefetcher.PageSource<Integer> {
+        final List<Request> requests = new ArrayList<>();
+
+        @Override
+        public void load(int page, MutableLiveData<List<Integer>> pageLiveData, MutableLiveData<String> errorLiveData) {
+            requests.add(new Request(page, RequestPriority.current(), pageLiveData, errorLiveData));
+        }
+
+        List<Integer> pages() {
+            List<Integer> pages = new ArrayList<>();
+            for (Request request : requests) {
+                pages.add(request.page);
+            }
+            return pages;
+        }
+
+        Request last() {
+            return requests.get(requests.size() - 1);
+        }
+
+        static final class Request {
+            final int page;
+            final RequestPriority priority;
+            final MutableLiveData<List<Integer>> pageLiveData;
+            final MutableLiveData<String> errorLiveData;
+
+            Request(int page, RequestPriority priority,
+                    MutableLiveData<List<Integer>> pageLiveData, MutableLiveData<String> errorLiveData) {
+                this.page = page;
+                this.priority = priority;
+                this.pageLiveData = pageLiveData;
+                this.errorLiveData = errorLiveData;
+            }
+
+            void succeed(List<Integer> items) {
+                pageLiveData.setValue(items);
+            }
+
+            void fail(String error) {
+                errorLiveData.setValue(error);
+            }
+        }
+    }
+}
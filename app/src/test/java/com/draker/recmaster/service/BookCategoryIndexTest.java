@@ -0,0 +1,101 @@
+package com.draker.recmaster.service;
+
+import com.draker.recmaster.model.Book;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Поиск книг по подстроке категории через триграммы совпадает с проверкой каждой книги
+ */
+public class BookCategoryIndexTest {
+
+    private static final String[] CATEGORIES = {
+            "Fiction / Science Fiction", "Fiction / Fantasy", "History", "Science", "Juvenile Fiction",
+            "Computers / Programming", "Художественная литература", "Фантастика", "Art"
+    };
+    private static final String[] QUERIES = {
+            "fiction", "Science", "fan", "art", "ion", "ar", "tion / sc", "литер", "фантаст", "cooking", "a"
+    };
+
+    @Test
+    public void findsBooksBySubstringOfAnyCategory() {
+        Book scifi = book("1", "Fiction / Science Fiction");
+        Book history = book("2", "History");
+        Book science = book("3", "Science", "History");
+        BookCategoryIndex index = new BookCategoryIndex(Arrays.asList(scifi, null, history, science));
+
+        assertEquals(Arrays.asList(scifi, science), index.find(names("SCIENCE")));
+        assertEquals(Arrays.asList(history, science), index.find(names("stor")));
+        assertEquals(Arrays.asList(scifi, history, science), index.find(names("science", "history")));
+    }
+
+    @Test
+    public void gramsInWrongOrderDoNotMatch() {
+        // Все триграммы запроса есть в категории, но не подряд
+        BookCategoryIndex index = new BookCategoryIndex(Collections.singletonList(book("1", "abcd bcde")));
+
+        assertTrue(index.find(names("abcde")).isEmpty());
+        assertEquals(1, index.find(names("bcde")).size());
+    }
+
+    @Test
+    public void shortQueriesAndEmptySelection() {
+        Book art = book("1", "Art");
+        Book history = book("2", "History");
+        BookCategoryIndex index = new BookCategoryIndex(Arrays.asList(art, history));
+
+        assertEquals(Collections.singletonList(art), index.find(names("ar")));
+        assertEquals(Arrays.asList(art, history), index.find(Collections.<String>emptyList()));
+        assertEquals(Arrays.asList(art, history), index.find(null));
+        assertTrue(BookCategoryIndex.EMPTY.find(names("art")).isEmpty());
+    }
+
+    @Test
+    public void indexMatchesLinearScanOnRandomCatalogs() {
+        Random random = new Random(5);
+        for (int round = 0; round < 30; round++) {
+            List<Book> books = new ArrayList<>();
+            for (int id = 0; id < 60; id++) {
+                List<String> categories = new ArrayList<>();
+                for (String category : CATEGORIES) {
+                    if (random.nextInt(4) == 0) {
+                        categories.add(category);
+                    }
+                }
+                books.add(book(String.valueOf(id), categories.toArray(new String[0])));
+            }
+            BookCategoryIndex index = new BookCategoryIndex(books);
+
+            for (int query = 0; query < 20; query++) {
+                List<String> selected = new ArrayList<>();
+                for (String value : QUERIES) {
+                    if (random.nextInt(5) == 0) {
+                        selected.add(value);
+                    }
+                }
+                assertEquals("selected " + selected,
+                        RecommendationPlan.forBooks(selected).filter(books), index.find(selected));
+            }
+        }
+    }
+
+    private static List<String> names(String... names) {
+        return Arrays.asList(names);
+    }
+
+    private static Book book(String id, String... categories) {
+        Book book = new Book();
+        book.setId(id);
+        book.setCategories(new ArrayList<>(Arrays.asList(categories)));
+        return book;
+    }
+}
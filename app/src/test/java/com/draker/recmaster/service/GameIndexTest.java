@@ -0,0 +1,110 @@
+package com.draker.recmaster.service;
+
+import com.draker.recmaster.model.Game;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Отбор игр по индексу жанров и платформ совпадает с проверкой каждой игры планом
+ */
+public class GameIndexTest {
+
+    private static final String[] GENRES = {"Action", "RPG", "Puzzle", "Indie", "Racing"};
+    private static final String[] PLATFORMS = {"PC", "PlayStation 5", "Xbox One", "Nintendo Switch"};
+
+    @Test
+    public void findsGamesWithAnyGenreAndAnyPlatform() {
+        Game shooter = game(1, names("Action"), names("PC", "Xbox One"));
+        Game rpg = game(2, names("RPG", "Action"), names("PlayStation 5"));
+        Game puzzle = game(3, names("Puzzle"), names("PC"));
+        GameIndex index = new GameIndex(Arrays.asList(shooter, null, rpg, puzzle));
+
+        assertEquals(Arrays.asList(shooter, rpg), index.find(names("Action"), null));
+        assertEquals(Collections.singletonList(shooter), index.find(names("Action"), names("PC")));
+        assertEquals(Arrays.asList(shooter, puzzle), index.find(names("Action", "Puzzle"), names("PC")));
+        assertEquals(Arrays.asList(shooter, rpg, puzzle), index.find(null, Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void namesAreNormalized() {
+        Game game = game(1, names("Action"), names("PC"));
+        GameIndex index = new GameIndex(Collections.singletonList(game));
+
+        assertEquals(Collections.singletonList(game), index.find(names("  action "), names("pc")));
+    }
+
+    @Test
+    public void unknownTagsMatchNothing() {
+        GameIndex index = new GameIndex(Collections.singletonList(game(1, names("Action"), names("PC"))));
+
+        assertTrue(index.find(names("Visual Novel"), null).isEmpty());
+        assertTrue(index.find(null, names("Dreamcast")).isEmpty());
+        assertTrue(GameIndex.EMPTY.find(names("Action"), null).isEmpty());
+    }
+
+    @Test
+    public void indexMatchesPlanOnRandomCatalogs() {
+        Random random = new Random(11);
+        for (int round = 0; round < 30; round++) {
+            List<Game> games = new ArrayList<>();
+            for (int id = 0; id < 80; id++) {
+                games.add(game(id, pick(random, GENRES), pick(random, PLATFORMS)));
+            }
+            GameIndex index = new GameIndex(games);
+
+            for (int query = 0; query < 20; query++) {
+                List<String> genres = pick(random, GENRES);
+                List<String> platforms = pick(random, PLATFORMS);
+                assertEquals("genres " + genres + ", platforms " + platforms,
+                        RecommendationPlan.forGames(genres, platforms).filter(games),
+                        index.find(genres, platforms));
+            }
+        }
+    }
+
+    private static List<String> pick(Random random, String[] values) {
+        List<String> picked = new ArrayList<>();
+        for (String value : values) {
+            if (random.nextInt(3) == 0) {
+                picked.add(value);
+            }
+        }
+        return picked;
+    }
+
+    private static List<String> names(String... names) {
+        return Arrays.asList(names);
+    }
+
+    private static Game game(int id, List<String> genreNames, List<String> platformNames) {
+        Game game = new Game();
+        game.setId(id);
+        List<Game.Genre> genres = new ArrayList<>();
+        for (String name : genreNames) {
+            Game.Genre genre = new Game.Genre();
+            genre.setName(name);
+            genres.add(genre);
+        }
+        game.setGenres(genres);
+
+        List<Game.Platform> platforms = new ArrayList<>();
+        for (String name : platformNames) {
+            Game.Platform.PlatformDetails details = new Game.Platform.PlatformDetails();
+            details.setName(name);
+            Game.Platform platform = new Game.Platform();
+            platform.setPlatform(details);
+            platforms.add(platform);
+        }
+        game.setPlatforms(platforms);
+        return game;
+    }
+}
@@ -0,0 +1,312 @@
+package com.draker.recmaster.service;
+
+import com.draker.recmaster.model.Movie;
+import com.draker.recmaster.model.RecommendationFilter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Инкрементальный отбор фильмов: ограничение пула, обновление кандидатов и вытеснение.
+ * Случайные последовательности изменений сверяются с полным повторным отбором
+ */
+public class MovieRecommendationEngineTest {
+
+    @Test
+    public void replacedCandidateIsRecheckedNotDuplicated() {
+        MovieRecommendationEngine engine = new MovieRecommendationEngine(10);
+        engine.setFilter(filter(0, 28));
+        Movie drama = movie(1, 0, 18);
+        assertEquals(1, engine.addCandidates(Collections.singletonList(drama)));
+        assertTrue(engine.getMatches().isEmpty());
+
+        // Та же запись из новой страницы с другими жанрами
+        Movie action = movie(1, 0, 28);
+        assertEquals(0, engine.addCandidates(Collections.singletonList(action)));
+
+        assertEquals(1, engine.getPoolSize());
+        assertEquals(1, engine.getMatches().size());
+        assertSame(action, engine.getMatches().get(0));
+    }
+
+    @Test
+    public void poolIsCappedAndOldestNonMatchingAreEvictedFirst() {
+        MovieRecommendationEngine engine = new MovieRecommendationEngine(3);
+        engine.setFilter(filter(0, 28));
+        engine.addCandidates(Arrays.asList(movie(1, 0, 28), movie(2, 0, 35), movie(3, 0, 28)));
+
+        engine.addCandidates(Collections.singletonList(movie(4, 0, 35)));
+        assertEquals(3, engine.getPoolSize());
+        assertEquals(Arrays.asList(1, 3), ids(engine.getMatches()));
+
+        // Фильм 4 добавлен позже 1 и 3, но вытесняется он: только он не проходит фильтр
+        engine.addCandidates(Collections.singletonList(movie(5, 0, 28)));
+        assertEquals(3, engine.getPoolSize());
+        engine.setFilter(filter(0));
+        assertEquals(Arrays.asList(1, 3, 5), sorted(ids(engine.getMatches())));
+    }
+
+    @Test
+    public void matchingCandidatesAreEvictedOldestFirstWhenNothingElseIsLeft() {
+        MovieRecommendationEngine engine = new MovieRecommendationEngine(2);
+        engine.addCandidates(Arrays.asList(movie(1, 0, 28), movie(2, 0, 28)));
+        // Повторное добавление переносит фильм 1 в конец порядка вытеснения
+        engine.addCandidates(Collections.singletonList(movie(1, 0, 28)));
+
+        engine.addCandidates(Collections.singletonList(movie(3, 0, 28)));
+
+        assertEquals(2, engine.getPoolSize());
+        assertEquals(Arrays.asList(1, 3), sorted(ids(engine.getMatches())));
+    }
+
+    @Test
+    public void genreSelectionWidensAndNarrows() {
+        MovieRecommendationEngine engine = new MovieRecommendationEngine(10);
+        engine.addCandidates(Arrays.asList(movie(1, 0, 28), movie(2, 0, 35), movie(3, 0, 28, 35), movie(4, 0)));
+
+        engine.setFilter(filter(0, 28));
+        assertEquals(Arrays.asList(1, 3), ids(engine.getMatches()));
+        engine.setFilter(filter(0, 28, 35));
+        assertEquals(Arrays.asList(1, 2, 3), ids(engine.getMatches()));
+        engine.setFilter(filter(0, 35));
+        assertEquals(Arrays.asList(2, 3), ids(engine.getMatches()));
+        engine.setFilter(filter(0, 18));
+        assertTrue(engine.getMatches().isEmpty());
+        engine.setFilter(filter(0));
+        assertEquals(Arrays.asList(1, 2, 3, 4), ids(engine.getMatches()));
+    }
+
+    @Test
+    public void evictionLeavesNoStaleMatches() {
+        MovieRecommendationEngine engine = new MovieRecommendationEngine(2);
+        engine.setFilter(filter(0, 28));
+        engine.addCandidates(Collections.singletonList(movie(1, 0, 28)));
+        // Вытеснение собирает совпадения в тот же буфер, что и getMatches
+        engine.addCandidates(Arrays.asList(movie(2, 0, 35), movie(3, 0, 35)));
+
+        assertEquals(Collections.singletonList(1), ids(engine.getMatches()));
+        engine.setFilter(filter(0, 35));
+        assertEquals(Collections.singletonList(3), ids(engine.getMatches()));
+    }
+
+    @Test
+    public void freedPositionIsReused() {
+        MovieRecommendationEngine engine = new MovieRecommendationEngine(3);
+        engine.setFilter(filter(0, 28));
+        engine.addCandidates(Arrays.asList(movie(1, 0, 28), movie(2, 0, 35), movie(3, 0, 28)));
+        // Фильм 4 занимает новую позицию, затем вытесняется фильм 2
+        engine.addCandidates(Collections.singletonList(movie(4, 0, 28)));
+        assertEquals(Arrays.asList(1, 3, 4), ids(engine.getMatches()));
+
+        // Фильм 5 занимает освободившуюся позицию фильма 2, поэтому идет перед фильмом 3
+        engine.addCandidates(Collections.singletonList(movie(5, 0, 28)));
+        assertEquals(Arrays.asList(5, 3, 4), ids(engine.getMatches()));
+    }
+
+    @Test
+    public void loadedRuntimeSurvivesReplacementWithoutRuntime() {
+        MovieRecommendationEngine engine = new MovieRecommendationEngine(10);
+        engine.setFilter(filter(RecommendationFilter.DURATION_MEDIUM));
+        Movie fromPage = movie(1, 0, 28);
+        engine.addCandidates(Arrays.asList(fromPage, movie(2, 150, 35)));
+        assertEquals(Arrays.asList(1), ids(engine.getMatches()));
+
+        Map<Integer, Integer> runtimes = new HashMap<>();
+        runtimes.put(1, 150);
+        assertEquals(1, engine.updateRuntimes(runtimes));
+        assertTrue(engine.getMatches().isEmpty());
+        // Объект фильма не изменяется: продолжительность хранится в движке
+        assertEquals(0, fromPage.getRuntime());
+        assertEquals(150, engine.getRuntime(fromPage));
+
+        // Та же страница пришла снова без продолжительности
+        Movie refreshed = movie(1, 0, 28);
+        Movie refreshedOther = movie(2, 0, 35);
+        engine.addCandidates(Arrays.asList(refreshed, refreshedOther));
+        assertEquals(150, engine.getRuntime(refreshed));
+        assertEquals(150, engine.getRuntime(refreshedOther));
+        assertTrue(engine.getMatches().isEmpty());
+
+        // Новая известная продолжительность заменяет сохраненную
+        engine.addCandidates(Collections.singletonList(movie(1, 100, 28)));
+        assertEquals(Collections.singletonList(1), ids(engine.getMatches()));
+    }
+
+    @Test
+    public void randomChangesMatchFullRefilter() {
+        int[] genres = {28, 35, 18, 12, 910_001};
+        int[] runtimes = {0, 0, 85, 100, 130, Movie.RUNTIME_UNKNOWN};
+        int[] durations = {RecommendationFilter.DURATION_ANY, RecommendationFilter.DURATION_SHORT,
+                RecommendationFilter.DURATION_MEDIUM};
+
+        for (long seed = 1; seed <= 40; seed++) {
+            Random random = new Random(seed);
+            MovieRecommendationEngine engine = new MovieRecommendationEngine(15);
+            NaiveEngine naive = new NaiveEngine(15);
+
+            for (int step = 0; step < 200; step++) {
+                int operation = random.nextInt(100);
+                String description;
+                if (operation < 50) {
+                    List<Movie> page = new ArrayList<>();
+                    for (int i = 1 + random.nextInt(6); i > 0; i--) {
+                        Integer[] movieGenres = new Integer[random.nextInt(4)];
+                        for (int g = 0; g < movieGenres.length; g++) {
+                            movieGenres[g] = genres[random.nextInt(genres.length)];
+                        }
+                        page.add(movie(random.nextInt(40), runtimes[random.nextInt(runtimes.length)], movieGenres));
+                    }
+                    engine.addCandidates(page);
+                    naive.addCandidates(page);
+                    description = "add " + ids(page);
+                } else if (operation < 75) {
+                    Integer[] selected = new Integer[random.nextInt(4)];
+                    for (int g = 0; g < selected.length; g++) {
+                        selected[g] = genres[random.nextInt(genres.length)];
+                    }
+                    RecommendationFilter filter = filter(durations[random.nextInt(durations.length)], selected);
+                    engine.setFilter(filter);
+                    naive.setFilter(filter);
+                    description = "filter " + filter;
+                } else {
+                    Map<Integer, Integer> loaded = new HashMap<>();
+                    for (int i = 1 + random.nextInt(4); i > 0; i--) {
+                        loaded.put(random.nextInt(40), runtimes[2 + random.nextInt(runtimes.length - 2)]);
+                    }
+                    engine.updateRuntimes(loaded);
+                    naive.updateRuntimes(loaded);
+                    description = "runtimes " + loaded;
+                }
+
+                String context = "seed " + seed + ", step " + step + " (" + description + ")";
+                assertEquals(context, naive.movies.size(), engine.getPoolSize());
+                List<Movie> expected = naive.getMatches();
+                List<Movie> actual = engine.getMatches();
+                assertEquals(context, sorted(ids(expected)), sorted(ids(actual)));
+                for (Movie movie : actual) {
+                    assertSame(context, naive.movies.get(movie.getId()), movie);
+                }
+                for (Movie movie : naive.movies.values()) {
+                    assertEquals(context, (int) naive.runtimes.get(movie.getId()), engine.getRuntime(movie));
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void poolSizeMustBePositive() {
+        new MovieRecommendationEngine(0);
+    }
+
+    /**
+     * Эталон: хранит кандидатов в порядке вытеснения и каждый раз отбирает весь пул заново
+     */
+    private static final class NaiveEngine {
+        final int maxPoolSize;
+        final Map<Integer, Movie> movies = new LinkedHashMap<>();
+        final Map<Integer, Integer> runtimes = new HashMap<>();
+        List<Integer> genreIds = new ArrayList<>();
+        int maxDuration;
+
+        NaiveEngine(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+
+        void addCandidates(List<Movie> page) {
+            for (Movie movie : page) {
+                Movie previous = movies.remove(movie.getId());
+                int runtime = movie.getRuntime();
+                if (previous != null && runtime == 0) {
+                    runtime = runtimes.get(movie.getId());
+                }
+                movies.put(movie.getId(), movie);
+                runtimes.put(movie.getId(), runtime);
+            }
+
+            int excess = movies.size() - maxPoolSize;
+            for (int pass = 0; pass < 2 && excess > 0; pass++) {
+                Iterator<Movie> iterator = movies.values().iterator();
+                while (excess > 0 && iterator.hasNext()) {
+                    Movie movie = iterator.next();
+                    if (pass == 0 && matches(movie)) {
+                        continue;
+                    }
+                    iterator.remove();
+                    runtimes.remove(movie.getId());
+                    excess--;
+                }
+            }
+        }
+
+        void updateRuntimes(Map<Integer, Integer> loaded) {
+            for (Map.Entry<Integer, Integer> entry : loaded.entrySet()) {
+                if (movies.containsKey(entry.getKey())) {
+                    runtimes.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        void setFilter(RecommendationFilter filter) {
+            genreIds = new ArrayList<>(filter.getSelectedGenreIds());
+            maxDuration = filter.getMaxDuration();
+        }
+
+        List<Movie> getMatches() {
+            List<Movie> result = new ArrayList<>();
+            for (Movie movie : movies.values()) {
+                if (matches(movie)) {
+                    result.add(movie);
+                }
+            }
+            return result;
+        }
+
+        private boolean matches(Movie movie) {
+            boolean genreMatches = genreIds.isEmpty();
+            for (Integer genreId : genreIds) {
+                genreMatches |= movie.getGenreIds().contains(genreId);
+            }
+            int runtime = runtimes.get(movie.getId());
+            return genreMatches && (maxDuration <= 0 || runtime <= 0 || runtime <= maxDuration);
+        }
+    }
+
+    static Movie movie(int id, int runtime, Integer... genreIds) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        movie.setRuntime(runtime);
+        movie.setGenreIds(new ArrayList<>(Arrays.asList(genreIds)));
+        return movie;
+    }
+
+    static RecommendationFilter filter(int maxDuration, Integer... genreIds) {
+        return new RecommendationFilter(RecommendationFilter.MOOD_ANY, maxDuration, Arrays.asList(genreIds));
+    }
+
+    static List<Integer> ids(List<Movie> movies) {
+        List<Integer> ids = new ArrayList<>(movies.size());
+        for (Movie movie : movies) {
+            ids.add(movie.getId());
+        }
+        return ids;
+    }
+
+    static List<Integer> sorted(List<Integer> values) {
+        List<Integer> copy = new ArrayList<>(values);
+        Collections.sort(copy);
+        return copy;
+    }
+}
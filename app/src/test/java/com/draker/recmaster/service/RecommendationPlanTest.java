@@ -0,0 +1,128 @@
+package com.draker.recmaster.service;
+
+import com.draker.recmaster.model.Movie;
+import com.draker.recmaster.model.RecommendationFilter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Порядок проверки условий плана и совпадение его результата с {@link RecommendationFilter}
+ */
+public class RecommendationPlanTest {
+
+    @Test
+    public void selectiveConditionsAreCheckedFirst() {
+        List<String> checked = new ArrayList<>();
+        RecommendationPlan<Integer> plan = new RecommendationPlan.Builder<Integer>()
+                .add(recording(checked, "duration", true), 0.9f)
+                .add(recording(checked, "genre", true), 0.15f)
+                .add(recording(checked, "mood", true), 0.3f)
+                .build();
+
+        assertTrue(plan.test(1));
+        assertEquals(Arrays.asList("genre", "mood", "duration"), checked);
+    }
+
+    @Test
+    public void checkStopsAtFirstMismatch() {
+        List<String> checked = new ArrayList<>();
+        RecommendationPlan<Integer> plan = new RecommendationPlan.Builder<Integer>()
+                .add(recording(checked, "duration", true), 0.9f)
+                .add(recording(checked, "genre", false), 0.15f)
+                .add(recording(checked, "mood", true), 0.3f)
+                .build();
+
+        assertFalse(plan.test(1));
+        assertEquals(Collections.singletonList("genre"), checked);
+    }
+
+    @Test
+    public void equalPassRatesKeepInsertionOrder() {
+        List<String> checked = new ArrayList<>();
+        RecommendationPlan<Integer> plan = new RecommendationPlan.Builder<Integer>()
+                .add(recording(checked, "first", true), 0.5f)
+                .add(recording(checked, "second", true), 0.5f)
+                .add(recording(checked, "third", true), 0.5f)
+                .build();
+
+        plan.test(1);
+        assertEquals(Arrays.asList("first", "second", "third"), checked);
+    }
+
+    @Test
+    public void filterIntoClearsBufferAndSkipsNulls() {
+        RecommendationPlan<Integer> plan = new RecommendationPlan.Builder<Integer>()
+                .add(value -> value % 2 == 0, 0.5f)
+                .build();
+        List<Integer> out = new ArrayList<>(Arrays.asList(99, 98));
+
+        plan.filterInto(Arrays.asList(1, 2, null, 4, 5), out);
+        assertEquals(Arrays.asList(2, 4), out);
+
+        plan.filterInto(null, out);
+        assertTrue(out.isEmpty());
+    }
+
+    @Test
+    public void emptyFilterCompilesToEmptyPlan() {
+        RecommendationPlan<Movie> plan = RecommendationPlan.forMovies(new RecommendationFilter());
+
+        assertTrue(plan.isEmpty());
+        assertTrue(plan.test(movie(1, 0)));
+    }
+
+    @Test
+    public void moviePlanMatchesFilter() {
+        List<Movie> movies = Arrays.asList(
+                movie(1, 95, 28),
+                movie(2, 150, 28, 12),
+                movie(3, 0, 35),
+                movie(4, Movie.RUNTIME_UNKNOWN, 12),
+                movie(5, 110),
+                movie(6, 80, 18, 28),
+                movie(7, 130, 99));
+
+        List<List<Integer>> genreSelections = Arrays.asList(
+                Collections.<Integer>emptyList(),
+                Collections.singletonList(28),
+                Arrays.asList(12, 35),
+                Collections.singletonList(10402));
+        int[] durations = {
+                RecommendationFilter.DURATION_ANY,
+                RecommendationFilter.DURATION_SHORT,
+                RecommendationFilter.DURATION_MEDIUM
+        };
+        for (List<Integer> genreIds : genreSelections) {
+            for (int duration : durations) {
+                RecommendationFilter filter = new RecommendationFilter(RecommendationFilter.MOOD_ANY, duration, genreIds);
+                assertEquals("genres " + genreIds + ", duration " + duration,
+                        filter.filter(movies), RecommendationPlan.forMovies(filter).filter(movies));
+            }
+        }
+    }
+
+    private static Predicate<Integer> recording(List<String> checked, String name, boolean result) {
+        return value -> {
+            checked.add(name);
+            return result;
+        };
+    }
+
+    private static Movie movie(int id, int runtime, Integer... genreIds) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        movie.setRuntime(runtime);
+        movie.setGenreIds(new ArrayList<>(Arrays.asList(genreIds)));
+        return movie;
+    }
+}
@@ -0,0 +1,123 @@
+package com.draker.recmaster.service;
+
+import com.draker.recmaster.model.Movie;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Отбор лучших K ограниченной кучей совпадает с полной сортировкой, страницы не пересекаются
+ */
+public class RecommendationRankerTest {
+
+    // Оценка - десятки значения, поэтому у разных значений бывают равные оценки; ключ - само значение
+    private static final RecommendationRanker.Scorer<Integer> BY_VALUE = new RecommendationRanker.Scorer<Integer>() {
+        @Override
+        public double score(Integer item) {
+            return item / 10;
+        }
+
+        @Override
+        public long keyOf(Integer item) {
+            return item;
+        }
+    };
+
+    private final RecommendationRanker ranker = new RecommendationRanker(42);
+
+    @Test
+    public void pagesMatchFullSort() {
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            List<Integer> candidates = new ArrayList<>();
+            int size = random.nextInt(60);
+            for (int i = 0; i < size; i++) {
+                candidates.add(random.nextInt(200));
+            }
+            List<Integer> expected = fullSort(candidates);
+
+            int offset = random.nextInt(size + 5);
+            int limit = 1 + random.nextInt(20);
+            List<Integer> page = ranker.rank(candidates, null, BY_VALUE, offset, limit);
+            int from = Math.min(offset, expected.size());
+            int to = Math.min(offset + limit, expected.size());
+            assertEquals("offset " + offset + ", limit " + limit, expected.subList(from, to), page);
+        }
+    }
+
+    @Test
+    public void consecutivePagesCoverRankingOnce() {
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < 95; i++) {
+            candidates.add((i * 37) % 101);
+        }
+
+        List<Integer> pages = new ArrayList<>();
+        for (int offset = 0; offset < candidates.size(); offset += 20) {
+            pages.addAll(ranker.rank(candidates, null, BY_VALUE, offset, 20));
+        }
+        assertEquals(fullSort(candidates), pages);
+    }
+
+    @Test
+    public void planFiltersBeforeRanking() {
+        RecommendationPlan<Integer> evenOnly = new RecommendationPlan.Builder<Integer>()
+                .add(value -> value % 2 == 0, 0.5f)
+                .build();
+        List<Integer> candidates = Arrays.asList(91, 80, 75, 64, null, 52, 33);
+
+        assertEquals(Arrays.asList(80, 64), ranker.rank(candidates, evenOnly, BY_VALUE, 0, 2));
+        assertEquals(Collections.singletonList(52), ranker.rank(candidates, evenOnly, BY_VALUE, 2, 5));
+    }
+
+    @Test
+    public void invalidRangesGiveEmptyPage() {
+        List<Integer> candidates = Arrays.asList(1, 2, 3);
+
+        assertTrue(ranker.rank(candidates, null, BY_VALUE, 3, 10).isEmpty());
+        assertTrue(ranker.rank(candidates, null, BY_VALUE, 0, 0).isEmpty());
+        assertTrue(ranker.rank(candidates, null, BY_VALUE, -1, 10).isEmpty());
+        assertTrue(ranker.rank(null, null, BY_VALUE, 0, 10).isEmpty());
+    }
+
+    @Test
+    public void movieOrderIsStableForSeed() {
+        List<Movie> movies = new ArrayList<>();
+        for (int id = 1; id <= 40; id++) {
+            Movie movie = new Movie();
+            movie.setId(id);
+            // Одинаковые рейтинги: порядок задает добавка для разнообразия
+            movie.setVoteAverage(7f);
+            movie.setVoteCount(100);
+            movies.add(movie);
+        }
+
+        List<Movie> first = new RecommendationRanker(42).rankMovies(movies, null, 0, 10);
+        List<Movie> again = new RecommendationRanker(42).rankMovies(movies, null, 0, 10);
+        Collections.reverse(movies);
+        List<Movie> reordered = new RecommendationRanker(42).rankMovies(movies, null, 0, 10);
+
+        assertEquals(first, again);
+        assertEquals(first, reordered);
+    }
+
+    /**
+     * Эталон: полная сортировка по убыванию оценки, при равенстве меньший ключ раньше
+     */
+    private static List<Integer> fullSort(List<Integer> candidates) {
+        List<Integer> sorted = new ArrayList<>(candidates);
+        sorted.sort((a, b) -> {
+            int byScore = Double.compare(BY_VALUE.score(b), BY_VALUE.score(a));
+            return byScore != 0 ? byScore : Long.compare(BY_VALUE.keyOf(a), BY_VALUE.keyOf(b));
+        });
+        return sorted;
+    }
+}
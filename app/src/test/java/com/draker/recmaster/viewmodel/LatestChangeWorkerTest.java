@@ -0,0 +1,142 @@
+package com.draker.recmaster.viewmodel;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Изменения применяются по порядку и пачками, устаревший результат не публикуется
+ */
+public class LatestChangeWorkerTest {
+
+    private final BlockingQueue<List<Integer>> published = new LinkedBlockingQueue<>();
+    private final AtomicInteger computations = new AtomicInteger();
+    private LatestChangeWorker<List<Integer>, List<Integer>> worker;
+
+    @After
+    public void tearDown() {
+        if (worker != null) {
+            worker.stop();
+        }
+    }
+
+    @Test
+    public void lastResultReflectsAllChangesInOrder() throws InterruptedException {
+        worker = worker(ArrayList::new);
+        for (int i = 1; i <= 5; i++) {
+            int value = i;
+            worker.submit(state -> state.add(value));
+        }
+
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), awaitResult(Arrays.asList(1, 2, 3, 4, 5)));
+    }
+
+    @Test
+    public void changesDuringComputationDiscardItsResult() throws InterruptedException {
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        worker = worker(state -> {
+            if (computations.get() == 1) {
+                computing.countDown();
+                await(release);
+            }
+            return new ArrayList<>(state);
+        });
+
+        worker.submit(state -> state.add(1));
+        assertTrue(computing.await(10, TimeUnit.SECONDS));
+        // Пока идет первый расчет, приходят еще два изменения: их применит один следующий запуск
+        worker.submit(state -> state.add(2));
+        worker.submit(state -> state.add(3));
+        release.countDown();
+
+        assertEquals(Arrays.asList(1, 2, 3), published.poll(10, TimeUnit.SECONDS));
+        assertNull(published.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    public void concurrentSubmittersEndWithLatestState() throws InterruptedException {
+        worker = worker(ArrayList::new);
+        int threads = 4;
+        int changesPerThread = 250;
+        List<Thread> submitters = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < changesPerThread; i++) {
+                    worker.submit(state -> state.add(0));
+                }
+            });
+            submitters.add(thread);
+            thread.start();
+        }
+        for (Thread thread : submitters) {
+            thread.join();
+        }
+
+        // Результаты публикуются только растущими: устаревший не перекрывает новый
+        int lastSize = -1;
+        List<Integer> result;
+        do {
+            result = published.poll(10, TimeUnit.SECONDS);
+            assertTrue("no result with all changes", result != null);
+            assertTrue(result.size() > lastSize);
+            lastSize = result.size();
+        } while (lastSize < threads * changesPerThread);
+        assertEquals(threads * changesPerThread, lastSize);
+    }
+
+    @Test
+    public void stoppedWorkerIgnoresChanges() throws InterruptedException {
+        worker = worker(ArrayList::new);
+        worker.stop();
+        worker.submit(state -> state.add(1));
+
+        assertNull(published.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(0, computations.get());
+    }
+
+    private LatestChangeWorker<List<Integer>, List<Integer>> worker(
+            Function<List<Integer>, List<Integer>> computation) {
+        return new LatestChangeWorker<>(new ArrayList<>(), state -> {
+            computations.incrementAndGet();
+            return computation.apply(state);
+        }, published::add);
+    }
+
+    /**
+     * Ждет результат, равный ожидаемому; промежуточные результаты пропускаются
+     */
+    private List<Integer> awaitResult(List<Integer> expected) throws InterruptedException {
+        List<Integer> result = Collections.emptyList();
+        while (!result.equals(expected)) {
+            result = published.poll(10, TimeUnit.SECONDS);
+            if (result == null) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}